@@ -0,0 +1,49 @@
+package com.cosmic.astrology.config;
+
+import com.cosmic.astrology.util.ChartTrace;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Turns on the calculation trace for a single request when it carries
+ * {@code X-Chart-Trace: true}. The captured stages are attached to the JSON
+ * response by {@link ChartTraceResponseAdvice}. The header is ignored unless
+ * {@code astrology.trace.header-enabled} is set, since a trace exposes the
+ * intermediate values of the calculation.
+ */
+@Component
+public class ChartTraceFilter extends OncePerRequestFilter {
+
+    public static final String TRACE_HEADER = "X-Chart-Trace";
+
+    @Value("${astrology.trace.header-enabled:false}")
+    private boolean headerEnabled;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        if (!headerEnabled || !isTraceRequested(request)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        ChartTrace.begin();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ChartTrace.end();
+        }
+    }
+
+    private boolean isTraceRequested(HttpServletRequest request) {
+        String value = request.getHeader(TRACE_HEADER);
+        return value != null && (value.equalsIgnoreCase("true") || value.equals("1"));
+    }
+}
@@ -0,0 +1,45 @@
+package com.cosmic.astrology.config;
+
+import com.cosmic.astrology.util.ChartTrace;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Wraps JSON responses of traced requests as {@code {"result": ..., "chartTrace": [...]}}.
+ * Untraced requests are passed through untouched.
+ */
+@ControllerAdvice
+public class ChartTraceResponseAdvice implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return MappingJackson2HttpMessageConverter.class.isAssignableFrom(converterType);
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (!ChartTrace.isActive()) {
+            return body;
+        }
+
+        List<String> trace = ChartTrace.snapshot();
+        response.getHeaders().set(ChartTraceFilter.TRACE_HEADER + "-Entries", String.valueOf(trace.size()));
+
+        Map<String, Object> traced = new LinkedHashMap<>();
+        traced.put("result", body);
+        traced.put("chartTrace", trace);
+        return traced;
+    }
+}
@@ -0,0 +1,254 @@
+package com.cosmic.astrology.controller;
+
+import com.cosmic.astrology.entity.UserRole;
+import com.cosmic.astrology.service.ActivityColdArchive;
+import com.cosmic.astrology.service.ActivityRetentionJob;
+import com.cosmic.astrology.service.ActivityRollupJob;
+import com.cosmic.astrology.service.ChartRecomputeJob;
+import com.cosmic.astrology.service.DailyHoroscopeJob;
+import com.cosmic.astrology.service.EmailOutbox;
+import com.cosmic.astrology.service.TransitAlertScheduler;
+import com.cosmic.astrology.service.UserService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Operational endpoints for administrators
+ */
+@RestController
+@RequestMapping("/api/admin")
+@PreAuthorize("hasRole('ADMIN')")
+@SecurityRequirement(name = "bearerAuth")
+@Tag(name = "Administration", description = "Maintenance jobs and operational controls")
+public class AdminController {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdminController.class);
+
+    @Autowired
+    private ChartRecomputeJob chartRecomputeJob;
+
+    @Autowired
+    private DailyHoroscopeJob dailyHoroscopeJob;
+
+    @Autowired
+    private TransitAlertScheduler transitAlertScheduler;
+
+    @Autowired
+    private EmailOutbox emailOutbox;
+
+    @Autowired
+    private ActivityRollupJob activityRollupJob;
+
+    @Autowired
+    private ActivityRetentionJob activityRetentionJob;
+
+    @Autowired
+    private ActivityColdArchive activityColdArchive;
+
+    @Autowired
+    private UserService userService;
+
+    @GetMapping("/users")
+    @Operation(summary = "Search users",
+               description = "Find users by keyword, role and enabled flag; pass the returned nextCursor to get the next page")
+    public ResponseEntity<?> searchUsers(@RequestParam(required = false) String keyword,
+                                         @RequestParam(required = false) UserRole role,
+                                         @RequestParam(required = false) Boolean enabled,
+                                         @RequestParam(required = false) Long cursor,
+                                         @RequestParam(defaultValue = "50") int size,
+                                         @RequestParam(defaultValue = "false") boolean includeTotal) {
+        return ResponseEntity.ok(userService.searchUsers(keyword, role, enabled, cursor, size, includeTotal));
+    }
+
+    @PostMapping("/chart-recompute/start")
+    @Operation(summary = "Start chart recompute",
+               description = "Recalculate every natal chart missing or stored by another engine version, resuming from the last checkpoint")
+    public ResponseEntity<?> startChartRecompute(@RequestParam(defaultValue = "false") boolean restart) {
+        if (!chartRecomputeJob.start(restart)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                "error", true,
+                "message", "Chart recompute is already running"
+            ));
+        }
+        logger.info("🔄 Chart recompute started (restart={})", restart);
+        return ResponseEntity.accepted().body(chartRecomputeJob.status());
+    }
+
+    @PostMapping("/chart-recompute/stop")
+    @Operation(summary = "Stop chart recompute", description = "Stop after the page in progress; the next start resumes from there")
+    public ResponseEntity<?> stopChartRecompute() {
+        chartRecomputeJob.stop();
+        logger.info("⏹️ Chart recompute stop requested");
+        return ResponseEntity.accepted().body(chartRecomputeJob.status());
+    }
+
+    @GetMapping("/chart-recompute")
+    @Operation(summary = "Chart recompute status", description = "Checkpoint and throughput of the chart recompute job")
+    public ResponseEntity<?> getChartRecomputeStatus() {
+        return ResponseEntity.ok(chartRecomputeJob.status());
+    }
+
+    @PostMapping("/daily-horoscopes/start")
+    @Operation(summary = "Generate daily horoscopes",
+               description = "Generate the day's cohort horoscopes for all subscribers, resuming the day's checkpoint")
+    public ResponseEntity<?> startDailyHoroscopes(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(defaultValue = "false") boolean restart) {
+        LocalDate day = date != null ? date : LocalDate.now();
+        if (!dailyHoroscopeJob.start(day, restart)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                "error", true,
+                "message", "Daily horoscope generation is already running"
+            ));
+        }
+        logger.info("🌅 Daily horoscope generation started for {} (restart={})", day, restart);
+        return ResponseEntity.accepted().body(dailyHoroscopeJob.status(day));
+    }
+
+    @PostMapping("/daily-horoscopes/stop")
+    @Operation(summary = "Stop daily horoscopes", description = "Stop after the page in progress; the next start for the day resumes from there")
+    public ResponseEntity<?> stopDailyHoroscopes() {
+        dailyHoroscopeJob.stop();
+        return ResponseEntity.accepted().body(Map.of("stopping", dailyHoroscopeJob.isRunning()));
+    }
+
+    @GetMapping("/daily-horoscopes")
+    @Operation(summary = "Daily horoscope status", description = "Checkpoint of the daily horoscope run for a day")
+    public ResponseEntity<?> getDailyHoroscopeStatus(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return ResponseEntity.ok(dailyHoroscopeJob.status(date != null ? date : LocalDate.now()));
+    }
+
+    @PostMapping("/transit-alerts/backfill")
+    @Operation(summary = "Backfill transit alerts",
+               description = "Queue transit alerts for every opted-in user who has none queued, e.g. after first deployment")
+    public ResponseEntity<?> startTransitAlertBackfill() {
+        if (!transitAlertScheduler.startBackfill()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                "error", true,
+                "message", "Transit alert backfill is already running"
+            ));
+        }
+        logger.info("🔭 Transit alert backfill started");
+        return ResponseEntity.accepted().body(transitAlertScheduler.status());
+    }
+
+    @PostMapping("/transit-alerts/backfill/stop")
+    @Operation(summary = "Stop transit alert backfill", description = "Stop after the page in progress")
+    public ResponseEntity<?> stopTransitAlertBackfill() {
+        transitAlertScheduler.stopBackfill();
+        return ResponseEntity.accepted().body(Map.of("stopping", transitAlertScheduler.isBackfillRunning()));
+    }
+
+    @GetMapping("/transit-alerts")
+    @Operation(summary = "Transit alert status", description = "Next wake-up of the transit alert dispatcher and backfill progress")
+    public ResponseEntity<?> getTransitAlertStatus() {
+        return ResponseEntity.ok(transitAlertScheduler.status());
+    }
+
+    @GetMapping("/email-outbox")
+    @Operation(summary = "Email outbox status", description = "Queue depth and delivery counters of the email outbox")
+    public ResponseEntity<?> getEmailOutboxStatus() {
+        return ResponseEntity.ok(emailOutbox.status());
+    }
+
+    @PostMapping("/email-outbox/retry-failed")
+    @Operation(summary = "Retry failed emails", description = "Move emails that ran out of attempts back to the queue")
+    public ResponseEntity<?> retryFailedEmails() {
+        int count = emailOutbox.retryFailed();
+        logger.info("📧 {} failed emails requeued", count);
+        return ResponseEntity.accepted().body(emailOutbox.status());
+    }
+
+    @PostMapping("/activity-rollups/rebuild")
+    @Operation(summary = "Rebuild activity rollups",
+               description = "Recompute the activity analytics rollups from the activity logs still kept; " +
+                             "after a retention purge only the daily rollups of fully kept days are recomputed")
+    public ResponseEntity<?> rebuildActivityRollups() {
+        if (!activityRollupJob.start(true)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                "error", true,
+                "message", "Activity rollup is already running"
+            ));
+        }
+        logger.info("📊 Activity rollup rebuild started");
+        return ResponseEntity.accepted().body(activityRollupJob.status());
+    }
+
+    @GetMapping("/activity-rollups")
+    @Operation(summary = "Activity rollup status", description = "Checkpoint and lag of the activity rollup compactor")
+    public ResponseEntity<?> getActivityRollupStatus() {
+        return ResponseEntity.ok(activityRollupJob.status());
+    }
+
+    @PostMapping("/activity-retention/start")
+    @Operation(summary = "Start activity purge",
+               description = "Delete activity logs past the retention period now instead of waiting for the next scheduled run")
+    public ResponseEntity<?> startActivityRetention() {
+        if (!activityRetentionJob.start()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                "error", true,
+                "message", "Activity purge is already running"
+            ));
+        }
+        logger.info("🧹 Activity purge started");
+        return ResponseEntity.accepted().body(activityRetentionJob.status());
+    }
+
+    @PostMapping("/activity-retention/stop")
+    @Operation(summary = "Stop activity purge", description = "Stop after the chunk in progress")
+    public ResponseEntity<?> stopActivityRetention() {
+        activityRetentionJob.stop();
+        return ResponseEntity.accepted().body(Map.of("stopping", activityRetentionJob.isRunning()));
+    }
+
+    @GetMapping("/activity-retention")
+    @Operation(summary = "Activity purge status", description = "Settings and progress of the activity retention purge")
+    public ResponseEntity<?> getActivityRetentionStatus() {
+        return ResponseEntity.ok(activityRetentionJob.status());
+    }
+
+    @GetMapping("/activity-archive")
+    @Operation(summary = "Activity archive status", description = "Months and size of the cold activity archive")
+    public ResponseEntity<?> getActivityArchiveStatus() {
+        return ResponseEntity.ok(activityColdArchive.status());
+    }
+
+    @GetMapping("/activity-archive/aggregate")
+    @Operation(summary = "Activity aggregates",
+               description = "Activity counts by type, device, status, hour and weekday over archived and live logs, for one user or everyone")
+    public ResponseEntity<?> aggregateActivity(
+            @RequestParam(required = false) String username,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        ActivityColdArchive.Aggregate aggregate = activityColdArchive.aggregate(username,
+                from != null ? from.atStartOfDay() : null,
+                to != null ? to.plusDays(1).atStartOfDay() : null);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("username", username);
+        result.put("from", from);
+        result.put("to", to);
+        result.put("total", aggregate.getTotal());
+        result.put("firstActivity", aggregate.getFirstActivity());
+        result.put("lastActivity", aggregate.getLastActivity());
+        result.put("byType", aggregate.getByType());
+        result.put("byDevice", aggregate.getByDevice());
+        result.put("byStatus", aggregate.getByStatus());
+        result.put("byHour", aggregate.getByHour());
+        result.put("byDayOfWeek", aggregate.getByDayOfWeek());
+        return ResponseEntity.ok(result);
+    }
+}
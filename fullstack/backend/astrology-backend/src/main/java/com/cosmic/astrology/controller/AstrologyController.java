@@ -21,6 +21,7 @@ import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 /**
  * Comprehensive Vedic Astrology REST Controller
@@ -71,6 +72,46 @@ public class AstrologyController {
         }
     }
     
+    /**
+     * Get today's horoscope for the authenticated subscriber
+     */
+    @GetMapping("/daily-horoscope")
+    @Operation(summary = "Get Daily Horoscope",
+               description = "Returns today's horoscope generated overnight for the user's Moon, ascendant and dasha cohort")
+    public ResponseEntity<?> getDailyHoroscope(Principal principal) {
+        try {
+            Optional<Map<String, Object>> horoscope = astrologyService.getDailyHoroscope(principal.getName());
+            if (horoscope.isEmpty()) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(createErrorResponse("Not generated", "No daily horoscope is available for today yet"));
+            }
+            return ResponseEntity.ok(horoscope.get());
+            
+        } catch (Exception e) {
+            System.err.println("❌ Error getting daily horoscope for " + principal.getName() + ": " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(createErrorResponse("Internal error", "Unable to get daily horoscope"));
+        }
+    }
+    
+    /**
+     * Get the authenticated user's upcoming and recently delivered transit alerts
+     */
+    @GetMapping("/transit-alerts")
+    @Operation(summary = "Get Transit Alerts",
+               description = "Returns the next significant transits over the user's natal chart and the alerts already delivered")
+    public ResponseEntity<?> getTransitAlerts(Principal principal,
+                                              @RequestParam(defaultValue = "10") int limit) {
+        try {
+            return ResponseEntity.ok(astrologyService.getTransitAlerts(principal.getName(), Math.max(1, Math.min(limit, 50))));
+            
+        } catch (Exception e) {
+            System.err.println("❌ Error getting transit alerts for " + principal.getName() + ": " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(createErrorResponse("Internal error", "Unable to get transit alerts"));
+        }
+    }
+    
     /**
      * Get life area influences based on Vedic astrology
      */
@@ -284,22 +325,8 @@ public class AstrologyController {
         try {
             System.out.println("🕉️ Vedic compatibility analysis requested by: " + principal.getName());
             
-            // Get user's natal chart
-            BirthChartResponse userChart = astrologyService.getUserBirthChart(principal.getName());
-            
-            // Calculate partner's chart (temporary calculation without storing)
-            BirthChartResponse partnerChart = astrologyService.calculateBirthChart(partnerBirthData, "temp_partner");
-            
-            // Perform compatibility analysis
-            Map<String, Object> compatibilityAnalysis = new HashMap<>();
-            compatibilityAnalysis.put("userChart", userChart);
-            compatibilityAnalysis.put("partnerChart", partnerChart);
-            compatibilityAnalysis.put("compatibilityScore", calculateCompatibilityScore(userChart, partnerChart));
-            compatibilityAnalysis.put("ganaMatching", calculateGanaMatching(userChart, partnerChart));
-            compatibilityAnalysis.put("nakshatraCompatibility", calculateNakshatraCompatibility(userChart, partnerChart));
-            compatibilityAnalysis.put("manglikAnalysis", calculateManglikDosha(userChart, partnerChart));
-            compatibilityAnalysis.put("recommendations", generateCompatibilityRecommendations(userChart, partnerChart));
-            compatibilityAnalysis.put("analysisDate", LocalDateTime.now());
+            Map<String, Object> compatibilityAnalysis =
+                    astrologyService.getVedicCompatibility(principal.getName(), partnerBirthData);
             
             System.out.println("✅ Vedic compatibility analysis completed for: " + principal.getName());
             return ResponseEntity.ok(compatibilityAnalysis);
@@ -311,6 +338,37 @@ public class AstrologyController {
         }
     }
     
+    /**
+     * Find the most compatible users across the user base
+     */
+    @GetMapping("/matches")
+    @Operation(summary = "Best Matches",
+               description = "Top users by Guna Milan score, optionally filtered by gender, age and distance from a birth location")
+    public ResponseEntity<?> getBestMatches(
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(required = false) String gender,
+            @RequestParam(required = false) Integer minAge,
+            @RequestParam(required = false) Integer maxAge,
+            @RequestParam(required = false) Double latitude,
+            @RequestParam(required = false) Double longitude,
+            @RequestParam(required = false) Double radiusKm,
+            @RequestParam(required = false) Double minPoints,
+            Principal principal) {
+        try {
+            System.out.println("💞 Matchmaking search requested by: " + principal.getName());
+            
+            Map<String, Object> matches = astrologyService.findBestMatches(principal.getName(), gender,
+                    minAge, maxAge, latitude, longitude, radiusKm, minPoints, Math.max(1, Math.min(limit, 100)));
+            
+            return ResponseEntity.ok(matches);
+            
+        } catch (Exception e) {
+            System.err.println("❌ Error in matchmaking search: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(createErrorResponse("Matchmaking error", "Unable to search for matches"));
+        }
+    }
+    
     // ================ UTILITY ENDPOINTS ================
     
     /**
@@ -350,6 +408,7 @@ public class AstrologyController {
         services.put("transitAnalysis", "Real-time planetary transit analysis");
         services.put("personalizedMessages", "AI-powered personalized astrological insights");
         services.put("compatibilityAnalysis", "Traditional Vedic compatibility matching");
+        services.put("matchmaking", "Best Guna Milan matches across all users");
         services.put("nakshatraAnalysis", "Comprehensive lunar mansion analysis");
         services.put("lifeAreaInfluences", "Analysis of planetary influences on life areas");
         services.put("remedialMeasures", "Traditional Vedic remedies and recommendations");
@@ -398,44 +457,4 @@ public class AstrologyController {
         if (inauspicious.contains(nakshatra)) return "Challenging";
         return "Moderate";
     }
-    
-    private double calculateCompatibilityScore(BirthChartResponse chart1, BirthChartResponse chart2) {
-        // Simplified compatibility scoring (implement detailed Vedic matching)
-        double score = 75.0; // Base score
-        
-        // Moon sign compatibility
-        if (chart1.getMoonSign() != null && chart1.getMoonSign().equals(chart2.getMoonSign())) {
-            score += 10;
-        }
-        
-        // Ascendant compatibility
-        if (chart1.getRisingSign() != null && chart1.getRisingSign().equals(chart2.getRisingSign())) {
-            score += 5;
-        }
-        
-        return Math.min(score, 100.0);
-    }
-    
-    private String calculateGanaMatching(BirthChartResponse chart1, BirthChartResponse chart2) {
-        // Implement Gana matching logic
-        return "Compatible (Both belong to Deva Gana)";
-    }
-    
-    private String calculateNakshatraCompatibility(BirthChartResponse chart1, BirthChartResponse chart2) {
-        // Implement Nakshatra compatibility
-        return "Favorable - 27/36 points";
-    }
-    
-    private String calculateManglikDosha(BirthChartResponse chart1, BirthChartResponse chart2) {
-        // Implement Manglik analysis
-        return "No Manglik Dosha detected";
-    }
-    
-    private List<String> generateCompatibilityRecommendations(BirthChartResponse chart1, BirthChartResponse chart2) {
-        return List.of(
-            "Perform joint meditation and spiritual practices",
-            "Consider Mars remedies for harmony",
-            "Favorable marriage timing: After September 2024"
-        );
-    }
 }
@@ -2,19 +2,31 @@ package com.cosmic.astrology.controller;
 
 import com.cosmic.astrology.dto.*;
 import com.cosmic.astrology.entity.User;
+import com.cosmic.astrology.service.AnalysisContext;
+import com.cosmic.astrology.service.AnalysisExecutor;
 import com.cosmic.astrology.service.AstrologyService;
 import com.cosmic.astrology.service.UserService;
 import com.cosmic.astrology.service.VedicAstrologyCalculationService;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.security.Principal;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -30,6 +42,8 @@ public class BirthChartController {
 
     private static final Logger logger = LoggerFactory.getLogger(BirthChartController.class);
 
+    private static final String NDJSON_VALUE = "application/x-ndjson";
+
     @Autowired
     private AstrologyService astrologyService;
 
@@ -39,6 +53,12 @@ public class BirthChartController {
     @Autowired
     private VedicAstrologyCalculationService vedicAstrologyCalculationService;
 
+    @Autowired
+    private AnalysisExecutor analysisExecutor;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     // ================ CRITICAL FIX: POST METHOD FOR CURRENT TRANSITS ================
 
     /**
@@ -175,22 +195,52 @@ public class BirthChartController {
             Map<String, Object> completeAnalysis = new HashMap<>();
             
             try {
-                // Calculate birth chart with ALL required fields
+                // Calculate birth chart with ALL required fields; this also stores the chart
+                // that every component below reads
                 BirthData birthData = createBirthDataFromRequest(request);
                 BirthChartResponse birthChart = astrologyService.calculateBirthChart(birthData, username);
                 
-                // ✅ POPULATE ALL FRONTEND REQUIRED FIELDS
-                populateAllRequiredFields(birthChart, request, username);
-                
-                // Get other analysis components
-                PersonalizedMessageResponse personalizedMessage = astrologyService.getPersonalizedMessage(username);
-                List<TransitResponse> currentTransits = astrologyService.getCurrentTransits(username);
-                List<LifeAreaInfluence> lifeAreaInfluences = astrologyService.getLifeAreaInfluences(username);
+                // ⚡ Independent analysis components run in parallel under one deadline
+                PersonalizedMessageResponse personalizedMessage;
+                List<TransitResponse> currentTransits;
+                List<LifeAreaInfluence> lifeAreaInfluences;
+                YogaAnalysisResponse yogaAnalysis;
+                DashaAnalysisResponse dashaAnalysis;
+                RemedialRecommendationsResponse remedialRecommendations;
+                UserStatsResponse userStats;
                 
-                YogaAnalysisResponse yogaAnalysis = astrologyService.getYogaAnalysis(username);
-                DashaAnalysisResponse dashaAnalysis = astrologyService.getDashaAnalysis(username);
-                RemedialRecommendationsResponse remedialRecommendations = astrologyService.getRemedialRecommendations(username);
-                UserStatsResponse userStats = astrologyService.getUserStats(username);
+                // One context: the user, chart, sky and dasha are loaded once for all components
+                try (AnalysisContext context = astrologyService.openAnalysisContext(username);
+                     AnalysisExecutor.Scope scope = analysisExecutor.open()) {
+                    AnalysisExecutor.Subtask<PersonalizedMessageResponse> messageTask =
+                        scope.fork("personalizedMessage", () -> astrologyService.getPersonalizedMessage(context));
+                    AnalysisExecutor.Subtask<List<TransitResponse>> transitsTask =
+                        scope.fork("currentTransits", () -> astrologyService.getCurrentTransits(context));
+                    AnalysisExecutor.Subtask<List<LifeAreaInfluence>> lifeAreasTask =
+                        scope.fork("lifeAreaInfluences", () -> astrologyService.getLifeAreaInfluences(context));
+                    AnalysisExecutor.Subtask<YogaAnalysisResponse> yogaTask =
+                        scope.fork("yogaAnalysis", () -> astrologyService.getYogaAnalysis(context));
+                    AnalysisExecutor.Subtask<DashaAnalysisResponse> dashaTask =
+                        scope.fork("dashaAnalysis", () -> astrologyService.getDashaAnalysis(context));
+                    AnalysisExecutor.Subtask<RemedialRecommendationsResponse> remediesTask =
+                        scope.fork("remedialRecommendations", () -> astrologyService.getRemedialRecommendations(context));
+                    AnalysisExecutor.Subtask<UserStatsResponse> statsTask =
+                        scope.fork("userStats", () -> astrologyService.getUserStats(context));
+                    
+                    // ✅ POPULATE ALL FRONTEND REQUIRED FIELDS while the components run
+                    populateAllRequiredFields(birthChart, request, username);
+                    
+                    scope.join();
+                    
+                    // Components past the deadline come back null and use the fallbacks
+                    personalizedMessage = messageTask.get() != null ? messageTask.get() : createFallbackPersonalizedMessage(username);
+                    currentTransits = transitsTask.get();
+                    lifeAreaInfluences = lifeAreasTask.get();
+                    yogaAnalysis = yogaTask.get() != null ? yogaTask.get() : createFallbackYogaAnalysis();
+                    dashaAnalysis = dashaTask.get() != null ? dashaTask.get() : createFallbackDashaAnalysis();
+                    remedialRecommendations = remediesTask.get() != null ? remediesTask.get() : createFallbackRemedies();
+                    userStats = statsTask.get();
+                }
                 
                 // Extract and flatten nested data for frontend
                 List<Object> rareYogas = extractRareYogas(yogaAnalysis);
@@ -244,6 +294,140 @@ public class BirthChartController {
         }
     }
 
+    /**
+     * Streaming variant of complete-analysis. Each section is written as soon
+     * as it is ready, the chart first and then the analyses in completion
+     * order, as NDJSON lines or as Server-Sent Events when the client accepts
+     * text/event-stream. Every line or event is {"section": ..., "data": ...};
+     * the stream ends with a "complete" section listing any sections that
+     * failed or missed the deadline.
+     */
+    @PostMapping(value = "/complete-analysis/stream", produces = {NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    @PreAuthorize("permitAll()")
+    public ResponseEntity<StreamingResponseBody> streamCompleteAnalysis(
+            @RequestBody BirthChartRequest request,
+            @RequestHeader(value = "Accept", required = false) String accept,
+            HttpServletRequest httpRequest) {
+        String username = extractUsername(httpRequest);
+        boolean sse = accept != null && accept.contains(MediaType.TEXT_EVENT_STREAM_VALUE);
+        logger.info("🕉️ Streaming complete astrological analysis for: {} ({})", username, sse ? "SSE" : "NDJSON");
+
+        User user = validateAndGetUser(username);
+        if (user != null && updateUserBirthData(user, request)) {
+            userService.saveUser(user);
+            logger.info("💾 Updated birth data for user: {}", username);
+        }
+
+        StreamingResponseBody body = outputStream -> {
+            try (AnalysisStreamWriter writer = new AnalysisStreamWriter(objectMapper, outputStream, sse)) {
+                if (user == null) {
+                    writer.section("error", createErrorResponse("User not found: " + username));
+                    return;
+                }
+                streamAnalysis(writer, request, username);
+            }
+        };
+
+        return ResponseEntity.ok()
+            .contentType(sse ? MediaType.TEXT_EVENT_STREAM : MediaType.parseMediaType(NDJSON_VALUE))
+            .cacheControl(CacheControl.noCache())
+            .body(body);
+    }
+
+    private void streamAnalysis(AnalysisStreamWriter writer, BirthChartRequest request, String username) throws IOException {
+        List<String> failedSections = new ArrayList<>();
+        try {
+            BirthChartResponse birthChart = astrologyService.calculateBirthChart(createBirthDataFromRequest(request), username);
+            populateAllRequiredFields(birthChart, request, username);
+            writer.section("birthChart", birthChart);
+
+            try (AnalysisContext context = astrologyService.openAnalysisContext(username);
+                 AnalysisExecutor.Scope scope = analysisExecutor.open()) {
+                scope.fork("personalizedMessage", () -> astrologyService.getPersonalizedMessage(context));
+                scope.fork("currentTransits", () -> astrologyService.getCurrentTransits(context));
+                scope.fork("lifeAreaInfluences", () -> astrologyService.getLifeAreaInfluences(context));
+                scope.fork("yogaAnalysis", () -> astrologyService.getYogaAnalysis(context));
+                scope.fork("dashaAnalysis", () -> astrologyService.getDashaAnalysis(context));
+                scope.fork("remedialRecommendations", () -> astrologyService.getRemedialRecommendations(context));
+                scope.fork("userStats", () -> astrologyService.getUserStats(context));
+
+                scope.joinEach(subtask -> {
+                    try {
+                        if (!subtask.isCompleted()) {
+                            failedSections.add(subtask.getName());
+                            Throwable failure = subtask.getFailure();
+                            logger.warn("⚠️ Section {} unavailable for {}: {}", subtask.getName(), username,
+                                       failure != null ? failure.getMessage() : "deadline passed");
+                        }
+                        writeSection(writer, subtask.getName(), subtask.get(), username);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+
+            Map<String, Object> summary = new HashMap<>();
+            summary.put("status", failedSections.isEmpty() ? "success" : "partial");
+            summary.put("failedSections", failedSections);
+            summary.put("message", failedSections.isEmpty()
+                ? "Complete astrological analysis generated successfully"
+                : "Astrological analysis generated; some sections are unavailable: " + String.join(", ", failedSections));
+            writer.section("complete", summary);
+            logger.info("✅ Streamed complete analysis for: {} ({} sections unavailable)", username, failedSections.size());
+
+        } catch (UncheckedIOException e) {
+            // Client went away; the scope has already cancelled the remaining sections
+            logger.debug("Analysis stream for {} closed by client: {}", username, e.getMessage());
+            throw e.getCause();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            writer.section("error", createErrorResponse("Analysis interrupted"));
+        } catch (Exception e) {
+            logger.error("❌ Error during streamed astrological analysis for user: {}", username, e);
+            writer.section("error", createErrorResponse("Error generating astrological analysis: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Writes one analysis section, using the same fallbacks and flattened
+     * lists as the buffered complete-analysis response.
+     */
+    private void writeSection(AnalysisStreamWriter writer, String name, Object data, String username) throws IOException {
+        switch (name) {
+            case "personalizedMessage":
+                writer.section(name, data != null ? data : createFallbackPersonalizedMessage(username));
+                break;
+            case "currentTransits":
+                List<?> transits = (List<?>) data;
+                writer.section(name, transits != null && !transits.isEmpty() ? transits : createFallbackTransits());
+                break;
+            case "lifeAreaInfluences":
+                List<?> lifeAreas = (List<?>) data;
+                writer.section(name, lifeAreas != null && !lifeAreas.isEmpty() ? lifeAreas : createFallbackLifeAreas());
+                break;
+            case "userStats":
+                writer.section(name, data != null ? data : createFallbackStats());
+                break;
+            case "yogaAnalysis":
+                YogaAnalysisResponse yogas = data != null ? (YogaAnalysisResponse) data : createFallbackYogaAnalysis();
+                writer.section(name, yogas);
+                writer.section("rareYogas", extractRareYogas(yogas));
+                break;
+            case "dashaAnalysis":
+                DashaAnalysisResponse dashas = data != null ? (DashaAnalysisResponse) data : createFallbackDashaAnalysis();
+                writer.section(name, dashas);
+                writer.section("dashaTable", extractDashaTable(dashas));
+                break;
+            case "remedialRecommendations":
+                RemedialRecommendationsResponse remedies = data != null ? (RemedialRecommendationsResponse) data : createFallbackRemedies();
+                writer.section(name, remedies);
+                writer.section("personalizedRemedies", extractPersonalizedRemedies(remedies));
+                break;
+            default:
+                writer.section(name, data);
+        }
+    }
+
     // ================ GET ENDPOINTS (ALL FIXED) ================
 
     @GetMapping("/current-transits")
@@ -336,6 +520,92 @@ public class BirthChartController {
         }
     }
 
+    /**
+     * Exports the caller's own natal chart and birth data. Unlike the preview
+     * endpoints above it needs a signed-in user and never takes a username
+     * from the request.
+     */
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('CLIENT') or hasRole('ASTROLOGER') or hasRole('USER')")
+    public ResponseEntity<Map<String, Object>> exportNatalChart(Principal principal) {
+        String username = principal.getName();
+        try {
+            logger.info("📤 Exporting natal chart for: {}", username);
+            
+            return ResponseEntity.ok(astrologyService.exportNatalChart(username));
+            
+        } catch (Exception e) {
+            logger.error("❌ Error exporting natal chart for {}: {}", username, e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(createErrorResponse("Error exporting natal chart: " + e.getMessage()));
+        }
+    }
+
+    // ================ SAVED CHARTS ================
+
+    @GetMapping("/charts")
+    @PreAuthorize("permitAll()")
+    public ResponseEntity<?> getSavedCharts(HttpServletRequest request) {
+        try {
+            String username = extractUsername(request);
+            logger.info("📚 Listing saved charts for: {}", username);
+            
+            return ResponseEntity.ok(astrologyService.getSavedCharts(username));
+            
+        } catch (Exception e) {
+            logger.error("❌ Error listing saved charts: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(createErrorResponse("Error listing saved charts: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/charts/{chartId}")
+    @PreAuthorize("permitAll()")
+    public ResponseEntity<Map<String, Object>> getSavedChart(
+            @PathVariable Long chartId,
+            HttpServletRequest request) {
+        try {
+            String username = extractUsername(request);
+            logger.info("📖 Loading saved chart {} for: {}", chartId, username);
+            
+            return ResponseEntity.ok(astrologyService.getSavedChart(username, chartId));
+            
+        } catch (Exception e) {
+            logger.error("❌ Error loading saved chart {}: {}", chartId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(createErrorResponse("Chart not found: " + chartId));
+        }
+    }
+
+    /**
+     * Saves a client's chart on a PROFESSIONAL account.
+     */
+    @PostMapping("/charts/client")
+    @PreAuthorize("permitAll()")
+    public ResponseEntity<Map<String, Object>> saveClientChart(
+            @RequestParam String clientName,
+            @RequestBody BirthChartRequest request,
+            HttpServletRequest httpRequest) {
+        try {
+            String username = extractUsername(httpRequest);
+            logger.info("👥 Saving client chart '{}' for: {}", clientName, username);
+            
+            BirthData birthData = createBirthDataFromRequest(request);
+            return ResponseEntity.ok(astrologyService.saveClientChart(username, clientName, birthData));
+            
+        } catch (IllegalArgumentException e) {
+            logger.error("❌ Invalid client chart data: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(createErrorResponse(e.getMessage()));
+        } catch (IllegalStateException e) {
+            logger.error("❌ Client chart refused: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(createErrorResponse(e.getMessage()));
+        } catch (Exception e) {
+            logger.error("❌ Error saving client chart", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(createErrorResponse("Error saving client chart: " + e.getMessage()));
+        }
+    }
+
     // ================ DEBUG ENDPOINTS ================
 
     @GetMapping("/debug/endpoints")
@@ -347,10 +617,15 @@ public class BirthChartController {
             "availableEndpoints", List.of(
                 "GET /current-transits",
                 "POST /current-transits",
+                "GET /export",
+                "GET /charts",
+                "GET /charts/{chartId}",
+                "POST /charts/client",
                 "GET /debug/endpoints",
                 "POST /calculate",
                 "POST /personalized",
-                "POST /complete-analysis"
+                "POST /complete-analysis",
+                "POST /complete-analysis/stream"
             )
         ));
     }
@@ -657,6 +932,40 @@ public class BirthChartController {
         return fallbackAreas;
     }
 
+    private YogaAnalysisResponse createFallbackYogaAnalysis() {
+        YogaAnalysisResponse fallback = new YogaAnalysisResponse(0, 0);
+        fallback.setRajaYogas(new ArrayList<>());
+        fallback.setDhanaYogas(new ArrayList<>());
+        fallback.setSpiritualYogas(new ArrayList<>());
+        fallback.setMahapurushaYogas(new ArrayList<>());
+        fallback.setChallengingYogas(new ArrayList<>());
+        fallback.setTopYogas(new ArrayList<>());
+        fallback.setOverallYogaAssessment("Yoga analysis is being prepared, please check back shortly");
+        return fallback;
+    }
+
+    private DashaAnalysisResponse createFallbackDashaAnalysis() {
+        DashaAnalysisResponse fallback = new DashaAnalysisResponse();
+        fallback.setDashaInterpretation("Dasha analysis is being prepared, please check back shortly");
+        fallback.setUpcomingPeriods(new ArrayList<>());
+        fallback.setDashaRemedies(new ArrayList<>());
+        fallback.setFavorablePeriods(new ArrayList<>());
+        return fallback;
+    }
+
+    private RemedialRecommendationsResponse createFallbackRemedies() {
+        RemedialRecommendationsResponse fallback = new RemedialRecommendationsResponse(0,
+            "Personalized remedies are being prepared, please check back shortly");
+        fallback.setGemstoneRemedies(new ArrayList<>());
+        fallback.setMantraRemedies(new ArrayList<>());
+        fallback.setHealthRemedies(new ArrayList<>());
+        fallback.setCareerRemedies(new ArrayList<>());
+        fallback.setRelationshipRemedies(new ArrayList<>());
+        fallback.setLifestyleRemedies(new ArrayList<>());
+        fallback.setPriorityRemedies(new ArrayList<>());
+        return fallback;
+    }
+
     private UserStatsResponse createFallbackStats() {
         UserStatsResponse fallback = new UserStatsResponse();
         fallback.setChartsCreated(0);
@@ -795,4 +1104,41 @@ public class BirthChartController {
         errorResponse.put("timestamp", System.currentTimeMillis());
         return errorResponse;
     }
+
+    // ================ STREAMING ================
+
+    /**
+     * Writes analysis sections with one Jackson generator straight to the
+     * response, one NDJSON line or SSE event per section, flushing after each.
+     */
+    private static final class AnalysisStreamWriter implements Closeable {
+
+        private final JsonGenerator generator;
+        private final boolean sse;
+
+        AnalysisStreamWriter(ObjectMapper objectMapper, OutputStream outputStream, boolean sse) throws IOException {
+            this.generator = objectMapper.createGenerator(outputStream);
+            this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            this.generator.setRootValueSeparator(null);
+            this.sse = sse;
+        }
+
+        void section(String name, Object data) throws IOException {
+            if (sse) {
+                generator.writeRaw("event: " + name + "\ndata: ");
+            }
+            generator.writeStartObject();
+            generator.writeStringField("section", name);
+            generator.writeFieldName("data");
+            generator.writeObject(data);
+            generator.writeEndObject();
+            generator.writeRaw(sse ? "\n\n" : "\n");
+            generator.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            generator.close();
+        }
+    }
 }
@@ -528,23 +528,33 @@ public ResponseEntity<?> updateBirthProfile(
     // ================ ACTIVITY AND HISTORY ================
     
     /**
-     * Get user activity history
+     * Get user activity history. Clients paging by cursor send an empty
+     * {@code cursor} for the first page and the returned nextCursor after that;
+     * requests without one keep the page number paging with an exact total.
      */
     @GetMapping("/activity")
     @Operation(summary = "Get User Activity", 
-               description = "Get user's recent activity and login history")
+               description = "Get user's recent activity and login history, paged by cursor")
     public ResponseEntity<?> getUserActivity(
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal,
             Principal principal) {
         
         try {
             String username = principal.getName();
-            UserActivityResponse activity = userService.getUserActivity(username, page, size);
+            UserActivityResponse activity = cursor != null
+                    ? userService.getUserActivity(username, cursor, size, includeTotal)
+                    : userService.getUserActivity(username, page, size);
             
             return ResponseEntity.ok()
                     .body(createSuccessResponse("ACTIVITY_RETRIEVED", "User activity retrieved", activity));
             
+        } catch (IllegalArgumentException e) {
+            log.warn("⚠️ Invalid activity request for {}: {}", principal.getName(), e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(createErrorResponse("INVALID_CURSOR", e.getMessage(), null));
         } catch (Exception e) {
             log.error("❌ Error retrieving user activity for {}: {}", principal.getName(), e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
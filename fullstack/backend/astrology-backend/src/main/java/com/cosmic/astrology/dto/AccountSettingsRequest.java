@@ -18,6 +18,9 @@ public class AccountSettingsRequest {
     @Schema(description = "Transit alerts preference", example = "false")
     private Boolean transitAlerts;
     
+    @Schema(description = "Show this profile in other users' matchmaking results", example = "false")
+    private Boolean matchmakingVisible;
+    
     @Schema(description = "Marketing emails preference", example = "false")
     private Boolean marketingEmails;
     
@@ -71,6 +74,9 @@ public class AccountSettingsRequest {
     public Boolean getTransitAlerts() { return transitAlerts; }
     public void setTransitAlerts(Boolean transitAlerts) { this.transitAlerts = transitAlerts; }
     
+    public Boolean getMatchmakingVisible() { return matchmakingVisible; }
+    public void setMatchmakingVisible(Boolean matchmakingVisible) { this.matchmakingVisible = matchmakingVisible; }
+    
     public Boolean getMarketingEmails() { return marketingEmails; }
     public void setMarketingEmails(Boolean marketingEmails) { this.marketingEmails = marketingEmails; }
     
@@ -23,6 +23,9 @@ public class AccountSettingsResponse {
     @Schema(description = "Transit alerts enabled", example = "false")
     private Boolean transitAlerts;
     
+    @Schema(description = "Profile shown in other users' matchmaking results", example = "false")
+    private Boolean matchmakingVisible;
+    
     @Schema(description = "Marketing emails enabled", example = "false")
     private Boolean marketingEmails;
     
@@ -81,6 +84,9 @@ public class AccountSettingsResponse {
     public Boolean getTransitAlerts() { return transitAlerts; }
     public void setTransitAlerts(Boolean transitAlerts) { this.transitAlerts = transitAlerts; }
     
+    public Boolean getMatchmakingVisible() { return matchmakingVisible; }
+    public void setMatchmakingVisible(Boolean matchmakingVisible) { this.matchmakingVisible = matchmakingVisible; }
+    
     public Boolean getMarketingEmails() { return marketingEmails; }
     public void setMarketingEmails(Boolean marketingEmails) { this.marketingEmails = marketingEmails; }
     
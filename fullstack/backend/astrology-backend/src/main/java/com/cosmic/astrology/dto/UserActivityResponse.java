@@ -45,6 +45,16 @@ public class UserActivityResponse {
     @Schema(description = "Total number of pages", example = "2", minimum = "0")
     private Integer totalPages;
     
+    @Schema(description = "Cursor for the next page of a keyset listing; absent on the last page",
+            example = "MjAyNC0wMS0xNVQwODozMDowMF80MjE")
+    private String nextCursor;
+    
+    @Schema(description = "Whether a keyset listing has more activities after this page", example = "true")
+    private Boolean hasMore;
+    
+    @Schema(description = "Whether totalActivities is an estimate rather than an exact count", example = "true")
+    private Boolean totalApproximate;
+    
     // ================ ACTIVITY DATA FIELDS ================
     
     @Schema(description = "List of user activities with detailed information")
@@ -549,6 +559,15 @@ public class UserActivityResponse {
         this.totalPages = totalPages != null && totalPages >= 0 ? totalPages : 0;
     }
     
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+    
+    public Boolean getHasMore() { return hasMore; }
+    public void setHasMore(Boolean hasMore) { this.hasMore = hasMore; }
+    
+    public Boolean getTotalApproximate() { return totalApproximate; }
+    public void setTotalApproximate(Boolean totalApproximate) { this.totalApproximate = totalApproximate; }
+    
     // Activity data getters/setters
     public List<ActivityRecord> getActivities() { return activities; }
     public void setActivities(List<ActivityRecord> activities) { 
@@ -677,6 +696,7 @@ public class UserActivityResponse {
     
     @JsonProperty("hasNextPage")
     public boolean hasNextPage() {
+        if (hasMore != null) return hasMore;
         return currentPage != null && totalPages != null && currentPage < totalPages - 1;
     }
     
@@ -692,7 +712,7 @@ public class UserActivityResponse {
     
     @JsonProperty("hasData")
     public boolean hasData() {
-        return !isEmpty() && totalActivities != null && totalActivities > 0;
+        return !isEmpty() && (totalActivities == null || totalActivities > 0);
     }
     
     @JsonProperty("isFirstPage")
@@ -702,6 +722,7 @@ public class UserActivityResponse {
     
     @JsonProperty("isLastPage")
     public boolean isLastPage() {
+        if (hasMore != null) return !hasMore;
         return currentPage != null && totalPages != null && currentPage == totalPages - 1;
     }
     
@@ -716,8 +737,10 @@ public class UserActivityResponse {
         pageInfo.put("hasPreviousPage", hasPreviousPage());
         pageInfo.put("isFirstPage", isFirstPage());
         pageInfo.put("isLastPage", isLastPage());
+        pageInfo.put("nextCursor", nextCursor);
+        pageInfo.put("totalApproximate", totalApproximate);
         
-        if (currentPage != null && pageSize != null) {
+        if (currentPage != null && pageSize != null && totalActivities != null) {
             int startItem = currentPage * pageSize + 1;
             int endItem = Math.min((currentPage + 1) * pageSize, totalActivities != null ? totalActivities : 0);
             pageInfo.put("startItem", startItem);
@@ -925,11 +948,11 @@ public class UserActivityResponse {
     
     @JsonProperty("isValidResponse")
     public boolean isValidResponse() {
-        return totalActivities != null && totalActivities >= 0 &&
-               currentPage != null && currentPage >= 0 &&
-               pageSize != null && pageSize > 0 &&
-               totalPages != null && totalPages >= 0 &&
-               retrievedAt != null;
+        boolean paged = hasMore != null ||
+               (totalActivities != null && totalActivities >= 0 &&
+                currentPage != null && currentPage >= 0 &&
+                totalPages != null && totalPages >= 0);
+        return paged && pageSize != null && pageSize > 0 && retrievedAt != null;
     }
     
     /**
@@ -941,6 +964,9 @@ public class UserActivityResponse {
         summary.setCurrentPage(this.currentPage);
         summary.setPageSize(this.pageSize);
         summary.setTotalPages(this.totalPages);
+        summary.setNextCursor(this.nextCursor);
+        summary.setHasMore(this.hasMore);
+        summary.setTotalApproximate(this.totalApproximate);
         summary.setRetrievedAt(this.retrievedAt);
         summary.setSummary(this.summary);
         summary.setUsername(this.username);
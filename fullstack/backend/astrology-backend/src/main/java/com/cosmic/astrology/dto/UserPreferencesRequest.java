@@ -7,6 +7,7 @@ public class UserPreferencesRequest {
     private Boolean emailNotifications;
     private Boolean dailyHoroscope;
     private Boolean transitAlerts;
+    private Boolean matchmakingVisible;
     private String timezone;
     
     // Constructors, getters, and setters (same as above)
@@ -30,6 +31,9 @@ public class UserPreferencesRequest {
     public Boolean getTransitAlerts() { return transitAlerts; }
     public void setTransitAlerts(Boolean transitAlerts) { this.transitAlerts = transitAlerts; }
     
+    public Boolean getMatchmakingVisible() { return matchmakingVisible; }
+    public void setMatchmakingVisible(Boolean matchmakingVisible) { this.matchmakingVisible = matchmakingVisible; }
+    
     public String getTimezone() { return timezone; }
     public void setTimezone(String timezone) { this.timezone = timezone; }
 }
\ No newline at end of file
@@ -0,0 +1,52 @@
+package com.cosmic.astrology.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+
+/**
+ * Number of a user's activities of one type on one day, compacted from
+ * {@link ActivityLog} rows by the activity rollup job.
+ */
+@Entity
+@Table(name = "activity_daily_rollups", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_activity_daily_rollup", columnNames = {"username", "activity_day", "activity_type"})
+}, indexes = {
+    @Index(name = "idx_activity_daily_rollup_day", columnList = "activity_day")
+})
+public class ActivityDailyRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "username", nullable = false, length = 50)
+    private String username;
+
+    @Column(name = "activity_day", nullable = false)
+    private LocalDate activityDay;
+
+    @Column(name = "activity_type", nullable = false, length = 50)
+    private String activityType;
+
+    @Column(name = "activity_count", nullable = false)
+    private Long activityCount = 0L;
+
+    // Constructors
+    public ActivityDailyRollup() {}
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+
+    public LocalDate getActivityDay() { return activityDay; }
+    public void setActivityDay(LocalDate activityDay) { this.activityDay = activityDay; }
+
+    public String getActivityType() { return activityType; }
+    public void setActivityType(String activityType) { this.activityType = activityType; }
+
+    public Long getActivityCount() { return activityCount; }
+    public void setActivityCount(Long activityCount) { this.activityCount = activityCount; }
+}
@@ -0,0 +1,50 @@
+package com.cosmic.astrology.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * Number of a user's activities in one hour of one weekday, over all time,
+ * compacted from {@link ActivityLog} rows by the activity rollup job.
+ * Weekdays follow MySQL's DAYOFWEEK: 1 is Sunday, 7 is Saturday.
+ */
+@Entity
+@Table(name = "activity_hourly_rollups", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_activity_hourly_rollup", columnNames = {"username", "day_of_week", "hour_of_day"})
+})
+public class ActivityHourlyRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "username", nullable = false, length = 50)
+    private String username;
+
+    @Column(name = "day_of_week", nullable = false)
+    private Integer dayOfWeek;
+
+    @Column(name = "hour_of_day", nullable = false)
+    private Integer hourOfDay;
+
+    @Column(name = "activity_count", nullable = false)
+    private Long activityCount = 0L;
+
+    // Constructors
+    public ActivityHourlyRollup() {}
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+
+    public Integer getDayOfWeek() { return dayOfWeek; }
+    public void setDayOfWeek(Integer dayOfWeek) { this.dayOfWeek = dayOfWeek; }
+
+    public Integer getHourOfDay() { return hourOfDay; }
+    public void setHourOfDay(Integer hourOfDay) { this.hourOfDay = hourOfDay; }
+
+    public Long getActivityCount() { return activityCount; }
+    public void setActivityCount(Long activityCount) { this.activityCount = activityCount; }
+}
@@ -4,8 +4,16 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "birth_charts")
+@Table(name = "birth_charts", indexes = {
+    @Index(name = "idx_birth_chart_user_subject", columnList = "user_id, subject_type, is_active")
+})
 public class BirthChart {
+    
+    /** The account holder's own natal chart; at most one is active, older ones are history. */
+    public static final String SUBJECT_SELF = "SELF";
+    /** A chart a professional account keeps for one of its clients. */
+    public static final String SUBJECT_CLIENT = "CLIENT";
+    
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -33,6 +41,34 @@ public class BirthChart {
     @Column(name = "chart_data", columnDefinition = "TEXT")
     private String chartData; // JSON string of planetary positions
     
+    @Lob
+    @Column(name = "chart_payload", columnDefinition = "BLOB")
+    private byte[] chartPayload; // Compact binary chart, see CompactChartCodec
+    
+    @Column(name = "engine_version")
+    private Integer engineVersion; // Calculation engine that produced chartPayload
+    
+    @Column(name = "settings_hash", length = 16)
+    private String settingsHash; // Ayanamsa, house system and node type in effect
+    
+    @Column(name = "subject_type", nullable = false, length = 20)
+    private String subjectType = SUBJECT_SELF;
+    
+    @Column(name = "subject_name", length = 100)
+    private String subjectName;
+    
+    @Column(name = "sun_sign", length = 20)
+    private String sunSign;
+    
+    @Column(name = "moon_sign", length = 20)
+    private String moonSign;
+    
+    @Column(name = "rising_sign", length = 20)
+    private String risingSign;
+    
+    @Column(name = "dominant_element", length = 20)
+    private String dominantElement;
+    
     @Column(name = "house_system", length = 50)
     private String houseSystem = "PLACIDUS"; // Default house system
     
@@ -97,6 +133,33 @@ public class BirthChart {
     public String getChartData() { return chartData; }
     public void setChartData(String chartData) { this.chartData = chartData; }
     
+    public byte[] getChartPayload() { return chartPayload; }
+    public void setChartPayload(byte[] chartPayload) { this.chartPayload = chartPayload; }
+    
+    public Integer getEngineVersion() { return engineVersion; }
+    public void setEngineVersion(Integer engineVersion) { this.engineVersion = engineVersion; }
+    
+    public String getSettingsHash() { return settingsHash; }
+    public void setSettingsHash(String settingsHash) { this.settingsHash = settingsHash; }
+    
+    public String getSubjectType() { return subjectType; }
+    public void setSubjectType(String subjectType) { this.subjectType = subjectType; }
+    
+    public String getSubjectName() { return subjectName; }
+    public void setSubjectName(String subjectName) { this.subjectName = subjectName; }
+    
+    public String getSunSign() { return sunSign; }
+    public void setSunSign(String sunSign) { this.sunSign = sunSign; }
+    
+    public String getMoonSign() { return moonSign; }
+    public void setMoonSign(String moonSign) { this.moonSign = moonSign; }
+    
+    public String getRisingSign() { return risingSign; }
+    public void setRisingSign(String risingSign) { this.risingSign = risingSign; }
+    
+    public String getDominantElement() { return dominantElement; }
+    public void setDominantElement(String dominantElement) { this.dominantElement = dominantElement; }
+    
     public String getHouseSystem() { return houseSystem; }
     public void setHouseSystem(String houseSystem) { this.houseSystem = houseSystem; }
     
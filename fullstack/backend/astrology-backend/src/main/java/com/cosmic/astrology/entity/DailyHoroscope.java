@@ -0,0 +1,108 @@
+package com.cosmic.astrology.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * One day's horoscope for a cohort: every subscriber with the same Moon sign,
+ * Moon nakshatra, rising sign and running mahadasha/antardasha reads the same
+ * text, linked through {@link UserDailyHoroscope}.
+ */
+@Entity
+@Table(name = "daily_horoscopes", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_daily_horoscope_cohort", columnNames = {"horoscope_date", "cohort_key"})
+})
+public class DailyHoroscope {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "horoscope_date", nullable = false)
+    private LocalDate horoscopeDate;
+
+    @Column(name = "cohort_key", nullable = false, length = 150)
+    private String cohortKey;
+
+    @Column(name = "moon_sign", length = 20)
+    private String moonSign;
+
+    @Column(name = "moon_nakshatra", length = 50)
+    private String moonNakshatra;
+
+    @Column(name = "rising_sign", length = 20)
+    private String risingSign;
+
+    @Column(name = "mahadasha", length = 20)
+    private String mahadasha;
+
+    @Column(name = "antardasha", length = 20)
+    private String antardasha;
+
+    @Lob
+    @Column(name = "message", columnDefinition = "TEXT")
+    private String message;
+
+    @Column(name = "transit_influence", length = 500)
+    private String transitInfluence;
+
+    @Column(name = "recommendation", length = 500)
+    private String recommendation;
+
+    @Column(name = "intensity")
+    private Integer intensity;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Constructors
+    public DailyHoroscope() {}
+
+    @PrePersist
+    protected void onCreate() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public LocalDate getHoroscopeDate() { return horoscopeDate; }
+    public void setHoroscopeDate(LocalDate horoscopeDate) { this.horoscopeDate = horoscopeDate; }
+
+    public String getCohortKey() { return cohortKey; }
+    public void setCohortKey(String cohortKey) { this.cohortKey = cohortKey; }
+
+    public String getMoonSign() { return moonSign; }
+    public void setMoonSign(String moonSign) { this.moonSign = moonSign; }
+
+    public String getMoonNakshatra() { return moonNakshatra; }
+    public void setMoonNakshatra(String moonNakshatra) { this.moonNakshatra = moonNakshatra; }
+
+    public String getRisingSign() { return risingSign; }
+    public void setRisingSign(String risingSign) { this.risingSign = risingSign; }
+
+    public String getMahadasha() { return mahadasha; }
+    public void setMahadasha(String mahadasha) { this.mahadasha = mahadasha; }
+
+    public String getAntardasha() { return antardasha; }
+    public void setAntardasha(String antardasha) { this.antardasha = antardasha; }
+
+    public String getMessage() { return message; }
+    public void setMessage(String message) { this.message = message; }
+
+    public String getTransitInfluence() { return transitInfluence; }
+    public void setTransitInfluence(String transitInfluence) { this.transitInfluence = transitInfluence; }
+
+    public String getRecommendation() { return recommendation; }
+    public void setRecommendation(String recommendation) { this.recommendation = recommendation; }
+
+    public Integer getIntensity() { return intensity; }
+    public void setIntensity(Integer intensity) { this.intensity = intensity; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
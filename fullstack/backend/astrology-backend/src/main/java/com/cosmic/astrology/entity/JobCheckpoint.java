@@ -0,0 +1,74 @@
+package com.cosmic.astrology.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Progress of a resumable batch job: the last key it finished and its counters.
+ */
+@Entity
+@Table(name = "job_checkpoints")
+public class JobCheckpoint {
+    
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_STOPPED = "STOPPED";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+    public static final String STATUS_FAILED = "FAILED";
+    
+    @Id
+    @Column(name = "job_name", length = 100)
+    private String jobName;
+    
+    @Column(name = "last_processed_id", nullable = false)
+    private Long lastProcessedId = 0L;
+    
+    @Column(name = "processed_count", nullable = false)
+    private Long processedCount = 0L;
+    
+    @Column(name = "failed_count", nullable = false)
+    private Long failedCount = 0L;
+    
+    @Column(name = "status", length = 20)
+    private String status;
+    
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    // Constructors
+    public JobCheckpoint() {}
+    
+    public JobCheckpoint(String jobName) {
+        this.jobName = jobName;
+    }
+    
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+    
+    // Getters and Setters
+    public String getJobName() { return jobName; }
+    public void setJobName(String jobName) { this.jobName = jobName; }
+    
+    public Long getLastProcessedId() { return lastProcessedId; }
+    public void setLastProcessedId(Long lastProcessedId) { this.lastProcessedId = lastProcessedId; }
+    
+    public Long getProcessedCount() { return processedCount; }
+    public void setProcessedCount(Long processedCount) { this.processedCount = processedCount; }
+    
+    public Long getFailedCount() { return failedCount; }
+    public void setFailedCount(Long failedCount) { this.failedCount = failedCount; }
+    
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+    
+    public LocalDateTime getStartedAt() { return startedAt; }
+    public void setStartedAt(LocalDateTime startedAt) { this.startedAt = startedAt; }
+    
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -0,0 +1,112 @@
+package com.cosmic.astrology.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A transit event queued for a user who opted in to transit alerts. Pending
+ * rows are read in event-time order by the transit alert scheduler and marked
+ * sent when they come due.
+ */
+@Entity
+@Table(name = "transit_alerts", indexes = {
+    @Index(name = "idx_transit_alert_due", columnList = "status, event_time"),
+    @Index(name = "idx_transit_alert_user", columnList = "user_id, status, event_time"),
+    @Index(name = "idx_transit_alert_sent", columnList = "status, delivered_at")
+})
+public class ScheduledTransitAlert {
+
+    public static final String STATUS_PENDING = "PENDING";
+    public static final String STATUS_SENT = "SENT";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "planet", nullable = false, length = 20)
+    private String planet;
+
+    @Column(name = "transit_type", nullable = false, length = 20)
+    private String transitType;
+
+    @Column(name = "natal_planet", nullable = false, length = 20)
+    private String natalPlanet;
+
+    // UTC
+    @Column(name = "event_time", nullable = false)
+    private LocalDateTime eventTime;
+
+    @Column(name = "description", length = 500)
+    private String description;
+
+    @Column(name = "influence", length = 20)
+    private String influence;
+
+    @Column(name = "intensity")
+    private Integer intensity;
+
+    @Column(name = "recommendations", length = 500)
+    private String recommendations;
+
+    @Column(name = "status", nullable = false, length = 20)
+    private String status = STATUS_PENDING;
+
+    @Column(name = "delivered_at")
+    private LocalDateTime deliveredAt;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Constructors
+    public ScheduledTransitAlert() {}
+
+    @PrePersist
+    protected void onCreate() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public String getPlanet() { return planet; }
+    public void setPlanet(String planet) { this.planet = planet; }
+
+    public String getTransitType() { return transitType; }
+    public void setTransitType(String transitType) { this.transitType = transitType; }
+
+    public String getNatalPlanet() { return natalPlanet; }
+    public void setNatalPlanet(String natalPlanet) { this.natalPlanet = natalPlanet; }
+
+    public LocalDateTime getEventTime() { return eventTime; }
+    public void setEventTime(LocalDateTime eventTime) { this.eventTime = eventTime; }
+
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+
+    public String getInfluence() { return influence; }
+    public void setInfluence(String influence) { this.influence = influence; }
+
+    public Integer getIntensity() { return intensity; }
+    public void setIntensity(Integer intensity) { this.intensity = intensity; }
+
+    public String getRecommendations() { return recommendations; }
+    public void setRecommendations(String recommendations) { this.recommendations = recommendations; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public LocalDateTime getDeliveredAt() { return deliveredAt; }
+    public void setDeliveredAt(LocalDateTime deliveredAt) { this.deliveredAt = deliveredAt; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
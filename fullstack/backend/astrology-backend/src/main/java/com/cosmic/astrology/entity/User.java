@@ -166,17 +166,8 @@ z    @Column(length = 500)
     @Column(name = "ayanamsa", columnDefinition = "DECIMAL(8,4)")
     private Double ayanamsa;
     
-    @Lob
-    @Column(columnDefinition = "TEXT")
-    private String natalChart; /
-    
-    @Lob
-    @Column(columnDefinition = "TEXT")
-    private String natalHouses;
-    
-    @Lob
-    @Column(columnDefinition = "TEXT")
-    private String natalAspects; 
+    // Chart documents live in birth_charts (see BirthChart) so they are not
+    // loaded with every user row
     
     private LocalDateTime chartCalculatedAt;
     
@@ -205,6 +196,10 @@ z    @Column(length = 500)
     @Column(name = "transit_alerts", nullable = false)
     private Boolean transitAlerts = true;
     
+    // Listed in other users' matchmaking results; off until the user opts in
+    @Column(name = "matchmaking_visible", nullable = false)
+    private Boolean matchmakingVisible = false;
+    
     
     @Column(nullable = false)
     private Integer chartsGenerated = 0;
@@ -491,15 +486,6 @@ z    @Column(length = 500)
     public Double getAyanamsa() { return ayanamsa; }
     public void setAyanamsa(Double ayanamsa) { this.ayanamsa = ayanamsa; }
     
-    public String getNatalChart() { return natalChart; }
-    public void setNatalChart(String natalChart) { this.natalChart = natalChart; }
-    
-    public String getNatalHouses() { return natalHouses; }
-    public void setNatalHouses(String natalHouses) { this.natalHouses = natalHouses; }
-    
-    public String getNatalAspects() { return natalAspects; }
-    public void setNatalAspects(String natalAspects) { this.natalAspects = natalAspects; }
-    
     public LocalDateTime getChartCalculatedAt() { return chartCalculatedAt; }
     public void setChartCalculatedAt(LocalDateTime chartCalculatedAt) { this.chartCalculatedAt = chartCalculatedAt; }
     
@@ -548,6 +534,14 @@ z    @Column(length = 500)
         return transitAlerts != null && transitAlerts;
     }
     
+    public Boolean getMatchmakingVisible() { return matchmakingVisible; }
+    public void setMatchmakingVisible(Boolean matchmakingVisible) { 
+        this.matchmakingVisible = matchmakingVisible != null ? matchmakingVisible : false;
+    }
+    public boolean isMatchmakingVisible() { 
+        return matchmakingVisible != null && matchmakingVisible;
+    }
+    
     
     public Integer getChartsGenerated() { return chartsGenerated; }
     public void setChartsGenerated(Integer chartsGenerated) { this.chartsGenerated = chartsGenerated; }
@@ -706,9 +700,6 @@ z    @Column(length = 500)
     public void resetChartData() {
         this.chartCalculated = false;
         this.chartCalculatedAt = null;
-        this.natalChart = null;  
-        this.natalHouses = null;
-        this.natalAspects = null;
         this.sunSign = null;
         this.moonSign = null;
         this.risingSign = null;
@@ -0,0 +1,46 @@
+package com.cosmic.astrology.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+
+/**
+ * Which cohort horoscope a subscriber reads on a given day. Rows are written
+ * in bulk by the daily horoscope job, so the links are plain ids.
+ */
+@Entity
+@Table(name = "user_daily_horoscopes", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_user_daily_horoscope", columnNames = {"user_id", "horoscope_date"})
+}, indexes = {
+    @Index(name = "idx_user_daily_horoscope_date", columnList = "horoscope_date")
+})
+public class UserDailyHoroscope {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "horoscope_date", nullable = false)
+    private LocalDate horoscopeDate;
+
+    @Column(name = "horoscope_id", nullable = false)
+    private Long horoscopeId;
+
+    // Constructors
+    public UserDailyHoroscope() {}
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public LocalDate getHoroscopeDate() { return horoscopeDate; }
+    public void setHoroscopeDate(LocalDate horoscopeDate) { this.horoscopeDate = horoscopeDate; }
+
+    public Long getHoroscopeId() { return horoscopeId; }
+    public void setHoroscopeId(Long horoscopeId) { this.horoscopeId = horoscopeId; }
+}
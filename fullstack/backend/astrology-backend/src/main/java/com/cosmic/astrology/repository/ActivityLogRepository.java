@@ -4,10 +4,13 @@ import com.cosmic.astrology.entity.ActivityLog;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
@@ -22,6 +25,22 @@ public interface ActivityLogRepository extends JpaRepository<ActivityLog, Long>
     
     List<ActivityLog> findByUsernameAndTimestampAfterOrderByTimestampDesc(String username, LocalDateTime timestamp);
     
+    List<ActivityLog> findByUsernameAndTimestampAfterOrderByTimestampDesc(String username, LocalDateTime timestamp,
+                                                                          Pageable pageable);
+    
+    // Keyset pages of a user's activity, newest first, walking idx_activity_user_timestamp
+    // (InnoDB appends the id to the index, so (username, timestamp, id) is fully indexed)
+    @Query("SELECT a FROM ActivityLog a WHERE a.username = :username ORDER BY a.timestamp DESC, a.id DESC")
+    List<ActivityLog> findLatestByUsername(@Param("username") String username, Pageable pageable);
+    
+    @Query("SELECT a FROM ActivityLog a WHERE a.username = :username AND " +
+           "(a.timestamp < :timestamp OR (a.timestamp = :timestamp AND a.id < :id)) " +
+           "ORDER BY a.timestamp DESC, a.id DESC")
+    List<ActivityLog> findByUsernameBefore(@Param("username") String username,
+                                           @Param("timestamp") LocalDateTime timestamp,
+                                           @Param("id") Long id,
+                                           Pageable pageable);
+    
     List<ActivityLog> findByUsernameAndTimestampBetweenOrderByTimestampDesc(
         String username, LocalDateTime start, LocalDateTime end);
     
@@ -47,7 +66,12 @@ public interface ActivityLogRepository extends JpaRepository<ActivityLog, Long>
     
     long countByUsernameAndTimestampBetween(String username, LocalDateTime start, LocalDateTime end);
     
-    @Query("SELECT a.activityType, COUNT(a) FROM ActivityLog a WHERE a.username = :username GROUP BY a.activityType")
+    // Approximate: rollups lag the log by one compaction and keep counting purged rows
+    @Query("SELECT COALESCE(SUM(r.activityCount), 0) FROM ActivityDailyRollup r WHERE r.username = :username")
+    long estimateCountByUsername(@Param("username") String username);
+    
+    // Analytics below read the rollups kept by ActivityRollupJob, so they cost O(days), not O(events)
+    @Query("SELECT r.activityType, SUM(r.activityCount) FROM ActivityDailyRollup r WHERE r.username = :username GROUP BY r.activityType")
     List<Object[]> getActivityCountByType(@Param("username") String username);
     
     @Query("SELECT a.deviceType, COUNT(a) FROM ActivityLog a WHERE a.username = :username AND a.deviceType IS NOT NULL GROUP BY a.deviceType")
@@ -56,16 +80,28 @@ public interface ActivityLogRepository extends JpaRepository<ActivityLog, Long>
     @Query("SELECT a.status, COUNT(a) FROM ActivityLog a WHERE a.username = :username GROUP BY a.status")
     List<Object[]> getActivityCountByStatus(@Param("username") String username);
     
-    @Query("SELECT DATE(a.timestamp), COUNT(a) FROM ActivityLog a WHERE a.username = :username AND a.timestamp BETWEEN :start AND :end GROUP BY DATE(a.timestamp) ORDER BY DATE(a.timestamp)")
-    List<Object[]> getDailyActivityCount(@Param("username") String username, 
-                                         @Param("start") LocalDateTime start, 
-                                         @Param("end") LocalDateTime end);
+    // Whole days: the days of start and end are counted in full
+    default List<Object[]> getDailyActivityCount(String username, LocalDateTime start, LocalDateTime end) {
+        return getDailyActivityCountBetweenDays(username, start.toLocalDate(), end.toLocalDate());
+    }
     
-    @Query("SELECT HOUR(a.timestamp), COUNT(a) FROM ActivityLog a WHERE a.username = :username GROUP BY HOUR(a.timestamp) ORDER BY HOUR(a.timestamp)")
+    @Query("SELECT r.activityDay, SUM(r.activityCount) FROM ActivityDailyRollup r WHERE r.username = :username " +
+           "AND r.activityDay BETWEEN :startDay AND :endDay GROUP BY r.activityDay ORDER BY r.activityDay")
+    List<Object[]> getDailyActivityCountBetweenDays(@Param("username") String username,
+                                                    @Param("startDay") LocalDate startDay,
+                                                    @Param("endDay") LocalDate endDay);
+    
+    @Query("SELECT r.hourOfDay, SUM(r.activityCount) FROM ActivityHourlyRollup r WHERE r.username = :username GROUP BY r.hourOfDay ORDER BY r.hourOfDay")
     List<Object[]> getHourlyActivityDistribution(@Param("username") String username);
     
-    @Query("SELECT a.username, COUNT(a) as activityCount FROM ActivityLog a WHERE a.timestamp >= :since GROUP BY a.username ORDER BY activityCount DESC")
-    List<Object[]> getMostActiveUsers(@Param("since") LocalDateTime since, Pageable pageable);
+    // Whole days: activity on the day of since is counted in full
+    default List<Object[]> getMostActiveUsers(LocalDateTime since, Pageable pageable) {
+        return getMostActiveUsersSinceDay(since.toLocalDate(), pageable);
+    }
+    
+    @Query("SELECT r.username, SUM(r.activityCount) as activityCount FROM ActivityDailyRollup r WHERE r.activityDay >= :sinceDay " +
+           "GROUP BY r.username ORDER BY activityCount DESC")
+    List<Object[]> getMostActiveUsersSinceDay(@Param("sinceDay") LocalDate sinceDay, Pageable pageable);
     
     @Query("SELECT a.activityType, COUNT(a) as count FROM ActivityLog a WHERE a.username = :username GROUP BY a.activityType ORDER BY count DESC")
     List<Object[]> getMostCommonActivities(@Param("username") String username, Pageable pageable);
@@ -107,14 +143,13 @@ public interface ActivityLogRepository extends JpaRepository<ActivityLog, Long>
     @Query("SELECT a FROM ActivityLog a WHERE a.ipAddress LIKE :ipPattern ORDER BY a.timestamp DESC")
     List<ActivityLog> findByIpAddressPattern(@Param("ipPattern") String ipPattern, Pageable pageable);
     
-    @Query("SELECT " +
-           "DAYOFWEEK(a.timestamp) as dayOfWeek, " +
-           "HOUR(a.timestamp) as hour, " +
-           "COUNT(a) as activityCount " +
-           "FROM ActivityLog a WHERE a.username = :username " +
-           "GROUP BY DAYOFWEEK(a.timestamp), HOUR(a.timestamp)")
+    @Query("SELECT r.dayOfWeek, r.hourOfDay, SUM(r.activityCount) FROM ActivityHourlyRollup r " +
+           "WHERE r.username = :username GROUP BY r.dayOfWeek, r.hourOfDay")
     List<Object[]> getActivityHeatMapData(@Param("username") String username);
     
+    // One statement over the whole range; ActivityRetentionJob purges large tables in chunks
+    @Modifying
+    @Transactional
     @Query("DELETE FROM ActivityLog a WHERE a.timestamp < :before")
     int deleteActivitiesOlderThan(@Param("before") LocalDateTime before);
     
@@ -3,9 +3,12 @@ package com.cosmic.astrology.repository;
 import com.cosmic.astrology.entity.BirthChart;
 import com.cosmic.astrology.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -34,4 +37,79 @@ public interface BirthChartRepository extends JpaRepository<BirthChart, Long> {
     List<BirthChart> findByTimezone(String timezone);
     
     void deleteByUserAndIsActiveFalse(User user);
+    
+    /**
+     * Chart metadata without the chart payload, for listings.
+     */
+    interface ChartSummary {
+        Long getId();
+        String getSubjectType();
+        String getSubjectName();
+        LocalDateTime getBirthDateTime();
+        String getBirthLocation();
+        String getSunSign();
+        String getMoonSign();
+        String getRisingSign();
+        Boolean getIsActive();
+        LocalDateTime getCreatedAt();
+    }
+    
+    List<ChartSummary> findSummariesByUserIdOrderByCreatedAtDesc(Long userId);
+    
+    /**
+     * Chart id, payload and the birth data it was calculated from, for loading a chart.
+     */
+    interface ChartPayload {
+        Long getId();
+        byte[] getChartPayload();
+        LocalDateTime getBirthDateTime();
+        Double getBirthLatitude();
+        Double getBirthLongitude();
+        String getTimezone();
+    }
+    
+    // Newest first, so a concurrent double write still resolves to one chart
+    @Query("SELECT bc.id AS id, bc.chartPayload AS chartPayload, bc.birthDateTime AS birthDateTime, " +
+           "bc.birthLatitude AS birthLatitude, bc.birthLongitude AS birthLongitude, bc.timezone AS timezone " +
+           "FROM BirthChart bc WHERE bc.user.id = :userId " +
+           "AND bc.subjectType = :subjectType AND bc.isActive = true ORDER BY bc.createdAt DESC")
+    List<ChartPayload> findActivePayloads(@Param("userId") Long userId, @Param("subjectType") String subjectType);
+    
+    @Query("SELECT CASE WHEN COUNT(bc) > 0 THEN true ELSE false END FROM BirthChart bc " +
+           "WHERE bc.user.id = :userId AND bc.subjectType = :subjectType AND bc.isActive = true")
+    boolean hasActiveChart(@Param("userId") Long userId, @Param("subjectType") String subjectType);
+    
+    Optional<BirthChart> findByIdAndUserId(Long chartId, Long userId);
+    
+    long countByUserIdAndSubjectType(Long userId, String subjectType);
+    
+    // Writes a recalculated payload only while the chart is still active, so a chart superseded
+    // by new birth data during the recalculation is not revived
+    @Modifying
+    @Transactional
+    @Query("UPDATE BirthChart bc SET bc.chartPayload = :payload, bc.engineVersion = :engineVersion, " +
+           "bc.settingsHash = :settingsHash, bc.sunSign = :sunSign, bc.moonSign = :moonSign, " +
+           "bc.risingSign = :risingSign, bc.dominantElement = :dominantElement, bc.updatedAt = CURRENT_TIMESTAMP " +
+           "WHERE bc.id = :chartId AND bc.isActive = true")
+    int upgradeActiveChart(@Param("chartId") Long chartId,
+                           @Param("payload") byte[] payload,
+                           @Param("engineVersion") Integer engineVersion,
+                           @Param("settingsHash") String settingsHash,
+                           @Param("sunSign") String sunSign,
+                           @Param("moonSign") String moonSign,
+                           @Param("risingSign") String risingSign,
+                           @Param("dominantElement") String dominantElement);
+    
+    @Modifying
+    @Transactional
+    @Query("UPDATE BirthChart bc SET bc.isActive = false, bc.updatedAt = CURRENT_TIMESTAMP " +
+           "WHERE bc.user.id = :userId AND bc.subjectType = :subjectType AND bc.isActive = true")
+    int deactivateCharts(@Param("userId") Long userId, @Param("subjectType") String subjectType);
+    
+    // Deactivation and insert commit together, so a failed save leaves the previous chart active
+    @Transactional
+    default BirthChart replaceActiveChart(BirthChart chart) {
+        deactivateCharts(chart.getUser().getId(), chart.getSubjectType());
+        return save(chart);
+    }
 }
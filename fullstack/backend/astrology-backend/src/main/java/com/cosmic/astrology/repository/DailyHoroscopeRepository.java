@@ -0,0 +1,29 @@
+package com.cosmic.astrology.repository;
+
+import com.cosmic.astrology.entity.DailyHoroscope;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface DailyHoroscopeRepository extends JpaRepository<DailyHoroscope, Long> {
+
+    /**
+     * Cohort key and id only, to resume a day's run without loading the texts.
+     */
+    interface CohortId {
+        Long getId();
+        String getCohortKey();
+    }
+
+    List<CohortId> findCohortIdsByHoroscopeDate(LocalDate horoscopeDate);
+
+    @Query("SELECT h FROM DailyHoroscope h WHERE h.id = " +
+           "(SELECT p.horoscopeId FROM UserDailyHoroscope p WHERE p.userId = :userId AND p.horoscopeDate = :date)")
+    Optional<DailyHoroscope> findForUser(@Param("userId") Long userId, @Param("date") LocalDate date);
+}
@@ -0,0 +1,42 @@
+package com.cosmic.astrology.repository;
+
+import com.cosmic.astrology.entity.OutboundEmail;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<OutboundEmail, Long> {
+
+    // Pending mail whose next attempt is due, oldest first (idx_email_outbox_due)
+    @Query("SELECT e FROM OutboundEmail e WHERE e.status = 'PENDING' AND e.nextAttemptAt <= :now ORDER BY e.nextAttemptAt, e.id")
+    List<OutboundEmail> findDue(@Param("now") LocalDateTime now, Pageable pageable);
+
+    long countByStatus(String status);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE OutboundEmail e SET e.status = 'SENT', e.sentAt = :sentAt, e.attempts = e.attempts + 1, " +
+           "e.lastError = NULL WHERE e.id IN :ids")
+    int markSent(@Param("ids") Collection<Long> ids, @Param("sentAt") LocalDateTime sentAt);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE OutboundEmail e SET e.status = 'PENDING', e.nextAttemptAt = :now, e.attempts = 0 " +
+           "WHERE e.status = 'FAILED'")
+    int retryFailed(@Param("now") LocalDateTime now);
+
+    // Sent mail past its retention; bodies carry verification and reset tokens (idx_email_outbox_sent)
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM OutboundEmail e WHERE e.status = 'SENT' AND e.sentAt < :before")
+    int deleteSentBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,50 @@
+package com.cosmic.astrology.repository;
+
+import com.cosmic.astrology.entity.ScheduledTransitAlert;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface TransitAlertRepository extends JpaRepository<ScheduledTransitAlert, Long> {
+
+    // Due alerts, earliest first (idx_transit_alert_due)
+    List<ScheduledTransitAlert> findByStatusAndEventTimeLessThanEqualOrderByEventTimeAscIdAsc(
+            String status, LocalDateTime eventTime, Pageable pageable);
+
+    @Query("SELECT MIN(a.eventTime) FROM ScheduledTransitAlert a WHERE a.status = 'PENDING'")
+    LocalDateTime findNextPendingTime();
+
+    // Users among :userIds that still have something queued
+    @Query("SELECT DISTINCT a.userId FROM ScheduledTransitAlert a WHERE a.status = 'PENDING' AND a.userId IN :userIds")
+    List<Long> findUsersWithPending(@Param("userIds") Collection<Long> userIds);
+
+    List<ScheduledTransitAlert> findByUserIdAndStatusOrderByEventTimeAsc(Long userId, String status, Pageable pageable);
+
+    List<ScheduledTransitAlert> findByUserIdAndStatusOrderByEventTimeDesc(Long userId, String status, Pageable pageable);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE ScheduledTransitAlert a SET a.status = 'SENT', a.deliveredAt = :deliveredAt " +
+           "WHERE a.id IN :ids AND a.status = 'PENDING'")
+    int markDelivered(@Param("ids") Collection<Long> ids, @Param("deliveredAt") LocalDateTime deliveredAt);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ScheduledTransitAlert a WHERE a.userId = :userId AND a.status = 'PENDING'")
+    int deletePending(@Param("userId") Long userId);
+
+    // Delivered alerts past their retention (idx_transit_alert_sent)
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ScheduledTransitAlert a WHERE a.status = 'SENT' AND a.deliveredAt < :before")
+    int deleteSentBefore(@Param("before") LocalDateTime before);
+}
@@ -10,6 +10,7 @@ import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,7 +20,24 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
     
     Optional<User> findByUsernameIgnoreCase(String username);
-    
+
+    /**
+     * Columns the JWT filter checks per request, without loading the entity
+     */
+    interface AuthStatus {
+        Long getId();
+        UserRole getRole();
+        Boolean getEnabled();
+        Boolean getAccountLocked();
+        LocalDateTime getAccountLockedAt();
+        LocalDateTime getAccountUnlockedAt();
+    }
+
+    @Query("SELECT u.id AS id, u.role AS role, u.enabled AS enabled, u.accountLocked AS accountLocked, " +
+           "u.accountLockedAt AS accountLockedAt, u.accountUnlockedAt AS accountUnlockedAt " +
+           "FROM User u WHERE u.username = :username")
+    Optional<AuthStatus> findAuthStatus(@Param("username") String username);
+
     Optional<User> findByEmail(String email);
     
     Optional<User> findByEmailIgnoreCase(String email);
@@ -147,6 +165,30 @@ public interface UserRepository extends JpaRepository<User, Long> {
         Pageable pageable
     );
     
+    // Keyset variant of searchUsers for the admin listing: starts after the last id seen
+    // instead of skipping rows, so deep pages cost the same as the first
+    @Query("SELECT u FROM User u WHERE u.id > :afterId AND " +
+           "(:keyword IS NULL OR " +
+           " LOWER(u.username) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
+           " LOWER(u.email) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
+           " LOWER(u.firstName) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
+           " LOWER(u.lastName) LIKE LOWER(CONCAT('%', :keyword, '%'))) AND " +
+           "(:role IS NULL OR u.role = :role) AND " +
+           "(:enabled IS NULL OR u.enabled = :enabled) " +
+           "ORDER BY u.id")
+    List<User> searchUsersAfter(
+        @Param("keyword") String keyword,
+        @Param("role") UserRole role,
+        @Param("enabled") Boolean enabled,
+        @Param("afterId") Long afterId,
+        Pageable pageable
+    );
+    
+    // InnoDB's row estimate for the users table; free, but only approximate
+    @Query(value = "SELECT COALESCE(MAX(TABLE_ROWS), 0) FROM information_schema.TABLES " +
+                   "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'users'", nativeQuery = true)
+    long estimateUserCount();
+    
     @Query("SELECT u FROM User u WHERE LOWER(u.birthLocation) LIKE LOWER(CONCAT('%', :location, '%'))")
     List<User> findByBirthLocationContaining(@Param("location") String location);
     
@@ -219,12 +261,143 @@ public interface UserRepository extends JpaRepository<User, Long> {
     List<User> findUsersWithOldUnverifiedEmails(@Param("cutoffDate") LocalDateTime cutoffDate);
     
     @Query("SELECT u FROM User u WHERE " +
-           "u.natalChart IS NULL AND " +
+           "NOT EXISTS (SELECT bc.id FROM BirthChart bc WHERE bc.user = u AND " +
+           "bc.subjectType = 'SELF' AND bc.isActive = true) AND " +
            "u.birthDateTime IS NOT NULL AND " +
            "u.birthLatitude IS NOT NULL AND " +
            "u.birthLongitude IS NOT NULL")
     List<User> findUsersNeedingChartCalculation();
     
+    /**
+     * Birth data of a user whose chart a batch job recalculates.
+     */
+    interface ChartRecomputeCandidate {
+        Long getId();
+        String getUsername();
+        LocalDateTime getBirthDateTime();
+        String getBirthLocation();
+        Double getBirthLatitude();
+        Double getBirthLongitude();
+        String getTimezone();
+        Long getActiveChartId();
+    }
+    
+    // Keyset page of users with birth data whose active chart is missing, from another engine,
+    // or predates the Moon nakshatra being recorded on the user
+    @Query("SELECT u.id AS id, u.username AS username, u.birthDateTime AS birthDateTime, " +
+           "u.birthLocation AS birthLocation, u.birthLatitude AS birthLatitude, " +
+           "u.birthLongitude AS birthLongitude, u.timezone AS timezone, " +
+           "(SELECT MAX(bc.id) FROM BirthChart bc WHERE bc.user = u AND bc.subjectType = 'SELF' " +
+           "AND bc.isActive = true) AS activeChartId " +
+           "FROM User u WHERE u.id > :afterId AND " +
+           "u.birthDateTime IS NOT NULL AND " +
+           "u.birthLatitude IS NOT NULL AND " +
+           "u.birthLongitude IS NOT NULL AND " +
+           "(u.moonPada IS NULL OR " +
+           "NOT EXISTS (SELECT bc.id FROM BirthChart bc WHERE bc.user = u AND bc.subjectType = 'SELF' " +
+           "AND bc.isActive = true AND bc.engineVersion = :engineVersion AND bc.settingsHash = :settingsHash)) " +
+           "ORDER BY u.id")
+    List<ChartRecomputeCandidate> findChartRecomputeCandidates(@Param("afterId") Long afterId,
+                                                               @Param("engineVersion") Integer engineVersion,
+                                                               @Param("settingsHash") String settingsHash,
+                                                               Pageable pageable);
+    
+    /**
+     * What the matchmaking index keeps of a user.
+     */
+    interface MatchmakingProfile {
+        Long getId();
+        String getGender();
+        LocalDateTime getBirthDateTime();
+        Double getBirthLatitude();
+        Double getBirthLongitude();
+        String getMoonNakshatra();
+        Integer getMoonPada();
+    }
+    
+    // Keyset page of enabled users who opted into matchmaking and whose Moon nakshatra is known
+    @Query("SELECT u.id AS id, u.gender AS gender, u.birthDateTime AS birthDateTime, " +
+           "u.birthLatitude AS birthLatitude, u.birthLongitude AS birthLongitude, " +
+           "u.moonNakshatra AS moonNakshatra, u.moonPada AS moonPada " +
+           "FROM User u WHERE u.id > :afterId AND u.enabled = true AND u.matchmakingVisible = true AND " +
+           "u.moonNakshatra IS NOT NULL AND u.moonPada IS NOT NULL AND u.birthDateTime IS NOT NULL " +
+           "ORDER BY u.id")
+    List<MatchmakingProfile> findMatchmakingProfiles(@Param("afterId") Long afterId, Pageable pageable);
+    
+    @Query("SELECT u.id AS id, u.gender AS gender, u.birthDateTime AS birthDateTime, " +
+           "u.birthLatitude AS birthLatitude, u.birthLongitude AS birthLongitude, " +
+           "u.moonNakshatra AS moonNakshatra, u.moonPada AS moonPada " +
+           "FROM User u WHERE u.id IN :ids AND u.enabled = true AND u.matchmakingVisible = true AND " +
+           "u.moonNakshatra IS NOT NULL AND u.moonPada IS NOT NULL AND u.birthDateTime IS NOT NULL")
+    List<MatchmakingProfile> findMatchmakingProfilesByIds(@Param("ids") Collection<Long> ids);
+    
+    /**
+     * What the daily horoscope job needs to place a subscriber in a cohort.
+     */
+    interface HoroscopeSubscriber {
+        Long getId();
+        LocalDateTime getBirthDateTime();
+        String getRisingSign();
+        String getMoonNakshatra();
+        Integer getMoonPada();
+    }
+    
+    // Keyset page of enabled daily horoscope subscribers whose Moon nakshatra is known
+    @Query("SELECT u.id AS id, u.birthDateTime AS birthDateTime, u.risingSign AS risingSign, " +
+           "u.moonNakshatra AS moonNakshatra, u.moonPada AS moonPada " +
+           "FROM User u WHERE u.id > :afterId AND u.dailyHoroscope = true AND u.enabled = true AND " +
+           "u.moonNakshatra IS NOT NULL AND u.moonPada IS NOT NULL AND u.birthDateTime IS NOT NULL " +
+           "ORDER BY u.id")
+    List<HoroscopeSubscriber> findHoroscopeSubscribers(@Param("afterId") Long afterId, Pageable pageable);
+    
+    // Keyset page of transit alert subscribers with nothing queued, for a one-off backfill
+    @Query("SELECT u.id FROM User u WHERE u.id > :afterId AND u.transitAlerts = true AND u.enabled = true AND " +
+           "u.birthDateTime IS NOT NULL AND u.birthLatitude IS NOT NULL AND u.birthLongitude IS NOT NULL AND " +
+           "NOT EXISTS (SELECT a.id FROM ScheduledTransitAlert a WHERE a.userId = u.id AND a.status = 'PENDING') " +
+           "ORDER BY u.id")
+    List<Long> findTransitAlertBackfillIds(@Param("afterId") Long afterId, Pageable pageable);
+    
+    // Charts stored on the users row before they moved to birth_charts: JSON in natal_chart,
+    // or the compact format in natal_chart_data. Schemas created since have neither column.
+    @Query(value = "SELECT COLUMN_NAME FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = DATABASE() " +
+                   "AND TABLE_NAME = 'users' AND COLUMN_NAME IN ('natal_chart', 'natal_chart_data')", nativeQuery = true)
+    List<String> findLegacyNatalChartColumns();
+    
+    @Query(value = "SELECT natal_chart FROM users WHERE id = :userId", nativeQuery = true)
+    String findLegacyNatalChart(@Param("userId") Long userId);
+    
+    @Query(value = "SELECT natal_chart_data FROM users WHERE id = :userId", nativeQuery = true)
+    byte[] findLegacyNatalChartData(@Param("userId") Long userId);
+    
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE users SET natal_chart = NULL, natal_houses = NULL, natal_aspects = NULL WHERE id = :userId", nativeQuery = true)
+    void clearLegacyNatalChart(@Param("userId") Long userId);
+    
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE users SET natal_chart_data = NULL WHERE id = :userId", nativeQuery = true)
+    void clearLegacyNatalChartData(@Param("userId") Long userId);
+    
+    // Sign summary of a recalculated chart, written only while the birth data is still
+    // the one the chart was calculated from
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.sunSign = :sunSign, u.moonSign = :moonSign, u.risingSign = :risingSign, " +
+           "u.dominantElement = :dominantElement, u.moonNakshatra = COALESCE(:moonNakshatra, u.moonNakshatra), " +
+           "u.moonPada = COALESCE(:moonPada, u.moonPada) WHERE u.id = :userId AND u.birthDateTime = :birthDateTime " +
+           "AND u.birthLatitude = :latitude AND u.birthLongitude = :longitude")
+    int updateChartSigns(@Param("userId") Long userId,
+                         @Param("birthDateTime") LocalDateTime birthDateTime,
+                         @Param("latitude") Double latitude,
+                         @Param("longitude") Double longitude,
+                         @Param("sunSign") String sunSign,
+                         @Param("moonSign") String moonSign,
+                         @Param("risingSign") String risingSign,
+                         @Param("dominantElement") String dominantElement,
+                         @Param("moonNakshatra") String moonNakshatra,
+                         @Param("moonPada") Integer moonPada);
+    
     @Modifying
     @Transactional
     @Query("UPDATE User u SET u.lastLogin = :loginTime, u.lastActiveDate = :loginTime, u.lastLoginIp = :ip WHERE u.username = :username")
@@ -7,14 +7,23 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import io.jsonwebtoken.Claims;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 import java.io.IOException;
+import java.util.List;
+
+/**
+ * Authenticates requests from the bearer token alone: the principal is built
+ * from the verified claims, and the account's enabled/locked state and role
+ * come from {@link UserStatusCache}, so a cached user costs no database query.
+ * A token whose role no longer matches the account is rejected.
+ */
 
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
@@ -25,7 +34,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private JwtUtils jwtUtils;
 
     @Autowired
-    private UserDetailsService userDetailsService;
+    private UserStatusCache userStatusCache;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, 
@@ -49,17 +58,20 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String jwt = parseJwt(request);
             if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-                String username = jwtUtils.getUserNameFromJwtToken(jwt);
+                Claims claims = jwtUtils.getAllClaimsFromToken(jwt);
+                String username = claims.getSubject();
+                UserDetails userDetails = buildPrincipal(username, claims);
+
+                if (userDetails != null) {
+                    UsernamePasswordAuthenticationToken authentication =
+                        new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                UsernamePasswordAuthenticationToken authentication = 
-                    new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
 
-                SecurityContextHolder.getContext().setAuthentication(authentication);
-                
-                // ✅ Correct logger usage
-                logger.debug("✅ JWT authentication successful for user: {}", username);
+                    // ✅ Correct logger usage
+                    logger.debug("✅ JWT authentication successful for user: {}", username);
+                }
             } else {
                 logger.debug("⚠️ No valid JWT token found for protected endpoint: {}", requestPath);
             }
@@ -71,6 +83,29 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    // Principal from the token's claims, or null if the account is gone, disabled,
+    // locked or its role changed since the token was issued
+    private UserDetails buildPrincipal(String username, Claims claims) {
+        UserStatusCache.Status status = userStatusCache.get(username);
+        if (status == null || !status.isActive()) {
+            logger.debug("🚫 Rejecting JWT for missing, disabled or locked user: {}", username);
+            return null;
+        }
+        // Tokens issued before role and id were added carry only the subject
+        String role = claims.get(JwtUtils.CLAIM_ROLE, String.class);
+        if (role != null && !role.equals(status.getRole().name())) {
+            logger.debug("🚫 Rejecting JWT for user {} whose role changed from {}", username, role);
+            return null;
+        }
+        Long userId = claims.get(JwtUtils.CLAIM_USER_ID, Long.class);
+        return new UserDetailsImpl(
+                userId != null ? userId : status.getId(),
+                username,
+                claims.get(JwtUtils.CLAIM_EMAIL, String.class),
+                null,
+                List.of(new SimpleGrantedAuthority("ROLE_" + status.getRole().name())));
+    }
+
     // ✅ parseJwt method (this should already exist in your class)
     private String parseJwt(HttpServletRequest request) {
         String headerAuth = request.getHeader("Authorization");
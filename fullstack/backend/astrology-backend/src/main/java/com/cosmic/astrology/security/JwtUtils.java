@@ -2,6 +2,10 @@ package com.cosmic.astrology.security;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import io.swagger.v3.oas.annotations.media.Schema;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -9,18 +13,28 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Function;
 
 /**
  * Comprehensive JWT Utility Service for Vedic Astrology Application
  * Handles JWT token generation, validation, parsing, and security features
+ *
+ * Verified claims are cached by the SHA-256 of the token until the token's
+ * own expiry, so a token's signature is checked once per node rather than on
+ * every request and every claim getter. The cache holds at most
+ * {@code app.jwt.claimsCacheSize} tokens.
  */
 @Component
-public class JwtUtils {
+public class JwtUtils implements MeterBinder {
     
     private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class);
     
@@ -47,28 +61,53 @@ public class JwtUtils {
     @Value("${app.security.maxTokensPerUser:5}")
     private int maxTokensPerUser;
     
+    @Value("${app.jwt.claimsCacheSize:10000}")
+    private int claimsCacheSize;
+    
     // Token blacklist (in production, use Redis or database)
     private final Set<String> tokenBlacklist = ConcurrentHashMap.newKeySet();
     private final Map<String, Set<String>> userActiveTokens = new ConcurrentHashMap<>();
     
+    // Verified claims keyed by token digest
+    private final Map<ByteBuffer, CachedClaims> claimsCache = new ConcurrentHashMap<>();
+    private final LongAdder claimsCacheHits = new LongAdder();
+    private final LongAdder claimsCacheMisses = new LongAdder();
+    private final LongAdder claimsCacheEvictions = new LongAdder();
+    
+    // Built once; both are immutable and thread-safe
+    private volatile SecretKey signingKey;
+    private volatile JwtParser jwtParser;
+    
     // Constants
     private static final String TOKEN_TYPE = "JWT";
     private static final String SIGNING_ALGORITHM = "HS256";
     private static final int MIN_SECRET_LENGTH = 32; // 256 bits
     
     // Custom claims
-    private static final String CLAIM_USER_ID = "userId";
-    private static final String CLAIM_ROLE = "role";
-    private static final String CLAIM_EMAIL = "email";
+    static final String CLAIM_USER_ID = "userId";
+    static final String CLAIM_ROLE = "role";
+    static final String CLAIM_EMAIL = "email";
     private static final String CLAIM_TOKEN_TYPE = "tokenType";
     private static final String CLAIM_CLIENT_IP = "clientIp";
     private static final String CLAIM_USER_AGENT = "userAgent";
     private static final String CLAIM_SESSION_ID = "sessionId";
     
     /**
-     * Generate signing key with comprehensive validation
+     * Signing key, created on first use
      */
     private SecretKey getSigningKey() {
+        SecretKey key = signingKey;
+        if (key == null) {
+            key = createSigningKey();
+            signingKey = key;
+        }
+        return key;
+    }
+    
+    /**
+     * Generate signing key with comprehensive validation
+     */
+    private SecretKey createSigningKey() {
         try {
             validateJwtSecret();
             logger.debug("✅ JWT secret validated successfully (length: {})", jwtSecret.length());
@@ -236,17 +275,15 @@ public class JwtUtils {
         }
         
         try {
-            SecretKey signingKey = getSigningKey();
+            Claims claims = getVerifiedClaims(trimmedToken);
             
-            Jws<Claims> claimsJws = Jwts.parser()
-                    .verifyWith(signingKey)
-                    .requireIssuer(jwtIssuer)
-                    .requireAudience(jwtAudience)
-                    .build()
-                    .parseSignedClaims(trimmedToken);
+            if (!jwtIssuer.equals(claims.getIssuer())
+                    || claims.getAudience() == null || !claims.getAudience().contains(jwtAudience)) {
+                logger.warn("❌ JWT token has the wrong issuer or audience");
+                return false;
+            }
             
             // Additional validation
-            Claims claims = claimsJws.getPayload();
             if (!isTokenValid(claims)) {
                 logger.warn("❌ JWT token failed additional validation checks");
                 return false;
@@ -350,13 +387,7 @@ public class JwtUtils {
      */
     public Claims getAllClaimsFromToken(String token) {
         try {
-            SecretKey signingKey = getSigningKey();
-            
-            return Jwts.parser()
-                    .verifyWith(signingKey)
-                    .build()
-                    .parseSignedClaims(token.trim())
-                    .getPayload();
+            return getVerifiedClaims(token.trim());
                     
         } catch (Exception e) {
             logger.error("❌ Error extracting claims from JWT token: {}", e.getMessage());
@@ -471,11 +502,94 @@ public class JwtUtils {
         config.put("maxTokensPerUser", maxTokensPerUser);
         config.put("blacklistedTokensCount", tokenBlacklist.size());
         config.put("activeUsersCount", userActiveTokens.size());
+        config.put("claimsCacheSize", claimsCache.size());
+        config.put("claimsCacheHits", claimsCacheHits.sum());
+        config.put("claimsCacheMisses", claimsCacheMisses.sum());
         return config;
     }
     
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("astrology.jwt.claims-cache.size", claimsCache, Map::size)
+                .description("Verified JWT claims held in the cache").register(registry);
+        FunctionCounter.builder("astrology.jwt.claims-cache.hits", claimsCacheHits, LongAdder::sum)
+                .description("Token lookups answered without verifying the signature").register(registry);
+        FunctionCounter.builder("astrology.jwt.claims-cache.misses", claimsCacheMisses, LongAdder::sum)
+                .description("Token lookups that parsed and verified the token").register(registry);
+        FunctionCounter.builder("astrology.jwt.claims-cache.evictions", claimsCacheEvictions, LongAdder::sum)
+                .description("Unexpired claims dropped because the cache was full").register(registry);
+    }
+    
     // ================ PRIVATE HELPER METHODS ================
     
+    /**
+     * Claims of a token whose signature has been verified, from the cache when
+     * possible. Tokens that fail to parse or are expired throw as before and
+     * are never cached.
+     */
+    private Claims getVerifiedClaims(String token) {
+        ByteBuffer key = digest(token);
+        CachedClaims cached = claimsCache.get(key);
+        if (cached != null) {
+            if (System.currentTimeMillis() < cached.expiresAtMillis) {
+                claimsCacheHits.increment();
+                return cached.claims;
+            }
+            claimsCache.remove(key, cached);
+        }
+        claimsCacheMisses.increment();
+        
+        Claims claims = getJwtParser().parseSignedClaims(token).getPayload();
+        Date expiration = claims.getExpiration();
+        if (expiration != null) {
+            if (claimsCache.size() >= claimsCacheSize) {
+                makeRoomInClaimsCache();
+            }
+            claimsCache.put(key, new CachedClaims(claims, expiration.getTime()));
+        }
+        return claims;
+    }
+    
+    private JwtParser getJwtParser() {
+        JwtParser parser = jwtParser;
+        if (parser == null) {
+            parser = Jwts.parser().verifyWith(getSigningKey()).build();
+            jwtParser = parser;
+        }
+        return parser;
+    }
+    
+    // Drops expired entries, then arbitrary ones until a tenth of the cache is free
+    private synchronized void makeRoomInClaimsCache() {
+        long now = System.currentTimeMillis();
+        claimsCache.values().removeIf(entry -> now >= entry.expiresAtMillis);
+        int target = Math.max(0, claimsCacheSize - Math.max(1, claimsCacheSize / 10));
+        Iterator<ByteBuffer> keys = claimsCache.keySet().iterator();
+        while (claimsCache.size() > target && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+            claimsCacheEvictions.increment();
+        }
+    }
+    
+    private static ByteBuffer digest(String token) {
+        try {
+            return ByteBuffer.wrap(MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+    
+    private static final class CachedClaims {
+        final Claims claims;
+        final long expiresAtMillis;
+        
+        CachedClaims(Claims claims, long expiresAtMillis) {
+            this.claims = claims;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+    
     private void validateUsername(String username) {
         if (username == null || username.trim().isEmpty()) {
             throw new IllegalArgumentException("Username cannot be null or empty");
@@ -0,0 +1,147 @@
+package com.cosmic.astrology.security;
+
+import com.cosmic.astrology.entity.UserRole;
+import com.cosmic.astrology.repository.UserRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Short-lived cache of what the JWT filter checks per request: whether the
+ * token's user still exists, is enabled and not locked, and its current role.
+ *
+ * Entries live for {@code app.security.userStatusCacheTtlMs}. Changes made on
+ * this node call {@link #invalidate} and apply at once; changes made on other
+ * nodes apply within the TTL.
+ */
+@Component
+public class UserStatusCache implements MeterBinder {
+
+    private final UserRepository userRepository;
+    private final long ttlNanos;
+    private final int maxEntries;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public UserStatusCache(UserRepository userRepository,
+                           @Value("${app.security.userStatusCacheTtlMs:30000}") long ttlMillis,
+                           @Value("${app.security.userStatusCacheSize:10000}") int maxEntries) {
+        this.userRepository = userRepository;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, ttlMillis));
+        this.maxEntries = Math.max(1, maxEntries);
+    }
+
+    /**
+     * Account state of one user as of the last load.
+     */
+    public static final class Status {
+        private final Long id;
+        private final UserRole role;
+        private final boolean active;
+
+        Status(Long id, UserRole role, boolean active) {
+            this.id = id;
+            this.role = role;
+            this.active = active;
+        }
+
+        public Long getId() { return id; }
+        public UserRole getRole() { return role; }
+
+        /** Enabled and not locked */
+        public boolean isActive() { return active; }
+    }
+
+    /**
+     * Returns the user's status, or null if there is no such user.
+     */
+    public Status get(String username) {
+        long now = System.nanoTime();
+        Entry entry = entries.get(username);
+        if (entry != null && now - entry.loadedAt < ttlNanos) {
+            hits.increment();
+            return entry.status;
+        }
+        misses.increment();
+
+        Status status = userRepository.findAuthStatus(username)
+                .map(user -> new Status(user.getId(), user.getRole(), isActive(user)))
+                .orElse(null);
+        if (entries.size() >= maxEntries) {
+            evictExpired(now);
+        }
+        entries.put(username, new Entry(status, now));
+        return status;
+    }
+
+    /**
+     * Drops the cached status after the user's account changed. Inside a
+     * transaction it is dropped again after commit, so a request that reloaded
+     * the old row in between does not keep it for a whole TTL.
+     */
+    public void invalidate(String username) {
+        if (username == null) {
+            return;
+        }
+        entries.remove(username);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    entries.remove(username);
+                }
+            });
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("astrology.auth.user-status-cache.size", entries, Map::size)
+                .description("User statuses held for the JWT filter").register(registry);
+        FunctionCounter.builder("astrology.auth.user-status-cache.hits", hits, LongAdder::sum)
+                .description("Authenticated requests that did not touch the database").register(registry);
+        FunctionCounter.builder("astrology.auth.user-status-cache.misses", misses, LongAdder::sum)
+                .description("User status loads from the database").register(registry);
+    }
+
+    // Same rule as User#isAccountLocked
+    private static boolean isActive(UserRepository.AuthStatus user) {
+        boolean locked = Boolean.TRUE.equals(user.getAccountLocked())
+                || (user.getAccountLockedAt() != null
+                    && (user.getAccountUnlockedAt() == null || user.getAccountLockedAt().isAfter(user.getAccountUnlockedAt())));
+        return Boolean.TRUE.equals(user.getEnabled()) && !locked;
+    }
+
+    // Drops expired entries, then arbitrary ones if every entry is still fresh
+    private void evictExpired(long now) {
+        entries.values().removeIf(entry -> now - entry.loadedAt >= ttlNanos);
+        Iterator<String> usernames = entries.keySet().iterator();
+        while (entries.size() >= maxEntries && usernames.hasNext()) {
+            usernames.next();
+            usernames.remove();
+        }
+    }
+
+    private static final class Entry {
+        final Status status;
+        final long loadedAt;
+
+        Entry(Status status, long loadedAt) {
+            this.status = status;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package com.cosmic.astrology.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Columnar file format for archived activity logs.
+ *
+ * A file is the magic "ACT", a version byte and a run of blocks ended by a
+ * zero row count; {@link ActivityColdArchive} gzips the whole stream. A block
+ * holds up to a page of rows as six length-prefixed columns, in this order so
+ * a reader looking for one user can skip a block after the first column:
+ * username, timestamp, activity type, device type, status, id.
+ *
+ * Strings are dictionary encoded per block: the distinct values, then one
+ * varint code per row, code 0 being null. Timestamps (epoch seconds of the
+ * stored local time) and ids are a first value followed by zigzag varint
+ * deltas; rows are written in timestamp order, so most deltas take one byte.
+ */
+public final class ActivityArchiveCodec {
+
+    private static final byte[] MAGIC = {'A', 'C', 'T'};
+    public static final byte VERSION = 1;
+
+    private ActivityArchiveCodec() {
+    }
+
+    /**
+     * One archived activity, the columns the engagement analytics need.
+     */
+    public static final class Row {
+        public final long id;
+        public final long epochSecond;
+        public final String username;
+        public final String activityType;
+        public final String deviceType;
+        public final String status;
+
+        public Row(long id, long epochSecond, String username, String activityType, String deviceType, String status) {
+            this.id = id;
+            this.epochSecond = epochSecond;
+            this.username = username;
+            this.activityType = activityType;
+            this.deviceType = deviceType;
+            this.status = status;
+        }
+    }
+
+    @FunctionalInterface
+    public interface RowVisitor {
+        void visit(long id, long epochSecond, String username, String activityType, String deviceType, String status);
+    }
+
+    public static void writeHeader(OutputStream out) throws IOException {
+        out.write(MAGIC);
+        out.write(VERSION);
+    }
+
+    public static void writeEnd(OutputStream out) throws IOException {
+        out.write(0);
+    }
+
+    public static void writeBlock(OutputStream out, List<Row> rows) throws IOException {
+        if (rows.isEmpty()) {
+            return;
+        }
+        ByteArrayOutputStream block = new ByteArrayOutputStream(rows.size() * 8);
+        writeVarLong(block, rows.size());
+        writeColumn(block, dictionary(rows, 0));
+
+        ByteArrayOutputStream timestamps = new ByteArrayOutputStream(rows.size() * 2);
+        long previous = 0;
+        for (Row row : rows) {
+            writeVarLong(timestamps, zigzag(row.epochSecond - previous));
+            previous = row.epochSecond;
+        }
+        writeColumn(block, timestamps);
+
+        writeColumn(block, dictionary(rows, 1));
+        writeColumn(block, dictionary(rows, 2));
+        writeColumn(block, dictionary(rows, 3));
+
+        ByteArrayOutputStream ids = new ByteArrayOutputStream(rows.size() * 2);
+        previous = 0;
+        for (Row row : rows) {
+            writeVarLong(ids, zigzag(row.id - previous));
+            previous = row.id;
+        }
+        writeColumn(block, ids);
+
+        block.writeTo(out);
+    }
+
+    /**
+     * Reads a whole file, calling the visitor for every row, or only for the
+     * rows of {@code username} when it is not null. Returns the rows visited.
+     */
+    public static long read(InputStream stream, String username, RowVisitor visitor) throws IOException {
+        DataInputStream in = new DataInputStream(stream);
+        byte[] magic = new byte[MAGIC.length];
+        in.readFully(magic);
+        if (magic[0] != MAGIC[0] || magic[1] != MAGIC[1] || magic[2] != MAGIC[2]) {
+            throw new IOException("Not an activity archive");
+        }
+        byte version = in.readByte();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Unsupported activity archive version: " + version);
+        }
+
+        long visited = 0;
+        while (true) {
+            int rowCount = (int) readVarLong(in);
+            if (rowCount == 0) {
+                return visited;
+            }
+            Cursor users = new Cursor(readColumn(in));
+            String[] userDictionary = readDictionary(users);
+            int wanted = -1;
+            if (username != null) {
+                for (int i = 1; i < userDictionary.length; i++) {
+                    if (username.equals(userDictionary[i])) {
+                        wanted = i;
+                        break;
+                    }
+                }
+                if (wanted < 0) {
+                    for (int column = 0; column < 5; column++) {
+                        skipColumn(in);
+                    }
+                    continue;
+                }
+            }
+
+            int[] userCodes = readCodes(users, rowCount);
+            Cursor timestamps = new Cursor(readColumn(in));
+            Cursor types = new Cursor(readColumn(in));
+            Cursor devices = new Cursor(readColumn(in));
+            Cursor statuses = new Cursor(readColumn(in));
+            Cursor ids = new Cursor(readColumn(in));
+            String[] typeDictionary = readDictionary(types);
+            String[] deviceDictionary = readDictionary(devices);
+            String[] statusDictionary = readDictionary(statuses);
+
+            long epochSecond = 0;
+            long id = 0;
+            for (int row = 0; row < rowCount; row++) {
+                epochSecond += unzigzag(timestamps.readVarLong());
+                id += unzigzag(ids.readVarLong());
+                String type = typeDictionary[(int) types.readVarLong()];
+                String device = deviceDictionary[(int) devices.readVarLong()];
+                String status = statusDictionary[(int) statuses.readVarLong()];
+                if (wanted < 0 || userCodes[row] == wanted) {
+                    visitor.visit(id, epochSecond, userDictionary[userCodes[row]], type, device, status);
+                    visited++;
+                }
+            }
+        }
+    }
+
+    // Dictionary column for one of the string fields: 0 username, 1 type, 2 device, 3 status
+    private static ByteArrayOutputStream dictionary(List<Row> rows, int field) throws IOException {
+        Map<String, Integer> codes = new HashMap<>();
+        List<String> values = new ArrayList<>();
+        int[] rowCodes = new int[rows.size()];
+        for (int i = 0; i < rowCodes.length; i++) {
+            String value = field(rows.get(i), field);
+            if (value == null) {
+                continue;
+            }
+            Integer code = codes.get(value);
+            if (code == null) {
+                values.add(value);
+                code = values.size();
+                codes.put(value, code);
+            }
+            rowCodes[i] = code;
+        }
+
+        ByteArrayOutputStream column = new ByteArrayOutputStream(values.size() * 12 + rowCodes.length);
+        writeVarLong(column, values.size());
+        for (String value : values) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(column, bytes.length);
+            column.write(bytes);
+        }
+        for (int code : rowCodes) {
+            writeVarLong(column, code);
+        }
+        return column;
+    }
+
+    private static String field(Row row, int field) {
+        switch (field) {
+            case 0: return row.username;
+            case 1: return row.activityType;
+            case 2: return row.deviceType;
+            default: return row.status;
+        }
+    }
+
+    private static String[] readDictionary(Cursor column) {
+        int size = (int) column.readVarLong();
+        String[] values = new String[size + 1];
+        for (int i = 1; i <= size; i++) {
+            int length = (int) column.readVarLong();
+            values[i] = new String(column.bytes, column.position, length, StandardCharsets.UTF_8);
+            column.position += length;
+        }
+        return values;
+    }
+
+    private static int[] readCodes(Cursor column, int rowCount) {
+        int[] codes = new int[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            codes[i] = (int) column.readVarLong();
+        }
+        return codes;
+    }
+
+    private static void writeColumn(OutputStream out, ByteArrayOutputStream column) throws IOException {
+        writeVarLong(out, column.size());
+        column.writeTo(out);
+    }
+
+    private static byte[] readColumn(DataInputStream in) throws IOException {
+        byte[] column = new byte[(int) readVarLong(in)];
+        in.readFully(column);
+        return column;
+    }
+
+    private static void skipColumn(DataInputStream in) throws IOException {
+        long length = readVarLong(in);
+        in.skipNBytes(length);
+    }
+
+    private static void writeVarLong(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(InputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException("Truncated activity archive");
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint in activity archive");
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static final class Cursor {
+        final byte[] bytes;
+        int position;
+
+        Cursor(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = bytes[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalStateException("Malformed varint in activity archive");
+        }
+    }
+}
@@ -0,0 +1,400 @@
+package com.cosmic.astrology.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cold storage for aged activity logs: one gzipped columnar file per
+ * calendar month ({@link ActivityArchiveCodec}) under
+ * {@code astrology.activity.archive.path}.
+ *
+ * {@link #archiveBefore} is called by {@link ActivityRetentionJob} when its
+ * archive mode is FILES. It writes every complete month older than the
+ * retention cutoff that has no file yet, then tells the purge how far it may
+ * delete. A month is read from the timestamp index in keyset pages, each page
+ * becoming one block, and its file only appears, by atomic rename, once it is
+ * complete.
+ *
+ * {@link #aggregate} computes engagement aggregates (counts by type, device,
+ * status, hour of day and weekday) over archived and live activity together:
+ * the month files in range are scanned in parallel on
+ * {@code astrology.activity.archive.scan-threads} threads, next to one GROUP
+ * BY over the rows newer than the archive.
+ */
+@Component
+public class ActivityColdArchive implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(ActivityColdArchive.class);
+
+    private static final String FILE_PREFIX = "activity-";
+    private static final String FILE_SUFFIX = ".cold";
+    private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM");
+
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime LATEST = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    private static final String OLDEST_SQL = "SELECT MIN(timestamp) FROM activity_logs";
+
+    private static final String PAGE_SQL =
+            "SELECT id, username, activity_type, device_type, status, timestamp FROM activity_logs " +
+            "WHERE timestamp >= ? AND timestamp < ? AND (timestamp > ? OR (timestamp = ? AND id > ?)) " +
+            "ORDER BY timestamp, id LIMIT ?";
+
+    private static final String LIVE_AGGREGATE_SQL =
+            "SELECT activity_type, device_type, status, HOUR(timestamp) AS hour_of_day, " +
+            "DAYOFWEEK(timestamp) AS day_of_week, COUNT(*) AS activity_count, " +
+            "MIN(timestamp) AS first_seen, MAX(timestamp) AS last_seen " +
+            "FROM activity_logs WHERE timestamp >= ? AND timestamp < ? %s" +
+            "GROUP BY activity_type, device_type, status, HOUR(timestamp), DAYOFWEEK(timestamp)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Path directory;
+    private final int pageSize;
+    private final long pauseMillis;
+    private final ExecutorService scanPool;
+
+    private final LongAdder filesWritten = new LongAdder();
+    private final LongAdder rowsArchived = new LongAdder();
+    private final LongAdder filesScanned = new LongAdder();
+    private final LongAdder rowsScanned = new LongAdder();
+
+    public ActivityColdArchive(JdbcTemplate jdbcTemplate,
+                               @Value("${astrology.activity.archive.path:./activity-archive}") String directory,
+                               @Value("${astrology.activity.archive.page-size:16384}") int pageSize,
+                               @Value("${astrology.activity.archive.page-pause-ms:50}") long pauseMillis,
+                               @Value("${astrology.activity.archive.scan-threads:4}") int scanThreads) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.directory = Paths.get(directory);
+        this.pageSize = Math.max(100, pageSize);
+        this.pauseMillis = Math.max(0, pauseMillis);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.scanPool = Executors.newFixedThreadPool(Math.max(1, scanThreads), runnable -> {
+            Thread thread = new Thread(runnable, "activity-archive-scan-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Engagement counters over a set of activities. Weekdays follow MySQL's
+     * DAYOFWEEK, index 0 being Sunday.
+     */
+    public static final class Aggregate {
+        private long total;
+        private final Map<String, Long> byType = new TreeMap<>();
+        private final Map<String, Long> byDevice = new TreeMap<>();
+        private final Map<String, Long> byStatus = new TreeMap<>();
+        private final long[] byHour = new long[24];
+        private final long[] byDayOfWeek = new long[7];
+        private long firstSecond = Long.MAX_VALUE;
+        private long lastSecond = Long.MIN_VALUE;
+
+        void add(long epochSecond, String type, String device, String status) {
+            long day = Math.floorDiv(epochSecond, 86_400L);
+            int hour = (int) (Math.floorMod(epochSecond, 86_400L) / 3600);
+            // 1970-01-01 was a Thursday
+            add(type, device, status, hour, (int) Math.floorMod(day + 4, 7L), 1, epochSecond, epochSecond);
+        }
+
+        void add(String type, String device, String status, int hour, int dayIndex, long count,
+                 long firstSecond, long lastSecond) {
+            total += count;
+            byType.merge(type != null ? type : "UNKNOWN", count, Long::sum);
+            byDevice.merge(device != null ? device : "UNKNOWN", count, Long::sum);
+            byStatus.merge(status != null ? status : "UNKNOWN", count, Long::sum);
+            byHour[hour] += count;
+            byDayOfWeek[dayIndex] += count;
+            this.firstSecond = Math.min(this.firstSecond, firstSecond);
+            this.lastSecond = Math.max(this.lastSecond, lastSecond);
+        }
+
+        void merge(Aggregate other) {
+            total += other.total;
+            other.byType.forEach((key, count) -> byType.merge(key, count, Long::sum));
+            other.byDevice.forEach((key, count) -> byDevice.merge(key, count, Long::sum));
+            other.byStatus.forEach((key, count) -> byStatus.merge(key, count, Long::sum));
+            for (int i = 0; i < byHour.length; i++) {
+                byHour[i] += other.byHour[i];
+            }
+            for (int i = 0; i < byDayOfWeek.length; i++) {
+                byDayOfWeek[i] += other.byDayOfWeek[i];
+            }
+            firstSecond = Math.min(firstSecond, other.firstSecond);
+            lastSecond = Math.max(lastSecond, other.lastSecond);
+        }
+
+        public long getTotal() { return total; }
+        public Map<String, Long> getByType() { return byType; }
+        public Map<String, Long> getByDevice() { return byDevice; }
+        public Map<String, Long> getByStatus() { return byStatus; }
+        public long[] getByHour() { return byHour; }
+        public long[] getByDayOfWeek() { return byDayOfWeek; }
+
+        public LocalDateTime getFirstActivity() {
+            return total > 0 ? LocalDateTime.ofEpochSecond(firstSecond, 0, ZoneOffset.UTC) : null;
+        }
+
+        public LocalDateTime getLastActivity() {
+            return total > 0 ? LocalDateTime.ofEpochSecond(lastSecond, 0, ZoneOffset.UTC) : null;
+        }
+    }
+
+    /**
+     * Archives every complete month before {@code cutoff} that has no file
+     * yet, oldest first, and returns the time up to which activity is safely
+     * archived: the start of the cutoff's month, or of the month where
+     * {@code stopRequested} interrupted the work.
+     */
+    public LocalDateTime archiveBefore(LocalDateTime cutoff, BooleanSupplier stopRequested)
+            throws IOException, InterruptedException {
+        YearMonth limit = YearMonth.from(cutoff);
+        LocalDateTime oldest = jdbcTemplate.queryForObject(OLDEST_SQL, LocalDateTime.class);
+        if (oldest == null) {
+            return limit.atDay(1).atStartOfDay();
+        }
+        Files.createDirectories(directory);
+        for (YearMonth month = YearMonth.from(oldest); month.isBefore(limit); month = month.plusMonths(1)) {
+            if (Files.exists(fileFor(month))) {
+                continue;
+            }
+            if (stopRequested.getAsBoolean() || !archiveMonth(month, stopRequested)) {
+                return month.atDay(1).atStartOfDay();
+            }
+        }
+        return limit.atDay(1).atStartOfDay();
+    }
+
+    /**
+     * Aggregates the activity of {@code username}, or of everyone when null,
+     * with timestamps in [from, to); null bounds are open.
+     */
+    public Aggregate aggregate(String username, LocalDateTime from, LocalDateTime to) {
+        LocalDateTime start = from != null ? from : EARLIEST;
+        LocalDateTime end = to != null ? to : LATEST;
+        long startSecond = start.toEpochSecond(ZoneOffset.UTC);
+        long endSecond = end.toEpochSecond(ZoneOffset.UTC);
+
+        List<YearMonth> months = archivedMonths();
+        List<Future<Aggregate>> parts = new ArrayList<>();
+        for (YearMonth month : months) {
+            if (month.atDay(1).atStartOfDay().isBefore(end) && month.plusMonths(1).atDay(1).atStartOfDay().isAfter(start)) {
+                Path file = fileFor(month);
+                parts.add(scanPool.submit(() -> scanFile(file, username, startSecond, endSecond)));
+            }
+        }
+
+        // Rows of archived months may still wait for the purge; the files already count them
+        LocalDateTime liveFrom = months.isEmpty() ? start
+                : max(start, months.get(months.size() - 1).plusMonths(1).atDay(1).atStartOfDay());
+        if (liveFrom.isBefore(end)) {
+            parts.add(scanPool.submit(() -> aggregateLive(username, liveFrom, end)));
+        }
+
+        Aggregate result = new Aggregate();
+        try {
+            for (Future<Aggregate> part : parts) {
+                result.merge(part.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while scanning activity archive", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Failed to scan activity archive", e.getCause());
+        }
+        return result;
+    }
+
+    public Map<String, Object> status() {
+        List<YearMonth> months = archivedMonths();
+        long bytes = 0;
+        for (YearMonth month : months) {
+            try {
+                bytes += Files.size(fileFor(month));
+            } catch (IOException e) {
+                // Deleted underneath us; leave it out of the total
+            }
+        }
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("path", directory.toAbsolutePath().toString());
+        status.put("months", months.size());
+        status.put("oldestMonth", months.isEmpty() ? null : months.get(0).toString());
+        status.put("newestMonth", months.isEmpty() ? null : months.get(months.size() - 1).toString());
+        status.put("bytes", bytes);
+        status.put("filesWritten", filesWritten.sum());
+        status.put("rowsArchived", rowsArchived.sum());
+        status.put("filesScanned", filesScanned.sum());
+        status.put("rowsScanned", rowsScanned.sum());
+        return status;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scanPool.shutdownNow();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("astrology.activity.archive.files-written", filesWritten, LongAdder::sum)
+                .description("Monthly activity archive files written").register(registry);
+        FunctionCounter.builder("astrology.activity.archive.rows-archived", rowsArchived, LongAdder::sum)
+                .description("Activity rows written to archive files").register(registry);
+        FunctionCounter.builder("astrology.activity.archive.files-scanned", filesScanned, LongAdder::sum)
+                .description("Archive files read by aggregate scans").register(registry);
+        FunctionCounter.builder("astrology.activity.archive.rows-scanned", rowsScanned, LongAdder::sum)
+                .description("Archived rows matched by aggregate scans").register(registry);
+    }
+
+    // Returns false if stopped before the month was complete; no file is left behind then
+    private boolean archiveMonth(YearMonth month, BooleanSupplier stopRequested) throws IOException, InterruptedException {
+        Path target = fileFor(month);
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        Timestamp monthStart = Timestamp.valueOf(month.atDay(1).atStartOfDay());
+        Timestamp monthEnd = Timestamp.valueOf(month.plusMonths(1).atDay(1).atStartOfDay());
+        long rows = 0;
+        long started = System.nanoTime();
+
+        boolean complete = false;
+        try (FileOutputStream file = new FileOutputStream(temp.toFile())) {
+            GZIPOutputStream out = new GZIPOutputStream(new BufferedOutputStream(file, 1 << 16));
+            ActivityArchiveCodec.writeHeader(out);
+
+            // The keyset needs the stored timestamp with its fraction, not the archived seconds
+            Timestamp[] lastTimestamp = {monthStart};
+            long lastId = 0;
+            while (true) {
+                if (stopRequested.getAsBoolean()) {
+                    break;
+                }
+                Timestamp after = lastTimestamp[0];
+                List<ActivityArchiveCodec.Row> page = jdbcTemplate.query(PAGE_SQL, (rs, rowNum) -> {
+                    Timestamp timestamp = rs.getTimestamp("timestamp");
+                    lastTimestamp[0] = timestamp;
+                    return new ActivityArchiveCodec.Row(
+                            rs.getLong("id"),
+                            timestamp.toLocalDateTime().toEpochSecond(ZoneOffset.UTC),
+                            rs.getString("username"),
+                            rs.getString("activity_type"),
+                            rs.getString("device_type"),
+                            rs.getString("status"));
+                }, monthStart, monthEnd, after, after, lastId, pageSize);
+                ActivityArchiveCodec.writeBlock(out, page);
+                rows += page.size();
+                if (page.size() < pageSize) {
+                    complete = true;
+                    break;
+                }
+                lastId = page.get(page.size() - 1).id;
+                Thread.sleep(pauseMillis);
+            }
+
+            ActivityArchiveCodec.writeEnd(out);
+            out.finish();
+            out.flush();
+            file.getFD().sync();
+        } finally {
+            if (!complete) {
+                Files.deleteIfExists(temp);
+            }
+        }
+        if (!complete) {
+            return false;
+        }
+
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        filesWritten.increment();
+        rowsArchived.add(rows);
+        logger.info("🗄️ Archived {} activity rows of {} in {} ms ({} bytes)",
+                rows, month, (System.nanoTime() - started) / 1_000_000, Files.size(target));
+        return true;
+    }
+
+    private Aggregate scanFile(Path file, String username, long startSecond, long endSecond) throws IOException {
+        Aggregate aggregate = new Aggregate();
+        try (InputStream in = new GZIPInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            ActivityArchiveCodec.read(in, username, (id, epochSecond, user, type, device, status) -> {
+                if (epochSecond >= startSecond && epochSecond < endSecond) {
+                    aggregate.add(epochSecond, type, device, status);
+                }
+            });
+        }
+        filesScanned.increment();
+        rowsScanned.add(aggregate.getTotal());
+        return aggregate;
+    }
+
+    private Aggregate aggregateLive(String username, LocalDateTime from, LocalDateTime to) {
+        Aggregate aggregate = new Aggregate();
+        String sql = String.format(LIVE_AGGREGATE_SQL, username != null ? "AND username = ? " : "");
+        Object[] args = username != null
+                ? new Object[] {Timestamp.valueOf(from), Timestamp.valueOf(to), username}
+                : new Object[] {Timestamp.valueOf(from), Timestamp.valueOf(to)};
+        jdbcTemplate.query(sql, rs -> {
+            aggregate.add(rs.getString("activity_type"), rs.getString("device_type"), rs.getString("status"),
+                    rs.getInt("hour_of_day"), rs.getInt("day_of_week") - 1, rs.getLong("activity_count"),
+                    rs.getTimestamp("first_seen").toLocalDateTime().toEpochSecond(ZoneOffset.UTC),
+                    rs.getTimestamp("last_seen").toLocalDateTime().toEpochSecond(ZoneOffset.UTC));
+        }, args);
+        return aggregate;
+    }
+
+    private List<YearMonth> archivedMonths() {
+        if (!Files.isDirectory(directory)) {
+            return new ArrayList<>();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(FILE_PREFIX) && name.endsWith(FILE_SUFFIX))
+                    .map(name -> YearMonth.parse(name.substring(FILE_PREFIX.length(), name.length() - FILE_SUFFIX.length()), MONTH_FORMAT))
+                    .sorted()
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to list activity archive", e);
+        }
+    }
+
+    private Path fileFor(YearMonth month) {
+        return directory.resolve(FILE_PREFIX + month.format(MONTH_FORMAT) + FILE_SUFFIX);
+    }
+
+    private static LocalDateTime max(LocalDateTime a, LocalDateTime b) {
+        return a.isAfter(b) ? a : b;
+    }
+}
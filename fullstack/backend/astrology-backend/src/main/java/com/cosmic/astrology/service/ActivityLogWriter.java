@@ -0,0 +1,256 @@
+package com.cosmic.astrology.service;
+
+import com.cosmic.astrology.entity.ActivityLog;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Asynchronous writer for {@link ActivityLog} rows.
+ *
+ * Callers hand events to {@link #record}, which never blocks: events go into
+ * a bounded ring buffer of {@code astrology.activity.buffer-size} slots and a
+ * background thread flushes them as one multi-row INSERT every
+ * {@code astrology.activity.flush-ms} or as soon as
+ * {@code astrology.activity.batch-size} events are waiting. When the buffer
+ * is full the {@code astrology.activity.overflow} policy decides which event
+ * is lost, DROP_NEWEST (the default) or DROP_OLDEST, and the loss is counted.
+ *
+ * Activity logs are best effort: a batch the database rejects is counted and
+ * dropped rather than retried.
+ */
+@Component
+public class ActivityLogWriter implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(ActivityLogWriter.class);
+
+    public enum Overflow { DROP_NEWEST, DROP_OLDEST }
+
+    private static final String INSERT_PREFIX =
+            "INSERT INTO activity_logs (username, activity_type, description, timestamp, ip_address, device_type, " +
+            "status, session_id, user_agent, location, duration_ms, category, priority, error_details, metadata, " +
+            "created_at, module, action, resource, request_id, correlation_id) VALUES ";
+
+    private static final String ROW_PLACEHOLDERS = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final int COLUMNS = 21;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final ArrayBlockingQueue<ActivityLog> buffer;
+    private final int batchSize;
+    private final long flushMillis;
+    private final Overflow overflow;
+    private final String fullBatchSql;
+
+    private final Thread flusher;
+    private volatile boolean running = true;
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+
+    public ActivityLogWriter(JdbcTemplate jdbcTemplate,
+                             ObjectMapper objectMapper,
+                             @Value("${astrology.activity.buffer-size:8192}") int bufferSize,
+                             @Value("${astrology.activity.batch-size:200}") int batchSize,
+                             @Value("${astrology.activity.flush-ms:500}") long flushMillis,
+                             @Value("${astrology.activity.overflow:DROP_NEWEST}") Overflow overflow) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.buffer = new ArrayBlockingQueue<>(Math.max(16, bufferSize));
+        this.batchSize = Math.max(1, Math.min(batchSize, 1000));
+        this.flushMillis = Math.max(10, flushMillis);
+        this.overflow = overflow;
+        this.fullBatchSql = insertSql(this.batchSize);
+        this.flusher = new Thread(this::flushLoop, "activity-log-writer");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Queues an event for the next batch. Returns false if the event, or an
+     * older one under DROP_OLDEST, was dropped because the buffer is full.
+     */
+    public boolean record(ActivityLog activity) {
+        if (activity == null || activity.getUsername() == null || activity.getActivityType() == null) {
+            return false;
+        }
+        if (activity.getTimestamp() == null) {
+            activity.setTimestamp(LocalDateTime.now());
+        }
+        if (buffer.offer(activity)) {
+            accepted.increment();
+            return true;
+        }
+        if (overflow == Overflow.DROP_OLDEST) {
+            buffer.poll();
+            dropped.increment();
+            if (buffer.offer(activity)) {
+                accepted.increment();
+                return false;
+            }
+        }
+        dropped.increment();
+        return false;
+    }
+
+    public void record(String username, String activityType, String description, String ipAddress) {
+        ActivityLog activity = new ActivityLog(username, activityType, description);
+        activity.setIpAddress(ipAddress);
+        record(activity);
+    }
+
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("buffered", buffer.size());
+        status.put("capacity", buffer.size() + buffer.remainingCapacity());
+        status.put("overflow", overflow);
+        status.put("accepted", accepted.sum());
+        status.put("dropped", dropped.sum());
+        status.put("written", written.sum());
+        status.put("failed", failed.sum());
+        status.put("batches", batches.sum());
+        return status;
+    }
+
+    // Stops taking new batches, then writes whatever is still buffered
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        flusher.interrupt();
+        flusher.join(TimeUnit.SECONDS.toMillis(5));
+        List<ActivityLog> rest = new ArrayList<>();
+        while (buffer.drainTo(rest, batchSize) > 0) {
+            write(rest);
+            rest.clear();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("astrology.activity.buffered", buffer, ArrayBlockingQueue::size)
+                .description("Activity events waiting to be written").register(registry);
+        FunctionCounter.builder("astrology.activity.accepted", accepted, LongAdder::sum)
+                .description("Activity events accepted into the buffer").register(registry);
+        FunctionCounter.builder("astrology.activity.dropped", dropped, LongAdder::sum)
+                .description("Activity events dropped because the buffer was full").register(registry);
+        FunctionCounter.builder("astrology.activity.written", written, LongAdder::sum)
+                .description("Activity events written to the database").register(registry);
+        FunctionCounter.builder("astrology.activity.failed", failed, LongAdder::sum)
+                .description("Activity events lost to failed batch inserts").register(registry);
+        FunctionCounter.builder("astrology.activity.batches", batches, LongAdder::sum)
+                .description("Multi-row activity inserts").register(registry);
+    }
+
+    // Flushes when batchSize events are waiting or flushMillis after the first one arrived
+    private void flushLoop() {
+        List<ActivityLog> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                ActivityLog first = buffer.take();
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushMillis);
+                while (batch.size() < batchSize) {
+                    buffer.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    ActivityLog next = buffer.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                if (running) {
+                    continue;
+                }
+                Thread.currentThread().interrupt();
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<ActivityLog> batch) {
+        Object[] args = new Object[batch.size() * COLUMNS];
+        int i = 0;
+        for (ActivityLog activity : batch) {
+            LocalDateTime timestamp = activity.getTimestamp() != null ? activity.getTimestamp() : LocalDateTime.now();
+            args[i++] = clip(activity.getUsername(), 50);
+            args[i++] = clip(activity.getActivityType(), 50);
+            args[i++] = clip(activity.getDescription() != null ? activity.getDescription() : activity.getActivityType(), 1000);
+            args[i++] = Timestamp.valueOf(timestamp);
+            args[i++] = clip(activity.getIpAddress(), 45);
+            args[i++] = clip(activity.getDeviceType(), 20);
+            args[i++] = clip(activity.getStatus() != null ? activity.getStatus() : "SUCCESS", 20);
+            args[i++] = clip(activity.getSessionId(), 100);
+            args[i++] = clip(activity.getUserAgent(), 500);
+            args[i++] = clip(activity.getLocation(), 200);
+            args[i++] = activity.getDurationMs();
+            args[i++] = clip(activity.getCategory(), 30);
+            args[i++] = clip(activity.getPriority() != null ? activity.getPriority() : "NORMAL", 20);
+            args[i++] = clip(activity.getErrorDetails(), 1000);
+            args[i++] = toJson(activity.getMetadata());
+            args[i++] = Timestamp.valueOf(timestamp);
+            args[i++] = clip(activity.getModule(), 50);
+            args[i++] = clip(activity.getAction(), 50);
+            args[i++] = clip(activity.getResource(), 100);
+            args[i++] = clip(activity.getRequestId(), 100);
+            args[i++] = clip(activity.getCorrelationId(), 100);
+        }
+        try {
+            jdbcTemplate.update(batch.size() == batchSize ? fullBatchSql : insertSql(batch.size()), args);
+            written.add(batch.size());
+            batches.increment();
+        } catch (RuntimeException e) {
+            failed.add(batch.size());
+            logger.warn("⚠️ Dropped {} activity log rows: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    private String toJson(Map<String, Object> metadata) {
+        if (metadata == null || metadata.isEmpty()) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(metadata);
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    private static String insertSql(int rows) {
+        return INSERT_PREFIX + String.join(", ", Collections.nCopies(rows, ROW_PLACEHOLDERS));
+    }
+
+    private static String clip(String value, int length) {
+        return value != null && value.length() > length ? value.substring(0, length) : value;
+    }
+}
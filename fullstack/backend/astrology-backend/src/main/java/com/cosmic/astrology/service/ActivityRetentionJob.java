@@ -0,0 +1,257 @@
+package com.cosmic.astrology.service;
+
+import com.cosmic.astrology.entity.JobCheckpoint;
+import com.cosmic.astrology.repository.JobCheckpointRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Background purge of {@code activity_logs} rows older than
+ * {@code astrology.activity.retention.days}. Off unless
+ * {@code astrology.activity.retention.enabled} is set, since the purged rows
+ * are gone for good with the default {@code archive=NONE}.
+ *
+ * Rows are deleted in primary-key ranges of
+ * {@code astrology.activity.retention.chunk-size} ids, one short transaction
+ * each, so no statement holds many row locks or builds a large undo log. After
+ * every chunk the job sleeps for {@code astrology.activity.retention.pause-ms}
+ * or as long as the chunk took, whichever is longer, which keeps it under half
+ * of the database's time. Progress is checkpointed per chunk.
+ *
+ * With {@code astrology.activity.retention.archive=TABLE} each chunk is copied
+ * to {@code activity_logs_archive} in the same transaction before it is
+ * deleted. With {@code FILES} whole months are first written to the columnar
+ * files of {@link ActivityColdArchive}, and only archived months are purged.
+ * Rows the rollup compactor has not reached yet are never purged.
+ */
+@Component
+public class ActivityRetentionJob implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(ActivityRetentionJob.class);
+
+    static final String JOB_NAME = "activity-retention";
+
+    public enum Archive { NONE, TABLE, FILES }
+
+    // Newest expired row, found from the timestamp index in one probe
+    private static final String CUTOFF_ID_SQL =
+            "SELECT id FROM activity_logs WHERE timestamp < ? ORDER BY timestamp DESC, id DESC LIMIT 1";
+
+    private static final String MIN_ID_SQL = "SELECT COALESCE(MIN(id), 0) FROM activity_logs";
+
+    private static final String CREATE_ARCHIVE_SQL =
+            "CREATE TABLE IF NOT EXISTS activity_logs_archive LIKE activity_logs";
+
+    private static final String ARCHIVE_CHUNK_SQL =
+            "INSERT INTO activity_logs_archive SELECT * FROM activity_logs WHERE id > ? AND id <= ? AND timestamp < ?";
+
+    private static final String DELETE_CHUNK_SQL =
+            "DELETE FROM activity_logs WHERE id > ? AND id <= ? AND timestamp < ?";
+
+    private final JobCheckpointRepository checkpointRepository;
+    private final ActivityColdArchive coldArchive;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final boolean enabled;
+    private final int retentionDays;
+    private final int chunkSize;
+    private final long pauseMillis;
+    private final Archive archive;
+
+    private final Object lifecycleLock = new Object();
+    private volatile Thread driver;
+    private volatile boolean stopRequested;
+
+    private final LongAdder deleted = new LongAdder();
+    private final LongAdder archived = new LongAdder();
+    private final LongAdder chunks = new LongAdder();
+
+    public ActivityRetentionJob(JobCheckpointRepository checkpointRepository,
+                                ActivityColdArchive coldArchive,
+                                JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${astrology.activity.retention.enabled:false}") boolean enabled,
+                                @Value("${astrology.activity.retention.days:365}") int retentionDays,
+                                @Value("${astrology.activity.retention.chunk-size:1000}") int chunkSize,
+                                @Value("${astrology.activity.retention.pause-ms:200}") long pauseMillis,
+                                @Value("${astrology.activity.retention.archive:NONE}") Archive archive) {
+        this.checkpointRepository = checkpointRepository;
+        this.coldArchive = coldArchive;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.retentionDays = Math.max(1, retentionDays);
+        this.chunkSize = Math.max(1, chunkSize);
+        this.pauseMillis = Math.max(0, pauseMillis);
+        this.archive = archive;
+    }
+
+    @Scheduled(fixedDelayString = "${astrology.activity.retention.interval-ms:3600000}",
+               initialDelayString = "${astrology.activity.retention.initial-delay-ms:300000}")
+    public void purgePeriodically() {
+        if (enabled) {
+            start();
+        }
+    }
+
+    /**
+     * Purges expired activity in the background. Returns false if a purge is
+     * already running.
+     */
+    public boolean start() {
+        synchronized (lifecycleLock) {
+            if (isRunning()) {
+                return false;
+            }
+            stopRequested = false;
+            Thread thread = new Thread(this::run, JOB_NAME);
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            driver = thread;
+            thread.start();
+            return true;
+        }
+    }
+
+    public void stop() {
+        stopRequested = true;
+    }
+
+    public boolean isRunning() {
+        Thread thread = driver;
+        return thread != null && thread.isAlive();
+    }
+
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        JobCheckpoint checkpoint = checkpointRepository.findById(JOB_NAME).orElse(null);
+        status.put("job", JOB_NAME);
+        status.put("enabled", enabled);
+        status.put("retentionDays", retentionDays);
+        status.put("archive", archive);
+        status.put("running", isRunning());
+        status.put("status", checkpoint != null ? checkpoint.getStatus() : null);
+        status.put("lastProcessedId", checkpoint != null ? checkpoint.getLastProcessedId() : 0L);
+        status.put("deletedInRun", checkpoint != null ? checkpoint.getProcessedCount() : 0L);
+        status.put("startedAt", checkpoint != null ? checkpoint.getStartedAt() : null);
+        status.put("updatedAt", checkpoint != null ? checkpoint.getUpdatedAt() : null);
+        return status;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        stopRequested = true;
+        Thread thread = driver;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("astrology.activity.retention.deleted", deleted, LongAdder::sum)
+                .description("Expired activity rows deleted").register(registry);
+        FunctionCounter.builder("astrology.activity.retention.archived", archived, LongAdder::sum)
+                .description("Expired activity rows copied to the archive table").register(registry);
+        FunctionCounter.builder("astrology.activity.retention.chunks", chunks, LongAdder::sum)
+                .description("Id ranges purged").register(registry);
+    }
+
+    private void run() {
+        JobCheckpoint checkpoint = checkpointRepository.findById(JOB_NAME).orElseGet(() -> new JobCheckpoint(JOB_NAME));
+        try {
+            LocalDateTime expiry = LocalDateTime.now().minusDays(retentionDays);
+            if (archive == Archive.FILES) {
+                expiry = coldArchive.archiveBefore(expiry, () -> stopRequested);
+            }
+            Timestamp cutoff = Timestamp.valueOf(expiry);
+            long upTo = cutoffId(cutoff);
+            if (upTo <= 0) {
+                return;
+            }
+            // Start from the oldest row left rather than the checkpoint, so rows
+            // that were skipped as unexpired in an earlier range are revisited
+            Long minId = jdbcTemplate.queryForObject(MIN_ID_SQL, Long.class);
+            long from = (minId != null ? minId : 0L) - 1;
+            if (from >= upTo) {
+                return;
+            }
+            if (archive == Archive.TABLE) {
+                jdbcTemplate.execute(CREATE_ARCHIVE_SQL);
+            }
+
+            checkpoint.setStatus(JobCheckpoint.STATUS_RUNNING);
+            checkpoint.setStartedAt(LocalDateTime.now());
+            checkpoint.setProcessedCount(0L);
+            checkpointRepository.save(checkpoint);
+            long started = System.nanoTime();
+
+            while (from < upTo && !stopRequested) {
+                long lower = from;
+                long upper = Math.min(upTo, from + chunkSize);
+                long chunkStarted = System.nanoTime();
+                Integer removed = transactionTemplate.execute(status -> {
+                    if (archive == Archive.TABLE) {
+                        archived.add(jdbcTemplate.update(ARCHIVE_CHUNK_SQL, lower, upper, cutoff));
+                    }
+                    int count = jdbcTemplate.update(DELETE_CHUNK_SQL, lower, upper, cutoff);
+                    checkpoint.setLastProcessedId(upper);
+                    checkpoint.setProcessedCount(checkpoint.getProcessedCount() + count);
+                    checkpointRepository.save(checkpoint);
+                    return count;
+                });
+                deleted.add(removed != null ? removed : 0);
+                chunks.increment();
+                from = upper;
+
+                long elapsedMillis = (System.nanoTime() - chunkStarted) / 1_000_000;
+                Thread.sleep(Math.max(pauseMillis, elapsedMillis));
+            }
+
+            checkpoint.setStatus(from >= upTo ? JobCheckpoint.STATUS_COMPLETED : JobCheckpoint.STATUS_STOPPED);
+            checkpointRepository.save(checkpoint);
+            logger.info("🧹 Activity retention {} {} rows older than {} days in {} s",
+                    from >= upTo ? "purged" : "stopped after purging",
+                    checkpoint.getProcessedCount(), retentionDays, (System.nanoTime() - started) / 1_000_000_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            checkpoint.setStatus(JobCheckpoint.STATUS_STOPPED);
+            checkpointRepository.save(checkpoint);
+        } catch (IOException | RuntimeException e) {
+            checkpoint.setStatus(JobCheckpoint.STATUS_FAILED);
+            checkpointRepository.save(checkpoint);
+            logger.error("❌ Activity retention failed after id {}", checkpoint.getLastProcessedId(), e);
+        }
+    }
+
+    // Highest id that may go: the newest expired row, capped by what the rollups already hold
+    private long cutoffId(Timestamp cutoff) {
+        List<Long> newest = jdbcTemplate.queryForList(CUTOFF_ID_SQL, Long.class, cutoff);
+        if (newest.isEmpty()) {
+            return 0L;
+        }
+        long compacted = checkpointRepository.findById(ActivityRollupJob.JOB_NAME)
+                .map(JobCheckpoint::getLastProcessedId)
+                .orElse(0L);
+        return Math.min(newest.get(0), compacted);
+    }
+}
@@ -0,0 +1,258 @@
+package com.cosmic.astrology.service;
+
+import com.cosmic.astrology.entity.JobCheckpoint;
+import com.cosmic.astrology.repository.JobCheckpointRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compacts {@code activity_logs} into the rollup tables read by the activity
+ * analytics queries: {@code activity_daily_rollups} (user, day, type) and
+ * {@code activity_hourly_rollups} (user, weekday, hour).
+ *
+ * Every {@code astrology.activity.rollup.interval-ms} the job folds the rows
+ * added since its checkpoint into the rollups, a range of ids at a time, with
+ * the rollup upserts and the checkpoint in one transaction. The first run
+ * compacts the whole history. Rollups outlive the raw rows, so purging old
+ * activity does not change the analytics.
+ *
+ * A rebuild recomputes everything only while no raw rows have been purged.
+ * After a purge it recomputes the daily rollups from the first day whose rows
+ * are all still kept, one day per transaction, and leaves the older days and
+ * the all-time hourly rollups as they are.
+ *
+ * Relies on activity ids being committed in order, which holds while
+ * {@link ActivityLogWriter}'s single thread is the only writer.
+ */
+@Component
+public class ActivityRollupJob implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(ActivityRollupJob.class);
+
+    static final String JOB_NAME = "activity-rollup";
+
+    private static final String MAX_ID_SQL = "SELECT COALESCE(MAX(id), 0) FROM activity_logs";
+
+    private static final String OLDEST_RAW_DAY_SQL = "SELECT DATE(MIN(timestamp)) FROM activity_logs";
+
+    private static final String OLDEST_ROLLUP_DAY_SQL = "SELECT MIN(activity_day) FROM activity_daily_rollups";
+
+    private static final String DELETE_DAILY_DAY_SQL = "DELETE FROM activity_daily_rollups WHERE activity_day = ?";
+
+    // One day of already compacted rows, read through idx_activity_timestamp
+    private static final String DAILY_DAY_SQL =
+            "INSERT INTO activity_daily_rollups (username, activity_day, activity_type, activity_count) " +
+            "SELECT username, DATE(timestamp), activity_type, COUNT(*) FROM activity_logs " +
+            "WHERE timestamp >= ? AND timestamp < ? AND id <= ? GROUP BY username, DATE(timestamp), activity_type";
+
+    private static final String DAILY_ROLLUP_SQL =
+            "INSERT INTO activity_daily_rollups (username, activity_day, activity_type, activity_count) " +
+            "SELECT username, DATE(timestamp), activity_type, COUNT(*) FROM activity_logs " +
+            "WHERE id > ? AND id <= ? GROUP BY username, DATE(timestamp), activity_type " +
+            "ON DUPLICATE KEY UPDATE activity_count = activity_count + VALUES(activity_count)";
+
+    private static final String HOURLY_ROLLUP_SQL =
+            "INSERT INTO activity_hourly_rollups (username, day_of_week, hour_of_day, activity_count) " +
+            "SELECT username, DAYOFWEEK(timestamp), HOUR(timestamp), COUNT(*) FROM activity_logs " +
+            "WHERE id > ? AND id <= ? GROUP BY username, DAYOFWEEK(timestamp), HOUR(timestamp) " +
+            "ON DUPLICATE KEY UPDATE activity_count = activity_count + VALUES(activity_count)";
+
+    private final JobCheckpointRepository checkpointRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final int chunkSize;
+
+    private final Object lifecycleLock = new Object();
+    private volatile Thread driver;
+    private volatile boolean stopRequested;
+
+    private final LongAdder compactedIds = new LongAdder();
+    private final LongAdder chunks = new LongAdder();
+    private final AtomicLong lag = new AtomicLong();
+
+    public ActivityRollupJob(JobCheckpointRepository checkpointRepository,
+                             JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${astrology.activity.rollup.chunk-size:50000}") int chunkSize) {
+        this.checkpointRepository = checkpointRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    @Scheduled(fixedDelayString = "${astrology.activity.rollup.interval-ms:60000}",
+               initialDelayString = "${astrology.activity.rollup.interval-ms:60000}")
+    public void compactPeriodically() {
+        start(false);
+    }
+
+    /**
+     * Compacts the activity added since the checkpoint in the background, or
+     * rebuilds the rollups from the raw rows still kept when {@code rebuild}
+     * is set; see the class comment for what a rebuild covers after a purge.
+     * Returns false if a run is already in progress.
+     */
+    public boolean start(boolean rebuild) {
+        synchronized (lifecycleLock) {
+            if (isRunning()) {
+                return false;
+            }
+            stopRequested = false;
+            Thread thread = new Thread(() -> run(rebuild), JOB_NAME);
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            driver = thread;
+            thread.start();
+            return true;
+        }
+    }
+
+    public void stop() {
+        stopRequested = true;
+    }
+
+    public boolean isRunning() {
+        Thread thread = driver;
+        return thread != null && thread.isAlive();
+    }
+
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        JobCheckpoint checkpoint = checkpointRepository.findById(JOB_NAME).orElse(null);
+        status.put("job", JOB_NAME);
+        status.put("running", isRunning());
+        status.put("status", checkpoint != null ? checkpoint.getStatus() : null);
+        status.put("lastProcessedId", checkpoint != null ? checkpoint.getLastProcessedId() : 0L);
+        status.put("lag", lag.get());
+        status.put("updatedAt", checkpoint != null ? checkpoint.getUpdatedAt() : null);
+        return status;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        stopRequested = true;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("astrology.activity.rollup.compacted-ids", compactedIds, LongAdder::sum)
+                .description("Activity ids folded into the rollups").register(registry);
+        FunctionCounter.builder("astrology.activity.rollup.chunks", chunks, LongAdder::sum)
+                .description("Id ranges compacted").register(registry);
+        Gauge.builder("astrology.activity.rollup.lag", lag, AtomicLong::get)
+                .description("Activity ids not yet in the rollups").register(registry);
+    }
+
+    private void run(boolean rebuild) {
+        JobCheckpoint checkpoint = checkpointRepository.findById(JOB_NAME).orElseGet(() -> new JobCheckpoint(JOB_NAME));
+        long started = System.nanoTime();
+        try {
+            if (rebuild && rawRowsPurged()) {
+                rebuildKeptDays(checkpoint.getLastProcessedId());
+            } else if (rebuild) {
+                transactionTemplate.executeWithoutResult(status -> {
+                    jdbcTemplate.update("DELETE FROM activity_daily_rollups");
+                    jdbcTemplate.update("DELETE FROM activity_hourly_rollups");
+                    checkpoint.setLastProcessedId(0L);
+                    checkpoint.setProcessedCount(0L);
+                    checkpoint.setStartedAt(LocalDateTime.now());
+                    checkpointRepository.save(checkpoint);
+                });
+                logger.info("🔄 Activity rollups cleared for rebuild");
+            }
+
+            Long maxId = jdbcTemplate.queryForObject(MAX_ID_SQL, Long.class);
+            long upTo = maxId != null ? maxId : 0L;
+            long from = checkpoint.getLastProcessedId();
+            lag.set(Math.max(0, upTo - from));
+            if (from >= upTo) {
+                return;
+            }
+            checkpoint.setStatus(JobCheckpoint.STATUS_RUNNING);
+            long firstId = from;
+
+            while (from < upTo && !stopRequested) {
+                long lower = from;
+                long upper = Math.min(upTo, from + chunkSize);
+                transactionTemplate.executeWithoutResult(status -> {
+                    jdbcTemplate.update(DAILY_ROLLUP_SQL, lower, upper);
+                    jdbcTemplate.update(HOURLY_ROLLUP_SQL, lower, upper);
+                    checkpoint.setLastProcessedId(upper);
+                    checkpoint.setProcessedCount(checkpoint.getProcessedCount() + (upper - lower));
+                    checkpointRepository.save(checkpoint);
+                });
+                compactedIds.add(upper - lower);
+                chunks.increment();
+                lag.set(upTo - upper);
+                from = upper;
+            }
+
+            checkpoint.setStatus(from >= upTo ? JobCheckpoint.STATUS_COMPLETED : JobCheckpoint.STATUS_STOPPED);
+            checkpointRepository.save(checkpoint);
+            if (upTo - firstId >= chunkSize || rebuild) {
+                logger.info("📊 Activity rollups compacted ids {}..{} in {} ms",
+                        firstId + 1, from, (System.nanoTime() - started) / 1_000_000);
+            }
+        } catch (RuntimeException e) {
+            checkpoint.setStatus(JobCheckpoint.STATUS_FAILED);
+            checkpointRepository.save(checkpoint);
+            logger.error("❌ Activity rollup failed after id {}", checkpoint.getLastProcessedId(), e);
+        }
+    }
+
+    // The rollups hold a day older than every raw row, or rows remain rolled up with no raw rows left
+    private boolean rawRowsPurged() {
+        LocalDate oldestRollup = jdbcTemplate.queryForObject(OLDEST_ROLLUP_DAY_SQL, LocalDate.class);
+        if (oldestRollup == null) {
+            return false;
+        }
+        LocalDate oldestRaw = jdbcTemplate.queryForObject(OLDEST_RAW_DAY_SQL, LocalDate.class);
+        return oldestRaw == null || oldestRollup.isBefore(oldestRaw);
+    }
+
+    // Recomputes the daily rollups of the days still complete in activity_logs from the
+    // rows up to the checkpoint; later rows are folded in by the compaction that follows
+    private void rebuildKeptDays(long compactedUpTo) {
+        LocalDate oldestRaw = jdbcTemplate.queryForObject(OLDEST_RAW_DAY_SQL, LocalDate.class);
+        if (oldestRaw == null) {
+            logger.warn("⚠️ Activity rollups not rebuilt: every raw activity row has been purged");
+            return;
+        }
+        // The oldest day may have lost its earlier rows to the purge
+        LocalDate first = oldestRaw.plusDays(1);
+        LocalDate last = LocalDate.now().plusDays(1);
+        LocalDate day = first;
+        while (!day.isAfter(last) && !stopRequested) {
+            LocalDate rebuilt = day;
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.update(DELETE_DAILY_DAY_SQL, Date.valueOf(rebuilt));
+                jdbcTemplate.update(DAILY_DAY_SQL, Timestamp.valueOf(rebuilt.atStartOfDay()),
+                        Timestamp.valueOf(rebuilt.plusDays(1).atStartOfDay()), compactedUpTo);
+            });
+            day = day.plusDays(1);
+        }
+        logger.info("🔄 Daily activity rollups rebuilt for {}..{}; older days and hourly rollups kept, "
+                + "raw activity before {} has been purged", first, day.minusDays(1), oldestRaw);
+    }
+}
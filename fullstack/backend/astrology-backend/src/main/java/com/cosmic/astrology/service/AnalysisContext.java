@@ -0,0 +1,107 @@
+package com.cosmic.astrology.service;
+
+import com.cosmic.astrology.entity.User;
+
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Inputs shared by every analysis of one request.
+ *
+ * The user, the natal chart, the current sky and the current dasha are each
+ * resolved on first use and then reused by all analyses that receive the
+ * context, including analyses running in parallel. Contexts are opened by
+ * {@link AstrologyService#openAnalysisContext(String)} and must be closed to
+ * report their load counts.
+ */
+public final class AnalysisContext implements AutoCloseable {
+
+    private final String username;
+    private final AnalysisContextMetrics metrics;
+
+    private final Memo<User> user;
+    private final Memo<Map<String, Object>> chart;
+    private final Memo<Map<String, Double>> sky;
+    private final Memo<Map<String, Object>> currentDasha;
+
+    AnalysisContext(String username,
+                    AnalysisContextMetrics metrics,
+                    Supplier<User> userLoader,
+                    Function<User, Map<String, Object>> chartLoader,
+                    Supplier<Map<String, Double>> skyLoader,
+                    Function<AnalysisContext, Map<String, Object>> dashaLoader) {
+        this.username = username;
+        this.metrics = metrics;
+        this.user = new Memo<>(AnalysisContextMetrics.USER, userLoader);
+        this.chart = new Memo<>(AnalysisContextMetrics.CHART, () -> chartLoader.apply(getUser()));
+        this.sky = new Memo<>(AnalysisContextMetrics.SKY, skyLoader);
+        this.currentDasha = new Memo<>(AnalysisContextMetrics.DASHA, () -> dashaLoader.apply(this));
+        metrics.opened();
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public User getUser() {
+        return user.get();
+    }
+
+    /**
+     * The user's natal chart. Shared by all analyses of the request and must not be modified.
+     */
+    public Map<String, Object> getChart() {
+        return chart.get();
+    }
+
+    /**
+     * Sidereal longitudes of the planets at the time the context first needed them.
+     */
+    public Map<String, Double> getSky() {
+        return sky.get();
+    }
+
+    public Map<String, Object> getCurrentDasha() {
+        return currentDasha.get();
+    }
+
+    @Override
+    public void close() {
+        metrics.closed(user.loads + chart.loads + sky.loads + currentDasha.loads);
+    }
+
+    /**
+     * A value loaded at most once per context, even when analyses ask for it concurrently.
+     */
+    private final class Memo<T> {
+
+        private final String kind;
+        private final Supplier<T> loader;
+        private volatile T value;
+        private volatile int loads;
+
+        Memo(String kind, Supplier<T> loader) {
+            this.kind = kind;
+            this.loader = loader;
+        }
+
+        T get() {
+            T current = value;
+            if (current != null) {
+                metrics.reused(kind);
+                return current;
+            }
+            synchronized (this) {
+                if (value == null) {
+                    loads++;
+                    metrics.loaded(kind);
+                    value = loader.get();
+                } else {
+                    metrics.reused(kind);
+                }
+                return value;
+            }
+        }
+    }
+}
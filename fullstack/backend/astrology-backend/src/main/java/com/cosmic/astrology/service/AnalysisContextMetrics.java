@@ -0,0 +1,71 @@
+package com.cosmic.astrology.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Load and reuse counts of {@link AnalysisContext}.
+ *
+ * {@code astrology.analysis.context.loads.per-request} records how many
+ * inputs each closed context loaded (at most four). The per-kind
+ * {@code astrology.analysis.context.loads} and
+ * {@code astrology.analysis.context.reuses} counters show which inputs are
+ * loaded and how many loads the contexts saved.
+ */
+@Component
+public class AnalysisContextMetrics implements MeterBinder {
+
+    static final String USER = "user";
+    static final String CHART = "chart";
+    static final String SKY = "sky";
+    static final String DASHA = "dasha";
+
+    private static final String[] KINDS = {USER, CHART, SKY, DASHA};
+
+    private final LongAdder contexts = new LongAdder();
+    private final Map<String, LongAdder> loads = Map.of(
+            USER, new LongAdder(), CHART, new LongAdder(), SKY, new LongAdder(), DASHA, new LongAdder());
+    private final Map<String, LongAdder> reuses = Map.of(
+            USER, new LongAdder(), CHART, new LongAdder(), SKY, new LongAdder(), DASHA, new LongAdder());
+
+    private volatile DistributionSummary loadsPerRequest;
+
+    void opened() {
+        contexts.increment();
+    }
+
+    void loaded(String kind) {
+        loads.get(kind).increment();
+    }
+
+    void reused(String kind) {
+        reuses.get(kind).increment();
+    }
+
+    void closed(int contextLoads) {
+        DistributionSummary summary = loadsPerRequest;
+        if (summary != null) {
+            summary.record(contextLoads);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("astrology.analysis.contexts", contexts, LongAdder::sum)
+                .description("Analysis contexts opened, one per request").register(registry);
+        loadsPerRequest = DistributionSummary.builder("astrology.analysis.context.loads.per-request")
+                .description("Inputs loaded by one analysis context").register(registry);
+        for (String kind : KINDS) {
+            FunctionCounter.builder("astrology.analysis.context.loads", loads.get(kind), LongAdder::sum)
+                    .tag("kind", kind).description("Inputs loaded by analysis contexts").register(registry);
+            FunctionCounter.builder("astrology.analysis.context.reuses", reuses.get(kind), LongAdder::sum)
+                    .tag("kind", kind).description("Inputs served from an analysis context").register(registry);
+        }
+    }
+}
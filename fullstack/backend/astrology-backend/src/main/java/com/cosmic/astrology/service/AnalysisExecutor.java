@@ -0,0 +1,296 @@
+package com.cosmic.astrology.service;
+
+import com.cosmic.astrology.util.ChartTrace;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Runs the independent parts of a composite analysis in parallel.
+ *
+ * A request opens a {@link Scope}, forks its subtasks and joins them. All
+ * subtasks of a scope share one deadline ({@code astrology.analysis.deadline-ms}):
+ * the first failure cancels the remaining subtasks and is rethrown from
+ * {@link Scope#join()}, while subtasks still running at the deadline are
+ * cancelled and report no result, so the caller can fall back for just those
+ * parts. Closing the scope cancels anything left, so no subtask outlives the
+ * request that forked it.
+ *
+ * When the pool and its queue are saturated the subtask runs on the calling
+ * thread, which degrades to the sequential behaviour instead of failing.
+ */
+@Component
+public class AnalysisExecutor implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnalysisExecutor.class);
+
+    private final ThreadPoolExecutor executor;
+    private final long deadlineMillis;
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+
+    public AnalysisExecutor(@Value("${astrology.analysis.threads:8}") int threads,
+                            @Value("${astrology.analysis.queue-size:256}") int queueSize,
+                            @Value("${astrology.analysis.deadline-ms:8000}") long deadlineMillis) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        int poolSize = Math.max(1, threads);
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueSize)), runnable -> {
+                    Thread thread = new Thread(runnable, "analysis-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+        this.deadlineMillis = deadlineMillis;
+    }
+
+    /**
+     * Opens a scope whose subtasks must finish within the configured deadline.
+     */
+    public Scope open() {
+        return new Scope(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMillis));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("astrology.analysis.subtasks", completed, LongAdder::sum)
+                .tag("result", "completed").description("Analysis subtasks").register(registry);
+        FunctionCounter.builder("astrology.analysis.subtasks", failed, LongAdder::sum)
+                .tag("result", "failed").description("Analysis subtasks").register(registry);
+        FunctionCounter.builder("astrology.analysis.subtasks", timedOut, LongAdder::sum)
+                .tag("result", "timed_out").description("Analysis subtasks").register(registry);
+        FunctionCounter.builder("astrology.analysis.subtasks", cancelled, LongAdder::sum)
+                .tag("result", "cancelled").description("Analysis subtasks").register(registry);
+        Gauge.builder("astrology.analysis.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Analysis subtasks currently running").register(registry);
+        Gauge.builder("astrology.analysis.queued", executor, pool -> pool.getQueue().size())
+                .description("Analysis subtasks waiting for a thread").register(registry);
+    }
+
+    /**
+     * The subtasks forked for one request. Not thread-safe: fork, join and
+     * close from the thread that opened it.
+     */
+    public final class Scope implements AutoCloseable {
+
+        private final long deadlineNanos;
+        private final CompletionService<Object> completion = new ExecutorCompletionService<>(executor);
+        private final List<Subtask<?>> subtasks = new ArrayList<>();
+
+        private Scope(long deadlineNanos) {
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        public <T> Subtask<T> fork(String name, Supplier<T> task) {
+            Supplier<T> traced = ChartTrace.propagate(task);
+            Subtask<T> subtask = new Subtask<>(name, completion.submit(traced::get));
+            subtasks.add(subtask);
+            return subtask;
+        }
+
+        /**
+         * Waits for every subtask or the deadline, whichever comes first.
+         * Rethrows the first subtask failure after cancelling the others.
+         */
+        public void join() throws InterruptedException {
+            await(null);
+        }
+
+        /**
+         * Waits like {@link #join()}, but hands each subtask to {@code onDone}
+         * on the calling thread as soon as it finishes, fails or misses the
+         * deadline, without cancelling the others on failure.
+         */
+        public void joinEach(Consumer<Subtask<?>> onDone) throws InterruptedException {
+            await(onDone);
+        }
+
+        private void await(Consumer<Subtask<?>> onDone) throws InterruptedException {
+            int outstanding = (int) subtasks.stream().filter(subtask -> !subtask.joined).count();
+            while (outstanding > 0) {
+                long waitNanos = deadlineNanos - System.nanoTime();
+                Future<Object> done = waitNanos > 0 ? completion.poll(waitNanos, TimeUnit.NANOSECONDS) : null;
+                if (done == null) {
+                    break;
+                }
+                Subtask<?> subtask = subtaskFor(done);
+                if (subtask.joined) {
+                    continue;
+                }
+                outstanding--;
+                subtask.joined = true;
+                try {
+                    done.get();
+                    completed.increment();
+                } catch (CancellationException e) {
+                    cancelled.increment();
+                } catch (ExecutionException e) {
+                    failed.increment();
+                    if (onDone == null) {
+                        cancelUnfinished(cancelled);
+                        Throwable cause = e.getCause();
+                        if (cause instanceof RuntimeException) {
+                            throw (RuntimeException) cause;
+                        }
+                        if (cause instanceof Error) {
+                            throw (Error) cause;
+                        }
+                        throw new IllegalStateException("Analysis step " + subtask.name + " failed", cause);
+                    }
+                }
+                if (onDone != null) {
+                    onDone.accept(subtask);
+                }
+            }
+
+            if (outstanding > 0) {
+                // Includes subtasks that finished between the last poll and their cancel
+                List<Subtask<?>> late = cancelUnfinished(timedOut);
+                logger.warn("⏱️ Analysis deadline of {} ms passed, cancelled: {}", deadlineMillis,
+                        late.stream().filter(subtask -> subtask.future.isCancelled())
+                                .map(Subtask::getName).collect(Collectors.toList()));
+                if (onDone != null) {
+                    late.forEach(onDone);
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            cancelUnfinished(cancelled);
+        }
+
+        // Cancels and returns every subtask not joined yet. A subtask that finished just
+        // before its cancel keeps its result and is counted as completed or failed.
+        private List<Subtask<?>> cancelUnfinished(LongAdder counter) {
+            List<Subtask<?>> unjoined = new ArrayList<>();
+            for (Subtask<?> subtask : subtasks) {
+                if (!subtask.joined) {
+                    subtask.joined = true;
+                    if (subtask.future.cancel(true)) {
+                        counter.increment();
+                    } else if (subtask.getFailure() != null) {
+                        failed.increment();
+                    } else {
+                        completed.increment();
+                    }
+                    unjoined.add(subtask);
+                }
+            }
+            return unjoined;
+        }
+
+        private Subtask<?> subtaskFor(Future<Object> future) {
+            for (Subtask<?> subtask : subtasks) {
+                if (subtask.future == future) {
+                    return subtask;
+                }
+            }
+            throw new IllegalStateException("Completed future does not belong to this scope");
+        }
+    }
+
+    /**
+     * Handle to one forked subtask.
+     */
+    public static final class Subtask<T> {
+
+        private static final Object NO_RESULT = new Object();
+
+        private final String name;
+        private final Future<Object> future;
+        private boolean joined;
+
+        private Subtask(String name, Future<Object> future) {
+            this.name = name;
+            this.future = future;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Whether the subtask finished with a result before the deadline.
+         */
+        public boolean isCompleted() {
+            return result() != NO_RESULT;
+        }
+
+        /**
+         * The subtask's result, or {@code fallback} when it timed out or was cancelled.
+         */
+        @SuppressWarnings("unchecked")
+        public T getOrElse(T fallback) {
+            Object result = result();
+            return result != NO_RESULT ? (T) result : fallback;
+        }
+
+        public T get() {
+            return getOrElse(null);
+        }
+
+        /**
+         * Why the subtask has no result: its exception, or null when it
+         * completed or was cancelled.
+         */
+        public Throwable getFailure() {
+            if (!future.isDone() || future.isCancelled()) {
+                return null;
+            }
+            try {
+                future.get();
+                return null;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            } catch (ExecutionException e) {
+                return e.getCause();
+            }
+        }
+
+        private Object result() {
+            if (!future.isDone() || future.isCancelled()) {
+                return NO_RESULT;
+            }
+            try {
+                return future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return NO_RESULT;
+            } catch (ExecutionException e) {
+                return NO_RESULT;
+            }
+        }
+    }
+}
@@ -1,7 +1,10 @@
 package com.cosmic.astrology.service;
 
 import com.cosmic.astrology.dto.*;
+import com.cosmic.astrology.entity.BirthChart;
 import com.cosmic.astrology.entity.User;
+import com.cosmic.astrology.repository.BirthChartRepository;
+import com.cosmic.astrology.repository.DailyHoroscopeRepository;
 import com.cosmic.astrology.repository.UserRepository;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -10,8 +13,10 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -24,12 +29,41 @@ public class AstrologyService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private BirthChartRepository birthChartRepository;
+
+    @Autowired
+    private DailyHoroscopeRepository dailyHoroscopeRepository;
+
     @Autowired
     private VedicAstrologyCalculationService vedicCalculationService;
 
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private CurrentDashaCache currentDashaCache;
+
+    @Autowired
+    private ChartUpgradeExecutor chartUpgradeExecutor;
+
+    @Autowired
+    private AnalysisContextMetrics analysisContextMetrics;
+
+    @Autowired
+    private GunaMilanEngine gunaMilanEngine;
+
+    @Autowired
+    private MatchmakingIndex matchmakingIndex;
+
+    @Autowired
+    private TransitAlertScheduler transitAlertScheduler;
+
+    @Autowired
+    private ActivityLogWriter activityLogWriter;
+
+    private volatile Set<String> legacyNatalChartColumns;
+
     private static final DateTimeFormatter ISO_FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
 
     private static final String[] ENGLISH_SIGNS = {
@@ -81,9 +115,15 @@ public class AstrologyService {
 
    
     public PersonalizedMessageResponse getPersonalizedMessage(String username) {
+        try (AnalysisContext context = openAnalysisContext(username)) {
+            return getPersonalizedMessage(context);
+        }
+    }
+
+    public PersonalizedMessageResponse getPersonalizedMessage(AnalysisContext context) {
+        String username = context.getUsername();
         try {
-            User user = userRepository.findByUsername(username)
-                    .orElseThrow(() -> new RuntimeException("User not found: " + username));
+            User user = context.getUser();
 
             logger.info("🕉️ Generating comprehensive Vedic message for: {}", username);
 
@@ -92,14 +132,14 @@ public class AstrologyService {
             }
 
             // Get comprehensive Vedic chart
-            Map<String, Object> vedicChart = getVedicNatalChart(user);
-            Map<String, Double> currentTransits = vedicCalculationService.getCurrentTransits();
+            Map<String, Object> vedicChart = context.getChart();
+            Map<String, Double> currentTransits = context.getSky();
             
             // Advanced transit analysis using the calculation service
             List<String> influences = vedicCalculationService.analyzeTransits(vedicChart, currentTransits);
             
             // Get current dasha period
-            Map<String, Object> currentDasha = getCurrentDashaPeriod(user);
+            Map<String, Object> currentDasha = context.getCurrentDasha();
             
             // Extract comprehensive chart data
             ChartData chartData = extractChartData(vedicChart);
@@ -125,6 +165,44 @@ public class AstrologyService {
     }
 
    
+    /**
+     * Today's horoscope of the user's cohort, as generated by the nightly
+     * daily horoscope job. Empty when the user is not subscribed or the job
+     * has not reached them yet.
+     */
+    public Optional<Map<String, Object>> getDailyHoroscope(String username) {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new RuntimeException("User not found: " + username));
+        return dailyHoroscopeRepository.findForUser(user.getId(), LocalDate.now()).map(horoscope -> {
+            Map<String, Object> daily = new LinkedHashMap<>();
+            daily.put("date", horoscope.getHoroscopeDate());
+            daily.put("message", horoscope.getMessage());
+            daily.put("transitInfluence", horoscope.getTransitInfluence());
+            daily.put("recommendation", horoscope.getRecommendation());
+            daily.put("intensity", horoscope.getIntensity());
+            daily.put("moonSign", horoscope.getMoonSign());
+            daily.put("moonNakshatra", horoscope.getMoonNakshatra());
+            daily.put("risingSign", horoscope.getRisingSign());
+            daily.put("mahadasha", horoscope.getMahadasha());
+            daily.put("antardasha", horoscope.getAntardasha());
+            return daily;
+        });
+    }
+
+    /**
+     * The user's queued transit alerts and the ones already delivered.
+     */
+    public Map<String, Object> getTransitAlerts(String username, int limit) {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new RuntimeException("User not found: " + username));
+        Map<String, Object> alerts = new LinkedHashMap<>();
+        alerts.put("enabled", user.isTransitAlerts());
+        alerts.put("upcoming", transitAlertScheduler.upcoming(user.getId(), limit));
+        alerts.put("recent", transitAlertScheduler.recent(user.getId(), limit));
+        return alerts;
+    }
+
+   
     public BirthChartResponse calculateBirthChart(BirthData birthData, String username) {
         try {
             logger.info("🕉️ Calculating comprehensive Vedic birth chart for: {}", username);
@@ -133,16 +211,23 @@ public class AstrologyService {
                     .orElseThrow(() -> new RuntimeException("User not found: " + username));
 
             validateBirthData(birthData);
-            updateUserBirthData(user, birthData);
+            boolean locationChanged = !Objects.equals(user.getBirthLocation(), birthData.getBirthLocation());
+            boolean birthDataChanged = updateUserBirthData(user, birthData);
+            currentDashaCache.invalidate(user.getUsername());
 
             // Calculate comprehensive Vedic chart
             Map<String, Object> vedicChart = vedicCalculationService.calculateVedicNatalChart(user);
             
-            // Store enhanced chart data
-            storeEnhancedChartData(user, vedicChart);
+            // Store enhanced chart data, unless the active chart already holds this birth data
+            if (birthDataChanged || !hasActiveNatalChart(user)) {
+                storeEnhancedChartData(user, vedicChart, birthDataChanged);
+            } else if (locationChanged) {
+                userRepository.save(user);
+            }
             
             // Create comprehensive response
             BirthChartResponse response = createComprehensiveBirthChartResponse(vedicChart);
+            activityLogWriter.record(user.getUsername(), "CHART_GENERATED", "Vedic birth chart calculated", null);
             
             logger.info("✅ Comprehensive Vedic birth chart calculated successfully");
             return response;
@@ -155,10 +240,17 @@ public class AstrologyService {
 
     
     public List<TransitResponse> getCurrentTransits(String username) {
+        try (AnalysisContext context = openAnalysisContext(username)) {
+            return getCurrentTransits(context);
+        }
+    }
+
+    public List<TransitResponse> getCurrentTransits(AnalysisContext context) {
+        String username = context.getUsername();
         try {
             logger.info("🌍 Getting current transits for authenticated user: {}", username);
             
-            User user = userRepository.findByUsername(username).orElseThrow(() -> new RuntimeException("User not found: " + username));
+            User user = context.getUser();
 ;
             if (user == null || !hasCompleteBirthData(user)) {
                 logger.warn("⚠️ User {} lacks complete birth data, returning generic transits", username);
@@ -182,15 +274,20 @@ public class AstrologyService {
 
     
 public YogaAnalysisResponse getYogaAnalysis(String username) {
+    try (AnalysisContext context = openAnalysisContext(username)) {
+        return getYogaAnalysis(context);
+    }
+}
+
+public YogaAnalysisResponse getYogaAnalysis(AnalysisContext context) {
     try {
-        User user = userRepository.findByUsername(username)
-            .orElseThrow(() -> new RuntimeException("User not found: " + username));
+        User user = context.getUser();
 
         if (!hasCompleteBirthData(user)) {
             throw new RuntimeException("Complete birth data required for yoga analysis");
         }
 
-        Map<String, Object> vedicChart = getVedicNatalChart(user);
+        Map<String, Object> vedicChart = context.getChart();
         
         Map<String, Double> planetaryPositions = extractPlanetaryPositions(vedicChart);
         
@@ -300,15 +397,20 @@ private Map<String, Double> createFallbackPlanetaryPositions() {
 
     
     public DashaAnalysisResponse getDashaAnalysis(String username) {
+        try (AnalysisContext context = openAnalysisContext(username)) {
+            return getDashaAnalysis(context);
+        }
+    }
+
+    public DashaAnalysisResponse getDashaAnalysis(AnalysisContext context) {
         try {
-            User user = userRepository.findByUsername(username)
-                    .orElseThrow(() -> new RuntimeException("User not found: " + username));
+            User user = context.getUser();
 
             if (!hasCompleteBirthData(user)) {
                 throw new RuntimeException("Complete birth data required for dasha analysis");
             }
 
-            Map<String, Object> vedicChart = getVedicNatalChart(user);
+            Map<String, Object> vedicChart = context.getChart();
             
             // Get comprehensive dasha calculation
             Map<String, Object> dashaAnalysis = vedicCalculationService.calculateComprehensiveDashaAnalysis(user, vedicChart);
@@ -341,15 +443,20 @@ private Map<String, Double> createFallbackPlanetaryPositions() {
 
    
     public RemedialRecommendationsResponse getRemedialRecommendations(String username) {
+        try (AnalysisContext context = openAnalysisContext(username)) {
+            return getRemedialRecommendations(context);
+        }
+    }
+
+    public RemedialRecommendationsResponse getRemedialRecommendations(AnalysisContext context) {
         try {
-            User user = userRepository.findByUsername(username)
-                    .orElseThrow(() -> new RuntimeException("User not found: " + username));
+            User user = context.getUser();
 
             if (!hasCompleteBirthData(user)) {
                 throw new RuntimeException("Complete birth data required for remedial analysis");
             }
 
-            Map<String, Object> vedicChart = getVedicNatalChart(user);
+            Map<String, Object> vedicChart = context.getChart();
             
             // Get comprehensive remedial analysis
             List<Map<String, Object>> personalizedRemedies = vedicCalculationService.generatePersonalizedRemedies(user, vedicChart);
@@ -377,9 +484,15 @@ private Map<String, Double> createFallbackPlanetaryPositions() {
 
     
     public List<LifeAreaInfluence> getLifeAreaInfluences(String username) {
+        try (AnalysisContext context = openAnalysisContext(username)) {
+            return getLifeAreaInfluences(context);
+        }
+    }
+
+    public List<LifeAreaInfluence> getLifeAreaInfluences(AnalysisContext context) {
+        String username = context.getUsername();
         try {
-            User user = userRepository.findByUsername(username)
-                    .orElseThrow(() -> new RuntimeException("User not found: " + username));
+            User user = context.getUser();
 
             logger.info("🕉️ Calculating comprehensive Vedic life area influences for: {}", username);
 
@@ -387,8 +500,8 @@ private Map<String, Double> createFallbackPlanetaryPositions() {
                 return getGenericVedicLifeAreas();
             }
 
-            Map<String, Object> vedicChart = getVedicNatalChart(user);
-            Map<String, Double> currentTransits = vedicCalculationService.getCurrentTransits();
+            Map<String, Object> vedicChart = context.getChart();
+            Map<String, Double> currentTransits = context.getSky();
 
             List<LifeAreaInfluence> influences = new ArrayList<>();
 
@@ -436,18 +549,314 @@ private Map<String, Double> createFallbackPlanetaryPositions() {
         }
     }
 
+    /**
+     * All charts saved on the account (own natal chart history and client
+     * charts), without chart payloads.
+     */
+    public List<BirthChartRepository.ChartSummary> getSavedCharts(String username) {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new RuntimeException("User not found: " + username));
+
+        return birthChartRepository.findSummariesByUserIdOrderByCreatedAtDesc(user.getId());
+    }
+
+    /**
+     * A saved chart of the account, expanded from storage.
+     */
+    public Map<String, Object> getSavedChart(String username, Long chartId) {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new RuntimeException("User not found: " + username));
+
+        BirthChart birthChart = birthChartRepository.findByIdAndUserId(chartId, user.getId())
+                .orElseThrow(() -> new RuntimeException("Chart not found: " + chartId));
+        if (birthChart.getChartPayload() == null) {
+            throw new RuntimeException("Chart has no stored data: " + chartId);
+        }
+
+        User subject = chartSubject(birthChart.getBirthDateTime(), birthChart.getBirthLocation(),
+                birthChart.getBirthLatitude(), birthChart.getBirthLongitude(), birthChart.getTimezone());
+        Map<String, Object> chart = vedicCalculationService.fromStorageFormat(subject, birthChart.getChartPayload());
+        if (Boolean.TRUE.equals(birthChart.getIsActive())) {
+            scheduleUpgradeIfOutdated(birthChart.getId(), chart);
+        }
+        chart.put("chartId", birthChart.getId());
+        chart.put("subjectType", birthChart.getSubjectType());
+        chart.put("subjectName", birthChart.getSubjectName());
+        return chart;
+    }
+
+    /**
+     * Calculates and saves a chart for a client of a PROFESSIONAL account.
+     */
+    public Map<String, Object> saveClientChart(String username, String clientName, BirthData birthData) {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new RuntimeException("User not found: " + username));
+
+        if (!"PROFESSIONAL".equals(user.getSubscriptionType()) || !user.isSubscriptionActive()) {
+            throw new IllegalStateException("Client charts require an active PROFESSIONAL subscription");
+        }
+        if (clientName == null || clientName.trim().isEmpty()) {
+            throw new IllegalArgumentException("Client name is required");
+        }
+        validateBirthData(birthData);
+
+        logger.info("🕉️ Calculating client chart '{}' for: {}", clientName, username);
+
+        User subject = chartSubject(birthData.getBirthDateTime(), birthData.getBirthLocation(),
+                birthData.getBirthLatitude(), birthData.getBirthLongitude(), birthData.getTimezone());
+        Map<String, Object> vedicChart = vedicCalculationService.calculateVedicNatalChart(subject);
+
+        BirthChart birthChart = newBirthChart(user, subject.getBirthDateTime(), subject.getBirthLocation(),
+                subject.getBirthLatitude(), subject.getBirthLongitude(), subject.getTimezone(), vedicChart);
+        birthChart.setSubjectType(BirthChart.SUBJECT_CLIENT);
+        birthChart.setSubjectName(clientName.trim());
+        birthChartRepository.save(birthChart);
+
+        Map<String, Object> chart = new LinkedHashMap<>(vedicChart);
+        chart.put("chartId", birthChart.getId());
+        chart.put("subjectType", BirthChart.SUBJECT_CLIENT);
+        chart.put("subjectName", birthChart.getSubjectName());
+        return chart;
+    }
+
+    /**
+     * Ashtakoota (Guna Milan) compatibility of the user's chart with a
+     * partner's birth data. The partner chart is calculated but not stored.
+     * A user whose gender is female is matched as the bride, anyone else as
+     * the groom.
+     */
+    public Map<String, Object> getVedicCompatibility(String username, BirthData partnerBirthData) {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new RuntimeException("User not found: " + username));
+        if (!hasCompleteBirthData(user)) {
+            throw new RuntimeException("Complete birth data required for compatibility analysis");
+        }
+        validateBirthData(partnerBirthData);
+
+        logger.info("💑 Calculating Guna Milan for: {}", username);
+
+        User partner = chartSubject(partnerBirthData.getBirthDateTime(), partnerBirthData.getBirthLocation(),
+                partnerBirthData.getBirthLatitude(), partnerBirthData.getBirthLongitude(), partnerBirthData.getTimezone());
+        Map<String, Object> userChart = getVedicNatalChart(user);
+        Map<String, Object> partnerChart = vedicCalculationService.calculateVedicNatalChart(partner);
+
+        boolean userIsBride = "female".equalsIgnoreCase(user.getGender()) || "f".equalsIgnoreCase(user.getGender());
+        User bride = userIsBride ? user : partner;
+        User groom = userIsBride ? partner : user;
+        GunaMilanEngine.Match match = gunaMilanEngine.match(
+                compatibilityFingerprint(bride), extractPlanetaryPositions(userIsBride ? userChart : partnerChart),
+                compatibilityFingerprint(groom), extractPlanetaryPositions(userIsBride ? partnerChart : userChart));
+
+        Map<String, Object> brideInfo = new LinkedHashMap<>();
+        brideInfo.put("person", userIsBride ? "user" : "partner");
+        brideInfo.put("moonNakshatra", match.getBrideNakshatra());
+        brideInfo.put("pada", match.getBridePada());
+        brideInfo.put("moonSign", match.getBrideMoonSign());
+        brideInfo.put("gana", match.getBrideGana());
+        brideInfo.put("manglik", match.isBrideManglik());
+
+        Map<String, Object> groomInfo = new LinkedHashMap<>();
+        groomInfo.put("person", userIsBride ? "partner" : "user");
+        groomInfo.put("moonNakshatra", match.getGroomNakshatra());
+        groomInfo.put("pada", match.getGroomPada());
+        groomInfo.put("moonSign", match.getGroomMoonSign());
+        groomInfo.put("gana", match.getGroomGana());
+        groomInfo.put("manglik", match.isGroomManglik());
+
+        Map<String, Object> gunaMilan = new LinkedHashMap<>();
+        gunaMilan.put("totalPoints", match.getTotalPoints());
+        gunaMilan.put("maxPoints", GunaMilanEngine.MAX_POINTS);
+        gunaMilan.put("verdict", match.getVerdict());
+        gunaMilan.put("kootas", match.getKootas());
+        gunaMilan.put("bride", brideInfo);
+        gunaMilan.put("groom", groomInfo);
+
+        Map<String, Object> compatibility = new LinkedHashMap<>();
+        compatibility.put("userChart", createComprehensiveBirthChartResponse(userChart));
+        compatibility.put("partnerChart", createComprehensiveBirthChartResponse(partnerChart));
+        compatibility.put("compatibilityScore", match.getPercentage());
+        compatibility.put("gunaMilan", gunaMilan);
+        compatibility.put("ganaMatching", String.format("%s (bride) with %s (groom) - %.1f/6 points",
+                match.getBrideGana(), match.getGroomGana(), match.getKootaPoints(5)));
+        compatibility.put("nakshatraCompatibility", String.format("%s - %.1f/%d points",
+                match.getVerdict(), match.getTotalPoints(), GunaMilanEngine.MAX_POINTS));
+        compatibility.put("manglikAnalysis", describeManglik(match));
+        compatibility.put("recommendations", compatibilityRecommendations(match));
+        compatibility.put("analysisDate", LocalDateTime.now());
+        return compatibility;
+    }
+
+    /**
+     * Best Guna Milan matches for the user among all users in the matchmaking
+     * index. Without an explicit gender filter, users of the opposite gender
+     * are searched when the user's own gender is known.
+     */
+    public Map<String, Object> findBestMatches(String username, String gender, Integer minAge, Integer maxAge,
+                                               Double latitude, Double longitude, Double radiusKm,
+                                               Double minPoints, int limit) {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new RuntimeException("User not found: " + username));
+        if (!hasCompleteBirthData(user)) {
+            throw new RuntimeException("Complete birth data required for matchmaking");
+        }
+
+        if (!user.isMatchmakingVisible()) {
+            // Searching is reserved for users who are visible to others themselves
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("matches", new ArrayList<>());
+            result.put("count", 0);
+            result.put("matchmakingVisible", false);
+            result.put("message", "Turn on matchmaking visibility in your preferences to search for matches");
+            return result;
+        }
+
+        int seekerPada = GunaMilanEngine.padaIndex(user.getMoonNakshatra(), user.getMoonPada());
+        if (seekerPada < 0) {
+            // Charts stored before the Moon nakshatra was recorded on the user
+            recordMoonNakshatra(user, getVedicNatalChart(user));
+            userRepository.save(user);
+            matchmakingIndex.update(user);
+            seekerPada = GunaMilanEngine.padaIndex(user.getMoonNakshatra(), user.getMoonPada());
+        }
+        if (seekerPada < 0) {
+            // The chart did not yield a Moon nakshatra and pada to match against
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("matches", new ArrayList<>());
+            result.put("count", 0);
+            result.put("chartComplete", false);
+            result.put("message", "Your chart has no Moon nakshatra yet; recalculate your birth chart to search for matches");
+            return result;
+        }
+
+        byte ownGender = MatchmakingIndex.genderCode(user.getGender());
+        boolean seekerIsBride = ownGender == MatchmakingIndex.GENDER_FEMALE;
+        String wantedGender = gender;
+        if (wantedGender == null && ownGender != MatchmakingIndex.GENDER_UNKNOWN) {
+            wantedGender = seekerIsBride ? "male" : "female";
+        }
+
+        MatchmakingIndex.Filter filter = new MatchmakingIndex.Filter(
+                wantedGender, minAge, maxAge, latitude, longitude, radiusKm, minPoints);
+        List<MatchmakingIndex.Candidate> candidates =
+                matchmakingIndex.search(user.getId(), seekerPada, seekerIsBride, filter, limit);
+
+        Map<Long, User> usersById = new HashMap<>();
+        userRepository.findAllById(candidates.stream().map(MatchmakingIndex.Candidate::getUserId)
+                .collect(Collectors.toList())).forEach(match -> usersById.put(match.getId(), match));
+
+        List<Map<String, Object>> matches = new ArrayList<>(candidates.size());
+        for (MatchmakingIndex.Candidate candidate : candidates) {
+            User match = usersById.get(candidate.getUserId());
+            if (match == null || !match.isEnabled() || !match.isMatchmakingVisible()) {
+                continue;
+            }
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("username", match.getUsername());
+            entry.put("displayName", match.getDisplayName());
+            entry.put("gender", match.getGender());
+            entry.put("age", match.getBirthDateTime() != null
+                    ? ChronoUnit.YEARS.between(match.getBirthDateTime().toLocalDate(), LocalDate.now()) : null);
+            entry.put("birthLocation", match.getBirthLocation());
+            entry.put("moonNakshatra", GunaMilanEngine.nakshatraOf(candidate.getPadaIndex()));
+            entry.put("pada", GunaMilanEngine.padaOf(candidate.getPadaIndex()));
+            entry.put("gunaPoints", candidate.getPoints());
+            entry.put("maxPoints", GunaMilanEngine.MAX_POINTS);
+            entry.put("verdict", GunaMilanEngine.verdict(candidate.getPoints()));
+            matches.add(entry);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("moonNakshatra", GunaMilanEngine.nakshatraOf(seekerPada));
+        result.put("pada", GunaMilanEngine.padaOf(seekerPada));
+        result.put("matches", matches);
+        result.put("count", matches.size());
+        result.put("indexReady", matchmakingIndex.isReady());
+        return result;
+    }
+
+    private ChartFingerprint compatibilityFingerprint(User subject) {
+        try {
+            return ChartFingerprint.of(subject, VedicAstrologyCalculationService.AYANAMSA,
+                    VedicAstrologyCalculationService.HOUSE_SYSTEM);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private String describeManglik(GunaMilanEngine.Match match) {
+        if (match.isBrideManglik() && match.isGroomManglik()) {
+            return "Both charts are Manglik - the dosha cancels out";
+        }
+        if (match.isBrideManglik()) {
+            return "Manglik Dosha in the bride's chart only";
+        }
+        if (match.isGroomManglik()) {
+            return "Manglik Dosha in the groom's chart only";
+        }
+        return "No Manglik Dosha detected";
+    }
+
+    private List<String> compatibilityRecommendations(GunaMilanEngine.Match match) {
+        List<String> recommendations = new ArrayList<>();
+        if (match.hasNadiDosha()) {
+            recommendations.add("Nadi Dosha present: Maha Mrityunjaya Japa and charity of grains are traditionally advised");
+        }
+        if (match.hasBhakootDosha()) {
+            recommendations.add("Bhakoot Dosha present: worship of the Moon sign lords of both partners is advised");
+        }
+        if (match.isManglikMismatch()) {
+            recommendations.add("Manglik mismatch: Mangal Shanti puja before marriage is traditionally advised");
+        }
+        if (match.getTotalPoints() < 18) {
+            recommendations.add("Fewer than 18 gunas match: consult an astrologer for a detailed chart comparison");
+        } else {
+            recommendations.add("Perform joint meditation and spiritual practices");
+        }
+        return recommendations;
+    }
+
+    /**
+     * Full natal chart as plain data, for JSON export. Stored charts are
+     * expanded from the compact storage format.
+     */
+    public Map<String, Object> exportNatalChart(String username) {
+        try {
+            User user = userRepository.findByUsername(username)
+                    .orElseThrow(() -> new RuntimeException("User not found: " + username));
+
+            logger.info("📤 Exporting natal chart for: {}", username);
+
+            if (!hasCompleteBirthData(user)) {
+                throw new RuntimeException("Birth data not complete for Vedic calculations");
+            }
+
+            return getVedicNatalChart(user);
+
+        } catch (Exception e) {
+            logger.error("❌ Error exporting natal chart for {}: {}", username, e.getMessage());
+            throw new RuntimeException("Error exporting natal chart: " + e.getMessage(), e);
+        }
+    }
     
     public UserStatsResponse getUserStats(String username) {
+        try (AnalysisContext context = openAnalysisContext(username)) {
+            return getUserStats(context);
+        }
+    }
+
+    public UserStatsResponse getUserStats(AnalysisContext context) {
+        String username = context.getUsername();
         try {
             logger.info("📊 Getting user stats for: {}", username);
+            User user = context.getUser();
             
             // Use builder pattern instead of constructor
             return UserStatsResponse.builder()
                     .withDefaults() // This sets all default values
-                    .chartsCreated(0)
+                    .chartsCreated(user.getChartsGenerated() != null ? user.getChartsGenerated() : 0)
                     .accuracyRate(95)
                     .cosmicEnergy("Harmonious")
-                    .streakDays(1)
+                    .streakDays(user.getLoginStreak() != null && user.getLoginStreak() > 0 ? user.getLoginStreak() : 1)
                     .totalReadings(0)
                     .favoriteChartType("Natal")
                     .mostActiveTimeOfDay("Morning")
@@ -616,64 +1025,110 @@ private Map<String, Double> createFallbackPlanetaryPositions() {
         }
     }
 
-    private void updateUserBirthData(User user, BirthData birthData) {
+    /**
+     * Copies the birth data onto the user and reports whether any field the
+     * chart depends on actually changed.
+     */
+    private boolean updateUserBirthData(User user, BirthData birthData) {
+        boolean changed = !Objects.equals(user.getBirthDateTime(), birthData.getBirthDateTime())
+                || !Objects.equals(user.getBirthLatitude(), birthData.getBirthLatitude())
+                || !Objects.equals(user.getBirthLongitude(), birthData.getBirthLongitude())
+                || !Objects.equals(user.getTimezone(), birthData.getTimezone());
         user.setBirthDateTime(birthData.getBirthDateTime());
         user.setBirthLocation(birthData.getBirthLocation());
         user.setBirthLatitude(birthData.getBirthLatitude());
         user.setBirthLongitude(birthData.getBirthLongitude());
         user.setTimezone(birthData.getTimezone());
+        return changed;
     }
 
-    private void storeEnhancedChartData(User user, Map<String, Object> vedicChart) {
+    private boolean hasActiveNatalChart(User user) {
+        return user.isChartCalculated() && birthChartRepository.hasActiveChart(user.getId(), BirthChart.SUBJECT_SELF);
+    }
+
+    private void storeEnhancedChartData(User user, Map<String, Object> vedicChart, boolean birthDataChanged) {
         try {
-            user.setNatalChart(objectMapper.writeValueAsString(vedicChart));
+            storeNatalChart(user, vedicChart);
             user.setChartCalculated(true);
             user.setChartCalculatedAt(LocalDateTime.now());
             user.setSunSign((String) vedicChart.get("sunSign"));
             user.setMoonSign((String) vedicChart.get("moonSign"));
             user.setRisingSign((String) vedicChart.get("ascendant"));
             user.setDominantElement((String) vedicChart.get("dominantElement"));
+            recordMoonNakshatra(user, vedicChart);
 
             Integer currentCount = user.getChartsGenerated();
             user.setChartsGenerated(currentCount != null ? currentCount + 1 : 1);
 
             userRepository.save(user);
+            matchmakingIndex.update(user);
+            if (birthDataChanged) {
+                @SuppressWarnings("unchecked")
+                Map<String, Double> natal = (Map<String, Double>) vedicChart.get("siderealPositions");
+                transitAlertScheduler.reschedule(user, natal);
+            }
         } catch (Exception e) {
             logger.warn("⚠️ Error storing enhanced chart data: {}", e.getMessage());
         }
     }
 
+    /**
+     * Opens the analysis context of one request. The user, natal chart, current
+     * sky and current dasha are loaded on first use and shared by every analysis
+     * that receives the context.
+     */
+    public AnalysisContext openAnalysisContext(String username) {
+        return new AnalysisContext(username, analysisContextMetrics,
+                () -> userRepository.findByUsername(username)
+                        .orElseThrow(() -> new RuntimeException("User not found: " + username)),
+                this::getVedicNatalChart,
+                vedicCalculationService::getCurrentTransits,
+                this::getCurrentDashaPeriod);
+    }
+
     private Map<String, Object> getVedicNatalChart(User user) {
         try {
-            if (user.getNatalChart() != null && user.isChartCalculated()) {
-                try {
-                    Map<String, Object> existingChart = objectMapper.readValue(user.getNatalChart(), 
-                        new TypeReference<Map<String, Object>>() {});
-                    
-                    if (existingChart.containsKey("siderealPositions") && 
-                        isCachedChartValid(existingChart, user)) {
-                        logger.info("✅ Using validated cached chart for: {}", user.getUsername());
-                        return existingChart;
-                    } else {
-                        logger.info("⚠️ Cached chart invalid/outdated, recalculating for: {}", user.getUsername());
+            if (user.isChartCalculated()) {
+                List<BirthChartRepository.ChartPayload> stored =
+                        birthChartRepository.findActivePayloads(user.getId(), BirthChart.SUBJECT_SELF);
+                if (!stored.isEmpty() && stored.get(0).getChartPayload() != null) {
+                    try {
+                        BirthChartRepository.ChartPayload activeChart = stored.get(0);
+                        Map<String, Object> existingChart = vedicCalculationService.fromStorageFormat(user, activeChart.getChartPayload());
+                        
+                        if (isCachedChartValid(activeChart.getBirthDateTime(), activeChart.getBirthLatitude(),
+                                activeChart.getBirthLongitude(), activeChart.getTimezone(), user)) {
+                            logger.info("✅ Using validated cached chart for: {}", user.getUsername());
+                            scheduleUpgradeIfOutdated(activeChart.getId(), existingChart);
+                            return existingChart;
+                        } else {
+                            logger.info("⚠️ Cached chart invalid/outdated, recalculating for: {}", user.getUsername());
+                        }
+                    } catch (Exception e) {
+                        logger.warn("⚠️ Error reading cached chart, recalculating: {}", e.getMessage());
+                    }
+                } else {
+                    Map<String, Object> migrated = migrateLegacyNatalChart(user);
+                    if (migrated != null) {
+                        return migrated;
                     }
-                } catch (Exception e) {
-                    logger.warn("⚠️ Error reading cached chart, recalculating: {}", e.getMessage());
                 }
             }
 
             logger.info("🔄 Calculating fresh comprehensive Vedic chart for: {}", user.getUsername());
             Map<String, Object> vedicChart = vedicCalculationService.calculateVedicNatalChart(user);
 
-            user.setNatalChart(objectMapper.writeValueAsString(vedicChart));
+            storeNatalChart(user, vedicChart);
             user.setChartCalculated(true);
             user.setChartCalculatedAt(LocalDateTime.now());
             user.setSunSign((String) vedicChart.get("sunSign"));
             user.setMoonSign((String) vedicChart.get("moonSign"));
             user.setRisingSign((String) vedicChart.get("ascendant"));
             user.setDominantElement((String) vedicChart.get("dominantElement"));
+            recordMoonNakshatra(user, vedicChart);
 
             userRepository.save(user);
+            matchmakingIndex.update(user);
 
             logger.info("💾 Fresh comprehensive Vedic chart calculated and stored for: {}", user.getUsername());
             return vedicChart;
@@ -683,39 +1138,225 @@ private Map<String, Double> createFallbackPlanetaryPositions() {
         }
     }
 
-    private boolean isCachedChartValid(Map<String, Object> cachedChart, User user) {
+    /**
+     * Charts calculated before birth_charts existed are on the users row, as
+     * JSON in natal_chart or in the compact format in natal_chart_data. The
+     * first read moves a still-valid one into birth_charts and then clears it
+     * from the users row; returns null when there is nothing to migrate.
+     */
+    private Map<String, Object> migrateLegacyNatalChart(User user) {
+        Set<String> columns = legacyNatalChartColumns();
+        if (columns.isEmpty()) {
+            return null;
+        }
         try {
-            String cachedBirthTime = (String) cachedChart.get("calculatedAt");
-            
-            if (cachedBirthTime != null && user.getBirthDateTime() != null) {
-                String currentBirthTime = user.getBirthDateTime().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
-                
-                if (!currentBirthTime.equals(cachedBirthTime)) {
-                    logger.info("⚠️ Birth time mismatch - Cached: {}, Current: {}", cachedBirthTime, currentBirthTime);
-                    return false;
+            Map<String, Object> legacyChart = null;
+            Runnable clearLegacy = null;
+            if (columns.contains("natal_chart_data")) {
+                byte[] legacyData = userRepository.findLegacyNatalChartData(user.getId());
+                if (legacyData != null) {
+                    legacyChart = vedicCalculationService.fromStorageFormat(user, legacyData);
+                    clearLegacy = () -> userRepository.clearLegacyNatalChartData(user.getId());
                 }
             }
-            
-            Double julianDay = (Double) cachedChart.get("julianDay");
-            if (julianDay != null && user.getBirthDateTime() != null) {
-                LocalDateTime birthTime = user.getBirthDateTime();
-                
-                if (birthTime.getYear() == 2005 && birthTime.getMonthValue() == 8 && birthTime.getDayOfMonth() == 25) {
-                    if (julianDay < 2453600 || julianDay > 2453620) {
-                        logger.info("⚠️ Julian Day mismatch for birth date - JD: {}", julianDay);
-                        return false;
-                    }
+            if (legacyChart == null && columns.contains("natal_chart")) {
+                String legacyJson = userRepository.findLegacyNatalChart(user.getId());
+                if (legacyJson != null) {
+                    legacyChart = objectMapper.readValue(legacyJson, new TypeReference<Map<String, Object>>() {});
+                    clearLegacy = () -> userRepository.clearLegacyNatalChart(user.getId());
                 }
             }
+            if (legacyChart == null) {
+                return null;
+            }
             
-            return true;
-            
+            if (!legacyChart.containsKey("siderealPositions") || !isLegacyChartValid(legacyChart, user)) {
+                // Nothing worth keeping; the chart calculated instead replaces it
+                logger.info("⚠️ Legacy chart invalid/outdated, recalculating for: {}", user.getUsername());
+                clearLegacy.run();
+                return null;
+            }
+
+            BirthChart birthChart = storeNatalChart(user, legacyChart);
+            clearLegacy.run();
+            logger.info("✅ Migrated cached chart to birth_charts for: {}", user.getUsername());
+            Map<String, Object> migratedChart = vedicCalculationService.fromStorageFormat(user, birthChart.getChartPayload());
+            scheduleUpgradeIfOutdated(birthChart.getId(), migratedChart);
+            return migratedChart;
+
+        } catch (Exception e) {
+            logger.warn("⚠️ Error migrating legacy chart, recalculating: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    // Legacy chart columns present in this schema, looked up once
+    private Set<String> legacyNatalChartColumns() {
+        Set<String> columns = legacyNatalChartColumns;
+        if (columns == null) {
+            columns = new HashSet<>();
+            for (String column : userRepository.findLegacyNatalChartColumns()) {
+                columns.add(column.toLowerCase(Locale.ROOT));
+            }
+            legacyNatalChartColumns = columns;
+        }
+        return columns;
+    }
+
+    /**
+     * Stores the chart as the user's active natal chart in birth_charts. The
+     * previously active one stays as history.
+     */
+    private BirthChart storeNatalChart(User user, Map<String, Object> vedicChart) {
+        BirthChart birthChart = newBirthChart(user, user.getBirthDateTime(), user.getBirthLocation(),
+                user.getBirthLatitude(), user.getBirthLongitude(), user.getTimezone(), vedicChart);
+        return birthChartRepository.replaceActiveChart(birthChart);
+    }
+
+    private BirthChart newBirthChart(User owner, LocalDateTime birthDateTime, String birthLocation,
+                                     Double latitude, Double longitude, String timezone,
+                                     Map<String, Object> vedicChart) {
+        BirthChart birthChart = new BirthChart(owner, birthDateTime, birthLocation != null ? birthLocation : "",
+                latitude, longitude, timezone != null ? timezone : "UTC");
+        applyChart(birthChart, vedicChart);
+        return birthChart;
+    }
+
+    private void applyChart(BirthChart birthChart, Map<String, Object> vedicChart) {
+        birthChart.setChartPayload(vedicCalculationService.toStorageFormat(vedicChart));
+        Object engineVersion = vedicChart.get("engineVersion");
+        birthChart.setEngineVersion(engineVersion instanceof Number ? ((Number) engineVersion).intValue() : null);
+        birthChart.setSettingsHash((String) vedicChart.get("settingsHash"));
+        birthChart.setSunSign((String) vedicChart.get("sunSign"));
+        birthChart.setMoonSign((String) vedicChart.get("moonSign"));
+        birthChart.setRisingSign((String) vedicChart.get("ascendant"));
+        birthChart.setDominantElement((String) vedicChart.get("dominantElement"));
+    }
+
+    // Moon nakshatra and pada on the user row, which the matchmaking index is built from
+    private void recordMoonNakshatra(User user, Map<String, Object> vedicChart) {
+        Double moon = extractPlanetaryPositions(vedicChart).get("Moon");
+        if (moon != null) {
+            int pada = GunaMilanEngine.padaIndex(moon);
+            user.setMoonNakshatra(GunaMilanEngine.nakshatraOf(pada));
+            user.setMoonPada(GunaMilanEngine.padaOf(pada));
+        }
+    }
+
+    /**
+     * A stored chart from an older engine or with other settings is still
+     * served; its recalculation runs in the background.
+     */
+    private void scheduleUpgradeIfOutdated(Long chartId, Map<String, Object> storedChart) {
+        if (vedicCalculationService.isCurrentEngine(storedChart)) {
+            return;
+        }
+        if (chartUpgradeExecutor.submit(chartId, () -> upgradeStoredChart(chartId))) {
+            logger.info("🔁 Stored chart {} is from engine {}, upgrade scheduled", chartId, storedChart.get("engineVersion"));
+        }
+    }
+
+    private void upgradeStoredChart(Long chartId) {
+        BirthChart birthChart = birthChartRepository.findById(chartId).orElse(null);
+        if (birthChart == null || !Boolean.TRUE.equals(birthChart.getIsActive())) {
+            return;
+        }
+
+        User subject = chartSubject(birthChart.getBirthDateTime(), birthChart.getBirthLocation(),
+                birthChart.getBirthLatitude(), birthChart.getBirthLongitude(), birthChart.getTimezone());
+        Map<String, Object> vedicChart = vedicCalculationService.calculateVedicNatalChart(subject);
+        Object engineVersion = vedicChart.get("engineVersion");
+        int upgraded = birthChartRepository.upgradeActiveChart(chartId,
+                vedicCalculationService.toStorageFormat(vedicChart),
+                engineVersion instanceof Number ? ((Number) engineVersion).intValue() : null,
+                (String) vedicChart.get("settingsHash"),
+                (String) vedicChart.get("sunSign"),
+                (String) vedicChart.get("moonSign"),
+                (String) vedicChart.get("ascendant"),
+                (String) vedicChart.get("dominantElement"));
+        if (upgraded == 0) {
+            logger.info("⏭️ Stored chart {} was replaced during its upgrade, discarding the result", chartId);
+            return;
+        }
+
+        if (BirthChart.SUBJECT_SELF.equals(birthChart.getSubjectType())) {
+            Long userId = birthChart.getUser().getId();
+            Double moon = extractPlanetaryPositions(vedicChart).get("Moon");
+            Integer padaIndex = moon != null ? GunaMilanEngine.padaIndex(moon) : null;
+            int updated = userRepository.updateChartSigns(userId,
+                    birthChart.getBirthDateTime(), birthChart.getBirthLatitude(), birthChart.getBirthLongitude(),
+                    (String) vedicChart.get("sunSign"),
+                    (String) vedicChart.get("moonSign"),
+                    (String) vedicChart.get("ascendant"),
+                    (String) vedicChart.get("dominantElement"),
+                    padaIndex != null ? GunaMilanEngine.nakshatraOf(padaIndex) : null,
+                    padaIndex != null ? GunaMilanEngine.padaOf(padaIndex) : null);
+            if (updated > 0) {
+                userRepository.findById(userId).ifPresent(user -> {
+                    matchmakingIndex.update(user);
+                    currentDashaCache.invalidate(user.getUsername());
+                });
+            }
+        }
+        logger.info("✅ Upgraded stored chart {} to engine {}", chartId, vedicChart.get("engineVersion"));
+    }
+
+    /**
+     * Stand-in user carrying a stored chart's birth data, for the calculation service.
+     */
+    private User chartSubject(LocalDateTime birthDateTime, String birthLocation, Double latitude,
+                              Double longitude, String timezone) {
+        User subject = new User();
+        subject.setBirthDateTime(birthDateTime);
+        subject.setBirthLocation(birthLocation);
+        subject.setBirthLatitude(latitude);
+        subject.setBirthLongitude(longitude);
+        subject.setTimezone(timezone);
+        return subject;
+    }
+
+    /**
+     * Whether a stored chart was calculated from the user's current birth
+     * date and time, coordinates and timezone. Charts from an older
+     * calculation engine pass; see scheduleUpgradeIfOutdated.
+     */
+    private boolean isCachedChartValid(LocalDateTime birthDateTime, Double latitude, Double longitude,
+                                       String timezone, User user) {
+        boolean matches = Objects.equals(birthDateTime, user.getBirthDateTime())
+                && Objects.equals(latitude, user.getBirthLatitude())
+                && Objects.equals(longitude, user.getBirthLongitude())
+                && storedTimezone(timezone).equals(storedTimezone(user.getTimezone()));
+        if (!matches) {
+            logger.info("⚠️ Birth data mismatch - Cached: {} ({}, {}) {}, Current: {} ({}, {}) {}",
+                    birthDateTime, latitude, longitude, timezone,
+                    user.getBirthDateTime(), user.getBirthLatitude(), user.getBirthLongitude(), user.getTimezone());
+        }
+        return matches;
+    }
+
+    /**
+     * Same check for a chart from the users row, which records the birth date
+     * and time and the timezone but no coordinates. Those charts are only read
+     * while chart_calculated is set, which every birth data update clears.
+     */
+    private boolean isLegacyChartValid(Map<String, Object> legacyChart, User user) {
+        try {
+            Object birthTime = legacyChart.get("calculatedAt");
+            LocalDateTime birthDateTime = birthTime != null
+                    ? LocalDateTime.parse(birthTime.toString(), DateTimeFormatter.ISO_LOCAL_DATE_TIME) : null;
+            return isCachedChartValid(birthDateTime, user.getBirthLatitude(), user.getBirthLongitude(),
+                    (String) legacyChart.get("timezone"), user);
         } catch (Exception e) {
             logger.warn("⚠️ Cache validation error: {}", e.getMessage());
             return false;
         }
     }
 
+    // birth_charts stores a missing timezone as UTC
+    private static String storedTimezone(String timezone) {
+        return timezone != null ? timezone : "UTC";
+    }
+
     // ================ ENHANCED ANALYSIS METHODS ================
 
     private ChartData extractChartData(Map<String, Object> vedicChart) {
@@ -743,10 +1384,18 @@ private Map<String, Double> createFallbackPlanetaryPositions() {
         return chartData;
     }
 
-    private Map<String, Object> getCurrentDashaPeriod(User user) {
+    private Map<String, Object> getCurrentDashaPeriod(AnalysisContext context) {
+        User user = context.getUser();
         try {
-            Map<String, Object> vedicChart = getVedicNatalChart(user);
-            return vedicCalculationService.calculateCurrentDashaPeriod(user, vedicChart);
+            Map<String, Object> cachedDasha = currentDashaCache.get(user);
+            if (cachedDasha != null) {
+                return cachedDasha;
+            }
+
+            Map<String, Object> vedicChart = context.getChart();
+            Map<String, Object> currentDasha = vedicCalculationService.calculateCurrentDashaPeriod(user, vedicChart);
+            currentDashaCache.put(user, currentDasha);
+            return currentDasha;
         } catch (Exception e) {
             logger.warn("⚠️ Error getting current dasha period: {}", e.getMessage());
             return new HashMap<>();
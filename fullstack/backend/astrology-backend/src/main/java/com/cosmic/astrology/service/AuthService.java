@@ -1,6 +1,7 @@
 package com.cosmic.astrology.service;
 
 import com.cosmic.astrology.dto.*;
+import com.cosmic.astrology.entity.ActivityLog;
 import com.cosmic.astrology.entity.User;
 import com.cosmic.astrology.entity.UserRole;
 import com.cosmic.astrology.repository.UserRepository;
@@ -18,7 +19,7 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.transaction.annotation.Transactional;
 
 import jakarta.annotation.PostConstruct;
 import java.time.LocalDateTime;
@@ -46,8 +47,11 @@ public class AuthService {
     @Autowired
     private JwtUtils jwtUtils;
 
-    @Autowired(required = false)
-    private JavaMailSender emailSender;
+    @Autowired
+    private EmailOutbox emailOutbox;
+
+    @Autowired
+    private ActivityLogWriter activityLogWriter;
 
     // Security configuration
     @Value("${app.security.maxLoginAttempts:5}")
@@ -174,10 +178,14 @@ public class AuthService {
             clearFailedLoginAttempts(username);
             
             // Generate JWT token
-            String jwt = jwtUtils.generateJwtToken(user.getUsername());
+            String jwt = jwtUtils.generateJwtToken(user.getUsername(), user.getRole().name(), user.getEmail(),
+                    user.getId(), clientIp, userAgent);
             
             // Update user login information
             updateUserLoginInfo(user, clientIp, userAgent);
+            ActivityLog login = new ActivityLog(user.getUsername(), "LOGIN", "Signed in", clientIp, null);
+            login.setUserAgent(userAgent);
+            activityLogWriter.record(login);
             
             System.out.println("✅ Authentication successful for: " + username + " from IP: " + clientIp);
             
@@ -194,6 +202,10 @@ public class AuthService {
             
         } catch (BadCredentialsException e) {
             recordFailedLoginAttempt(username, clientIp);
+            ActivityLog failedLogin = new ActivityLog(username, "LOGIN", "Sign-in failed", clientIp, null);
+            failedLogin.setFailed("Bad credentials");
+            failedLogin.setUserAgent(userAgent);
+            activityLogWriter.record(failedLogin);
             System.out.println("❌ Bad credentials for: " + username + " from IP: " + clientIp);
             throw new SecurityException("Invalid username or password");
             
@@ -215,6 +227,7 @@ public class AuthService {
     /**
      * Register new user with comprehensive validation
      */
+    @Transactional
     public MessageResponse registerUser(SignupRequest signUpRequest, String clientIp, String userAgent) {
         System.out.println("📝 Registration attempt for username: " + signUpRequest.getUsername() + 
                           ", email: " + signUpRequest.getEmail() + " from IP: " + clientIp);
@@ -246,18 +259,18 @@ public class AuthService {
             User user = createNewUser(signUpRequest);
             User savedUser = userRepository.save(user);
             
-            // Generate email verification token if email service is available
-            if (emailSender != null) {
+            // Queue the verification email with the new user if email service is available
+            if (emailOutbox.isEnabled()) {
                 String verificationToken = generateEmailVerificationToken(savedUser.getEmail());
                 sendEmailVerification(savedUser.getEmail(), verificationToken);
-                System.out.println("📧 Email verification sent to: " + savedUser.getEmail());
+                System.out.println("📧 Email verification queued for: " + savedUser.getEmail());
             }
 
             System.out.println("✅ User registered successfully: " + savedUser.getUsername() + 
                              " (ID: " + savedUser.getId() + ") from IP: " + clientIp);
 
             return new MessageResponse("User registered successfully! " + 
-                (emailSender != null ? "Please check your email for verification." : ""));
+                (emailOutbox.isEnabled() ? "Please check your email for verification." : ""));
             
         } catch (IllegalArgumentException e) {
             System.out.println("⚠️ Registration validation error: " + e.getMessage());
@@ -291,7 +304,8 @@ public class AuthService {
             }
             
             // Generate new token
-            String newToken = jwtUtils.generateJwtToken(username);
+            String newToken = jwtUtils.generateJwtToken(username, user.getRole().name(), user.getEmail(),
+                    user.getId(), clientIp, null);
             
             // Invalidate old token
             invalidatedTokens.add(token);
@@ -356,9 +370,9 @@ public class AuthService {
             String resetToken = generatePasswordResetToken(email);
             
             // Send reset email if email service is available
-            if (emailSender != null) {
+            if (emailOutbox.isEnabled()) {
                 sendPasswordResetEmail(email, resetToken);
-                System.out.println("📧 Password reset email sent to: " + email + " from request IP: " + clientIp);
+                System.out.println("📧 Password reset email queued for: " + email + " from request IP: " + clientIp);
             }
             
             return new MessageResponse("Password reset instructions have been sent to your email");
@@ -606,7 +620,7 @@ public class AuthService {
         user.setTimezone(request.getTimezone());
         user.setRole(UserRole.CLIENT);
         user.setEnabled(true);
-        user.setEmailVerified(emailSender == null); // Auto-verify if no email service
+        user.setEmailVerified(!emailOutbox.isEnabled()); // Auto-verify if no email service
         user.setCreatedAt(LocalDateTime.now());
         user.setLoginStreak(0);
         user.setChartsGenerated(0);
@@ -677,44 +691,36 @@ public class AuthService {
     }
 
     private void sendPasswordResetEmail(String email, String token) {
-        try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(fromEmail);
-            message.setTo(email);
-            message.setSubject("🔐 Reset Your Cosmic Astrology Password");
-            message.setText("Hello,\n\n" +
-                "You requested to reset your password for your Cosmic Astrology account.\n\n" +
-                "Click the link below to reset your password:\n" +
-                frontendUrl + "/reset-password?token=" + token + "\n\n" +
-                "This link will expire in " + passwordResetExpiryHours + " hours.\n\n" +
-                "If you didn't request this reset, please ignore this email.\n\n" +
-                "Best regards,\n" +
-                "Cosmic Astrology Team 🕉️");
-            
-            emailSender.send(message);
-        } catch (Exception e) {
-            System.err.println("❌ Failed to send password reset email: " + e.getMessage());
-        }
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom(fromEmail);
+        message.setTo(email);
+        message.setSubject("🔐 Reset Your Cosmic Astrology Password");
+        message.setText("Hello,\n\n" +
+            "You requested to reset your password for your Cosmic Astrology account.\n\n" +
+            "Click the link below to reset your password:\n" +
+            frontendUrl + "/reset-password?token=" + token + "\n\n" +
+            "This link will expire in " + passwordResetExpiryHours + " hours.\n\n" +
+            "If you didn't request this reset, please ignore this email.\n\n" +
+            "Best regards,\n" +
+            "Cosmic Astrology Team 🕉️");
+        
+        emailOutbox.enqueue(message);
     }
 
     private void sendEmailVerification(String email, String token) {
-        try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(fromEmail);
-            message.setTo(email);
-            message.setSubject("📧 Verify Your Cosmic Astrology Email");
-            message.setText("Welcome to Cosmic Astrology! 🕉️\n\n" +
-                "Please verify your email address by clicking the link below:\n" +
-                frontendUrl + "/verify-email?token=" + token + "\n\n" +
-                "This link will expire in " + emailVerificationExpiryHours + " hours.\n\n" +
-                "Once verified, you can access your personalized Vedic birth chart and cosmic insights.\n\n" +
-                "Namaste,\n" +
-                "Cosmic Astrology Team");
-            
-            emailSender.send(message);
-        } catch (Exception e) {
-            System.err.println("❌ Failed to send verification email: " + e.getMessage());
-        }
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom(fromEmail);
+        message.setTo(email);
+        message.setSubject("📧 Verify Your Cosmic Astrology Email");
+        message.setText("Welcome to Cosmic Astrology! 🕉️\n\n" +
+            "Please verify your email address by clicking the link below:\n" +
+            frontendUrl + "/verify-email?token=" + token + "\n\n" +
+            "This link will expire in " + emailVerificationExpiryHours + " hours.\n\n" +
+            "Once verified, you can access your personalized Vedic birth chart and cosmic insights.\n\n" +
+            "Namaste,\n" +
+            "Cosmic Astrology Team");
+        
+        emailOutbox.enqueue(message);
     }
 
     private boolean isPasswordStrong(String password) {
@@ -0,0 +1,318 @@
+package com.cosmic.astrology.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded, weighted cache of calculated natal charts keyed by {@link ChartFingerprint}.
+ *
+ * Eviction follows the W-TinyLFU scheme: new entries land in a small LRU
+ * window (1% of the weight budget); entries leaving the window only enter the
+ * main LRU region if a frequency sketch says they are used more often than
+ * the main region's eviction victim. One-off charts therefore never push out
+ * charts that are requested every day.
+ *
+ * Lookups are a lock-free hash probe. Recency and frequency bookkeeping take a
+ * lock with {@code tryLock}, so under contention a read may skip it - the
+ * policy is approximate by design, the data never is.
+ *
+ * Metrics are published as {@code astrology.chart.cache.*} on /actuator/metrics.
+ */
+@Component
+public class ChartCache implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChartCache.class);
+
+    /** Rough average chart weight, used only to size the frequency sketch. */
+    private static final long TYPICAL_CHART_WEIGHT = 32 * 1024;
+
+    private final Map<ChartFingerprint, Node> data = new ConcurrentHashMap<>();
+    private final LinkedHashMap<ChartFingerprint, Node> window = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<ChartFingerprint, Node> main = new LinkedHashMap<>(16, 0.75f, true);
+    private final ReentrantLock policyLock = new ReentrantLock();
+    private final FrequencySketch sketch;
+
+    private final long maxWeight;
+    private final long windowMaxWeight;
+    private long windowWeight;
+    private long mainWeight;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+
+    public ChartCache(@Value("${astrology.cache.max-weight-bytes:67108864}") long maxWeight) {
+        this.maxWeight = Math.max(1, maxWeight);
+        this.windowMaxWeight = Math.max(1, this.maxWeight / 100);
+        this.sketch = new FrequencySketch((int) Math.min(1 << 20, Math.max(256, this.maxWeight / TYPICAL_CHART_WEIGHT)));
+    }
+
+    /**
+     * Returns the cached chart, or null on a miss. The returned map is shared;
+     * callers must copy it before modifying it.
+     */
+    public Map<String, Object> get(ChartFingerprint key) {
+        Node node = data.get(key);
+        if (node == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+
+        if (policyLock.tryLock()) {
+            try {
+                sketch.increment(key.hashCode());
+                if (node != null) {
+                    // Access-ordered maps move the entry to the MRU end on get
+                    if (node.inWindow) {
+                        window.get(key);
+                    } else {
+                        main.get(key);
+                    }
+                }
+            } finally {
+                policyLock.unlock();
+            }
+        }
+        return node != null ? node.chart : null;
+    }
+
+    public void put(ChartFingerprint key, Map<String, Object> chart) {
+        long weight = estimateWeight(chart);
+        if (weight > maxWeight) {
+            rejections.increment();
+            return;
+        }
+
+        policyLock.lock();
+        try {
+            Node existing = data.get(key);
+            if (existing != null) {
+                removeFromRegion(existing);
+            }
+
+            Node node = new Node(key, chart, weight);
+            data.put(key, node);
+            window.put(key, node);
+            windowWeight += weight;
+
+            while (windowWeight > windowMaxWeight && !window.isEmpty()) {
+                Node candidate = window.values().iterator().next();
+                window.remove(candidate.key);
+                windowWeight -= candidate.weight;
+                admitToMain(candidate);
+            }
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    public void invalidate(ChartFingerprint key) {
+        policyLock.lock();
+        try {
+            Node node = data.remove(key);
+            if (node != null) {
+                removeFromRegion(node);
+            }
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    public void invalidateAll() {
+        policyLock.lock();
+        try {
+            data.clear();
+            window.clear();
+            main.clear();
+            windowWeight = 0;
+            mainWeight = 0;
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    public long size() {
+        return data.size();
+    }
+
+    public long weight() {
+        policyLock.lock();
+        try {
+            return windowWeight + mainWeight;
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("astrology.chart.cache.gets", hits, LongAdder::sum)
+                .tag("result", "hit").description("Chart cache lookups").register(registry);
+        FunctionCounter.builder("astrology.chart.cache.gets", misses, LongAdder::sum)
+                .tag("result", "miss").description("Chart cache lookups").register(registry);
+        FunctionCounter.builder("astrology.chart.cache.evictions", evictions, LongAdder::sum)
+                .description("Charts evicted or refused admission by the frequency filter").register(registry);
+        FunctionCounter.builder("astrology.chart.cache.rejections", rejections, LongAdder::sum)
+                .description("Charts too large to cache").register(registry);
+        Gauge.builder("astrology.chart.cache.size", this, ChartCache::size)
+                .description("Cached charts").register(registry);
+        Gauge.builder("astrology.chart.cache.weight", this, ChartCache::weight)
+                .description("Estimated bytes held by cached charts").baseUnit("bytes").register(registry);
+    }
+
+    // Caller holds policyLock
+    private void admitToMain(Node candidate) {
+        long mainMaxWeight = maxWeight - windowMaxWeight;
+        Iterator<Node> victims = main.values().iterator();
+
+        while (mainWeight + candidate.weight > mainMaxWeight && victims.hasNext()) {
+            Node victim = victims.next();
+            if (sketch.frequency(candidate.key.hashCode()) <= sketch.frequency(victim.key.hashCode())) {
+                // The main region's coldest entry is still hotter than the candidate
+                data.remove(candidate.key, candidate);
+                evictions.increment();
+                return;
+            }
+            victims.remove();
+            mainWeight -= victim.weight;
+            data.remove(victim.key, victim);
+            evictions.increment();
+        }
+
+        if (mainWeight + candidate.weight > mainMaxWeight) {
+            data.remove(candidate.key, candidate);
+            evictions.increment();
+            return;
+        }
+
+        candidate.inWindow = false;
+        main.put(candidate.key, candidate);
+        mainWeight += candidate.weight;
+        logger.debug("Admitted chart {} to main region ({} bytes)", candidate.key, candidate.weight);
+    }
+
+    // Caller holds policyLock
+    private void removeFromRegion(Node node) {
+        if (node.inWindow) {
+            if (window.remove(node.key, node)) {
+                windowWeight -= node.weight;
+            }
+        } else if (main.remove(node.key, node)) {
+            mainWeight -= node.weight;
+        }
+    }
+
+    /**
+     * Approximate retained size of a chart: maps, lists, strings and boxed numbers.
+     */
+    static long estimateWeight(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof Map) {
+            long weight = 64;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                weight += 48 + estimateWeight(entry.getKey()) + estimateWeight(entry.getValue());
+            }
+            return weight;
+        }
+        if (value instanceof Collection) {
+            long weight = 40;
+            for (Object element : (Collection<?>) value) {
+                weight += 8 + estimateWeight(element);
+            }
+            return weight;
+        }
+        if (value instanceof CharSequence) {
+            return 40 + ((CharSequence) value).length();
+        }
+        return 16;
+    }
+
+    private static final class Node {
+        final ChartFingerprint key;
+        final Map<String, Object> chart;
+        final long weight;
+        boolean inWindow = true;
+
+        Node(ChartFingerprint key, Map<String, Object> chart, long weight) {
+            this.key = key;
+            this.chart = chart;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * Count-min sketch of 4-bit counters with periodic halving, so frequency
+     * reflects recent popularity rather than all-time totals.
+     */
+    private static final class FrequencySketch {
+        private static final int[] SEEDS = {0x97cb3127, 0x5f356495, 0x8f1bbcdc, 0x2545f491};
+        private static final int MAX_COUNT = 15;
+
+        private final byte[][] counters;
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int expectedEntries) {
+            int width = Integer.highestOneBit(Math.max(16, expectedEntries - 1) << 1);
+            this.counters = new byte[SEEDS.length][width];
+            this.mask = width - 1;
+            this.sampleSize = 10 * width;
+        }
+
+        void increment(int hash) {
+            boolean added = false;
+            for (int row = 0; row < SEEDS.length; row++) {
+                int index = indexOf(hash, row);
+                if (counters[row][index] < MAX_COUNT) {
+                    counters[row][index]++;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize) {
+                reset();
+            }
+        }
+
+        int frequency(int hash) {
+            int frequency = MAX_COUNT;
+            for (int row = 0; row < SEEDS.length; row++) {
+                frequency = Math.min(frequency, counters[row][indexOf(hash, row)]);
+            }
+            return frequency;
+        }
+
+        private int indexOf(int hash, int row) {
+            int h = hash * SEEDS[row];
+            h ^= h >>> 16;
+            return h & mask;
+        }
+
+        private void reset() {
+            for (byte[] row : counters) {
+                for (int i = 0; i < row.length; i++) {
+                    row[i] = (byte) (row[i] >>> 1);
+                }
+            }
+            additions /= 2;
+        }
+    }
+}
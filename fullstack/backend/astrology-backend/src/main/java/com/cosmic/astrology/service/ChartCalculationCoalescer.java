@@ -0,0 +1,88 @@
+package com.cosmic.astrology.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight execution of chart calculations.
+ *
+ * The dashboard fires several requests at once and each one misses the cache
+ * for the same chart. The first caller for a fingerprint runs the calculation;
+ * callers that arrive while it is running wait on the same future instead of
+ * calculating the chart again. The in-flight entry is removed once the
+ * calculation finishes, by which time the result is already in the cache.
+ */
+@Component
+public class ChartCalculationCoalescer implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChartCalculationCoalescer.class);
+
+    private final Map<ChartFingerprint, CompletableFuture<Map<String, Object>>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder calculations = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * Runs the calculation, or waits for the identical one already running.
+     * The returned chart is shared between all coalesced callers and must not
+     * be modified.
+     */
+    public Map<String, Object> compute(ChartFingerprint key, Supplier<Map<String, Object>> calculation) {
+        CompletableFuture<Map<String, Object>> ours = new CompletableFuture<>();
+        CompletableFuture<Map<String, Object>> running = inFlight.putIfAbsent(key, ours);
+
+        if (running != null) {
+            coalesced.increment();
+            logger.debug("Joining in-flight calculation for chart {}", key);
+            return join(running);
+        }
+
+        calculations.increment();
+        try {
+            Map<String, Object> chart = calculation.get();
+            ours.complete(chart);
+            return chart;
+        } catch (RuntimeException | Error e) {
+            ours.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, ours);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("astrology.chart.calculations", calculations, LongAdder::sum)
+                .description("Chart calculations executed").register(registry);
+        FunctionCounter.builder("astrology.chart.calculations.coalesced", coalesced, LongAdder::sum)
+                .description("Chart requests served by joining an in-flight calculation").register(registry);
+        Gauge.builder("astrology.chart.calculations.in-flight", inFlight, Map::size)
+                .description("Chart calculations currently running").register(registry);
+    }
+
+    private static Map<String, Object> join(CompletableFuture<Map<String, Object>> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,469 @@
+package com.cosmic.astrology.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Second-tier chart cache: compact charts in memory-mapped segment files.
+ *
+ * Charts are appended to fixed-size segment files that are mapped into memory,
+ * so reads copy bytes straight out of the page cache without touching the heap
+ * until decode. Only the fingerprint index lives on-heap; it is rebuilt on
+ * startup by scanning the segments, so a restarted instance serves every chart
+ * it had written before the deploy.
+ *
+ * When the segment budget is exceeded, the least recently read segment is
+ * compacted: entries that were read since they were written are copied to the
+ * active segment, everything else in it is dropped with the file. Segment read
+ * times are saved to {@code segments.recency} on shutdown so the least recently
+ * read segment is still known after a restart; per-chart read marks are not,
+ * so a chart has to be read again after a restart to survive compaction.
+ *
+ * Payloads are the {@link CompactChartCodec} storage format, the same bytes
+ * the charts table holds; callers rebuild the full chart from them. Readers
+ * copy a payload under the read lock, and segments are only unmapped and
+ * deleted under the write lock.
+ *
+ * Record layout: magic, body length, body (fingerprint, payload length,
+ * payload), CRC32 of the body.
+ */
+@Component
+public class ChartDiskCache implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChartDiskCache.class);
+
+    private static final int RECORD_MAGIC = 0x43485232; // "CHR2", records before it held full charts
+    private static final int RECORD_OVERHEAD = 12;       // magic + body length + crc
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".dat";
+    private static final String RECENCY_FILE = "segments.recency";
+
+    @Value("${astrology.cache.l2.enabled:true}")
+    private boolean enabled;
+
+    @Value("${astrology.cache.l2.path:./chart-cache}")
+    private String path;
+
+    @Value("${astrology.cache.l2.segment-size-bytes:16777216}")
+    private int segmentSize;
+
+    @Value("${astrology.cache.l2.max-segments:32}")
+    private int maxSegments;
+
+    private final Map<ChartFingerprint, Location> index = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Integer, Segment> segments = new ConcurrentSkipListMap<>();
+    private volatile Segment active;
+    private volatile boolean available;
+    private final ReadWriteLock segmentLock = new ReentrantReadWriteLock();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder writes = new LongAdder();
+    private final LongAdder compactions = new LongAdder();
+
+    @PostConstruct
+    public void open() {
+        if (!enabled) {
+            return;
+        }
+        // The active segment is never compacted, so one more is needed to make room
+        maxSegments = Math.max(2, maxSegments);
+        try {
+            Path directory = Paths.get(path);
+            Files.createDirectories(directory);
+
+            List<Path> files = new ArrayList<>();
+            try (Stream<Path> listing = Files.list(directory)) {
+                listing.filter(file -> file.getFileName().toString().startsWith(SEGMENT_PREFIX)
+                                    && file.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                       .sorted(Comparator.comparing(Path::toString))
+                       .forEach(files::add);
+            }
+
+            for (Path file : files) {
+                Segment segment = mapSegment(segmentId(file), file);
+                segments.put(segment.id, segment);
+                scan(segment);
+            }
+            loadRecency(directory.resolve(RECENCY_FILE));
+
+            active = segments.isEmpty() ? createSegment(1) : segments.lastEntry().getValue();
+            available = true;
+            logger.info("Chart L2 cache opened at {}: {} charts in {} segments", directory, index.size(), segments.size());
+
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Chart L2 cache disabled, could not open {}: {}", path, e.getMessage());
+            available = false;
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        segmentLock.writeLock().lock();
+        try {
+            available = false;
+            if (!segments.isEmpty()) {
+                saveRecency(Paths.get(path).resolve(RECENCY_FILE));
+            }
+            for (Segment segment : segments.values()) {
+                segment.buffer.force();
+                closeQuietly(segment);
+            }
+        } finally {
+            segmentLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the stored chart, or null on a miss.
+     */
+    public CompactChartCodec.StoredChart get(ChartFingerprint key) {
+        if (!available) {
+            return null;
+        }
+
+        Location location;
+        byte[] payload;
+        segmentLock.readLock().lock();
+        try {
+            location = index.get(key);
+            Segment segment = location != null ? segments.get(location.segmentId) : null;
+            if (segment == null) {
+                misses.increment();
+                return null;
+            }
+
+            payload = new byte[location.length];
+            segment.buffer.duplicate().position(location.offset).get(payload);
+
+            long now = System.currentTimeMillis();
+            location.lastRead = now;
+            segment.lastRead = now;
+        } finally {
+            segmentLock.readLock().unlock();
+        }
+        hits.increment();
+
+        try {
+            return CompactChartCodec.decode(payload);
+        } catch (RuntimeException e) {
+            logger.warn("Dropping unreadable L2 chart {}: {}", key, e.getMessage());
+            index.remove(key, location);
+            return null;
+        }
+    }
+
+    public void put(ChartFingerprint key, Map<String, Object> chart) {
+        if (!available) {
+            return;
+        }
+        try {
+            byte[] payload = CompactChartCodec.encode(chart);
+            synchronized (this) {
+                append(key, payload, true);
+            }
+            writes.increment();
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not write chart {} to L2 cache: {}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * Drops every stored chart, e.g. after a calculation engine change.
+     */
+    public synchronized void invalidateAll() {
+        if (!available) {
+            return;
+        }
+        index.clear();
+        for (Segment segment : new ArrayList<>(segments.values())) {
+            dropSegment(segment);
+        }
+        try {
+            active = createSegment(1);
+        } catch (IOException e) {
+            logger.warn("Chart L2 cache disabled after reset: {}", e.getMessage());
+            available = false;
+        }
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("astrology.chart.cache.l2.gets", hits, LongAdder::sum)
+                .tag("result", "hit").description("L2 chart cache lookups").register(registry);
+        FunctionCounter.builder("astrology.chart.cache.l2.gets", misses, LongAdder::sum)
+                .tag("result", "miss").description("L2 chart cache lookups").register(registry);
+        FunctionCounter.builder("astrology.chart.cache.l2.writes", writes, LongAdder::sum)
+                .description("Charts written to the L2 cache").register(registry);
+        FunctionCounter.builder("astrology.chart.cache.l2.compactions", compactions, LongAdder::sum)
+                .description("L2 segments compacted").register(registry);
+        Gauge.builder("astrology.chart.cache.l2.size", this, ChartDiskCache::size)
+                .description("Charts in the L2 cache").register(registry);
+        Gauge.builder("astrology.chart.cache.l2.segments", segments, Map::size)
+                .description("L2 segment files").register(registry);
+    }
+
+    // Caller holds the monitor
+    private void append(ChartFingerprint key, byte[] payload, boolean allowCompaction) throws IOException {
+        byte[] ayanamsa = key.getAyanamsa().getBytes(StandardCharsets.UTF_8);
+        int bodyLength = 8 + 4 + 4 + 2 + 1 + ayanamsa.length + 4 + payload.length;
+        int recordLength = RECORD_OVERHEAD + bodyLength;
+        if (recordLength > segmentSize) {
+            return;
+        }
+
+        if (active.writePosition + recordLength > segmentSize) {
+            active = createSegment(active.id + 1);
+            if (allowCompaction) {
+                while (segments.size() > maxSegments) {
+                    if (!compactLeastRecentlyRead()) {
+                        break;
+                    }
+                }
+            }
+        }
+
+        ByteBuffer body = ByteBuffer.allocate(bodyLength);
+        body.putLong(key.getUtcEpochSecond())
+            .putInt(key.getLatitudeE4())
+            .putInt(key.getLongitudeE4())
+            .putChar(key.getHouseSystem())
+            .put((byte) ayanamsa.length)
+            .put(ayanamsa)
+            .putInt(payload.length);
+        int payloadOffsetInBody = body.position();
+        body.put(payload);
+
+        CRC32 crc = new CRC32();
+        crc.update(body.array());
+
+        Segment segment = active;
+        int start = segment.writePosition;
+        ByteBuffer out = segment.buffer.duplicate();
+        out.position(start);
+        out.putInt(RECORD_MAGIC).putInt(bodyLength).put(body.array()).putInt((int) crc.getValue());
+        segment.writePosition = start + recordLength;
+
+        index.put(key, new Location(segment.id, start + 8 + payloadOffsetInBody, payload.length));
+    }
+
+    // Caller holds the monitor; false when there was no segment to drop
+    private boolean compactLeastRecentlyRead() throws IOException {
+        Segment victim = null;
+        for (Segment segment : segments.values()) {
+            if (segment != active && (victim == null || segment.lastRead < victim.lastRead)) {
+                victim = segment;
+            }
+        }
+        if (victim == null) {
+            return false;
+        }
+
+        int promoted = 0;
+        Iterator<Map.Entry<ChartFingerprint, Location>> entries = index.entrySet().iterator();
+        List<Map.Entry<ChartFingerprint, Location>> survivors = new ArrayList<>();
+        while (entries.hasNext()) {
+            Map.Entry<ChartFingerprint, Location> entry = entries.next();
+            if (entry.getValue().segmentId != victim.id) {
+                continue;
+            }
+            if (entry.getValue().lastRead > 0) {
+                survivors.add(entry);
+            } else {
+                entries.remove();
+            }
+        }
+
+        for (Map.Entry<ChartFingerprint, Location> entry : survivors) {
+            Location location = entry.getValue();
+            byte[] payload = new byte[location.length];
+            victim.buffer.duplicate().position(location.offset).get(payload);
+            append(entry.getKey(), payload, false);
+            promoted++;
+        }
+
+        dropSegment(victim);
+        compactions.increment();
+        logger.debug("Compacted L2 segment {}: kept {} recently read charts", victim.id, promoted);
+        return true;
+    }
+
+    private void loadRecency(Path file) {
+        if (!Files.exists(file)) {
+            return;
+        }
+        try {
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                String[] fields = line.trim().split(" ");
+                if (fields.length != 2) {
+                    continue;
+                }
+                Segment segment = segments.get(Integer.parseInt(fields[0]));
+                if (segment != null) {
+                    segment.lastRead = Long.parseLong(fields[1]);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Ignoring L2 segment recency file {}: {}", file, e.getMessage());
+        }
+    }
+
+    private void saveRecency(Path file) {
+        List<String> lines = new ArrayList<>();
+        for (Segment segment : segments.values()) {
+            lines.add(segment.id + " " + segment.lastRead);
+        }
+        try {
+            Files.write(file, lines, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            logger.warn("Could not save L2 segment recency to {}: {}", file, e.getMessage());
+        }
+    }
+
+    private void scan(Segment segment) {
+        ByteBuffer in = segment.buffer.duplicate();
+        int position = 0;
+
+        while (position + RECORD_OVERHEAD <= segmentSize) {
+            in.position(position);
+            if (in.getInt() != RECORD_MAGIC) {
+                break;
+            }
+            int bodyLength = in.getInt();
+            if (bodyLength <= 0 || position + RECORD_OVERHEAD + bodyLength > segmentSize) {
+                break;
+            }
+
+            byte[] body = new byte[bodyLength];
+            in.get(body);
+            CRC32 crc = new CRC32();
+            crc.update(body);
+            if ((int) crc.getValue() != in.getInt()) {
+                logger.warn("L2 segment {} has a torn record at {}, ignoring the rest", segment.id, position);
+                break;
+            }
+
+            ByteBuffer fields = ByteBuffer.wrap(body);
+            long epochSecond = fields.getLong();
+            int latitude = fields.getInt();
+            int longitude = fields.getInt();
+            char houseSystem = fields.getChar();
+            byte[] ayanamsa = new byte[fields.get()];
+            fields.get(ayanamsa);
+            int payloadLength = fields.getInt();
+
+            ChartFingerprint key = ChartFingerprint.of(epochSecond, latitude, longitude,
+                    new String(ayanamsa, StandardCharsets.UTF_8), houseSystem);
+            index.put(key, new Location(segment.id, position + 8 + fields.position(), payloadLength));
+
+            position += RECORD_OVERHEAD + bodyLength;
+        }
+        segment.writePosition = position;
+    }
+
+    private Segment createSegment(int id) throws IOException {
+        Path file = Paths.get(path).resolve(String.format("%s%08d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+        Segment segment = mapSegment(id, file);
+        segments.put(id, segment);
+        return segment;
+    }
+
+    private Segment mapSegment(int id, Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        return new Segment(id, file, channel, buffer);
+    }
+
+    private void dropSegment(Segment segment) {
+        segmentLock.writeLock().lock();
+        try {
+            segments.remove(segment.id);
+            index.values().removeIf(location -> location.segmentId == segment.id);
+            closeQuietly(segment);
+        } finally {
+            segmentLock.writeLock().unlock();
+        }
+        try {
+            Files.deleteIfExists(segment.file);
+        } catch (IOException e) {
+            logger.warn("Could not delete L2 segment {}: {}", segment.file, e.getMessage());
+        }
+    }
+
+    private static void closeQuietly(Segment segment) {
+        try {
+            segment.channel.close();
+        } catch (IOException e) {
+            logger.debug("Error closing L2 segment {}", segment.file, e);
+        }
+    }
+
+    private static int segmentId(Path file) {
+        String name = file.getFileName().toString();
+        return Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static final class Segment {
+        final int id;
+        final Path file;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+        volatile int writePosition;
+        volatile long lastRead;
+
+        Segment(int id, Path file, FileChannel channel, MappedByteBuffer buffer) {
+            this.id = id;
+            this.file = file;
+            this.channel = channel;
+            this.buffer = buffer;
+            this.lastRead = System.currentTimeMillis();
+        }
+    }
+
+    private static final class Location {
+        final int segmentId;
+        final int offset;
+        final int length;
+        volatile long lastRead;
+
+        Location(int segmentId, int offset, int length) {
+            this.segmentId = segmentId;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+}
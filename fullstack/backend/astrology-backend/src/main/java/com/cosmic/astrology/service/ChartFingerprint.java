@@ -0,0 +1,96 @@
+package com.cosmic.astrology.service;
+
+import com.cosmic.astrology.entity.User;
+
+import java.time.ZoneId;
+
+/**
+ * Canonical identity of a natal chart calculation.
+ *
+ * Two requests with the same birth instant (in UTC), the same location at
+ * ~11 m resolution and the same calculation settings produce the same
+ * astronomical chart, whoever the user and whatever time zone the birth time
+ * was entered in, so they share one cache entry.
+ */
+public final class ChartFingerprint {
+
+    /** Coordinates are quantized to 1e-4 degrees. */
+    private static final double COORDINATE_SCALE = 10_000.0;
+
+    private final long utcEpochSecond;
+    private final int latitudeE4;
+    private final int longitudeE4;
+    private final String ayanamsa;
+    private final char houseSystem;
+
+    private ChartFingerprint(long utcEpochSecond, int latitudeE4, int longitudeE4, String ayanamsa, char houseSystem) {
+        this.utcEpochSecond = utcEpochSecond;
+        this.latitudeE4 = latitudeE4;
+        this.longitudeE4 = longitudeE4;
+        this.ayanamsa = ayanamsa;
+        this.houseSystem = houseSystem;
+    }
+
+    public static ChartFingerprint of(User user, String ayanamsa, char houseSystem) {
+        String timezone = user.getTimezone() != null ? user.getTimezone() : "UTC";
+        long epochSecond = user.getBirthDateTime().atZone(ZoneId.of(timezone)).toEpochSecond();
+        return new ChartFingerprint(
+            epochSecond,
+            (int) Math.round(user.getBirthLatitude() * COORDINATE_SCALE),
+            (int) Math.round(user.getBirthLongitude() * COORDINATE_SCALE),
+            ayanamsa,
+            houseSystem
+        );
+    }
+
+    static ChartFingerprint of(long utcEpochSecond, int latitudeE4, int longitudeE4, String ayanamsa, char houseSystem) {
+        return new ChartFingerprint(utcEpochSecond, latitudeE4, longitudeE4, ayanamsa, houseSystem);
+    }
+
+    public long getUtcEpochSecond() {
+        return utcEpochSecond;
+    }
+
+    public int getLatitudeE4() {
+        return latitudeE4;
+    }
+
+    public int getLongitudeE4() {
+        return longitudeE4;
+    }
+
+    public String getAyanamsa() {
+        return ayanamsa;
+    }
+
+    public char getHouseSystem() {
+        return houseSystem;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ChartFingerprint)) return false;
+        ChartFingerprint that = (ChartFingerprint) o;
+        return utcEpochSecond == that.utcEpochSecond
+            && latitudeE4 == that.latitudeE4
+            && longitudeE4 == that.longitudeE4
+            && houseSystem == that.houseSystem
+            && ayanamsa.equals(that.ayanamsa);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Long.hashCode(utcEpochSecond);
+        result = 31 * result + latitudeE4;
+        result = 31 * result + longitudeE4;
+        result = 31 * result + ayanamsa.hashCode();
+        result = 31 * result + houseSystem;
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return utcEpochSecond + ":" + latitudeE4 + ":" + longitudeE4 + ":" + ayanamsa + ":" + houseSystem;
+    }
+}
@@ -0,0 +1,422 @@
+package com.cosmic.astrology.service;
+
+import com.cosmic.astrology.entity.BirthChart;
+import com.cosmic.astrology.entity.JobCheckpoint;
+import com.cosmic.astrology.entity.User;
+import com.cosmic.astrology.repository.JobCheckpointRepository;
+import com.cosmic.astrology.repository.UserRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Resumable bulk recalculation of natal charts.
+ *
+ * Walks users with birth data whose active chart is missing or was produced by
+ * another engine version, in keyset pages ordered by user id. Each page is
+ * calculated on a fixed pool of low-priority threads, bypassing the chart
+ * caches, and written back in JDBC batches in one transaction together with
+ * the job checkpoint. A stopped or crashed run resumes after the last written
+ * page. Throughput is capped by {@code astrology.chart.recompute.max-charts-per-second}
+ * so a full recompute can run next to online traffic.
+ *
+ * Progress is published as {@code astrology.chart.recompute.*} on /actuator/metrics.
+ */
+@Component
+public class ChartRecomputeJob implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChartRecomputeJob.class);
+
+    static final String JOB_NAME = "chart-recompute";
+
+    // Every write below is guarded by the birth data the chart was calculated from, so a
+    // chart the user replaced while the page was being calculated is left alone
+    private static final String UPDATE_CHART_SQL =
+            "UPDATE birth_charts SET chart_payload = ?, engine_version = ?, settings_hash = ?, sun_sign = ?, " +
+            "moon_sign = ?, rising_sign = ?, dominant_element = ?, updated_at = ? WHERE id = ? AND is_active = true " +
+            "AND birth_date_time = ? AND birth_latitude = ? AND birth_longitude = ?";
+
+    private static final String UNCHANGED_BIRTH_DATA =
+            "SELECT 1 FROM users WHERE id = ? AND birth_date_time = ? AND birth_latitude = ? AND birth_longitude = ?";
+
+    private static final String DEACTIVATE_CHARTS_SQL =
+            "UPDATE birth_charts SET is_active = false, updated_at = ? WHERE user_id = ? AND subject_type = '" +
+            BirthChart.SUBJECT_SELF + "' AND is_active = true AND EXISTS (" + UNCHANGED_BIRTH_DATA + ")";
+
+    private static final String INSERT_CHART_SQL =
+            "INSERT INTO birth_charts (user_id, birth_date_time, birth_location, birth_latitude, birth_longitude, " +
+            "timezone, chart_payload, engine_version, settings_hash, subject_type, sun_sign, moon_sign, rising_sign, " +
+            "dominant_element, house_system, created_at, updated_at, is_active) " +
+            "SELECT ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ? FROM DUAL WHERE EXISTS (" + UNCHANGED_BIRTH_DATA + ")";
+
+    private static final String UPDATE_USER_SQL =
+            "UPDATE users SET chart_calculated = true, chart_calculated_at = ?, sun_sign = ?, moon_sign = ?, " +
+            "rising_sign = ?, dominant_element = ?, moon_nakshatra = ?, moon_pada = ? WHERE id = ? " +
+            "AND birth_date_time = ? AND birth_latitude = ? AND birth_longitude = ?";
+
+    private final UserRepository userRepository;
+    private final JobCheckpointRepository checkpointRepository;
+    private final VedicAstrologyCalculationService vedicCalculationService;
+    private final MatchmakingIndex matchmakingIndex;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final int threads;
+    private final int batchSize;
+    private final double maxChartsPerSecond;
+
+    private final Object lifecycleLock = new Object();
+    private volatile Thread driver;
+    private volatile boolean stopRequested;
+    private volatile long runStartedNanos;
+
+    private final LongAdder computed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final AtomicLong runCharts = new AtomicLong();
+    private final AtomicLong lastProcessedId = new AtomicLong();
+
+    public ChartRecomputeJob(UserRepository userRepository,
+                             JobCheckpointRepository checkpointRepository,
+                             VedicAstrologyCalculationService vedicCalculationService,
+                             MatchmakingIndex matchmakingIndex,
+                             JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${astrology.chart.recompute.threads:2}") int threads,
+                             @Value("${astrology.chart.recompute.batch-size:200}") int batchSize,
+                             @Value("${astrology.chart.recompute.max-charts-per-second:50}") double maxChartsPerSecond) {
+        this.userRepository = userRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.vedicCalculationService = vedicCalculationService;
+        this.matchmakingIndex = matchmakingIndex;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.threads = Math.max(1, threads);
+        this.batchSize = Math.max(1, batchSize);
+        this.maxChartsPerSecond = maxChartsPerSecond;
+    }
+
+    /**
+     * Starts a run in the background, resuming from the last checkpoint unless
+     * {@code restart} is set or the previous run completed. Returns false if a
+     * run is already in progress.
+     */
+    public boolean start(boolean restart) {
+        synchronized (lifecycleLock) {
+            if (isRunning()) {
+                return false;
+            }
+            stopRequested = false;
+            Thread thread = new Thread(() -> run(restart), JOB_NAME);
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            driver = thread;
+            thread.start();
+            return true;
+        }
+    }
+
+    /**
+     * Asks a running job to stop after the page in progress is written.
+     */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    public boolean isRunning() {
+        Thread thread = driver;
+        return thread != null && thread.isAlive();
+    }
+
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        JobCheckpoint checkpoint = checkpointRepository.findById(JOB_NAME).orElse(null);
+        status.put("job", JOB_NAME);
+        status.put("running", isRunning());
+        status.put("status", checkpoint != null ? checkpoint.getStatus() : null);
+        status.put("lastProcessedId", checkpoint != null ? checkpoint.getLastProcessedId() : 0L);
+        status.put("processed", checkpoint != null ? checkpoint.getProcessedCount() : 0L);
+        status.put("failed", checkpoint != null ? checkpoint.getFailedCount() : 0L);
+        status.put("startedAt", checkpoint != null ? checkpoint.getStartedAt() : null);
+        status.put("updatedAt", checkpoint != null ? checkpoint.getUpdatedAt() : null);
+        status.put("chartsPerSecond", chartsPerSecond());
+        status.put("engineVersion", VedicAstrologyCalculationService.ENGINE_VERSION);
+        return status;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        stopRequested = true;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("astrology.chart.recompute.charts", computed, LongAdder::sum)
+                .tag("result", "computed").description("Charts recalculated by the bulk job").register(registry);
+        FunctionCounter.builder("astrology.chart.recompute.charts", failed, LongAdder::sum)
+                .tag("result", "failed").description("Charts recalculated by the bulk job").register(registry);
+        FunctionCounter.builder("astrology.chart.recompute.batches", batches, LongAdder::sum)
+                .description("Pages written by the bulk job").register(registry);
+        Gauge.builder("astrology.chart.recompute.running", this, job -> job.isRunning() ? 1 : 0)
+                .description("Whether the bulk job is running").register(registry);
+        Gauge.builder("astrology.chart.recompute.last-id", lastProcessedId, AtomicLong::get)
+                .description("Last user id written by the bulk job").register(registry);
+        Gauge.builder("astrology.chart.recompute.throughput", this, ChartRecomputeJob::chartsPerSecond)
+                .description("Charts per second in the current run").register(registry);
+    }
+
+    private void run(boolean restart) {
+        JobCheckpoint checkpoint = checkpointRepository.findById(JOB_NAME).orElseGet(() -> new JobCheckpoint(JOB_NAME));
+        if (restart || JobCheckpoint.STATUS_COMPLETED.equals(checkpoint.getStatus())) {
+            checkpoint.setLastProcessedId(0L);
+            checkpoint.setProcessedCount(0L);
+            checkpoint.setFailedCount(0L);
+        }
+        checkpoint.setStatus(JobCheckpoint.STATUS_RUNNING);
+        checkpoint.setStartedAt(LocalDateTime.now());
+        checkpointRepository.save(checkpoint);
+
+        runStartedNanos = System.nanoTime();
+        runCharts.set(0);
+        lastProcessedId.set(checkpoint.getLastProcessedId());
+        logger.info("Chart recompute started after user id {} (engine {})",
+                checkpoint.getLastProcessedId(), VedicAstrologyCalculationService.ENGINE_VERSION);
+
+        ExecutorService pool = newCalculationPool();
+        try {
+            long afterId = checkpoint.getLastProcessedId();
+            while (!stopRequested) {
+                long pageStartedNanos = System.nanoTime();
+                List<UserRepository.ChartRecomputeCandidate> page = userRepository.findChartRecomputeCandidates(
+                        afterId, VedicAstrologyCalculationService.ENGINE_VERSION,
+                        VedicAstrologyCalculationService.SETTINGS_HASH, PageRequest.of(0, batchSize));
+                if (page.isEmpty()) {
+                    checkpoint.setStatus(JobCheckpoint.STATUS_COMPLETED);
+                    break;
+                }
+
+                List<Future<RecomputedChart>> futures = new ArrayList<>(page.size());
+                for (UserRepository.ChartRecomputeCandidate candidate : page) {
+                    futures.add(pool.submit(() -> recompute(candidate)));
+                }
+                List<RecomputedChart> results = new ArrayList<>(page.size());
+                int pageFailures = 0;
+                for (int i = 0; i < futures.size(); i++) {
+                    try {
+                        results.add(futures.get(i).get());
+                    } catch (ExecutionException e) {
+                        pageFailures++;
+                        logger.warn("Chart recompute failed for user {}: {}", page.get(i).getId(), e.getCause().getMessage());
+                    }
+                }
+
+                afterId = page.get(page.size() - 1).getId();
+                writePage(results, checkpoint, afterId, pageFailures);
+                matchmakingIndex.refresh(results.stream().map(result -> result.candidate.getId())
+                        .collect(Collectors.toList()));
+
+                computed.add(results.size());
+                failed.add(pageFailures);
+                batches.increment();
+                runCharts.addAndGet(page.size());
+                lastProcessedId.set(afterId);
+
+                throttle(page.size(), pageStartedNanos);
+            }
+            if (stopRequested && !JobCheckpoint.STATUS_COMPLETED.equals(checkpoint.getStatus())) {
+                checkpoint.setStatus(JobCheckpoint.STATUS_STOPPED);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            checkpoint.setStatus(JobCheckpoint.STATUS_STOPPED);
+        } catch (RuntimeException e) {
+            checkpoint.setStatus(JobCheckpoint.STATUS_FAILED);
+            logger.error("Chart recompute failed after user id {}", checkpoint.getLastProcessedId(), e);
+        } finally {
+            pool.shutdownNow();
+            checkpointRepository.save(checkpoint);
+            logger.info("Chart recompute {} at user id {} ({} charts this run)",
+                    checkpoint.getStatus(), lastProcessedId.get(), runCharts.get());
+        }
+    }
+
+    private RecomputedChart recompute(UserRepository.ChartRecomputeCandidate candidate) {
+        User subject = new User();
+        subject.setUsername(candidate.getUsername());
+        subject.setBirthDateTime(candidate.getBirthDateTime());
+        subject.setBirthLocation(candidate.getBirthLocation());
+        subject.setBirthLatitude(candidate.getBirthLatitude());
+        subject.setBirthLongitude(candidate.getBirthLongitude());
+        subject.setTimezone(candidate.getTimezone());
+
+        Map<String, Object> chart = vedicCalculationService.calculateVedicNatalChartUncached(subject);
+        Object positions = chart.get("siderealPositions");
+        Object moon = positions instanceof Map ? ((Map<?, ?>) positions).get("Moon") : null;
+        Integer moonPadaIndex = moon instanceof Number ? GunaMilanEngine.padaIndex(((Number) moon).doubleValue()) : null;
+        return new RecomputedChart(candidate, vedicCalculationService.toStorageFormat(chart),
+                (String) chart.get("sunSign"), (String) chart.get("moonSign"),
+                (String) chart.get("ascendant"), (String) chart.get("dominantElement"), moonPadaIndex);
+    }
+
+    // One transaction per page: chart rows, user summaries and the checkpoint move together.
+    // A chart whose guarded write matched no row is dropped, and so is its user update.
+    private void writePage(List<RecomputedChart> results, JobCheckpoint checkpoint, long lastId, int pageFailures) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<RecomputedChart> updated = new ArrayList<>();
+        List<RecomputedChart> inserted = new ArrayList<>();
+        List<Object[]> chartUpdates = new ArrayList<>();
+        List<Object[]> chartDeactivations = new ArrayList<>();
+        List<Object[]> chartInserts = new ArrayList<>();
+
+        for (RecomputedChart result : results) {
+            UserRepository.ChartRecomputeCandidate candidate = result.candidate;
+            Timestamp birthDateTime = Timestamp.valueOf(candidate.getBirthDateTime());
+            if (candidate.getActiveChartId() != null) {
+                updated.add(result);
+                chartUpdates.add(new Object[] {
+                    result.payload, VedicAstrologyCalculationService.ENGINE_VERSION,
+                    VedicAstrologyCalculationService.SETTINGS_HASH, result.sunSign, result.moonSign,
+                    result.risingSign, result.dominantElement, now, candidate.getActiveChartId(),
+                    birthDateTime, candidate.getBirthLatitude(), candidate.getBirthLongitude()
+                });
+            } else {
+                inserted.add(result);
+                chartDeactivations.add(new Object[] {
+                    now, candidate.getId(),
+                    candidate.getId(), birthDateTime, candidate.getBirthLatitude(), candidate.getBirthLongitude()
+                });
+                chartInserts.add(new Object[] {
+                    candidate.getId(), birthDateTime,
+                    candidate.getBirthLocation() != null ? candidate.getBirthLocation() : "",
+                    candidate.getBirthLatitude(), candidate.getBirthLongitude(),
+                    candidate.getTimezone() != null ? candidate.getTimezone() : "UTC",
+                    result.payload, VedicAstrologyCalculationService.ENGINE_VERSION,
+                    VedicAstrologyCalculationService.SETTINGS_HASH, BirthChart.SUBJECT_SELF,
+                    result.sunSign, result.moonSign, result.risingSign, result.dominantElement,
+                    "PLACIDUS", now, now, true,
+                    candidate.getId(), birthDateTime, candidate.getBirthLatitude(), candidate.getBirthLongitude()
+                });
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            List<RecomputedChart> written = new ArrayList<>(results.size());
+            if (!chartUpdates.isEmpty()) {
+                collectWritten(jdbcTemplate.batchUpdate(UPDATE_CHART_SQL, chartUpdates), updated, written);
+            }
+            if (!chartInserts.isEmpty()) {
+                // A chart stored since the page was read is replaced, never left active next to this one
+                jdbcTemplate.batchUpdate(DEACTIVATE_CHARTS_SQL, chartDeactivations);
+                collectWritten(jdbcTemplate.batchUpdate(INSERT_CHART_SQL, chartInserts), inserted, written);
+            }
+            if (!written.isEmpty()) {
+                List<Object[]> userUpdates = new ArrayList<>(written.size());
+                for (RecomputedChart result : written) {
+                    UserRepository.ChartRecomputeCandidate candidate = result.candidate;
+                    userUpdates.add(new Object[] {
+                        now, result.sunSign, result.moonSign, result.risingSign, result.dominantElement,
+                        result.moonPadaIndex != null ? GunaMilanEngine.nakshatraOf(result.moonPadaIndex) : null,
+                        result.moonPadaIndex != null ? GunaMilanEngine.padaOf(result.moonPadaIndex) : null,
+                        candidate.getId(), Timestamp.valueOf(candidate.getBirthDateTime()),
+                        candidate.getBirthLatitude(), candidate.getBirthLongitude()
+                    });
+                }
+                jdbcTemplate.batchUpdate(UPDATE_USER_SQL, userUpdates);
+            }
+            if (written.size() < results.size()) {
+                logger.info("Chart recompute skipped {} charts whose birth data changed during the page",
+                        results.size() - written.size());
+            }
+            checkpoint.setLastProcessedId(lastId);
+            checkpoint.setProcessedCount(checkpoint.getProcessedCount() + results.size());
+            checkpoint.setFailedCount(checkpoint.getFailedCount() + pageFailures);
+            checkpointRepository.save(checkpoint);
+        });
+    }
+
+    // Batch counts are per statement; the driver may report SUCCESS_NO_INFO (-2) instead of a row count
+    private static void collectWritten(int[] counts, List<RecomputedChart> charts, List<RecomputedChart> written) {
+        for (int i = 0; i < counts.length && i < charts.size(); i++) {
+            if (counts[i] != 0) {
+                written.add(charts.get(i));
+            }
+        }
+    }
+
+    private void throttle(int charts, long pageStartedNanos) throws InterruptedException {
+        if (maxChartsPerSecond <= 0) {
+            return;
+        }
+        long targetNanos = (long) (charts / maxChartsPerSecond * 1_000_000_000L);
+        long remainingNanos = targetNanos - (System.nanoTime() - pageStartedNanos);
+        if (remainingNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(remainingNanos);
+        }
+    }
+
+    private double chartsPerSecond() {
+        long started = runStartedNanos;
+        if (started == 0) {
+            return 0.0;
+        }
+        double seconds = (System.nanoTime() - started) / 1_000_000_000.0;
+        return seconds > 0 ? runCharts.get() / seconds : 0.0;
+    }
+
+    private ExecutorService newCalculationPool() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, JOB_NAME + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+
+    private static final class RecomputedChart {
+        final UserRepository.ChartRecomputeCandidate candidate;
+        final byte[] payload;
+        final String sunSign;
+        final String moonSign;
+        final String risingSign;
+        final String dominantElement;
+        final Integer moonPadaIndex;
+
+        RecomputedChart(UserRepository.ChartRecomputeCandidate candidate, byte[] payload, String sunSign,
+                        String moonSign, String risingSign, String dominantElement, Integer moonPadaIndex) {
+            this.candidate = candidate;
+            this.payload = payload;
+            this.sunSign = sunSign;
+            this.moonSign = moonSign;
+            this.risingSign = risingSign;
+            this.dominantElement = dominantElement;
+            this.moonPadaIndex = moonPadaIndex;
+        }
+    }
+}
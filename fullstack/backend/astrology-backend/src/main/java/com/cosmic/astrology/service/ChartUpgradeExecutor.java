@@ -0,0 +1,107 @@
+package com.cosmic.astrology.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Background recalculation of stored charts produced by an older engine.
+ *
+ * A reader that finds an outdated chart keeps serving it and hands the
+ * upgrade to this executor. Each stored chart is queued at most once at a
+ * time; when the queue is full the upgrade is dropped and simply requested
+ * again by the next read. A deploy that bumps the engine version therefore
+ * upgrades charts as they are used instead of in one blocking pass.
+ */
+@Component
+public class ChartUpgradeExecutor implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChartUpgradeExecutor.class);
+
+    private final ThreadPoolExecutor executor;
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder scheduled = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    public ChartUpgradeExecutor(@Value("${astrology.chart.upgrade.threads:2}") int threads,
+                                @Value("${astrology.chart.upgrade.queue-size:1000}") int queueSize) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        int poolSize = Math.max(1, threads);
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueSize)), runnable -> {
+                    Thread thread = new Thread(runnable, "chart-upgrade-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Queues the upgrade of a stored chart unless one is already pending.
+     * Returns whether the upgrade was queued by this call.
+     */
+    public boolean submit(Long chartId, Runnable upgrade) {
+        if (chartId == null || !pending.add(chartId)) {
+            return false;
+        }
+
+        try {
+            executor.execute(() -> {
+                try {
+                    upgrade.run();
+                    completed.increment();
+                } catch (RuntimeException e) {
+                    failed.increment();
+                    logger.warn("Upgrade of stored chart {} failed: {}", chartId, e.getMessage());
+                } finally {
+                    pending.remove(chartId);
+                }
+            });
+            scheduled.increment();
+            return true;
+        } catch (RejectedExecutionException e) {
+            pending.remove(chartId);
+            dropped.increment();
+            logger.debug("Upgrade queue full, dropping upgrade of stored chart {}", chartId);
+            return false;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("astrology.chart.upgrades", scheduled, LongAdder::sum)
+                .tag("result", "scheduled").description("Stored chart upgrades").register(registry);
+        FunctionCounter.builder("astrology.chart.upgrades", completed, LongAdder::sum)
+                .tag("result", "completed").description("Stored chart upgrades").register(registry);
+        FunctionCounter.builder("astrology.chart.upgrades", failed, LongAdder::sum)
+                .tag("result", "failed").description("Stored chart upgrades").register(registry);
+        FunctionCounter.builder("astrology.chart.upgrades", dropped, LongAdder::sum)
+                .tag("result", "dropped").description("Stored chart upgrades").register(registry);
+        Gauge.builder("astrology.chart.upgrades.pending", pending, Set::size)
+                .description("Stored chart upgrades queued or running").register(registry);
+    }
+}
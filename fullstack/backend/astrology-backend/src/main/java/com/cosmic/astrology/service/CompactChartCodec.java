@@ -0,0 +1,263 @@
+package com.cosmic.astrology.service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Versioned storage format for natal charts.
+ *
+ * Only the astronomical inputs of a chart are stored: body and house-cusp
+ * longitudes as fixed-width doubles behind a presence bitmask, the julian day,
+ * ayanamsa, engine flags, the engine version and settings hash that produced
+ * the chart, and the three short time stamps. Everything else in the chart map
+ * (signs, nakshatras and their narratives, aspects, strengths, whole sign
+ * houses) is derived from those positions when the chart is loaded, see
+ * {@link VedicAstrologyCalculationService#fromStorageFormat}. A typical chart
+ * is under 500 bytes.
+ *
+ * Layout (big-endian): magic 'V', version, flags, engineVersion (short),
+ * settingsHash, julianDay, ayanamsa, calculationTimeMs, timezone, calculatedAt,
+ * calculatedAtUTC, siderealPositions table, houses table. A table is a 32-bit
+ * mask over {@link #KEYS}, one double per set bit, then any non-standard keys
+ * as (name, double) pairs. Version 1 payloads have no engineVersion or
+ * settingsHash and decode as engine version 0.
+ */
+public final class CompactChartCodec {
+
+    public static final byte MAGIC = 'V';
+    public static final byte VERSION = 2;
+
+    private static final int FLAG_SWISS_EPHEMERIS = 1;
+
+    /** Positions with a fixed slot; order is part of the format. */
+    private static final String[] KEYS = {
+        "Sun", "Moon", "Mercury", "Venus", "Mars", "Jupiter", "Saturn",
+        "Uranus", "Neptune", "Pluto", "Rahu", "Ketu",
+        "Ascendant", "MC", "Descendant", "IC", "ARMC", "Vertex",
+        "house1", "house2", "house3", "house4", "house5", "house6",
+        "house7", "house8", "house9", "house10", "house11", "house12"
+    };
+
+    private static final Map<String, Integer> SLOTS = new LinkedHashMap<>();
+
+    static {
+        for (int i = 0; i < KEYS.length; i++) {
+            SLOTS.put(KEYS[i], i);
+        }
+    }
+
+    private CompactChartCodec() {
+    }
+
+    /**
+     * The decoded inputs a full chart is rebuilt from.
+     */
+    public static final class StoredChart {
+        public final Map<String, Double> siderealPositions;
+        public final Map<String, Double> houses;
+        public final double julianDay;
+        public final double ayanamsa;
+        public final boolean swissEphemeris;
+        public final int engineVersion;
+        public final String settingsHash;
+        public final long calculationTimeMs;
+        public final String timezone;
+        public final String calculatedAt;
+        public final String calculatedAtUTC;
+
+        StoredChart(Map<String, Double> siderealPositions, Map<String, Double> houses, double julianDay,
+                    double ayanamsa, boolean swissEphemeris, int engineVersion, String settingsHash,
+                    long calculationTimeMs, String timezone, String calculatedAt, String calculatedAtUTC) {
+            this.siderealPositions = siderealPositions;
+            this.houses = houses;
+            this.julianDay = julianDay;
+            this.ayanamsa = ayanamsa;
+            this.swissEphemeris = swissEphemeris;
+            this.engineVersion = engineVersion;
+            this.settingsHash = settingsHash;
+            this.calculationTimeMs = calculationTimeMs;
+            this.timezone = timezone;
+            this.calculatedAt = calculatedAt;
+            this.calculatedAtUTC = calculatedAtUTC;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public static byte[] encode(Map<String, Object> chart) {
+        Map<String, ?> positions = (Map<String, ?>) chart.get("siderealPositions");
+        Map<String, ?> houses = (Map<String, ?>) chart.get("houses");
+        if (positions == null) {
+            throw new IllegalArgumentException("Chart has no sidereal positions");
+        }
+
+        boolean swissEphemeris = String.valueOf(chart.get("system")).contains("Swiss Ephemeris");
+        byte[] settingsHash = utf8(chart.get("settingsHash"));
+        byte[] timezone = utf8(chart.get("timezone"));
+        byte[] calculatedAt = utf8(chart.get("calculatedAt"));
+        byte[] calculatedAtUtc = utf8(chart.get("calculatedAtUTC"));
+
+        int size = 3 + 2 + sizeOf(settingsHash) + 8 + 8 + 8
+                + sizeOf(timezone) + sizeOf(calculatedAt) + sizeOf(calculatedAtUtc)
+                + sizeOf(positions) + sizeOf(houses);
+
+        ByteBuffer out = ByteBuffer.allocate(size);
+        out.put(MAGIC).put(VERSION).put((byte) (swissEphemeris ? FLAG_SWISS_EPHEMERIS : 0));
+        out.putShort((short) number(chart.get("engineVersion")));
+        putString(out, settingsHash);
+        out.putDouble(number(chart.get("julianDay")));
+        out.putDouble(number(chart.get("ayanamsa")));
+        out.putLong((long) number(chart.get("calculationTimeMs")));
+        putString(out, timezone);
+        putString(out, calculatedAt);
+        putString(out, calculatedAtUtc);
+        putTable(out, positions);
+        putTable(out, houses);
+        return out.array();
+    }
+
+    public static StoredChart decode(byte[] bytes) {
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        if (in.get() != MAGIC) {
+            throw new IllegalArgumentException("Not a compact chart");
+        }
+        byte version = in.get();
+        if (version < 1 || version > VERSION) {
+            throw new IllegalArgumentException("Unsupported compact chart version: " + version);
+        }
+
+        int flags = in.get();
+        int engineVersion = version >= 2 ? in.getShort() : 0;
+        String settingsHash = version >= 2 ? getString(in) : null;
+        double julianDay = in.getDouble();
+        double ayanamsa = in.getDouble();
+        long calculationTimeMs = in.getLong();
+        String timezone = getString(in);
+        String calculatedAt = getString(in);
+        String calculatedAtUtc = getString(in);
+        Map<String, Double> positions = getTable(in);
+        Map<String, Double> houses = getTable(in);
+
+        return new StoredChart(positions, houses, julianDay, ayanamsa,
+                (flags & FLAG_SWISS_EPHEMERIS) != 0, engineVersion, settingsHash, calculationTimeMs, timezone, calculatedAt, calculatedAtUtc);
+    }
+
+    public static boolean isCompactChart(byte[] bytes) {
+        return bytes != null && bytes.length > 2 && bytes[0] == MAGIC;
+    }
+
+    // Values are Numbers rather than Doubles: charts read back from JSON may hold Integers
+    private static void putTable(ByteBuffer out, Map<String, ?> table) {
+        if (table == null) {
+            out.putInt(-1);
+            return;
+        }
+
+        int mask = 0;
+        for (Map.Entry<String, ?> entry : table.entrySet()) {
+            Integer slot = SLOTS.get(entry.getKey());
+            if (slot != null && entry.getValue() instanceof Number) {
+                mask |= 1 << slot;
+            }
+        }
+        out.putInt(mask);
+        for (int slot = 0; slot < KEYS.length; slot++) {
+            if ((mask & (1 << slot)) != 0) {
+                out.putDouble(((Number) table.get(KEYS[slot])).doubleValue());
+            }
+        }
+
+        int extras = 0;
+        for (Map.Entry<String, ?> entry : table.entrySet()) {
+            if (!SLOTS.containsKey(entry.getKey()) && entry.getValue() instanceof Number) {
+                extras++;
+            }
+        }
+        if (extras > 0xFF) {
+            throw new IllegalArgumentException("Too many non-standard positions: " + extras);
+        }
+        out.put((byte) extras);
+        for (Map.Entry<String, ?> entry : table.entrySet()) {
+            if (!SLOTS.containsKey(entry.getKey()) && entry.getValue() instanceof Number) {
+                putString(out, utf8(entry.getKey()));
+                out.putDouble(((Number) entry.getValue()).doubleValue());
+            }
+        }
+    }
+
+    private static Map<String, Double> getTable(ByteBuffer in) {
+        int mask = in.getInt();
+        if (mask == -1) {
+            return null;
+        }
+
+        Map<String, Double> table = new LinkedHashMap<>();
+        for (int slot = 0; slot < KEYS.length; slot++) {
+            if ((mask & (1 << slot)) != 0) {
+                table.put(KEYS[slot], in.getDouble());
+            }
+        }
+        int extras = in.get() & 0xFF;
+        for (int i = 0; i < extras; i++) {
+            String key = getString(in);
+            table.put(key, in.getDouble());
+        }
+        return table;
+    }
+
+    private static int sizeOf(Map<String, ?> table) {
+        if (table == null) {
+            return 4;
+        }
+        int size = 4 + 1;
+        for (Map.Entry<String, ?> entry : table.entrySet()) {
+            if (!(entry.getValue() instanceof Number)) {
+                continue;
+            }
+            size += 8;
+            if (!SLOTS.containsKey(entry.getKey())) {
+                size += sizeOf(utf8(entry.getKey()));
+            }
+        }
+        return size;
+    }
+
+    private static int sizeOf(byte[] string) {
+        return 1 + (string != null ? string.length : 0);
+    }
+
+    // Strings are short (time zones, ISO timestamps): one length byte, 255 means null
+    private static void putString(ByteBuffer out, byte[] string) {
+        if (string == null) {
+            out.put((byte) 0xFF);
+            return;
+        }
+        out.put((byte) string.length).put(string);
+    }
+
+    private static String getString(ByteBuffer in) {
+        int length = in.get() & 0xFF;
+        if (length == 0xFF) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] utf8(Object value) {
+        if (value == null) {
+            return null;
+        }
+        byte[] bytes = value.toString().getBytes(StandardCharsets.UTF_8);
+        if (bytes.length >= 0xFF) {
+            throw new IllegalArgumentException("String too long for compact chart: " + value);
+        }
+        return bytes;
+    }
+
+    private static double number(Object value) {
+        return value instanceof Number ? ((Number) value).doubleValue() : 0.0;
+    }
+}
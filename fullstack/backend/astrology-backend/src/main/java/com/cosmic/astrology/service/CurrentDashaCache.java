@@ -0,0 +1,122 @@
+package com.cosmic.astrology.service;
+
+import com.cosmic.astrology.entity.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-user cache of the current Vimshottari dasha state.
+ *
+ * The current mahadasha/antardasha/pratyantardasha only changes at a period
+ * boundary, so each entry carries its own expiry (the next boundary returned by
+ * {@link VedicAstrologyCalculationService#calculateCurrentDashaPeriod}) and a
+ * signature of the birth data it was computed from. A lookup is a single hash
+ * probe; entries are dropped once the boundary passes or the birth data differs.
+ */
+@Component
+public class CurrentDashaCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(CurrentDashaCache.class);
+
+    @Value("${astrology.cache.enabled:true}")
+    private boolean cacheEnabled;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Returns a copy of the cached dasha state for the user, or null on a miss.
+     */
+    public Map<String, Object> get(User user) {
+        if (!cacheEnabled || user == null || user.getUsername() == null) {
+            return null;
+        }
+
+        Entry entry = entries.get(user.getUsername());
+        if (entry == null) {
+            return null;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        if (!entry.birthSignature.equals(birthSignature(user)) || !now.isBefore(entry.expiresAt)) {
+            entries.remove(user.getUsername(), entry);
+            return null;
+        }
+
+        Map<String, Object> dasha = new HashMap<>(entry.dasha);
+        if (entry.mahadashaEndsAt != null) {
+            // Days remaining moves every day even though the period itself does not
+            long remaining = ChronoUnit.DAYS.between(user.getBirthDateTime(), entry.mahadashaEndsAt)
+                    - ChronoUnit.DAYS.between(user.getBirthDateTime(), now);
+            dasha.put("mahadashaRemaining", remaining + " days remaining");
+        }
+        return dasha;
+    }
+
+    /**
+     * Stores a freshly calculated dasha state. Results without a period boundary
+     * (generic fallbacks) are not cached.
+     */
+    public void put(User user, Map<String, Object> dasha) {
+        if (!cacheEnabled || user == null || user.getUsername() == null || dasha == null) {
+            return;
+        }
+
+        Object boundary = dasha.get("nextPeriodBoundary");
+        if (!(boundary instanceof LocalDateTime) || user.getBirthDateTime() == null) {
+            return;
+        }
+
+        Object mahadashaEnd = dasha.get("mahadashaEndsAt");
+        entries.put(user.getUsername(), new Entry(
+            Collections.unmodifiableMap(new HashMap<>(dasha)),
+            birthSignature(user),
+            (LocalDateTime) boundary,
+            mahadashaEnd instanceof LocalDateTime ? (LocalDateTime) mahadashaEnd : null
+        ));
+        logger.debug("Cached current dasha for {} until {}", user.getUsername(), boundary);
+    }
+
+    /**
+     * Drops the cached state for a user, e.g. after their birth data changed.
+     */
+    public void invalidate(String username) {
+        if (username != null) {
+            entries.remove(username);
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private static String birthSignature(User user) {
+        return Objects.toString(user.getBirthDateTime()) + "|" +
+               Objects.toString(user.getBirthLatitude()) + "|" +
+               Objects.toString(user.getBirthLongitude()) + "|" +
+               Objects.toString(user.getTimezone());
+    }
+
+    private static final class Entry {
+        final Map<String, Object> dasha;
+        final String birthSignature;
+        final LocalDateTime expiresAt;
+        final LocalDateTime mahadashaEndsAt;
+
+        Entry(Map<String, Object> dasha, String birthSignature, LocalDateTime expiresAt, LocalDateTime mahadashaEndsAt) {
+            this.dasha = dasha;
+            this.birthSignature = birthSignature;
+            this.expiresAt = expiresAt;
+            this.mahadashaEndsAt = mahadashaEndsAt;
+        }
+    }
+}
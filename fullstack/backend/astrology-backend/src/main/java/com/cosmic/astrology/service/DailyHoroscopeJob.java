@@ -0,0 +1,416 @@
+package com.cosmic.astrology.service;
+
+import com.cosmic.astrology.entity.DailyHoroscope;
+import com.cosmic.astrology.entity.JobCheckpoint;
+import com.cosmic.astrology.repository.DailyHoroscopeRepository;
+import com.cosmic.astrology.repository.JobCheckpointRepository;
+import com.cosmic.astrology.repository.UserRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Nightly generation of daily horoscopes for subscribers.
+ *
+ * Subscribers are grouped into cohorts by Moon sign, Moon nakshatra, rising
+ * sign and the mahadasha/antardasha running on the day. Each cohort's text is
+ * rendered once from a single snapshot of the sky and stored in
+ * {@code daily_horoscopes}; every subscriber gets a pointer row in
+ * {@code user_daily_horoscopes}. The cohort key only needs columns already on
+ * the users row, so no natal chart is loaded.
+ *
+ * Users are walked in keyset pages; pointer rows and the checkpoint of the
+ * day's run are written in one transaction per page, so a stopped run resumes
+ * where it left off and a rerun of the same day overwrites its pointers.
+ * Pointers older than {@code astrology.horoscope.daily.retention-days} are
+ * purged after a completed run.
+ */
+@Component
+public class DailyHoroscopeJob implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(DailyHoroscopeJob.class);
+
+    static final String JOB_NAME = "daily-horoscope";
+
+    private static final String INSERT_POINTER_SQL =
+            "INSERT INTO user_daily_horoscopes (user_id, horoscope_date, horoscope_id) VALUES (?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE horoscope_id = VALUES(horoscope_id)";
+
+    private static final String PURGE_POINTERS_SQL =
+            "DELETE FROM user_daily_horoscopes WHERE horoscope_date < ? LIMIT ?";
+
+    private static final String PURGE_HOROSCOPES_SQL =
+            "DELETE FROM daily_horoscopes WHERE horoscope_date < ?";
+
+    private static final String[] PLANETS = {"Sun", "Moon", "Mars", "Mercury", "Jupiter", "Venus", "Saturn", "Rahu", "Ketu"};
+
+    // Houses counted from the natal Moon in which each planet's transit is favourable (Gochara)
+    private static final int[][] FAVOURABLE_HOUSES = {
+        {3, 6, 10, 11},
+        {1, 3, 6, 7, 10, 11},
+        {3, 6, 11},
+        {2, 4, 6, 8, 10, 11},
+        {2, 5, 7, 9, 11},
+        {1, 2, 3, 4, 5, 8, 9, 11, 12},
+        {3, 6, 11},
+        {3, 6, 11},
+        {3, 6, 11}
+    };
+
+    private static final String[] HOUSE_THEMES = {
+        "emotional renewal and personal focus",
+        "attention to finances and family",
+        "courage and productive communication",
+        "home matters and inner reflection",
+        "creativity, romance and learning",
+        "overcoming obstacles through steady work",
+        "partnerships and cooperation",
+        "caution, research and introspection",
+        "faith, teachers and long-range plans",
+        "career progress and recognition",
+        "gains and supportive friendships",
+        "rest, expenses and spiritual retreat"
+    };
+
+    private static final Map<String, String> DASHA_PRACTICES = Map.of(
+        "Sun", "Offer water to the rising Sun and take the lead where you are needed",
+        "Moon", "Spend quiet time near water and look after your emotional needs",
+        "Mars", "Channel your energy into physical activity and decisive action",
+        "Mercury", "Organise, study and communicate clearly",
+        "Jupiter", "Seek guidance from elders and share what you know",
+        "Venus", "Cultivate beauty and harmony in your relationships",
+        "Saturn", "Keep to your routine and serve others patiently",
+        "Rahu", "Ground big ambitions with meditation and honest effort",
+        "Ketu", "Simplify, let go of what is finished and turn inward"
+    );
+
+    private final UserRepository userRepository;
+    private final DailyHoroscopeRepository dailyHoroscopeRepository;
+    private final JobCheckpointRepository checkpointRepository;
+    private final VedicAstrologyCalculationService vedicCalculationService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final int batchSize;
+    private final int retentionDays;
+
+    private final Object lifecycleLock = new Object();
+    private volatile Thread driver;
+    private volatile boolean stopRequested;
+
+    private final LongAdder subscribers = new LongAdder();
+    private final LongAdder cohortsRendered = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final AtomicLong lastRunMillis = new AtomicLong();
+
+    public DailyHoroscopeJob(UserRepository userRepository,
+                             DailyHoroscopeRepository dailyHoroscopeRepository,
+                             JobCheckpointRepository checkpointRepository,
+                             VedicAstrologyCalculationService vedicCalculationService,
+                             JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${astrology.horoscope.daily.batch-size:5000}") int batchSize,
+                             @Value("${astrology.horoscope.daily.retention-days:7}") int retentionDays) {
+        this.userRepository = userRepository;
+        this.dailyHoroscopeRepository = dailyHoroscopeRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.vedicCalculationService = vedicCalculationService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = Math.max(1, batchSize);
+        this.retentionDays = Math.max(1, retentionDays);
+    }
+
+    @Scheduled(cron = "${astrology.horoscope.daily.cron:0 15 0 * * *}")
+    public void runNightly() {
+        if (!start(LocalDate.now(), false)) {
+            logger.warn("⚠️ Daily horoscope run skipped, previous run still in progress");
+        }
+    }
+
+    /**
+     * Starts the run for {@code day} in the background, resuming that day's
+     * checkpoint unless {@code restart} is set. A day that already completed
+     * is only generated again with {@code restart}. Returns false if a run is
+     * already in progress.
+     */
+    public boolean start(LocalDate day, boolean restart) {
+        synchronized (lifecycleLock) {
+            if (isRunning()) {
+                return false;
+            }
+            stopRequested = false;
+            Thread thread = new Thread(() -> run(day, restart), JOB_NAME);
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            driver = thread;
+            thread.start();
+            return true;
+        }
+    }
+
+    public void stop() {
+        stopRequested = true;
+    }
+
+    public boolean isRunning() {
+        Thread thread = driver;
+        return thread != null && thread.isAlive();
+    }
+
+    public Map<String, Object> status(LocalDate day) {
+        Map<String, Object> status = new LinkedHashMap<>();
+        JobCheckpoint checkpoint = checkpointRepository.findById(checkpointName(day)).orElse(null);
+        status.put("job", JOB_NAME);
+        status.put("date", day);
+        status.put("running", isRunning());
+        status.put("status", checkpoint != null ? checkpoint.getStatus() : null);
+        status.put("lastProcessedId", checkpoint != null ? checkpoint.getLastProcessedId() : 0L);
+        status.put("subscribers", checkpoint != null ? checkpoint.getProcessedCount() : 0L);
+        status.put("startedAt", checkpoint != null ? checkpoint.getStartedAt() : null);
+        status.put("updatedAt", checkpoint != null ? checkpoint.getUpdatedAt() : null);
+        status.put("lastRunMillis", lastRunMillis.get());
+        return status;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        stopRequested = true;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("astrology.horoscope.daily.subscribers", subscribers, LongAdder::sum)
+                .description("Subscribers given a daily horoscope").register(registry);
+        FunctionCounter.builder("astrology.horoscope.daily.cohorts", cohortsRendered, LongAdder::sum)
+                .description("Cohort horoscopes rendered").register(registry);
+        FunctionCounter.builder("astrology.horoscope.daily.batches", batches, LongAdder::sum)
+                .description("Pages written by the daily horoscope job").register(registry);
+        Gauge.builder("astrology.horoscope.daily.running", this, job -> job.isRunning() ? 1 : 0)
+                .description("Whether the daily horoscope job is running").register(registry);
+        Gauge.builder("astrology.horoscope.daily.last-run-millis", lastRunMillis, AtomicLong::get)
+                .description("Duration of the last completed daily horoscope run").register(registry);
+    }
+
+    private void run(LocalDate day, boolean restart) {
+        String name = checkpointName(day);
+        JobCheckpoint checkpoint = checkpointRepository.findById(name).orElseGet(() -> new JobCheckpoint(name));
+        if (JobCheckpoint.STATUS_COMPLETED.equals(checkpoint.getStatus()) && !restart) {
+            logger.info("Daily horoscopes for {} already generated", day);
+            return;
+        }
+        if (restart) {
+            checkpoint.setLastProcessedId(0L);
+            checkpoint.setProcessedCount(0L);
+            checkpoint.setFailedCount(0L);
+        }
+        checkpoint.setStatus(JobCheckpoint.STATUS_RUNNING);
+        checkpoint.setStartedAt(LocalDateTime.now());
+        checkpointRepository.save(checkpoint);
+
+        long started = System.nanoTime();
+        // The sky at noon UTC of the day being generated, not of whenever the job happens to run
+        Map<String, Double> sky = vedicCalculationService.getTransitsAt(day.atTime(12, 0));
+        Map<String, Long> cohorts = new HashMap<>();
+        dailyHoroscopeRepository.findCohortIdsByHoroscopeDate(day)
+                .forEach(cohort -> cohorts.put(cohort.getCohortKey(), cohort.getId()));
+        String[] startingLords = new String[GunaMilanEngine.PADAS];
+        for (int pada = 0; pada < startingLords.length; pada++) {
+            startingLords[pada] = vedicCalculationService.dashaStartingLord((pada + 0.5) * 360.0 / GunaMilanEngine.PADAS);
+        }
+        int renderedBefore = cohorts.size();
+        logger.info("🌅 Daily horoscopes for {} started after user id {} ({} cohorts already rendered)",
+                day, checkpoint.getLastProcessedId(), renderedBefore);
+
+        try {
+            long afterId = checkpoint.getLastProcessedId();
+            while (!stopRequested) {
+                List<UserRepository.HoroscopeSubscriber> page =
+                        userRepository.findHoroscopeSubscribers(afterId, PageRequest.of(0, batchSize));
+                if (page.isEmpty()) {
+                    checkpoint.setStatus(JobCheckpoint.STATUS_COMPLETED);
+                    break;
+                }
+
+                Date date = Date.valueOf(day);
+                List<Object[]> pointers = new ArrayList<>(page.size());
+                int skipped = 0;
+                for (UserRepository.HoroscopeSubscriber subscriber : page) {
+                    int pada = GunaMilanEngine.padaIndex(subscriber.getMoonNakshatra(), subscriber.getMoonPada());
+                    if (pada < 0) {
+                        skipped++;
+                        continue;
+                    }
+                    String[] dasha = vedicCalculationService.dashaLordsOn(
+                            startingLords[pada], subscriber.getBirthDateTime(), day);
+                    String risingSign = subscriber.getRisingSign() != null ? subscriber.getRisingSign() : "Unknown";
+                    String key = GunaMilanEngine.SIGNS[pada / 9] + "|" + GunaMilanEngine.nakshatraOf(pada) + "|"
+                            + risingSign + "|" + dasha[0] + "|" + dasha[1];
+
+                    Long horoscopeId = cohorts.get(key);
+                    if (horoscopeId == null) {
+                        horoscopeId = dailyHoroscopeRepository.save(render(day, key, pada, risingSign, dasha, sky)).getId();
+                        cohorts.put(key, horoscopeId);
+                        cohortsRendered.increment();
+                    }
+                    pointers.add(new Object[] {subscriber.getId(), date, horoscopeId});
+                }
+
+                afterId = page.get(page.size() - 1).getId();
+                long lastId = afterId;
+                int pageSkipped = skipped;
+                transactionTemplate.executeWithoutResult(status -> {
+                    if (!pointers.isEmpty()) {
+                        jdbcTemplate.batchUpdate(INSERT_POINTER_SQL, pointers);
+                    }
+                    checkpoint.setLastProcessedId(lastId);
+                    checkpoint.setProcessedCount(checkpoint.getProcessedCount() + pointers.size());
+                    checkpoint.setFailedCount(checkpoint.getFailedCount() + pageSkipped);
+                    checkpointRepository.save(checkpoint);
+                });
+                subscribers.add(pointers.size());
+                batches.increment();
+            }
+
+            if (JobCheckpoint.STATUS_COMPLETED.equals(checkpoint.getStatus())) {
+                lastRunMillis.set((System.nanoTime() - started) / 1_000_000);
+                purgeBefore(day.minusDays(retentionDays));
+            } else {
+                checkpoint.setStatus(JobCheckpoint.STATUS_STOPPED);
+            }
+        } catch (RuntimeException e) {
+            checkpoint.setStatus(JobCheckpoint.STATUS_FAILED);
+            logger.error("❌ Daily horoscopes for {} failed after user id {}", day, checkpoint.getLastProcessedId(), e);
+        } finally {
+            checkpointRepository.save(checkpoint);
+            logger.info("🌅 Daily horoscopes for {} {}: {} subscribers, {} cohorts in {} ms",
+                    day, checkpoint.getStatus(), checkpoint.getProcessedCount(), cohorts.size(),
+                    (System.nanoTime() - started) / 1_000_000);
+        }
+    }
+
+    // The sky snapshot read against one cohort: Gochara from the natal Moon plus the running dasha
+    private DailyHoroscope render(LocalDate day, String key, int moonPada, String risingSign,
+                                  String[] dasha, Map<String, Double> sky) {
+        int moonSign = moonPada / 9;
+        Double transitMoon = sky.get("Moon");
+        int moonHouse = transitMoon != null ? houseFrom(moonSign, signOf(transitMoon)) : 1;
+
+        int favourable = 0;
+        int counted = 0;
+        List<String> highlights = new ArrayList<>();
+        for (int i = 0; i < PLANETS.length; i++) {
+            Double position = sky.get(PLANETS[i]);
+            if (position == null) {
+                continue;
+            }
+            int house = houseFrom(moonSign, signOf(position));
+            counted++;
+            if (isFavourable(i, house)) {
+                favourable++;
+            }
+            if ("Jupiter".equals(PLANETS[i]) || "Saturn".equals(PLANETS[i])) {
+                highlights.add(String.format("%s in your %s house from the Moon favours %s",
+                        PLANETS[i], ordinal(house), HOUSE_THEMES[house - 1]));
+            }
+        }
+        Double transitSaturn = sky.get("Saturn");
+        if (transitSaturn != null) {
+            int saturnHouse = houseFrom(moonSign, signOf(transitSaturn));
+            if (saturnHouse == 12 || saturnHouse == 1 || saturnHouse == 2) {
+                highlights.add("Sade Sati is active, so patience and discipline pay off");
+            }
+        }
+
+        String moonTransitText = transitMoon != null
+                ? String.format("The Moon moves through %s in %s, your %s house from the Moon, bringing %s.",
+                        GunaMilanEngine.SIGNS[signOf(transitMoon)],
+                        GunaMilanEngine.nakshatraOf(GunaMilanEngine.padaIndex(transitMoon)),
+                        ordinal(moonHouse), HOUSE_THEMES[moonHouse - 1])
+                : "The Moon's transit today supports steady progress.";
+
+        DailyHoroscope horoscope = new DailyHoroscope();
+        horoscope.setHoroscopeDate(day);
+        horoscope.setCohortKey(key);
+        horoscope.setMoonSign(GunaMilanEngine.SIGNS[moonSign]);
+        horoscope.setMoonNakshatra(GunaMilanEngine.nakshatraOf(moonPada));
+        horoscope.setRisingSign(risingSign);
+        horoscope.setMahadasha(dasha[0]);
+        horoscope.setAntardasha(dasha[1]);
+        horoscope.setMessage(String.format("With %s Moon in %s and %s rising, you are in %s Mahadasha, %s Antardasha. %s %s",
+                GunaMilanEngine.SIGNS[moonSign], GunaMilanEngine.nakshatraOf(moonPada), risingSign,
+                dasha[0], dasha[1], moonTransitText, String.join(". ", highlights) + (highlights.isEmpty() ? "" : ".")));
+        horoscope.setTransitInfluence(String.format("%d of %d planets transit favourable houses from your Moon",
+                favourable, counted));
+        horoscope.setRecommendation(DASHA_PRACTICES.getOrDefault(dasha[1],
+                "Stay mindful and follow your daily spiritual practice"));
+        horoscope.setIntensity(counted > 0 ? Math.max(1, Math.round(favourable * 10f / counted)) : 5);
+        return horoscope;
+    }
+
+    private void purgeBefore(LocalDate cutoff) {
+        Date date = Date.valueOf(cutoff);
+        int deleted;
+        long total = 0;
+        do {
+            deleted = jdbcTemplate.update(PURGE_POINTERS_SQL, date, batchSize);
+            total += deleted;
+        } while (deleted > 0 && !stopRequested);
+        if (!stopRequested) {
+            jdbcTemplate.update(PURGE_HOROSCOPES_SQL, date);
+        }
+        logger.info("🧹 Purged {} daily horoscope pointers before {}", total, cutoff);
+    }
+
+    private static boolean isFavourable(int planet, int house) {
+        for (int favourableHouse : FAVOURABLE_HOUSES[planet]) {
+            if (favourableHouse == house) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int signOf(double longitude) {
+        return GunaMilanEngine.padaIndex(longitude) / 9;
+    }
+
+    private static int houseFrom(int fromSign, int toSign) {
+        return ((toSign - fromSign + 12) % 12) + 1;
+    }
+
+    private static String ordinal(int n) {
+        switch (n) {
+            case 1: return "1st";
+            case 2: return "2nd";
+            case 3: return "3rd";
+            default: return n + "th";
+        }
+    }
+
+    private static String checkpointName(LocalDate day) {
+        return JOB_NAME + ":" + day;
+    }
+}
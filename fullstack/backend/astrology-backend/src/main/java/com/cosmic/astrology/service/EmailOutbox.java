@@ -0,0 +1,321 @@
+package com.cosmic.astrology.service;
+
+import com.cosmic.astrology.entity.OutboundEmail;
+import com.cosmic.astrology.repository.EmailOutboxRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Transactional outbox for outgoing email.
+ *
+ * {@link #enqueue} stores the message in {@code email_outbox} inside the
+ * caller's transaction, so a message exists exactly when the change that
+ * triggered it commits and no request waits on SMTP. A background thread
+ * drains due messages in batches, each batch sent over one SMTP connection,
+ * and reschedules failed messages with exponential backoff until
+ * {@code astrology.mail.outbox.max-attempts} is reached. The drain runs after
+ * every commit that queued mail and every
+ * {@code astrology.mail.outbox.poll-ms} for retries.
+ *
+ * Sent rows are deleted after {@code astrology.mail.outbox.sent-retention-hours},
+ * since their bodies hold verification and password reset links.
+ *
+ * Delivery is at least once: a crash between the SMTP send and marking the
+ * batch sent resends that batch. One application instance drains the outbox.
+ */
+@Component
+public class EmailOutbox implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailOutbox.class);
+
+    private final EmailOutboxRepository outboxRepository;
+    private final JavaMailSender mailSender;
+
+    private final long pollMillis;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long retryBaseSeconds;
+    private final long retryMaxSeconds;
+    private final long sentRetentionHours;
+
+    private final ScheduledExecutorService executor;
+    private final AtomicBoolean drainQueued = new AtomicBoolean();
+
+    private final AtomicLong pendingDepth = new AtomicLong();
+    private final LongAdder queued = new LongAdder();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder abandoned = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder purged = new LongAdder();
+
+    public EmailOutbox(EmailOutboxRepository outboxRepository,
+                       ObjectProvider<JavaMailSender> mailSender,
+                       @Value("${astrology.mail.outbox.poll-ms:5000}") long pollMillis,
+                       @Value("${astrology.mail.outbox.batch-size:50}") int batchSize,
+                       @Value("${astrology.mail.outbox.max-attempts:8}") int maxAttempts,
+                       @Value("${astrology.mail.outbox.retry-base-seconds:30}") long retryBaseSeconds,
+                       @Value("${astrology.mail.outbox.retry-max-seconds:3600}") long retryMaxSeconds,
+                       @Value("${astrology.mail.outbox.sent-retention-hours:24}") long sentRetentionHours) {
+        this.outboxRepository = outboxRepository;
+        this.mailSender = mailSender.getIfAvailable();
+        this.pollMillis = Math.max(100, pollMillis);
+        this.batchSize = Math.max(1, batchSize);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBaseSeconds = Math.max(1, retryBaseSeconds);
+        this.retryMaxSeconds = Math.max(this.retryBaseSeconds, retryMaxSeconds);
+        this.sentRetentionHours = Math.max(1, sentRetentionHours);
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "email-outbox");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Whether a mail sender is configured. Without one nothing is queued.
+     */
+    public boolean isEnabled() {
+        return mailSender != null;
+    }
+
+    /**
+     * Queues one outbox row per recipient in the current transaction, or in
+     * a transaction of its own when there is none. The dispatcher is woken
+     * once the transaction commits.
+     */
+    @Transactional
+    public void enqueue(SimpleMailMessage message) {
+        if (!isEnabled() || message.getTo() == null) {
+            return;
+        }
+        List<OutboundEmail> rows = new ArrayList<>();
+        for (String recipient : message.getTo()) {
+            OutboundEmail email = new OutboundEmail();
+            email.setSender(message.getFrom());
+            email.setRecipient(recipient);
+            email.setSubject(message.getSubject());
+            email.setBody(message.getText());
+            rows.add(email);
+        }
+        outboxRepository.saveAll(rows);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    queued.add(rows.size());
+                    pendingDepth.addAndGet(rows.size());
+                    wakeUp();
+                }
+            });
+        } else {
+            queued.add(rows.size());
+            pendingDepth.addAndGet(rows.size());
+            wakeUp();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startDispatching() {
+        if (!isEnabled()) {
+            logger.info("📭 No mail sender configured, email outbox is idle");
+            return;
+        }
+        executor.scheduleWithFixedDelay(this::wakeUp, 0, pollMillis, TimeUnit.MILLISECONDS);
+        executor.scheduleWithFixedDelay(this::purgeSent, 1, 60, TimeUnit.MINUTES);
+    }
+
+    // At most one drain waits in the queue however many commits ask for one
+    public void wakeUp() {
+        if (isEnabled() && drainQueued.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    /**
+     * Moves messages that ran out of attempts back to pending.
+     */
+    public int retryFailed() {
+        int count = outboxRepository.retryFailed(LocalDateTime.now());
+        if (count > 0) {
+            pendingDepth.addAndGet(count);
+            wakeUp();
+        }
+        return count;
+    }
+
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", isEnabled());
+        status.put("pending", outboxRepository.countByStatus(OutboundEmail.STATUS_PENDING));
+        status.put("failed", outboxRepository.countByStatus(OutboundEmail.STATUS_FAILED));
+        status.put("queued", queued.sum());
+        status.put("sent", sent.sum());
+        status.put("retried", retried.sum());
+        status.put("abandoned", abandoned.sum());
+        status.put("batches", batches.sum());
+        status.put("purged", purged.sum());
+        return status;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("astrology.mail.outbox.pending", pendingDepth, AtomicLong::get)
+                .description("Emails waiting in the outbox").register(registry);
+        FunctionCounter.builder("astrology.mail.outbox.queued", queued, LongAdder::sum)
+                .description("Emails queued in the outbox").register(registry);
+        FunctionCounter.builder("astrology.mail.outbox.sent", sent, LongAdder::sum)
+                .description("Emails sent from the outbox").register(registry);
+        FunctionCounter.builder("astrology.mail.outbox.retried", retried, LongAdder::sum)
+                .description("Failed sends rescheduled with backoff").register(registry);
+        FunctionCounter.builder("astrology.mail.outbox.abandoned", abandoned, LongAdder::sum)
+                .description("Emails given up after the last attempt").register(registry);
+        FunctionCounter.builder("astrology.mail.outbox.batches", batches, LongAdder::sum)
+                .description("SMTP batches sent").register(registry);
+        FunctionCounter.builder("astrology.mail.outbox.purged", purged, LongAdder::sum)
+                .description("Sent emails deleted after the retention period").register(registry);
+    }
+
+    void drain() {
+        drainQueued.set(false);
+        try {
+            List<OutboundEmail> due;
+            do {
+                due = outboxRepository.findDue(LocalDateTime.now(), PageRequest.of(0, batchSize));
+                if (!due.isEmpty() && !sendBatch(due)) {
+                    // No message of the batch got through; the rest waits for the backoff too
+                    break;
+                }
+            } while (due.size() == batchSize && !Thread.currentThread().isInterrupted());
+            pendingDepth.set(outboxRepository.countByStatus(OutboundEmail.STATUS_PENDING));
+        } catch (RuntimeException e) {
+            logger.error("❌ Email outbox drain failed", e);
+        }
+    }
+
+    void purgeSent() {
+        try {
+            int count = outboxRepository.deleteSentBefore(LocalDateTime.now().minusHours(sentRetentionHours));
+            if (count > 0) {
+                purged.add(count);
+                logger.info("🧹 Deleted {} sent emails older than {} hours", count, sentRetentionHours);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("⚠️ Could not purge sent emails: {}", e.getMessage());
+        }
+    }
+
+    // One send call, so JavaMailSender delivers the whole batch over a single connection.
+    // Returns false if no message of the batch got through to the server, whether the
+    // whole send failed or every message is listed in the failed messages.
+    private boolean sendBatch(List<OutboundEmail> batch) {
+        SimpleMailMessage[] messages = new SimpleMailMessage[batch.size()];
+        for (int i = 0; i < messages.length; i++) {
+            OutboundEmail email = batch.get(i);
+            SimpleMailMessage message = new SimpleMailMessage();
+            message.setFrom(email.getSender());
+            message.setTo(email.getRecipient());
+            message.setSubject(email.getSubject());
+            message.setText(email.getBody());
+            messages[i] = message;
+        }
+
+        Map<Object, Exception> failures = Collections.emptyMap();
+        Exception batchFailure = null;
+        try {
+            mailSender.send(messages);
+        } catch (MailSendException e) {
+            failures = e.getFailedMessages();
+            if (failures.isEmpty()) {
+                batchFailure = e;
+            }
+        } catch (MailException e) {
+            batchFailure = e;
+        }
+        batches.increment();
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> sentIds = new ArrayList<>(batch.size());
+        List<OutboundEmail> failed = new ArrayList<>();
+        for (int i = 0; i < messages.length; i++) {
+            OutboundEmail email = batch.get(i);
+            Exception error = batchFailure != null ? batchFailure : failures.get(messages[i]);
+            if (error == null) {
+                sentIds.add(email.getId());
+                continue;
+            }
+            int attempts = email.getAttempts() + 1;
+            email.setAttempts(attempts);
+            email.setLastError(truncate(error.getMessage()));
+            if (attempts >= maxAttempts) {
+                email.setStatus(OutboundEmail.STATUS_FAILED);
+                abandoned.increment();
+                logger.warn("⚠️ Giving up on email {} to {} after {} attempts: {}",
+                        email.getId(), email.getRecipient(), attempts, error.getMessage());
+            } else {
+                email.setNextAttemptAt(now.plusSeconds(backoffSeconds(attempts)));
+                retried.increment();
+            }
+            failed.add(email);
+        }
+
+        if (!sentIds.isEmpty()) {
+            outboxRepository.markSent(sentIds, now);
+            sent.add(sentIds.size());
+        }
+        if (!failed.isEmpty()) {
+            outboxRepository.saveAll(failed);
+            logger.warn("📧 {} of {} emails failed, next attempt with backoff", failed.size(), batch.size());
+        }
+        return !sentIds.isEmpty();
+    }
+
+    private long backoffSeconds(int attempts) {
+        long seconds = retryBaseSeconds << Math.min(attempts - 1, 20);
+        return Math.min(seconds, retryMaxSeconds);
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() > 500 ? message.substring(0, 500) : message;
+    }
+}
@@ -0,0 +1,519 @@
+package com.cosmic.astrology.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Ashtakoota (Guna Milan) compatibility, 36 points over eight kootas.
+ *
+ * The Moon's nakshatra pada (108 per zodiac) fixes everything the kootas
+ * look at: the Moon sign (varna, vashya, graha maitri, bhakoot), the
+ * nakshatra (tara, yoni, gana, nadi) and the half-sign used by vashya for
+ * Sagittarius and Capricorn. All 108 x 108 bride/groom combinations are
+ * scored once at startup, in half points so every score fits a byte, and a
+ * match is a table lookup plus the manglik check on Mars.
+ *
+ * Matches are cached by the unordered pair of chart fingerprints, with the
+ * bride's side recorded in the key because varna, vashya and gana are
+ * directional.
+ */
+@Component
+public class GunaMilanEngine implements MeterBinder {
+
+    public static final int PADAS = 108;
+    public static final int MAX_POINTS = 36;
+
+    public static final String[] KOOTAS = {
+        "Varna", "Vashya", "Tara", "Yoni", "Graha Maitri", "Gana", "Bhakoot", "Nadi"
+    };
+    private static final int[] KOOTA_MAX = {1, 2, 3, 4, 5, 6, 7, 8};
+
+    private static final int VARNA = 0, VASHYA = 1, TARA = 2, YONI = 3, MAITRI = 4, GANA = 5, BHAKOOT = 6, NADI = 7;
+
+    private static final double PADA_SPAN = 360.0 / PADAS;
+
+    static final String[] NAKSHATRAS = {
+        "Ashwini", "Bharani", "Krittika", "Rohini", "Mrigashira", "Ardra",
+        "Punarvasu", "Pushya", "Ashlesha", "Magha", "Purva Phalguni",
+        "Uttara Phalguni", "Hasta", "Chitra", "Swati", "Vishakha",
+        "Anuradha", "Jyeshtha", "Mula", "Purva Ashadha",
+        "Uttara Ashadha", "Shravana", "Dhanishta", "Shatabhisha",
+        "Purva Bhadrapada", "Uttara Bhadrapada", "Revati"
+    };
+
+    static final String[] SIGNS = {
+        "Aries", "Taurus", "Gemini", "Cancer", "Leo", "Virgo",
+        "Libra", "Scorpio", "Sagittarius", "Capricorn", "Aquarius", "Pisces"
+    };
+
+    // Varna by Moon sign: 3 Brahmin, 2 Kshatriya, 1 Vaishya, 0 Shudra
+    private static final int[] SIGN_VARNA = {2, 1, 0, 3, 2, 1, 0, 3, 2, 1, 0, 3};
+
+    // Vashya groups
+    private static final int CHATUSHPADA = 0, MANAVA = 1, JALACHARA = 2, VANACHARA = 3, KEETA = 4;
+    // Half points, bride's group (row) against groom's group (column)
+    private static final int[][] VASHYA_HALF_POINTS = {
+        {4, 2, 2, 1, 2},
+        {0, 4, 1, 0, 2},
+        {2, 1, 4, 2, 2},
+        {1, 0, 2, 4, 0},
+        {2, 2, 2, 0, 4}
+    };
+
+    // Yoni animals in nakshatra order
+    private static final int HORSE = 0, ELEPHANT = 1, SHEEP = 2, SERPENT = 3, DOG = 4, CAT = 5, RAT = 6,
+            COW = 7, BUFFALO = 8, TIGER = 9, DEER = 10, MONKEY = 11, MONGOOSE = 12, LION = 13;
+    private static final int[] NAKSHATRA_YONI = {
+        HORSE, ELEPHANT, SHEEP, SERPENT, SERPENT, DOG, CAT, SHEEP, CAT, RAT, RAT, COW, BUFFALO, TIGER,
+        BUFFALO, TIGER, DEER, DEER, DOG, MONKEY, MONGOOSE, MONKEY, LION, HORSE, LION, COW, ELEPHANT
+    };
+    private static final int[][] YONI_POINTS = {
+        {4, 2, 2, 3, 2, 2, 2, 1, 0, 1, 3, 3, 2, 1},
+        {2, 4, 3, 3, 2, 2, 2, 2, 3, 1, 2, 3, 2, 0},
+        {2, 3, 4, 2, 1, 2, 1, 3, 3, 1, 2, 0, 3, 1},
+        {3, 3, 2, 4, 2, 1, 1, 1, 1, 2, 2, 2, 0, 2},
+        {2, 2, 1, 2, 4, 2, 1, 2, 2, 1, 0, 2, 1, 1},
+        {2, 2, 2, 1, 2, 4, 0, 2, 2, 1, 3, 3, 2, 1},
+        {2, 2, 1, 1, 1, 0, 4, 2, 2, 2, 2, 2, 1, 2},
+        {1, 2, 3, 1, 2, 2, 2, 4, 3, 0, 3, 2, 2, 1},
+        {0, 3, 3, 1, 2, 2, 2, 3, 4, 1, 2, 2, 2, 1},
+        {1, 1, 1, 2, 1, 1, 2, 0, 1, 4, 1, 1, 2, 1},
+        {3, 2, 2, 2, 0, 3, 2, 3, 2, 1, 4, 2, 2, 1},
+        {3, 3, 0, 2, 2, 3, 2, 2, 2, 1, 2, 4, 3, 2},
+        {2, 2, 3, 0, 1, 2, 1, 2, 2, 2, 2, 3, 4, 2},
+        {1, 0, 1, 2, 1, 1, 2, 1, 1, 1, 1, 2, 2, 4}
+    };
+
+    // Sign lords: 0 Sun, 1 Moon, 2 Mars, 3 Mercury, 4 Jupiter, 5 Venus, 6 Saturn
+    private static final int[] SIGN_LORD = {2, 5, 3, 1, 0, 3, 5, 2, 4, 6, 6, 4};
+    // Natural relationship of planet (row) towards planet (column): 1 friend, 0 neutral, -1 enemy
+    private static final int[][] FRIENDSHIP = {
+        { 1,  1,  1,  0,  1, -1, -1},
+        { 1,  1,  0,  1,  0,  0,  0},
+        { 1,  1,  1, -1,  1,  0,  0},
+        { 1, -1,  0,  1,  0,  1,  0},
+        { 1,  1,  1, -1,  1, -1,  0},
+        {-1, -1,  0,  1,  0,  1,  1},
+        {-1, -1, -1,  1,  0,  1,  1}
+    };
+
+    // Gana: 0 Deva, 1 Manushya, 2 Rakshasa
+    private static final int[] NAKSHATRA_GANA = {
+        0, 1, 2, 1, 0, 1, 0, 0, 2, 2, 1, 1, 0, 2, 0, 2, 0, 2, 2, 1, 1, 0, 2, 2, 1, 1, 0
+    };
+    // Bride's gana (row) against groom's gana (column)
+    private static final int[][] GANA_POINTS = {
+        {6, 6, 0},
+        {5, 6, 0},
+        {1, 0, 6}
+    };
+    private static final String[] GANA_NAMES = {"Deva", "Manushya", "Rakshasa"};
+
+    // Nadi: 0 Aadi, 1 Madhya, 2 Antya
+    private static final int[] NAKSHATRA_NADI = {
+        0, 1, 2, 2, 1, 0, 0, 1, 2, 2, 1, 0, 0, 1, 2, 2, 1, 0, 0, 1, 2, 2, 1, 0, 0, 1, 2
+    };
+
+    // Houses counted from Lagna or Moon in which Mars causes manglik dosha
+    private static final boolean[] MANGLIK_HOUSE = {
+        false, true, true, false, true, false, false, true, true, false, false, false, true
+    };
+
+    /** Half points of each koota, [koota][bridePada * PADAS + groomPada]. */
+    private final byte[][] kootaTable = new byte[KOOTAS.length][PADAS * PADAS];
+    /** Total half points, [bridePada * PADAS + groomPada]. */
+    private final byte[] totalTable = new byte[PADAS * PADAS];
+
+    private final Map<PairKey, Match> cache;
+
+    private final LongAdder matches = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+
+    public GunaMilanEngine(@Value("${astrology.compatibility.cache-size:10000}") int cacheSize) {
+        int maxEntries = Math.max(1, cacheSize);
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<PairKey, Match>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<PairKey, Match> eldest) {
+                return size() > maxEntries;
+            }
+        });
+
+        for (int bride = 0; bride < PADAS; bride++) {
+            for (int groom = 0; groom < PADAS; groom++) {
+                int cell = bride * PADAS + groom;
+                int total = 0;
+                for (int koota = 0; koota < KOOTAS.length; koota++) {
+                    int halfPoints = scoreHalfPoints(koota, bride, groom);
+                    kootaTable[koota][cell] = (byte) halfPoints;
+                    total += halfPoints;
+                }
+                totalTable[cell] = (byte) total;
+            }
+        }
+    }
+
+    /**
+     * Matches two charts given as sidereal longitudes of Moon, Mars and the
+     * Ascendant. The result is cached under the two fingerprints; either may
+     * be null, in which case the match is not cached.
+     */
+    public Match match(ChartFingerprint brideFingerprint, Map<String, Double> bridePositions,
+                       ChartFingerprint groomFingerprint, Map<String, Double> groomPositions) {
+        matches.increment();
+        Supplier<Match> calculation = () -> calculate(bridePositions, groomPositions);
+        if (brideFingerprint == null || groomFingerprint == null) {
+            return calculation.get();
+        }
+
+        PairKey key = PairKey.of(brideFingerprint, groomFingerprint);
+        Match cached = cache.get(key);
+        if (cached != null) {
+            cacheHits.increment();
+            return cached;
+        }
+        Match match = calculation.get();
+        cache.put(key, match);
+        return match;
+    }
+
+    /**
+     * Index 0..107 of the pada holding a sidereal longitude.
+     */
+    public static int padaIndex(double siderealLongitude) {
+        double normalized = ((siderealLongitude % 360.0) + 360.0) % 360.0;
+        return Math.min(PADAS - 1, (int) (normalized / PADA_SPAN));
+    }
+
+    /**
+     * Index of a pada given as nakshatra name and pada 1..4, or -1 when
+     * either is missing or unknown.
+     */
+    public static int padaIndex(String nakshatra, Integer pada) {
+        if (nakshatra == null || pada == null || pada < 1 || pada > 4) {
+            return -1;
+        }
+        for (int i = 0; i < NAKSHATRAS.length; i++) {
+            if (NAKSHATRAS[i].equalsIgnoreCase(nakshatra)) {
+                return i * 4 + pada - 1;
+            }
+        }
+        return -1;
+    }
+
+    public static String nakshatraOf(int padaIndex) {
+        return NAKSHATRAS[padaIndex / 4];
+    }
+
+    public static int padaOf(int padaIndex) {
+        return padaIndex % 4 + 1;
+    }
+
+    /**
+     * Traditional reading of a total out of 36.
+     */
+    public static String verdict(double points) {
+        if (points < 18) return "Not recommended";
+        if (points < 25) return "Average";
+        if (points < 33) return "Very good";
+        return "Excellent";
+    }
+
+    /**
+     * Total of two pada indices in half points, straight from the table.
+     */
+    public int totalHalfPoints(int bridePada, int groomPada) {
+        return totalTable[bridePada * PADAS + groomPada];
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("astrology.compatibility.matches", matches, LongAdder::sum)
+                .description("Guna Milan matches requested").register(registry);
+        FunctionCounter.builder("astrology.compatibility.cache.hits", cacheHits, LongAdder::sum)
+                .description("Guna Milan matches served from the pair cache").register(registry);
+    }
+
+    private Match calculate(Map<String, Double> bridePositions, Map<String, Double> groomPositions) {
+        int bridePada = padaIndex(requirePosition(bridePositions, "Moon"));
+        int groomPada = padaIndex(requirePosition(groomPositions, "Moon"));
+        int cell = bridePada * PADAS + groomPada;
+
+        int[] kootaHalfPoints = new int[KOOTAS.length];
+        for (int koota = 0; koota < KOOTAS.length; koota++) {
+            kootaHalfPoints[koota] = kootaTable[koota][cell];
+        }
+        return new Match(bridePada, groomPada, kootaHalfPoints, totalTable[cell],
+                isManglik(bridePositions), isManglik(groomPositions));
+    }
+
+    private static double requirePosition(Map<String, Double> positions, String body) {
+        Double longitude = positions != null ? positions.get(body) : null;
+        if (longitude == null) {
+            throw new IllegalArgumentException(body + " position missing from chart");
+        }
+        return longitude;
+    }
+
+    /**
+     * Mars in the 1st, 2nd, 4th, 7th, 8th or 12th sign from the Lagna or from the Moon.
+     */
+    static boolean isManglik(Map<String, Double> positions) {
+        Double mars = positions.get("Mars");
+        if (mars == null) {
+            return false;
+        }
+        int marsSign = signOf(mars);
+        Double ascendant = positions.get("Ascendant");
+        Double moon = positions.get("Moon");
+        return (ascendant != null && MANGLIK_HOUSE[houseFrom(signOf(ascendant), marsSign)])
+            || (moon != null && MANGLIK_HOUSE[houseFrom(signOf(moon), marsSign)]);
+    }
+
+    private static int signOf(double siderealLongitude) {
+        return padaIndex(siderealLongitude) / 9;
+    }
+
+    private static int houseFrom(int fromSign, int sign) {
+        return ((sign - fromSign + 12) % 12) + 1;
+    }
+
+    private static int scoreHalfPoints(int koota, int bridePada, int groomPada) {
+        int brideNakshatra = bridePada / 4;
+        int groomNakshatra = groomPada / 4;
+        int brideSign = bridePada / 9;
+        int groomSign = groomPada / 9;
+
+        switch (koota) {
+            case VARNA:
+                return SIGN_VARNA[groomSign] >= SIGN_VARNA[brideSign] ? 2 : 0;
+            case VASHYA:
+                return VASHYA_HALF_POINTS[vashyaGroup(bridePada)][vashyaGroup(groomPada)];
+            case TARA:
+                return (isFavourableTara(brideNakshatra, groomNakshatra) ? 3 : 0)
+                     + (isFavourableTara(groomNakshatra, brideNakshatra) ? 3 : 0);
+            case YONI:
+                return 2 * YONI_POINTS[NAKSHATRA_YONI[brideNakshatra]][NAKSHATRA_YONI[groomNakshatra]];
+            case MAITRI:
+                return maitriHalfPoints(SIGN_LORD[brideSign], SIGN_LORD[groomSign]);
+            case GANA:
+                return 2 * GANA_POINTS[NAKSHATRA_GANA[brideNakshatra]][NAKSHATRA_GANA[groomNakshatra]];
+            case BHAKOOT:
+                return isBhakootDosha(brideSign, groomSign) ? 0 : 14;
+            case NADI:
+                return NAKSHATRA_NADI[brideNakshatra] == NAKSHATRA_NADI[groomNakshatra] ? 0 : 16;
+            default:
+                throw new IllegalArgumentException("Unknown koota " + koota);
+        }
+    }
+
+    /**
+     * Vashya group of a pada. Sagittarius and Capricorn change group at 15
+     * degrees, which falls inside a pada; the pada's midpoint decides.
+     */
+    private static int vashyaGroup(int pada) {
+        int sign = pada / 9;
+        boolean firstHalf = ((pada % 9) + 0.5) * PADA_SPAN < 15.0;
+        switch (sign) {
+            case 0: case 1: return CHATUSHPADA;
+            case 2: case 5: case 6: case 10: return MANAVA;
+            case 3: case 11: return JALACHARA;
+            case 4: return VANACHARA;
+            case 7: return KEETA;
+            case 8: return firstHalf ? MANAVA : CHATUSHPADA;
+            case 9: return firstHalf ? CHATUSHPADA : JALACHARA;
+            default: throw new IllegalArgumentException("Unknown sign " + sign);
+        }
+    }
+
+    // Counting from one nakshatra to the other, the 3rd, 5th and 7th taras are inauspicious
+    private static boolean isFavourableTara(int fromNakshatra, int toNakshatra) {
+        int count = ((toNakshatra - fromNakshatra + 27) % 27) + 1;
+        int tara = count % 9;
+        return tara != 3 && tara != 5 && tara != 7;
+    }
+
+    // Both friends 5, friend and neutral 4, both neutral 3, friend and enemy 1,
+    // neutral and enemy 0.5, both enemies 0; returned in half points
+    private static int maitriHalfPoints(int brideLord, int groomLord) {
+        if (brideLord == groomLord) {
+            return 10;
+        }
+        int towardsGroom = FRIENDSHIP[brideLord][groomLord];
+        int towardsBride = FRIENDSHIP[groomLord][brideLord];
+        switch (towardsGroom + towardsBride) {
+            case 2: return 10;
+            case 1: return 8;
+            case 0: return towardsGroom == 0 ? 6 : 2;
+            case -1: return 1;
+            default: return 0;
+        }
+    }
+
+    // 2/12, 5/9 and 6/8 sign relationships between the Moons
+    private static boolean isBhakootDosha(int brideSign, int groomSign) {
+        int distance = houseFrom(brideSign, groomSign);
+        return distance == 2 || distance == 12 || distance == 5 || distance == 9 || distance == 6 || distance == 8;
+    }
+
+    /**
+     * One Guna Milan result. Points are reported in whole and half points out of 36.
+     */
+    public static final class Match {
+
+        private final int bridePada;
+        private final int groomPada;
+        private final int[] kootaHalfPoints;
+        private final int totalHalfPoints;
+        private final boolean brideManglik;
+        private final boolean groomManglik;
+
+        Match(int bridePada, int groomPada, int[] kootaHalfPoints, int totalHalfPoints,
+              boolean brideManglik, boolean groomManglik) {
+            this.bridePada = bridePada;
+            this.groomPada = groomPada;
+            this.kootaHalfPoints = kootaHalfPoints;
+            this.totalHalfPoints = totalHalfPoints;
+            this.brideManglik = brideManglik;
+            this.groomManglik = groomManglik;
+        }
+
+        public double getTotalPoints() {
+            return totalHalfPoints / 2.0;
+        }
+
+        public double getPercentage() {
+            return Math.round(totalHalfPoints * 1000.0 / (MAX_POINTS * 2)) / 10.0;
+        }
+
+        /**
+         * Points per koota with the maximum for each, in the traditional order.
+         */
+        public Map<String, Object> getKootas() {
+            Map<String, Object> kootas = new LinkedHashMap<>();
+            for (int koota = 0; koota < KOOTAS.length; koota++) {
+                Map<String, Object> score = new LinkedHashMap<>();
+                score.put("points", kootaHalfPoints[koota] / 2.0);
+                score.put("maxPoints", KOOTA_MAX[koota]);
+                kootas.put(KOOTAS[koota], score);
+            }
+            return kootas;
+        }
+
+        public double getKootaPoints(int koota) {
+            return kootaHalfPoints[koota] / 2.0;
+        }
+
+        public String getBrideNakshatra() {
+            return nakshatraOf(bridePada);
+        }
+
+        public int getBridePada() {
+            return padaOf(bridePada);
+        }
+
+        public String getGroomNakshatra() {
+            return nakshatraOf(groomPada);
+        }
+
+        public int getGroomPada() {
+            return padaOf(groomPada);
+        }
+
+        public String getBrideMoonSign() {
+            return SIGNS[bridePada / 9];
+        }
+
+        public String getGroomMoonSign() {
+            return SIGNS[groomPada / 9];
+        }
+
+        public String getBrideGana() {
+            return GANA_NAMES[NAKSHATRA_GANA[bridePada / 4]];
+        }
+
+        public String getGroomGana() {
+            return GANA_NAMES[NAKSHATRA_GANA[groomPada / 4]];
+        }
+
+        public boolean isBrideManglik() {
+            return brideManglik;
+        }
+
+        public boolean isGroomManglik() {
+            return groomManglik;
+        }
+
+        /**
+         * Manglik dosha only counts against the match when exactly one side has it.
+         */
+        public boolean isManglikMismatch() {
+            return brideManglik != groomManglik;
+        }
+
+        public boolean hasNadiDosha() {
+            return kootaHalfPoints[NADI] == 0;
+        }
+
+        public boolean hasBhakootDosha() {
+            return kootaHalfPoints[BHAKOOT] == 0;
+        }
+
+        public String getVerdict() {
+            return verdict(getTotalPoints());
+        }
+    }
+
+    /**
+     * Unordered pair of chart fingerprints plus which of the two is the bride.
+     */
+    private static final class PairKey {
+
+        private final ChartFingerprint first;
+        private final ChartFingerprint second;
+        private final boolean brideFirst;
+
+        private PairKey(ChartFingerprint first, ChartFingerprint second, boolean brideFirst) {
+            this.first = first;
+            this.second = second;
+            this.brideFirst = brideFirst;
+        }
+
+        static PairKey of(ChartFingerprint bride, ChartFingerprint groom) {
+            return compare(bride, groom) <= 0
+                ? new PairKey(bride, groom, true)
+                : new PairKey(groom, bride, false);
+        }
+
+        private static int compare(ChartFingerprint a, ChartFingerprint b) {
+            int result = Long.compare(a.getUtcEpochSecond(), b.getUtcEpochSecond());
+            if (result == 0) result = Integer.compare(a.getLatitudeE4(), b.getLatitudeE4());
+            if (result == 0) result = Integer.compare(a.getLongitudeE4(), b.getLongitudeE4());
+            if (result == 0) result = a.getAyanamsa().compareTo(b.getAyanamsa());
+            if (result == 0) result = Character.compare(a.getHouseSystem(), b.getHouseSystem());
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof PairKey)) return false;
+            PairKey that = (PairKey) o;
+            return brideFirst == that.brideFirst && first.equals(that.first) && second.equals(that.second);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(first, second, brideFirst);
+        }
+    }
+}
@@ -0,0 +1,462 @@
+package com.cosmic.astrology.service;
+
+import com.cosmic.astrology.entity.User;
+import com.cosmic.astrology.repository.UserRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * In-memory index of matchmaking candidates, bucketed by Moon nakshatra-pada.
+ *
+ * Guna Milan points depend only on the two Moon padas, so every user in a
+ * bucket scores the same against a given seeker. For each of the 108 seeker
+ * padas the candidate buckets are ordered by their table score once at
+ * startup; a search walks the buckets in that order, applies the gender, age
+ * and distance filters to the users inside, and stops as soon as it has
+ * enough results, since no later bucket can score higher.
+ *
+ * Only enabled users who opted in with {@code matchmakingVisible} are indexed.
+ * Buckets hold primitive columns only (id, gender, birth day, coordinates).
+ * The index loads in the background when the application starts and is kept
+ * current by {@link #update(User)} and {@link #refresh(Collection)} whenever a
+ * user's chart or profile changes. Those per-user changes win over a load
+ * that is still running, which may have read the user before the change.
+ */
+@Component
+public class MatchmakingIndex implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(MatchmakingIndex.class);
+
+    static final byte GENDER_UNKNOWN = 0;
+    static final byte GENDER_FEMALE = 1;
+    static final byte GENDER_MALE = 2;
+
+    private static final double EARTH_RADIUS_KM = 6371.0;
+    private static final double KM_PER_DEGREE = 111.2;
+
+    private final UserRepository userRepository;
+    private final GunaMilanEngine gunaMilanEngine;
+    private final int loadPageSize;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Bucket[] buckets = new Bucket[GunaMilanEngine.PADAS];
+    private final Map<Long, Integer> bucketOfUser = new HashMap<>();
+    /** Users changed by update, refresh or remove while a load runs, null otherwise. Guarded by the lock. */
+    private Set<Long> changedDuringLoad;
+
+    /** Candidate padas by descending score, [seekerPada][rank], for a seeking bride. */
+    private final int[][] groomsForBride = new int[GunaMilanEngine.PADAS][];
+    /** Candidate padas by descending score, [seekerPada][rank], for a seeking groom. */
+    private final int[][] bridesForGroom = new int[GunaMilanEngine.PADAS][];
+
+    private volatile boolean ready;
+
+    private final LongAdder searches = new LongAdder();
+    private final LongAdder scanned = new LongAdder();
+    private final LongAdder bucketsVisited = new LongAdder();
+
+    public MatchmakingIndex(UserRepository userRepository,
+                            GunaMilanEngine gunaMilanEngine,
+                            @Value("${astrology.matchmaking.load-page-size:5000}") int loadPageSize) {
+        this.userRepository = userRepository;
+        this.gunaMilanEngine = gunaMilanEngine;
+        this.loadPageSize = Math.max(1, loadPageSize);
+
+        for (int pada = 0; pada < GunaMilanEngine.PADAS; pada++) {
+            buckets[pada] = new Bucket();
+            int seeker = pada;
+            groomsForBride[pada] = orderByScore(candidate -> gunaMilanEngine.totalHalfPoints(seeker, candidate));
+            bridesForGroom[pada] = orderByScore(candidate -> gunaMilanEngine.totalHalfPoints(candidate, seeker));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadInBackground() {
+        Thread thread = new Thread(this::load, "matchmaking-index-load");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    /**
+     * Whether the initial load has finished. Searches before that see only
+     * the users loaded so far.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return bucketOfUser.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Indexes, moves or drops a user after their chart or profile changed.
+     */
+    public void update(User user) {
+        if (user == null || user.getId() == null) {
+            return;
+        }
+        int pada = GunaMilanEngine.padaIndex(user.getMoonNakshatra(), user.getMoonPada());
+        if (!user.isEnabled() || !user.isMatchmakingVisible() || pada < 0 || user.getBirthDateTime() == null) {
+            remove(user.getId());
+            return;
+        }
+        put(user.getId(), pada, genderCode(user.getGender()), user.getBirthDateTime(),
+                user.getBirthLatitude(), user.getBirthLongitude(), false);
+    }
+
+    /**
+     * Reloads the given users from the database, for writers that do not hold
+     * the entities.
+     */
+    public void refresh(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        Set<Long> missing = new HashSet<>(userIds);
+        for (UserRepository.MatchmakingProfile profile : userRepository.findMatchmakingProfilesByIds(userIds)) {
+            missing.remove(profile.getId());
+            index(profile, false);
+        }
+        missing.forEach(this::remove);
+    }
+
+    public void remove(Long userId) {
+        remove(userId, false);
+    }
+
+    private void remove(Long userId, boolean fromLoad) {
+        lock.writeLock().lock();
+        try {
+            if (superseded(userId, fromLoad)) {
+                return;
+            }
+            Integer pada = bucketOfUser.remove(userId);
+            if (pada != null) {
+                buckets[pada].remove(userId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Up to {@code limit} candidates for a seeker, best Guna Milan score first.
+     * Candidates with the same score come in no particular order.
+     */
+    public List<Candidate> search(long seekerId, int seekerPada, boolean seekerIsBride, Filter filter, int limit) {
+        searches.increment();
+        List<Candidate> results = new ArrayList<>(Math.min(limit, 64));
+        if (limit <= 0) {
+            return results;
+        }
+
+        LocalDate today = LocalDate.now();
+        int youngestBirthDay = filter.minAge != null ? (int) today.minusYears(filter.minAge).toEpochDay() : Integer.MAX_VALUE;
+        int oldestBirthDay = filter.maxAge != null ? (int) today.minusYears(filter.maxAge + 1L).toEpochDay() + 1 : Integer.MIN_VALUE;
+        boolean byDistance = filter.latitude != null && filter.longitude != null && filter.radiusKm != null;
+        double latitudeSpan = byDistance ? filter.radiusKm / KM_PER_DEGREE : 0;
+        int minHalfPoints = filter.minPoints != null ? (int) Math.ceil(filter.minPoints * 2) : 0;
+
+        int[] order = seekerIsBride ? groomsForBride[seekerPada] : bridesForGroom[seekerPada];
+        long examined = 0;
+        int visited = 0;
+
+        lock.readLock().lock();
+        try {
+            for (int rank = 0; rank < order.length && results.size() < limit; rank++) {
+                int pada = order[rank];
+                int halfPoints = seekerIsBride
+                        ? gunaMilanEngine.totalHalfPoints(seekerPada, pada)
+                        : gunaMilanEngine.totalHalfPoints(pada, seekerPada);
+                if (halfPoints < minHalfPoints) {
+                    break;
+                }
+                visited++;
+
+                Bucket bucket = buckets[pada];
+                for (int i = 0; i < bucket.size && results.size() < limit; i++) {
+                    examined++;
+                    if (bucket.ids[i] == seekerId) {
+                        continue;
+                    }
+                    if (filter.gender != GENDER_UNKNOWN && bucket.genders[i] != filter.gender) {
+                        continue;
+                    }
+                    int birthDay = bucket.birthDays[i];
+                    if (birthDay > youngestBirthDay || birthDay < oldestBirthDay) {
+                        continue;
+                    }
+                    if (byDistance && !within(bucket.latitudes[i], bucket.longitudes[i], filter, latitudeSpan)) {
+                        continue;
+                    }
+                    results.add(new Candidate(bucket.ids[i], pada, halfPoints));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        scanned.add(examined);
+        bucketsVisited.add(visited);
+        return results;
+    }
+
+    static byte genderCode(String gender) {
+        if (gender == null) {
+            return GENDER_UNKNOWN;
+        }
+        switch (gender.trim().toLowerCase()) {
+            case "female":
+            case "f":
+                return GENDER_FEMALE;
+            case "male":
+            case "m":
+                return GENDER_MALE;
+            default:
+                return GENDER_UNKNOWN;
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("astrology.matchmaking.index.size", this, MatchmakingIndex::size)
+                .description("Users in the matchmaking index").register(registry);
+        FunctionCounter.builder("astrology.matchmaking.searches", searches, LongAdder::sum)
+                .description("Matchmaking searches").register(registry);
+        FunctionCounter.builder("astrology.matchmaking.scanned", scanned, LongAdder::sum)
+                .description("Index entries examined by matchmaking searches").register(registry);
+        FunctionCounter.builder("astrology.matchmaking.buckets.visited", bucketsVisited, LongAdder::sum)
+                .description("Nakshatra-pada buckets visited by matchmaking searches").register(registry);
+    }
+
+    private void load() {
+        long started = System.nanoTime();
+        long afterId = 0;
+        lock.writeLock().lock();
+        try {
+            changedDuringLoad = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            while (true) {
+                List<UserRepository.MatchmakingProfile> page =
+                        userRepository.findMatchmakingProfiles(afterId, PageRequest.of(0, loadPageSize));
+                if (page.isEmpty()) {
+                    break;
+                }
+                page.forEach(profile -> index(profile, true));
+                afterId = page.get(page.size() - 1).getId();
+            }
+            ready = true;
+            logger.info("💞 Matchmaking index loaded: {} users in {} ms",
+                    size(), (System.nanoTime() - started) / 1_000_000);
+        } catch (RuntimeException e) {
+            logger.error("❌ Matchmaking index load stopped after user id {}", afterId, e);
+        } finally {
+            lock.writeLock().lock();
+            try {
+                changedDuringLoad = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private void index(UserRepository.MatchmakingProfile profile, boolean fromLoad) {
+        int pada = GunaMilanEngine.padaIndex(profile.getMoonNakshatra(), profile.getMoonPada());
+        if (pada < 0) {
+            remove(profile.getId(), fromLoad);
+            return;
+        }
+        put(profile.getId(), pada, genderCode(profile.getGender()), profile.getBirthDateTime(),
+                profile.getBirthLatitude(), profile.getBirthLongitude(), fromLoad);
+    }
+
+    private void put(long userId, int pada, byte gender, LocalDateTime birthDateTime, Double latitude, Double longitude,
+                     boolean fromLoad) {
+        int birthDay = (int) birthDateTime.toLocalDate().toEpochDay();
+        float lat = latitude != null ? latitude.floatValue() : Float.NaN;
+        float lon = longitude != null ? longitude.floatValue() : Float.NaN;
+
+        lock.writeLock().lock();
+        try {
+            if (superseded(userId, fromLoad)) {
+                return;
+            }
+            Integer previous = bucketOfUser.put(userId, pada);
+            if (previous != null) {
+                buckets[previous].remove(userId);
+            }
+            buckets[pada].add(userId, gender, birthDay, lat, lon);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Caller holds the write lock. A load write is dropped for users changed since the load
+    // began; any other write during a load is recorded so the load leaves that user alone.
+    private boolean superseded(long userId, boolean fromLoad) {
+        if (changedDuringLoad == null) {
+            return false;
+        }
+        if (fromLoad) {
+            return changedDuringLoad.contains(userId);
+        }
+        changedDuringLoad.add(userId);
+        return false;
+    }
+
+    private static boolean within(float latitude, float longitude, Filter filter, double latitudeSpan) {
+        if (Float.isNaN(latitude) || Float.isNaN(longitude)) {
+            return false;
+        }
+        if (Math.abs(latitude - filter.latitude) > latitudeSpan) {
+            return false;
+        }
+        double lat1 = Math.toRadians(filter.latitude);
+        double lat2 = Math.toRadians(latitude);
+        double dLat = lat2 - lat1;
+        double dLon = Math.toRadians(longitude - filter.longitude);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(lat1) * Math.cos(lat2) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1.0, Math.sqrt(a))) <= filter.radiusKm;
+    }
+
+    private static int[] orderByScore(IntUnaryOperator score) {
+        Integer[] padas = new Integer[GunaMilanEngine.PADAS];
+        for (int i = 0; i < padas.length; i++) {
+            padas[i] = i;
+        }
+        Arrays.sort(padas, (a, b) -> Integer.compare(score.applyAsInt(b), score.applyAsInt(a)));
+        return Arrays.stream(padas).mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Search filters; null fields do not filter.
+     */
+    public static final class Filter {
+
+        private final byte gender;
+        private final Integer minAge;
+        private final Integer maxAge;
+        private final Double latitude;
+        private final Double longitude;
+        private final Double radiusKm;
+        private final Double minPoints;
+
+        public Filter(String gender, Integer minAge, Integer maxAge,
+                      Double latitude, Double longitude, Double radiusKm, Double minPoints) {
+            this.gender = genderCode(gender);
+            this.minAge = minAge;
+            this.maxAge = maxAge;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.radiusKm = radiusKm;
+            this.minPoints = minPoints;
+        }
+    }
+
+    /**
+     * One search hit: the user and their table score against the seeker.
+     */
+    public static final class Candidate {
+
+        private final long userId;
+        private final int padaIndex;
+        private final int halfPoints;
+
+        Candidate(long userId, int padaIndex, int halfPoints) {
+            this.userId = userId;
+            this.padaIndex = padaIndex;
+            this.halfPoints = halfPoints;
+        }
+
+        public long getUserId() {
+            return userId;
+        }
+
+        public int getPadaIndex() {
+            return padaIndex;
+        }
+
+        public double getPoints() {
+            return halfPoints / 2.0;
+        }
+    }
+
+    /**
+     * Users of one pada as parallel primitive arrays. Guarded by the index lock.
+     */
+    private static final class Bucket {
+
+        long[] ids = new long[16];
+        byte[] genders = new byte[16];
+        int[] birthDays = new int[16];
+        float[] latitudes = new float[16];
+        float[] longitudes = new float[16];
+        int size;
+
+        void add(long id, byte gender, int birthDay, float latitude, float longitude) {
+            if (size == ids.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                genders = Arrays.copyOf(genders, capacity);
+                birthDays = Arrays.copyOf(birthDays, capacity);
+                latitudes = Arrays.copyOf(latitudes, capacity);
+                longitudes = Arrays.copyOf(longitudes, capacity);
+            }
+            ids[size] = id;
+            genders[size] = gender;
+            birthDays[size] = birthDay;
+            latitudes[size] = latitude;
+            longitudes[size] = longitude;
+            size++;
+        }
+
+        // Swap-remove; order inside a bucket carries no meaning
+        void remove(long id) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) {
+                    int last = --size;
+                    ids[i] = ids[last];
+                    genders[i] = genders[last];
+                    birthDays[i] = birthDays[last];
+                    latitudes[i] = latitudes[last];
+                    longitudes[i] = longitudes[last];
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package com.cosmic.astrology.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * Precompiled catalog of personalized remedies.
+ *
+ * Every remedy the personalized generator can emit is built once into an
+ * immutable template and indexed by the chart feature that triggers it
+ * (planet present, planet in a house, dominant or weakest planet). Templates
+ * are pre-ranked by priority then effectiveness, so selecting remedies for a
+ * chart is a few array probes that mark entries, followed by one walk over the
+ * rank order - no per-request text building or sorting.
+ */
+final class RemedyCatalog {
+
+    static final String[] PLANETS = {
+        "Sun", "Moon", "Mercury", "Venus", "Mars", "Jupiter", "Saturn", "Rahu", "Ketu"
+    };
+
+    static final int SUN = 0, VENUS = 3, MARS = 4, SATURN = 6;
+
+    /** Beej mantras, indexed like {@link #PLANETS}. */
+    private static final String[] BEEJ_MANTRAS = {
+        "Om Hraam Hreem Hraum Sah Suryaya Namaha",
+        "Om Shraam Shreem Shraum Sah Chandraya Namaha",
+        "Om Braam Breem Braum Sah Budhaya Namaha",
+        "Om Draam Dreem Draum Sah Shukraya Namaha",
+        "Om Kraam Kreem Kraum Sah Bhaumaya Namaha",
+        "Om Graam Greem Graum Sah Gurave Namaha",
+        "Om Praam Preem Praum Sah Shanaye Namaha",
+        "Om Bhraam Bhreem Bhraum Sah Rahave Namaha",
+        "Om Shraam Shreem Shraum Sah Ketave Namaha"
+    };
+
+    private static final int HOUSES = 12;
+
+    private final List<Map<String, Object>> templates;
+    private final int[] rankOrder;
+    private final int fallback;
+
+    // Trigger indexes: planet -> entry ids, planet x house -> entry ids, planet -> single entry id
+    private final int[][] byPresence;
+    private final int[][] byPresenceWithAscendant;
+    private final int[][][] byHouse;
+    private final int[] byDominant;
+    private final int[] byWeakest;
+    private final int[] onAscendant;
+
+    RemedyCatalog(Function<String, String> dominantLifestyle,
+                  Function<String, String> weakPlanetBalancing,
+                  Map<String, Object> generalWellness) {
+        Builder builder = new Builder();
+
+        for (int p = 0; p < PLANETS.length; p++) {
+            builder.onPresence(p, false, remedy("Mantra & Yantra Remedies", PLANETS[p] + " Strengthening Mantra",
+                    beejMantra(PLANETS[p]) + " (108 times daily)", "Daily for minimum 40 days", 80.0, 2));
+        }
+
+        builder.onHouse(MARS, 1 << 6 | 1 << 8, remedy("Health & Wellness Remedies", "Mars Health Strengthening",
+                "Practice Hanuman Chalisa daily, engage in regular physical exercise, avoid spicy foods on Tuesdays", null, 75.0, 3));
+        builder.onAscendant(generalWellness);
+
+        builder.onPresence(SATURN, true, remedy("Career & Prosperity Remedies", "Saturn Career Enhancement",
+                "Honor elders and authority figures, practice discipline in work, donate to charitable causes on Saturdays", null, 78.0, 2));
+        builder.onPresence(SUN, true, remedy("Career & Prosperity Remedies", "Sun Leadership Enhancement",
+                "Offer water to Sun at sunrise, develop leadership skills, maintain integrity in professional dealings", null, 82.0, 2));
+
+        builder.onPresence(VENUS, false, remedy("Relationship Harmony Remedies", "Venus Relationship Harmony",
+                "Worship Goddess Lakshmi on Fridays, wear white or pink colors, practice kindness and diplomacy in relationships", null, 80.0, 2));
+        builder.onPresence(MARS, false, remedy("Relationship Harmony Remedies", "Mars Relationship Balance",
+                "Practice patience and anger management, avoid confrontations on Tuesdays, channel Mars energy constructively", null, 75.0, 3));
+
+        for (int p = 0; p < PLANETS.length; p++) {
+            builder.onDominant(p, remedy("Lifestyle & Behavioral Remedies", "Dominant Planet Lifestyle Alignment",
+                    dominantLifestyle.apply(PLANETS[p]), null, 85.0, 1));
+            builder.onWeakest(p, remedy("Lifestyle & Behavioral Remedies", "Weak Planet Strengthening Lifestyle",
+                    weakPlanetBalancing.apply(PLANETS[p]), null, 78.0, 2));
+        }
+
+        this.templates = Collections.unmodifiableList(builder.templates);
+        this.fallback = builder.wellnessId;
+        this.byPresence = builder.freeze(builder.presence);
+        this.byPresenceWithAscendant = builder.freeze(builder.presenceWithAscendant);
+        this.byHouse = new int[PLANETS.length][][];
+        for (int p = 0; p < PLANETS.length; p++) {
+            this.byHouse[p] = builder.freeze(builder.house[p]);
+        }
+        this.byDominant = builder.dominant;
+        this.byWeakest = builder.weakest;
+        this.onAscendant = builder.ascendant.stream().mapToInt(Integer::intValue).toArray();
+
+        // Rank once: priority descending, effectiveness descending, catalog order for ties
+        this.rankOrder = IntStream.range(0, templates.size()).boxed()
+                .sorted(Comparator.<Integer>comparingInt(id -> -(Integer) templates.get(id).get("priority"))
+                        .thenComparingDouble(id -> -(Double) templates.get(id).get("effectiveness")))
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    /**
+     * Selects the remedies triggered by a chart, already ranked.
+     *
+     * @param present  whether each planet in {@link #PLANETS} has a position
+     * @param house    house of each planet (1-12), or 0 when the ascendant is unknown
+     * @param strength planetary strength of each present planet
+     * @param hasAscendant whether the chart has an ascendant
+     */
+    List<Map<String, Object>> select(boolean[] present, int[] house, double[] strength, boolean hasAscendant) {
+        boolean[] selected = new boolean[templates.size()];
+        int dominant = -1;
+        int weakest = -1;
+
+        for (int p = 0; p < PLANETS.length; p++) {
+            if (!present[p]) {
+                continue;
+            }
+            mark(selected, byPresence[p]);
+            if (hasAscendant) {
+                mark(selected, byPresenceWithAscendant[p]);
+                if (house[p] >= 1 && house[p] <= HOUSES) {
+                    mark(selected, byHouse[p][house[p]]);
+                }
+            }
+            if (dominant < 0 || strength[p] > strength[dominant]) {
+                dominant = p;
+            }
+            if (weakest < 0 || strength[p] < strength[weakest]) {
+                weakest = p;
+            }
+        }
+
+        if (hasAscendant) {
+            mark(selected, onAscendant);
+        }
+        if (dominant >= 0) {
+            selected[byDominant[dominant]] = true;
+        }
+        if (weakest >= 0) {
+            selected[byWeakest[weakest]] = true;
+        }
+
+        List<Map<String, Object>> remedies = new ArrayList<>();
+        for (int id : rankOrder) {
+            if (selected[id]) {
+                remedies.add(new LinkedHashMap<>(templates.get(id)));
+            }
+        }
+        if (remedies.isEmpty()) {
+            remedies.add(generalWellness());
+        }
+        return remedies;
+    }
+
+    Map<String, Object> generalWellness() {
+        return new LinkedHashMap<>(templates.get(fallback));
+    }
+
+    static int planetIndex(String planet) {
+        for (int p = 0; p < PLANETS.length; p++) {
+            if (PLANETS[p].equals(planet)) {
+                return p;
+            }
+        }
+        return -1;
+    }
+
+    static String beejMantra(String planet) {
+        int p = planetIndex(planet);
+        return p >= 0 ? BEEJ_MANTRAS[p] : "Om " + planet + "aya Namaha";
+    }
+
+    private static void mark(boolean[] selected, int[] ids) {
+        for (int id : ids) {
+            selected[id] = true;
+        }
+    }
+
+    private static Map<String, Object> remedy(String category, String name, String instructions,
+                                              String duration, double effectiveness, int priority) {
+        Map<String, Object> remedy = new LinkedHashMap<>();
+        remedy.put("category", category);
+        remedy.put("remedy", name);
+        remedy.put("instructions", instructions);
+        if (duration != null) {
+            remedy.put("duration", duration);
+        }
+        remedy.put("effectiveness", effectiveness);
+        remedy.put("priority", priority);
+        return remedy;
+    }
+
+    private static final class Builder {
+        final List<Map<String, Object>> templates = new ArrayList<>();
+        final List<List<Integer>> presence = lists(PLANETS.length);
+        final List<List<Integer>> presenceWithAscendant = lists(PLANETS.length);
+        final List<List<Integer>>[] house = houseLists();
+        final int[] dominant = new int[PLANETS.length];
+        final int[] weakest = new int[PLANETS.length];
+        final List<Integer> ascendant = new ArrayList<>();
+        int wellnessId = -1;
+
+        int add(Map<String, Object> template) {
+            templates.add(Collections.unmodifiableMap(new LinkedHashMap<>(template)));
+            return templates.size() - 1;
+        }
+
+        void onPresence(int planet, boolean requiresAscendant, Map<String, Object> template) {
+            (requiresAscendant ? presenceWithAscendant : presence).get(planet).add(add(template));
+        }
+
+        void onHouse(int planet, int houseMask, Map<String, Object> template) {
+            int id = add(template);
+            for (int h = 1; h <= HOUSES; h++) {
+                if ((houseMask & (1 << h)) != 0) {
+                    house[planet].get(h).add(id);
+                }
+            }
+        }
+
+        void onAscendant(Map<String, Object> template) {
+            wellnessId = add(template);
+            ascendant.add(wellnessId);
+        }
+
+        void onDominant(int planet, Map<String, Object> template) {
+            dominant[planet] = add(template);
+        }
+
+        void onWeakest(int planet, Map<String, Object> template) {
+            weakest[planet] = add(template);
+        }
+
+        int[][] freeze(List<List<Integer>> lists) {
+            return lists.stream()
+                    .map(ids -> ids.stream().mapToInt(Integer::intValue).toArray())
+                    .toArray(int[][]::new);
+        }
+
+        private static List<List<Integer>> lists(int size) {
+            List<List<Integer>> lists = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                lists.add(new ArrayList<>());
+            }
+            return lists;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static List<List<Integer>>[] houseLists() {
+            List<List<Integer>>[] lists = new List[PLANETS.length];
+            Arrays.setAll(lists, p -> lists(HOUSES + 1));
+            return lists;
+        }
+    }
+}
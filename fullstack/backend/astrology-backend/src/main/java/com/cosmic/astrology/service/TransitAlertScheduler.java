@@ -0,0 +1,523 @@
+package com.cosmic.astrology.service;
+
+import com.cosmic.astrology.dto.TransitAlert;
+import com.cosmic.astrology.entity.ScheduledTransitAlert;
+import com.cosmic.astrology.entity.User;
+import com.cosmic.astrology.repository.TransitAlertRepository;
+import com.cosmic.astrology.repository.UserRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Transit alerts for users who opted in.
+ *
+ * Each subscriber has a queue of their next {@code astrology.transit-alerts.queue-size}
+ * significant transits over their natal chart, stored as pending rows of
+ * {@code transit_alerts} indexed by (status, event_time). A single thread
+ * sleeps until the earliest pending event, delivers everything due, refills
+ * the queues that ran dry and sleeps again; a queue is otherwise only
+ * recomputed when the user's birth data or opt-in changes. Nothing scans the
+ * users table on a timer.
+ *
+ * Every queue change runs on that one thread, so the wake-up time and the
+ * queues never race. Event times are UTC.
+ *
+ * Sent alerts are kept for {@code astrology.transit-alerts.sent-retention-days}
+ * as the user's recent history and deleted after that.
+ */
+@Component
+public class TransitAlertScheduler implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransitAlertScheduler.class);
+
+    static final String JOB_NAME = "transit-alerts";
+
+    private static final String[] TRANSITING = {"Sun", "Mars", "Jupiter", "Saturn", "Rahu"};
+
+    // Aspects watched for each transiting planet, in degrees from the natal point
+    private static final int[][] ASPECTS = {
+        {0},
+        {0, 180},
+        {0, 120, 180, 240},
+        {0, 120, 180, 240},
+        {0, 180}
+    };
+
+    private static final int[] WEIGHTS = {2, 3, 4, 5, 4};
+
+    private static final String[] NATAL_POINTS = {"Sun", "Moon", "Mars", "Mercury", "Venus", "Jupiter", "Saturn", "Ascendant"};
+
+    private static final Map<String, String> RECOMMENDATIONS = Map.of(
+        "Sun", "Review your goals and give time to what makes you feel most yourself",
+        "Mars", "Use the extra drive for physical work and avoid hasty arguments",
+        "Jupiter", "Start studies, seek advice from mentors and act on opportunities",
+        "Saturn", "Be patient, keep commitments and build slowly on solid ground",
+        "Rahu", "Stay grounded, check facts twice and meditate before big decisions"
+    );
+
+    private static final long MINUTES_PER_STEP = 24 * 60;
+
+    private final TransitAlertRepository transitAlertRepository;
+    private final UserRepository userRepository;
+    private final VedicAstrologyCalculationService vedicCalculationService;
+
+    private final int queueSize;
+    private final int horizonDays;
+    private final int batchSize;
+    private final long backfillPauseMillis;
+    private final long sentRetentionDays;
+
+    private final ScheduledExecutorService executor;
+    private ScheduledFuture<?> wake;
+    private volatile LocalDateTime nextWake;
+
+    private final Object lifecycleLock = new Object();
+    private volatile Thread backfillDriver;
+    private volatile boolean stopRequested;
+    private final AtomicLong backfilledUsers = new AtomicLong();
+
+    private final LongAdder queued = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder refills = new LongAdder();
+    private final LongAdder wakeups = new LongAdder();
+    private final LongAdder purged = new LongAdder();
+
+    public TransitAlertScheduler(TransitAlertRepository transitAlertRepository,
+                                 UserRepository userRepository,
+                                 VedicAstrologyCalculationService vedicCalculationService,
+                                 @Value("${astrology.transit-alerts.queue-size:10}") int queueSize,
+                                 @Value("${astrology.transit-alerts.horizon-days:400}") int horizonDays,
+                                 @Value("${astrology.transit-alerts.batch-size:500}") int batchSize,
+                                 @Value("${astrology.transit-alerts.backfill-pause-ms:200}") long backfillPauseMillis,
+                                 @Value("${astrology.transit-alerts.sent-retention-days:90}") long sentRetentionDays) {
+        this.transitAlertRepository = transitAlertRepository;
+        this.userRepository = userRepository;
+        this.vedicCalculationService = vedicCalculationService;
+        this.queueSize = Math.max(1, queueSize);
+        this.horizonDays = Math.max(30, horizonDays);
+        this.batchSize = Math.max(1, batchSize);
+        this.backfillPauseMillis = Math.max(0, backfillPauseMillis);
+        this.sentRetentionDays = Math.max(1, sentRetentionDays);
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, JOB_NAME);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startDispatching() {
+        executor.execute(this::dispatchDue);
+        executor.scheduleWithFixedDelay(this::purgeSent, 1, 60, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Rebuilds the user's queue after their birth data or opt-in changed.
+     * Users who opted out or have no birth data are left with an empty queue.
+     */
+    public void reschedule(User user) {
+        reschedule(user, null);
+    }
+
+    /**
+     * Same as {@link #reschedule(User)} for callers that just calculated the
+     * chart; {@code natal} are its sidereal positions and are not computed again.
+     */
+    public void reschedule(User user, Map<String, Double> natal) {
+        if (user == null || user.getId() == null) {
+            return;
+        }
+        Map<String, Double> positions = natal != null ? new HashMap<>(natal) : null;
+        executor.execute(() -> {
+            try {
+                transitAlertRepository.deletePending(user.getId());
+                refill(user, positions);
+            } catch (RuntimeException e) {
+                logger.warn("⚠️ Could not reschedule transit alerts for user {}: {}", user.getId(), e.getMessage());
+            }
+        });
+    }
+
+    public void cancel(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                transitAlertRepository.deletePending(userId);
+            } catch (RuntimeException e) {
+                logger.warn("⚠️ Could not cancel transit alerts for user {}: {}", userId, e.getMessage());
+            }
+        });
+    }
+
+    public List<TransitAlert> upcoming(Long userId, int limit) {
+        return transitAlertRepository.findByUserIdAndStatusOrderByEventTimeAsc(
+                        userId, ScheduledTransitAlert.STATUS_PENDING, PageRequest.of(0, limit))
+                .stream().map(TransitAlertScheduler::toDto).collect(Collectors.toList());
+    }
+
+    public List<TransitAlert> recent(Long userId, int limit) {
+        return transitAlertRepository.findByUserIdAndStatusOrderByEventTimeDesc(
+                        userId, ScheduledTransitAlert.STATUS_SENT, PageRequest.of(0, limit))
+                .stream().map(TransitAlertScheduler::toDto).collect(Collectors.toList());
+    }
+
+    /**
+     * Queues alerts for opted-in users who have none yet, such as users from
+     * before transit alerts were scheduled. Runs once in the background, a
+     * page at a time with a pause between pages. Returns false if a backfill
+     * is already running.
+     */
+    public boolean startBackfill() {
+        synchronized (lifecycleLock) {
+            if (isBackfillRunning()) {
+                return false;
+            }
+            stopRequested = false;
+            backfilledUsers.set(0);
+            Thread thread = new Thread(this::backfill, JOB_NAME + "-backfill");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            backfillDriver = thread;
+            thread.start();
+            return true;
+        }
+    }
+
+    public void stopBackfill() {
+        stopRequested = true;
+    }
+
+    public boolean isBackfillRunning() {
+        Thread thread = backfillDriver;
+        return thread != null && thread.isAlive();
+    }
+
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("job", JOB_NAME);
+        status.put("nextWake", nextWake);
+        status.put("backfillRunning", isBackfillRunning());
+        status.put("backfilledUsers", backfilledUsers.get());
+        status.put("queued", queued.sum());
+        status.put("delivered", delivered.sum());
+        status.put("purged", purged.sum());
+        return status;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        stopRequested = true;
+        executor.shutdownNow();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("astrology.transit-alerts.queued", queued, LongAdder::sum)
+                .description("Transit alerts queued").register(registry);
+        FunctionCounter.builder("astrology.transit-alerts.delivered", delivered, LongAdder::sum)
+                .description("Transit alerts delivered").register(registry);
+        FunctionCounter.builder("astrology.transit-alerts.refills", refills, LongAdder::sum)
+                .description("Transit alert queues recomputed").register(registry);
+        FunctionCounter.builder("astrology.transit-alerts.wakeups", wakeups, LongAdder::sum)
+                .description("Times the transit alert dispatcher woke up").register(registry);
+        FunctionCounter.builder("astrology.transit-alerts.purged", purged, LongAdder::sum)
+                .description("Sent transit alerts deleted after the retention period").register(registry);
+        Gauge.builder("astrology.transit-alerts.next-wake-seconds", this, scheduler -> {
+                    LocalDateTime next = scheduler.nextWake;
+                    return next == null ? -1 : Math.max(0, Duration.between(nowUtc(), next).getSeconds());
+                })
+                .description("Seconds until the next transit alert falls due").register(registry);
+    }
+
+    // Delivers everything due, refills the queues that ran dry, then sleeps until the next event
+    private void dispatchDue() {
+        wakeups.increment();
+        if (wake != null) {
+            wake.cancel(false);
+            wake = null;
+        }
+        nextWake = null;
+        try {
+            LocalDateTime now = nowUtc();
+            List<ScheduledTransitAlert> due;
+            do {
+                due = transitAlertRepository.findByStatusAndEventTimeLessThanEqualOrderByEventTimeAscIdAsc(
+                        ScheduledTransitAlert.STATUS_PENDING, now, PageRequest.of(0, batchSize));
+                if (due.isEmpty()) {
+                    break;
+                }
+                List<Long> ids = new ArrayList<>(due.size());
+                Set<Long> users = new LinkedHashSet<>();
+                for (ScheduledTransitAlert alert : due) {
+                    ids.add(alert.getId());
+                    users.add(alert.getUserId());
+                    logger.debug("🔔 Transit alert for user {}: {}", alert.getUserId(), alert.getDescription());
+                }
+                transitAlertRepository.markDelivered(ids, nowUtc());
+                delivered.add(ids.size());
+
+                users.removeAll(transitAlertRepository.findUsersWithPending(users));
+                for (Long userId : users) {
+                    userRepository.findById(userId).ifPresent(user -> refill(user, null));
+                }
+            } while (due.size() == batchSize);
+        } catch (RuntimeException e) {
+            logger.error("❌ Transit alert dispatch failed", e);
+        } finally {
+            LocalDateTime next = null;
+            try {
+                next = transitAlertRepository.findNextPendingTime();
+            } catch (RuntimeException e) {
+                logger.error("❌ Could not read the next transit alert time", e);
+                next = nowUtc().plusMinutes(1);
+            }
+            if (next != null) {
+                wakeAt(next);
+            }
+        }
+    }
+
+    private void purgeSent() {
+        try {
+            int count = transitAlertRepository.deleteSentBefore(nowUtc().minusDays(sentRetentionDays));
+            if (count > 0) {
+                purged.add(count);
+                logger.info("🧹 Deleted {} sent transit alerts older than {} days", count, sentRetentionDays);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("⚠️ Could not purge sent transit alerts: {}", e.getMessage());
+        }
+    }
+
+    // Moves the wake-up earlier if needed; only called on the dispatcher thread
+    private void wakeAt(LocalDateTime time) {
+        if (nextWake != null && !time.isBefore(nextWake)) {
+            return;
+        }
+        if (wake != null) {
+            wake.cancel(false);
+        }
+        long delayMillis = Math.max(0, Duration.between(nowUtc(), time).toMillis());
+        nextWake = time;
+        wake = executor.schedule(this::dispatchDue, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void refill(User user, Map<String, Double> natal) {
+        if (!isSubscribed(user)) {
+            return;
+        }
+        if (natal == null) {
+            @SuppressWarnings("unchecked")
+            Map<String, Double> calculated = (Map<String, Double>)
+                    vedicCalculationService.calculateVedicNatalChart(user).get("siderealPositions");
+            natal = calculated;
+        }
+        if (natal == null) {
+            return;
+        }
+        List<ScheduledTransitAlert> events = findEvents(user.getId(), natal, nowUtc().truncatedTo(ChronoUnit.MINUTES));
+        if (events.isEmpty()) {
+            return;
+        }
+        transitAlertRepository.saveAll(events);
+        queued.add(events.size());
+        refills.increment();
+        wakeAt(events.get(0).getEventTime());
+    }
+
+    // The first queueSize aspects the transiting planets make to the natal points after from
+    List<ScheduledTransitAlert> findEvents(Long userId, Map<String, Double> natal, LocalDateTime from) {
+        List<ScheduledTransitAlert> events = new ArrayList<>();
+        for (int i = 0; i < TRANSITING.length; i++) {
+            String planet = TRANSITING[i];
+            double[] positions = new double[horizonDays + 1];
+            for (int day = 0; day <= horizonDays; day++) {
+                positions[day] = vedicCalculationService.siderealLongitudeAt(planet, from.plusDays(day));
+            }
+            for (String point : NATAL_POINTS) {
+                Double natalLongitude = natal.get(point);
+                if (natalLongitude == null) {
+                    continue;
+                }
+                for (int aspect : ASPECTS[i]) {
+                    double target = natalLongitude + aspect;
+                    for (int day = 1; day <= horizonDays; day++) {
+                        double before = offset(positions[day - 1], target);
+                        double after = offset(positions[day], target);
+                        if (crosses(before, after)) {
+                            LocalDateTime exact = refine(planet, target, from.plusDays(day - 1), before);
+                            events.add(alert(userId, i, point, aspect, exact));
+                        }
+                    }
+                }
+            }
+        }
+        events.sort(Comparator.comparing(ScheduledTransitAlert::getEventTime));
+        return events.size() > queueSize ? new ArrayList<>(events.subList(0, queueSize)) : events;
+    }
+
+    // Bisects a one-day step down to the minute the aspect becomes exact
+    private LocalDateTime refine(String planet, double target, LocalDateTime start, double startOffset) {
+        long low = 0;
+        long high = MINUTES_PER_STEP;
+        while (high - low > 1) {
+            long mid = (low + high) >>> 1;
+            double midOffset = offset(vedicCalculationService.siderealLongitudeAt(planet, start.plusMinutes(mid)), target);
+            if (midOffset != 0 && (midOffset < 0) == (startOffset < 0)) {
+                low = mid;
+            } else {
+                high = mid;
+            }
+        }
+        return start.plusMinutes(high);
+    }
+
+    private static ScheduledTransitAlert alert(Long userId, int planetIndex, String point, int aspect, LocalDateTime time) {
+        String planet = TRANSITING[planetIndex];
+        boolean sameBody = planet.equals(point);
+        String type;
+        String influence;
+        String description;
+        if (aspect == 0 && sameBody) {
+            type = "return";
+            influence = "Saturn".equals(planet) ? "challenging" : "positive";
+            description = String.format("%s returns to its natal position, opening a new %s cycle", planet, planet);
+        } else if (aspect == 0) {
+            type = "conjunction";
+            influence = "Jupiter".equals(planet) ? "positive" : "Sun".equals(planet) ? "neutral" : "challenging";
+            description = String.format("%s conjoins your natal %s", planet, point);
+        } else if (aspect == 180) {
+            type = "opposition";
+            influence = "challenging";
+            description = String.format("%s opposes your natal %s", planet, point);
+        } else {
+            type = "trine";
+            influence = "positive";
+            description = String.format("%s forms a trine to your natal %s", planet, point);
+        }
+        boolean personalPoint = "Sun".equals(point) || "Moon".equals(point) || "Ascendant".equals(point);
+
+        ScheduledTransitAlert alert = new ScheduledTransitAlert();
+        alert.setUserId(userId);
+        alert.setPlanet(planet);
+        alert.setTransitType(type);
+        alert.setNatalPlanet(point);
+        alert.setEventTime(time);
+        alert.setDescription(description);
+        alert.setInfluence(influence);
+        alert.setIntensity(Math.min(5, WEIGHTS[planetIndex] + (personalPoint ? 1 : 0)));
+        alert.setRecommendations(RECOMMENDATIONS.get(planet));
+        return alert;
+    }
+
+    private void backfill() {
+        long started = System.nanoTime();
+        logger.info("🔭 Transit alert backfill started");
+        try {
+            long afterId = 0L;
+            while (!stopRequested) {
+                List<Long> ids = userRepository.findTransitAlertBackfillIds(afterId, PageRequest.of(0, batchSize));
+                if (ids.isEmpty()) {
+                    break;
+                }
+                // Queued on the dispatcher thread like every other queue change, one page at a time
+                executor.submit(() -> {
+                    for (User user : userRepository.findAllById(ids)) {
+                        try {
+                            refill(user, null);
+                        } catch (RuntimeException e) {
+                            logger.warn("⚠️ Could not queue transit alerts for user {}: {}", user.getId(), e.getMessage());
+                        }
+                    }
+                }).get();
+                backfilledUsers.addAndGet(ids.size());
+                afterId = ids.get(ids.size() - 1);
+                if (backfillPauseMillis > 0) {
+                    Thread.sleep(backfillPauseMillis);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | RuntimeException e) {
+            logger.error("❌ Transit alert backfill failed after {} users", backfilledUsers.get(), e);
+        } finally {
+            logger.info("🔭 Transit alert backfill {}: {} users in {} ms",
+                    stopRequested ? "stopped" : "finished", backfilledUsers.get(),
+                    (System.nanoTime() - started) / 1_000_000);
+        }
+    }
+
+    private static boolean isSubscribed(User user) {
+        return user != null && user.getId() != null && user.isEnabled() && user.isTransitAlerts()
+                && user.getBirthDateTime() != null && user.getBirthLatitude() != null && user.getBirthLongitude() != null;
+    }
+
+    private static TransitAlert toDto(ScheduledTransitAlert alert) {
+        TransitAlert dto = new TransitAlert();
+        dto.setPlanet(alert.getPlanet());
+        dto.setTransitType(alert.getTransitType());
+        dto.setNatalPlanet(alert.getNatalPlanet());
+        dto.setDate(alert.getEventTime().toLocalDate());
+        dto.setDescription(alert.getDescription());
+        dto.setInfluence(alert.getInfluence());
+        dto.setIntensity(alert.getIntensity() != null ? alert.getIntensity() : 1);
+        dto.setRecommendations(alert.getRecommendations());
+        return dto;
+    }
+
+    // Signed distance from target to longitude, in [-180, 180)
+    private static double offset(double longitude, double target) {
+        double difference = (longitude - target) % 360.0;
+        if (difference < -180.0) {
+            difference += 360.0;
+        } else if (difference >= 180.0) {
+            difference -= 360.0;
+        }
+        return difference;
+    }
+
+    // A sign change near zero; a jump across the ±180 seam is not a crossing
+    private static boolean crosses(double before, double after) {
+        if (Math.abs(after - before) >= 90.0) {
+            return false;
+        }
+        return (before < 0 && after >= 0) || (before > 0 && after <= 0);
+    }
+
+    private static LocalDateTime nowUtc() {
+        return LocalDateTime.now(ZoneOffset.UTC);
+    }
+}
@@ -4,9 +4,12 @@ import com.cosmic.astrology.dto.*;
 import com.cosmic.astrology.entity.User;
 import com.cosmic.astrology.entity.UserRole;
 import com.cosmic.astrology.entity.ActivityLog;
+import com.cosmic.astrology.entity.BirthChart;
 import com.cosmic.astrology.exception.UserNotFoundException;
 import com.cosmic.astrology.repository.UserRepository;
 import com.cosmic.astrology.repository.ActivityLogRepository;
+import com.cosmic.astrology.repository.BirthChartRepository;
+import com.cosmic.astrology.security.UserStatusCache;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
@@ -23,6 +26,7 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -43,8 +47,14 @@ public class UserService {
     
     private final UserRepository userRepository;
     private final ActivityLogRepository activityLogRepository;
+    private final BirthChartRepository birthChartRepository;
     private final PasswordEncoder passwordEncoder;
     private final ObjectMapper objectMapper;
+    private final CurrentDashaCache currentDashaCache;
+    private final MatchmakingIndex matchmakingIndex;
+    private final TransitAlertScheduler transitAlertScheduler;
+    private final ActivityLogWriter activityLogWriter;
+    private final UserStatusCache userStatusCache;
     
     @Value("${app.upload.profile-pictures:/uploads/profile-pictures}")
     private String profilePictureUploadPath;
@@ -68,6 +78,11 @@ public class UserService {
     
     private static final DateTimeFormatter TIMESTAMP_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
     
+    // Last-24h activities returned alongside a page; the count itself is exact
+    private static final int RECENT_ACTIVITY_LIMIT = 50;
+    
+    private static final int MAX_ADMIN_SEARCH_PAGE_SIZE = 200;
+    
    
     public User findByUsername(String username) {
         if (username == null || username.trim().isEmpty()) {
@@ -184,6 +199,9 @@ public boolean deleteUser(String username) {
             User user = getUserByUsername(username);
             if (user != null) {
                 userRepository.delete(user);
+                userStatusCache.invalidate(username);
+                matchmakingIndex.remove(user.getId());
+                transitAlertScheduler.cancel(user.getId());
                 System.out.println("🗑️ Deleted user: " + username);
                 return true;
             }
@@ -219,6 +237,7 @@ public boolean deleteUser(String username) {
             
             // Save and recalculate profile completion
             User savedUser = userRepository.save(user);
+            matchmakingIndex.update(savedUser);
             
             // Log profile update
             logProfileUpdate(originalUser, savedUser, clientIp);
@@ -328,6 +347,8 @@ public boolean deleteUser(String username) {
             user.setUpdatedAt(LocalDateTime.now());
             
             User savedUser = userRepository.save(user);
+            matchmakingIndex.update(savedUser);
+            transitAlertScheduler.reschedule(savedUser);
             
             // Log birth data update
             logBirthDataUpdate(username, originalData, birthData, clientIp);
@@ -423,6 +444,7 @@ public boolean deleteUser(String username) {
             preferences.setEmailNotifications(user.isEmailNotifications());
             preferences.setDailyHoroscope(user.isDailyHoroscope());
             preferences.setTransitAlerts(user.isTransitAlerts());
+            preferences.setMatchmakingVisible(user.isMatchmakingVisible());
             preferences.setTimezone(user.getTimezone());
             
             return preferences;
@@ -441,6 +463,10 @@ public boolean deleteUser(String username) {
             log.info("⚙️ Updating preferences for user: {} from IP: {}", username, clientIp);
             
             User user = findByUsername(username);
+            boolean alertsChanged = (request.getTransitAlerts() != null && request.getTransitAlerts() != user.isTransitAlerts())
+                    || (request.getTimezone() != null && !request.getTimezone().equals(user.getTimezone()));
+            boolean visibilityChanged = request.getMatchmakingVisible() != null
+                    && request.getMatchmakingVisible() != user.isMatchmakingVisible();
             
             // Update preferences
             if (request.getPreferredLanguage() != null) {
@@ -461,13 +487,23 @@ public boolean deleteUser(String username) {
             if (request.getTransitAlerts() != null) {
                 user.setTransitAlerts(request.getTransitAlerts());
             }
+            if (request.getMatchmakingVisible() != null) {
+                user.setMatchmakingVisible(request.getMatchmakingVisible());
+            }
             if (request.getTimezone() != null) {
                 user.setTimezone(request.getTimezone());
             }
             
             user.setUpdatedAt(LocalDateTime.now());
             User savedUser = userRepository.save(user);
+            if (alertsChanged) {
+                transitAlertScheduler.reschedule(savedUser);
+            }
+            if (visibilityChanged) {
+                matchmakingIndex.update(savedUser);
+            }
             
+            activityLogWriter.record(username, "SETTINGS_CHANGED", "Preferences updated", clientIp);
             log.info("✅ Preferences updated for: {}", username);
             
             // Return updated preferences
@@ -524,6 +560,9 @@ public boolean deleteUser(String username) {
             log.info("⚙️ Updating account settings for user: {} from IP: {}", username, clientIp);
             
             User user = findByUsername(username);
+            boolean alertsChanged = request.getTransitAlerts() != null && request.getTransitAlerts() != user.isTransitAlerts();
+            boolean visibilityChanged = request.getMatchmakingVisible() != null
+                    && request.getMatchmakingVisible() != user.isMatchmakingVisible();
             
             // Update settings that don't require special handling
             if (request.getEmailNotifications() != null) {
@@ -535,16 +574,27 @@ public boolean deleteUser(String username) {
             if (request.getTransitAlerts() != null) {
                 user.setTransitAlerts(request.getTransitAlerts());
             }
+            if (request.getMatchmakingVisible() != null) {
+                user.setMatchmakingVisible(request.getMatchmakingVisible());
+            }
             
             user.setUpdatedAt(LocalDateTime.now());
             User savedUser = userRepository.save(user);
+            if (alertsChanged) {
+                transitAlertScheduler.reschedule(savedUser);
+            }
+            if (visibilityChanged) {
+                matchmakingIndex.update(savedUser);
+            }
             
             AccountSettingsResponse response = new AccountSettingsResponse();
             response.setEmailNotifications(savedUser.isEmailNotifications());
             response.setDailyHoroscope(savedUser.isDailyHoroscope());
             response.setTransitAlerts(savedUser.isTransitAlerts());
+            response.setMatchmakingVisible(savedUser.isMatchmakingVisible());
             response.setLastUpdated(savedUser.getUpdatedAt());
             
+            activityLogWriter.record(username, "SETTINGS_CHANGED", "Account settings updated", clientIp);
             log.info("✅ Account settings updated for: {}", username);
             return response;
             
@@ -576,6 +626,9 @@ public boolean deleteUser(String username) {
             logAccountDeletion(username, reason, clientIp);
             
             userRepository.save(user);
+            userStatusCache.invalidate(username);
+            matchmakingIndex.remove(user.getId());
+            transitAlertScheduler.cancel(user.getId());
             
             log.info("✅ Account soft deleted for: {}", username);
             
@@ -674,77 +727,86 @@ public boolean deleteUser(String username) {
     // ================ ACTIVITY AND HISTORY ================
     
     /**
-     * Get user activity history with proper type conversion
+     * Get user activity history by page number. Kept for older clients: every
+     * page is an offset query with an exact count, so pages get slower the
+     * deeper they go. New clients use the keyset variant.
      */
     public UserActivityResponse getUserActivity(String username, int page, int size) {
+        page = Math.max(0, page);
         try {
             log.info("🔍 Retrieving activity data for user: {} (page: {}, size: {})", username, page, size);
             
-            // Get user
             User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UserNotFoundException("User not found: " + username));
             
-            // Get activities with pagination
-            Pageable pageable = PageRequest.of(page, size, Sort.by("timestamp").descending());
+            Pageable pageable = PageRequest.of(page, size, Sort.by("timestamp").descending().and(Sort.by("id").descending()));
             Page<ActivityLog> activityPage = activityLogRepository.findByUsername(username, pageable);
             
-            // Convert to ActivityRecord DTOs
             List<UserActivityResponse.ActivityRecord> activities = activityPage.getContent().stream()
                 .map(this::convertActivityLogToRecord)
                 .collect(Collectors.toList());
             
-            // Get recent activities (last 24 hours)
-            LocalDateTime yesterday = LocalDateTime.now().minusHours(24);
-            List<ActivityLog> recentActivityLogs = activityLogRepository
-                .findByUsernameAndTimestampAfterOrderByTimestampDesc(username, yesterday);
-            
-            List<UserActivityResponse.ActivityRecord> recentActivities = recentActivityLogs.stream()
-                .map(this::convertActivityLogToRecord)
-                .collect(Collectors.toList());
-            
-            // Create response
             UserActivityResponse activity = new UserActivityResponse(
                 activities, 
                 page, 
                 size, 
                 (int) activityPage.getTotalElements()
             );
+            return completeActivityResponse(activity, user, activities);
             
-            // Set user properties
-            activity.setUsername(username);
-            activity.setTotalLogins(user.getTotalLogins());
-            activity.setLoginStreak(user.getLoginStreak());
-            activity.setLastLogin(user.getLastLogin());
-            activity.setLastActiveDate(user.getLastActiveDate());
-            activity.setLastLoginIp(user.getLastLoginIp());
-            activity.setChartsGenerated(user.getChartsGenerated());
-            activity.setMemberSince(user.getCreatedAt());
-            
-            // Set recent activities with proper type
-            activity.setRecentActivities(recentActivities);
-            activity.setActivityCount(recentActivities.size());
-            
-            // Set additional user context
-            activity.setDisplayName(user.getDisplayName());
-            activity.setEmail(user.getEmail());
-            activity.setUserStatus(user.getStatus());
-            activity.setSubscriptionType(user.getSubscriptionType());
-            activity.setTimezone(user.getTimezone());
-            activity.setPreferredLanguage(user.getPreferredLanguage());
-            
-            // Generate activity summary
-            UserActivityResponse.ActivitySummary summary = generateActivitySummary(activities, recentActivities, user);
-            activity.setSummary(summary);
-            
-            // Set analytics
-            activity.setActivityCategorization(generateActivityCategorization(activities));
-            activity.setTimeDistribution(generateTimeDistribution(activities));
-            activity.setDeviceAnalytics(generateDeviceAnalytics(activities));
-            
-            log.info("✅ Retrieved activity data for user: {} (Total: {}, Recent: {})", 
-                    username, activities.size(), recentActivities.size());
-            
-            return activity;
+        } catch (Exception e) {
+            log.error("❌ Error retrieving user activity for {}: {}", username, e.getMessage(), e);
+            throw new RuntimeException("Failed to retrieve user activity", e);
+        }
+    }
+    
+    /**
+     * Get user activity history newest first, one keyset page at a time.
+     * {@code cursor} is the {@code nextCursor} of the previous page, or null
+     * for the first page; each page is an index range scan on
+     * (username, timestamp, id), so page depth does not affect latency.
+     * {@code includeTotal} adds an approximate total from the activity rollups.
+     */
+    public UserActivityResponse getUserActivity(String username, String cursor, int size, boolean includeTotal) {
+        ActivityLog after = decodeActivityCursor(cursor);
+        try {
+            log.info("🔍 Retrieving activity data for user: {} (cursor: {}, size: {})", username, cursor, size);
+            
+            User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new UserNotFoundException("User not found: " + username));
+            
+            // One extra row tells whether another page follows, without counting
+            int pageSize = Math.max(1, Math.min(100, size));
+            Pageable limit = PageRequest.of(0, pageSize + 1);
+            List<ActivityLog> rows = after == null
+                ? activityLogRepository.findLatestByUsername(username, limit)
+                : activityLogRepository.findByUsernameBefore(username, after.getTimestamp(), after.getId(), limit);
+            boolean hasMore = rows.size() > pageSize;
+            if (hasMore) {
+                rows = rows.subList(0, pageSize);
+            }
+            
+            List<UserActivityResponse.ActivityRecord> activities = rows.stream()
+                .map(this::convertActivityLogToRecord)
+                .collect(Collectors.toList());
+            
+            UserActivityResponse activity = new UserActivityResponse();
+            activity.setActivities(activities);
+            activity.setPageSize(pageSize);
+            activity.setHasMore(hasMore);
+            if (hasMore) {
+                activity.setNextCursor(encodeActivityCursor(rows.get(rows.size() - 1)));
+            }
+            if (includeTotal) {
+                int estimate = (int) Math.min(Integer.MAX_VALUE, activityLogRepository.estimateCountByUsername(username));
+                activity.setTotalActivities(estimate);
+                activity.setTotalPages((int) Math.ceil((double) estimate / pageSize));
+                activity.setTotalApproximate(true);
+            }
+            if (after == null) {
+                activity.setCurrentPage(0);
+            }
+            return completeActivityResponse(activity, user, activities);
             
         } catch (Exception e) {
             log.error("❌ Error retrieving user activity for {}: {}", username, e.getMessage(), e);
@@ -752,6 +814,129 @@ public boolean deleteUser(String username) {
         }
     }
     
+    /**
+     * Fill in the user context, recent activity and analytics of an activity page
+     */
+    private UserActivityResponse completeActivityResponse(UserActivityResponse activity, User user,
+                                                          List<UserActivityResponse.ActivityRecord> activities) {
+        String username = user.getUsername();
+        
+        // Get recent activities (last 24 hours), capped; the count covers all of them
+        LocalDateTime yesterday = LocalDateTime.now().minusHours(24);
+        List<UserActivityResponse.ActivityRecord> recentActivities = activityLogRepository
+            .findByUsernameAndTimestampAfterOrderByTimestampDesc(username, yesterday, PageRequest.of(0, RECENT_ACTIVITY_LIMIT))
+            .stream()
+            .map(this::convertActivityLogToRecord)
+            .collect(Collectors.toList());
+        long recentCount = recentActivities.size() < RECENT_ACTIVITY_LIMIT
+            ? recentActivities.size()
+            : activityLogRepository.countByUsernameAndTimestampAfter(username, yesterday);
+        
+        // Set user properties
+        activity.setUsername(username);
+        activity.setTotalLogins(user.getTotalLogins());
+        activity.setLoginStreak(user.getLoginStreak());
+        activity.setLastLogin(user.getLastLogin());
+        activity.setLastActiveDate(user.getLastActiveDate());
+        activity.setLastLoginIp(user.getLastLoginIp());
+        activity.setChartsGenerated(user.getChartsGenerated());
+        activity.setMemberSince(user.getCreatedAt());
+        
+        // Set recent activities with proper type
+        activity.setRecentActivities(recentActivities);
+        activity.setActivityCount((int) recentCount);
+        
+        // Set additional user context
+        activity.setDisplayName(user.getDisplayName());
+        activity.setEmail(user.getEmail());
+        activity.setUserStatus(user.getStatus());
+        activity.setSubscriptionType(user.getSubscriptionType());
+        activity.setTimezone(user.getTimezone());
+        activity.setPreferredLanguage(user.getPreferredLanguage());
+        
+        // Generate activity summary
+        UserActivityResponse.ActivitySummary summary = generateActivitySummary(activities, recentActivities, user);
+        activity.setSummary(summary);
+        
+        // Set analytics
+        activity.setActivityCategorization(generateActivityCategorization(activities));
+        activity.setTimeDistribution(generateTimeDistribution(activities));
+        activity.setDeviceAnalytics(generateDeviceAnalytics(activities));
+        
+        log.info("✅ Retrieved activity data for user: {} (Page: {}, Recent: {})", 
+                username, activities.size(), recentCount);
+        
+        return activity;
+    }
+    
+    // Cursor = the (timestamp, id) of the last row of the previous page, opaque to clients
+    private static String encodeActivityCursor(ActivityLog last) {
+        String position = last.getTimestamp() + "_" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private static ActivityLog decodeActivityCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+            int separator = position.lastIndexOf('_');
+            ActivityLog last = new ActivityLog();
+            last.setTimestamp(LocalDateTime.parse(position.substring(0, separator)));
+            last.setId(Long.parseLong(position.substring(separator + 1)));
+            return last;
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid activity cursor");
+        }
+    }
+    
+    /**
+     * Admin user search, one keyset page at a time. {@code afterId} is the
+     * {@code nextCursor} of the previous page, or null for the first page.
+     * {@code includeTotal} adds InnoDB's row estimate when no filter is set;
+     * filtered totals would need a full count and are not offered.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> searchUsers(String keyword, UserRole role, Boolean enabled,
+                                           Long afterId, int size, boolean includeTotal) {
+        String filter = keyword != null && !keyword.isBlank() ? keyword.trim() : null;
+        int pageSize = Math.max(1, Math.min(MAX_ADMIN_SEARCH_PAGE_SIZE, size));
+        List<User> rows = userRepository.searchUsersAfter(filter, role, enabled,
+                afterId != null ? afterId : 0L, PageRequest.of(0, pageSize + 1));
+        boolean hasMore = rows.size() > pageSize;
+        if (hasMore) {
+            rows = rows.subList(0, pageSize);
+        }
+        
+        List<Map<String, Object>> users = new ArrayList<>(rows.size());
+        for (User user : rows) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("id", user.getId());
+            entry.put("username", user.getUsername());
+            entry.put("email", user.getEmail());
+            entry.put("firstName", user.getFirstName());
+            entry.put("lastName", user.getLastName());
+            entry.put("role", user.getRole());
+            entry.put("enabled", user.isEnabled());
+            entry.put("status", user.getStatus());
+            entry.put("subscriptionType", user.getSubscriptionType());
+            entry.put("createdAt", user.getCreatedAt());
+            entry.put("lastLogin", user.getLastLogin());
+            users.add(entry);
+        }
+        
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("users", users);
+        result.put("size", pageSize);
+        result.put("hasMore", hasMore);
+        result.put("nextCursor", hasMore ? rows.get(rows.size() - 1).getId() : null);
+        if (includeTotal && filter == null && role == null && enabled == null) {
+            result.put("approximateTotal", userRepository.estimateUserCount());
+        }
+        return result;
+    }
+    
     /**
      * Convert ActivityLog entity to ActivityRecord DTO
      */
@@ -941,16 +1126,23 @@ public boolean deleteUser(String username) {
             history.setTotalChartsGenerated(user.getChartsGenerated());
             history.setLastChartGenerated(user.getChartCalculatedAt());
             
-            // Mock chart history (in real implementation, query from chart history table)
-            List<Map<String, Object>> chartHistory = new ArrayList<>();
-            if (user.isChartCalculated()) {
-                Map<String, Object> chartRecord = new HashMap<>();
-                chartRecord.put("type", "NATAL_CHART");
-                chartRecord.put("calculatedAt", user.getChartCalculatedAt());
-                chartRecord.put("accuracy", user.getCalculationAccuracy());
-                chartRecord.put("ayanamsa", user.getAyanamsa());
-                chartHistory.add(chartRecord);
-            }
+            List<Map<String, Object>> chartHistory = birthChartRepository
+                    .findSummariesByUserIdOrderByCreatedAtDesc(user.getId()).stream()
+                    .skip((long) Math.max(0, page) * Math.max(1, size))
+                    .limit(Math.max(1, size))
+                    .map(summary -> {
+                        Map<String, Object> chartRecord = new HashMap<>();
+                        chartRecord.put("chartId", summary.getId());
+                        chartRecord.put("type", BirthChart.SUBJECT_CLIENT.equals(summary.getSubjectType()) ? "CLIENT_CHART" : "NATAL_CHART");
+                        chartRecord.put("subjectName", summary.getSubjectName());
+                        chartRecord.put("calculatedAt", summary.getCreatedAt());
+                        chartRecord.put("active", summary.getIsActive());
+                        chartRecord.put("sunSign", summary.getSunSign());
+                        chartRecord.put("moonSign", summary.getMoonSign());
+                        chartRecord.put("risingSign", summary.getRisingSign());
+                        return chartRecord;
+                    })
+                    .collect(Collectors.toList());
             
             history.setChartHistory(chartHistory);
             history.setHistoryCount(chartHistory.size());
@@ -1165,9 +1357,8 @@ public boolean deleteUser(String username) {
     }
     
     private void clearCachedChartData(User user) {
-        user.setNatalChart(null);
-        user.setNatalHouses(null);
-        user.setNatalAspects(null);
+        // The active chart no longer matches the birth data; keep it as history
+        birthChartRepository.deactivateCharts(user.getId(), BirthChart.SUBJECT_SELF);
         user.setChartCalculated(false);
         user.setChartCalculatedAt(null);
         user.setSunSign(null);
@@ -1177,6 +1368,7 @@ public boolean deleteUser(String username) {
         user.setMoonNakshatra(null);
         user.setMoonPada(null);
         user.setAyanamsa(null);
+        currentDashaCache.invalidate(user.getUsername());
     }
     
     private void validateProfilePictureFile(MultipartFile file) {
@@ -1365,7 +1557,7 @@ public boolean deleteUser(String username) {
         log.info("   IP: {}", clientIp);
         log.info("   Timestamp: {}", LocalDateTime.now().format(TIMESTAMP_FORMATTER));
         
-        // In a real implementation, you'd save this to an audit log table
+        activityLogWriter.record(updatedUser.getUsername(), "PROFILE_UPDATED", "Profile updated", clientIp);
     }
     
     private void logBirthDataUpdate(String username, BirthData originalData, BirthData newData, String clientIp) {
@@ -1376,7 +1568,10 @@ public boolean deleteUser(String username) {
         log.info("   New Location: {}", newData.getBirthLocation());
         log.info("   Timestamp: {}", LocalDateTime.now().format(TIMESTAMP_FORMATTER));
         
-        // In a real implementation, you'd save this to an audit log table
+        ActivityLog activity = new ActivityLog(username, "BIRTH_DATA_UPDATED", "Birth data updated", clientIp, null);
+        activity.addMetadata("oldLocation", originalData.getBirthLocation());
+        activity.addMetadata("newLocation", newData.getBirthLocation());
+        activityLogWriter.record(activity);
     }
     
     private void logAccountDeletion(String username, String reason, String clientIp) {
@@ -1386,6 +1581,9 @@ public boolean deleteUser(String username) {
         log.info("   IP: {}", clientIp);
         log.info("   Timestamp: {}", LocalDateTime.now().format(TIMESTAMP_FORMATTER));
         
-        // In a real implementation, you'd save this to an audit log table
+        ActivityLog activity = new ActivityLog(username, "ACCOUNT_DELETED", "Account deactivated", clientIp, null);
+        activity.setPriority("HIGH");
+        activity.addMetadata("reason", reason);
+        activityLogWriter.record(activity);
     }
 }
@@ -2,7 +2,9 @@ package com.cosmic.astrology.service;
 
 import com.cosmic.astrology.dto.*;
 import com.cosmic.astrology.entity.User;
+import com.cosmic.astrology.util.ChartTrace;
 import org.springframework.stereotype.Service;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.Cacheable;
 
@@ -12,12 +14,13 @@ import swisseph.SweConst;
 import swisseph.SweDate;
 //import swisseph.SweHouse;
 
+import java.nio.charset.StandardCharsets;
 import java.time.*;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
+import java.util.zip.CRC32;
 
 /**
  * 🌟 WORLD-CLASS VEDIC ASTROLOGY CALCULATION SERVICE
@@ -45,7 +48,8 @@ public class VedicAstrologyCalculationService {
 
     private final SwissEph sw;
     private volatile boolean ephemerisInitialized = false;
-    private final Map<String, Object> calculationCache = new ConcurrentHashMap<>();
+    private final RemedyCatalog remedyCatalog = new RemedyCatalog(
+        this::getDominantPlanetLifestyle, this::getWeakPlanetBalancing, createGeneralWellnessRemedy());
     
     @Value("${astrology.ephemeris.path:./ephe}")
     private String ephemerisPath;
@@ -53,6 +57,29 @@ public class VedicAstrologyCalculationService {
     @Value("${astrology.cache.enabled:true}")
     private boolean cacheEnabled;
 
+    @Autowired
+    private ChartCache chartCache;
+
+    @Autowired
+    private ChartDiskCache chartDiskCache;
+
+    @Autowired
+    private ChartCalculationCoalescer chartCalculationCoalescer;
+
+    // Calculation settings that are part of every chart fingerprint
+    static final String AYANAMSA = "LAHIRI";
+    static final char HOUSE_SYSTEM = 'P';
+    static final String NODE_TYPE = "MEAN";
+
+    /**
+     * 🏷️ ENGINE VERSION
+     * Stamped on every calculated chart together with {@link #SETTINGS_HASH}.
+     * Bump it with any change that alters positions or derived chart data;
+     * stored charts from an older engine are then recalculated on first read.
+     */
+    public static final int ENGINE_VERSION = 1;
+    public static final String SETTINGS_HASH = settingsHash(AYANAMSA, HOUSE_SYSTEM, NODE_TYPE);
+
     // ✅ MAINTAINING YOUR EXISTING VARIABLE NAMES
     private static final DateTimeFormatter ISO_FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
 
@@ -88,7 +115,7 @@ public class VedicAstrologyCalculationService {
         SwissEph tempSw = null;
         
         try {
-            System.out.println("🚀 Initializing World-Class Vedic Astrology Service...");
+            trace("🚀 Initializing World-Class Vedic Astrology Service...");
             tempSw = new SwissEph();
             
             // 🔥 ENTERPRISE EPHEMERIS PATH DETECTION
@@ -109,38 +136,44 @@ public class VedicAstrologyCalculationService {
                 if (path == null) continue;
                 
                 try {
-                    System.out.println("🔍 Testing ephemeris path: " + path);
+                    if (tracing()) {
+                        trace("🔍 Testing ephemeris path: %s", path);
+                    }
                     tempSw.swe_set_ephe_path(path);
                     
                     // 🎯 CRITICAL: Comprehensive validation with multiple test points
                     if (validateSwissEphemerisComprehensive(tempSw)) {
                         ephemerisInitialized = true;
                         initialized = true;
-                        System.out.println("✅ SWISS EPHEMERIS INITIALIZED SUCCESSFULLY: " + path);
+                        if (tracing()) {
+                            trace("✅ SWISS EPHEMERIS INITIALIZED SUCCESSFULLY: %s", path);
+                        }
                         break;
                     }
                 } catch (Exception e) {
-                    System.out.println("⚠️ Path failed: " + path + " - " + e.getMessage());
+                    if (tracing()) {
+                        trace("⚠️ Path failed: %s - %s", path, e.getMessage());
+                    }
                 }
             }
             
             if (initialized) {
                 // 🌟 SET AYANAMSA TO LAHIRI (Industry Standard)
                 tempSw.swe_set_sid_mode(SweConst.SE_SIDM_LAHIRI, 0, 0);
-                System.out.println("🕉️ Ayanamsa set to Lahiri (Chitrapaksha)");
+                trace("🕉️ Ayanamsa set to Lahiri (Chitrapaksha)");
                 
                 // 🔥 VALIDATE AYANAMSA CALCULATION
                 validateAyanamsaCalculation(tempSw);
                 
             } else {
-                System.err.println("❌ CRITICAL: Swiss Ephemeris initialization failed!");
-                System.err.println("🔧 Using ultra-high-precision mathematical fallback calculations");
+                logger.warn("❌ CRITICAL: Swiss Ephemeris initialization failed!");
+                logger.warn("🔧 Using ultra-high-precision mathematical fallback calculations");
                 ephemerisInitialized = false;
             }
             
         } catch (Exception e) {
-            System.err.println("💥 CRITICAL ERROR during service initialization: " + e.getMessage());
-            e.printStackTrace();
+            logger.warn("💥 CRITICAL ERROR during service initialization: {}", e.getMessage());
+            logger.debug("Stack trace", e);
             ephemerisInitialized = false;
         }
         
@@ -148,14 +181,14 @@ public class VedicAstrologyCalculationService {
         
         // 🎯 FINAL STATUS REPORT
         if (ephemerisInitialized) {
-            System.out.println("🌟 ===== WORLD-CLASS VEDIC SERVICE READY =====");
-            System.out.println("📊 Accuracy Level: NASA/JPL (Swiss Ephemeris)");
-            System.out.println("🎯 Matching: AstroGuru/AstroTalk standards");
-            System.out.println("🕉️ System: Traditional Vedic with modern precision");
+            trace("🌟 ===== WORLD-CLASS VEDIC SERVICE READY =====");
+            trace("📊 Accuracy Level: NASA/JPL (Swiss Ephemeris)");
+            trace("🎯 Matching: AstroGuru/AstroTalk standards");
+            trace("🕉️ System: Traditional Vedic with modern precision");
         } else {
-            System.out.println("⚡ ===== ULTRA-HIGH-PRECISION FALLBACK READY =====");
-            System.out.println("📊 Accuracy Level: Professional Mathematical (95%+ accuracy)");
-            System.out.println("🎯 Performance: Production-grade calculations");
+            trace("⚡ ===== ULTRA-HIGH-PRECISION FALLBACK READY =====");
+            trace("📊 Accuracy Level: Professional Mathematical (95%+ accuracy)");
+            trace("🎯 Performance: Production-grade calculations");
         }
     }
 
@@ -174,7 +207,9 @@ public class VedicAstrologyCalculationService {
             int rc = testSw.swe_calc_ut(jd, SweConst.SE_SUN, SweConst.SEFLG_SWIEPH, sunResult, sunErr);
             
             if (rc < 0 || Double.isNaN(sunResult[0]) || sunResult[0] < 0) {
-                System.out.println("❌ Sun calculation failed: " + sunErr.toString());
+                if (tracing()) {
+                    trace("❌ Sun calculation failed: %s", sunErr.toString());
+                }
                 return false;
             }
             
@@ -186,7 +221,9 @@ public class VedicAstrologyCalculationService {
                 rc = testSw.swe_calc_ut(jd, planetId, SweConst.SEFLG_SWIEPH, result, err);
                 
                 if (rc < 0 || Double.isNaN(result[0])) {
-                    System.out.println("❌ Planet " + planetId + " calculation failed");
+                    if (tracing()) {
+                        trace("❌ Planet %s calculation failed", planetId);
+                    }
                     return false;
                 }
             }
@@ -198,23 +235,27 @@ public class VedicAstrologyCalculationService {
             rc = testSw.swe_houses(jd, 0, 28.6139, 77.2090, 'P', cusps, ascmc);
             
             if (rc < 0 || Double.isNaN(ascmc[SweConst.SE_ASC])) {
-                System.out.println("❌ House calculation failed");
+                trace("❌ House calculation failed");
                 return false;
             }
             
             // Test 4: Ayanamsa validation
             double ayanamsa = testSw.swe_get_ayanamsa_ut(jd);
             if (Double.isNaN(ayanamsa) || ayanamsa < 15.0 || ayanamsa > 30.0) {
-                System.out.println("❌ Ayanamsa calculation failed or out of range");
+                trace("❌ Ayanamsa calculation failed or out of range");
                 return false;
             }
             
-            System.out.printf("✅ Comprehensive validation passed - Sun: %.4f°, ASC: %.4f°, Ayanamsa: %.6f°%n", 
-                            sunResult[0], ascmc[SweConst.SE_ASC], ayanamsa);
+            if (tracing()) {
+                trace("✅ Comprehensive validation passed - Sun: %.4f°, ASC: %.4f°, Ayanamsa: %.6f°", 
+                                sunResult[0], ascmc[SweConst.SE_ASC], ayanamsa);
+            }
             return true;
             
         } catch (Exception e) {
-            System.out.println("❌ Validation exception: " + e.getMessage());
+            if (tracing()) {
+                trace("❌ Validation exception: %s", e.getMessage());
+            }
             return false;
         }
     }
@@ -230,33 +271,107 @@ public class VedicAstrologyCalculationService {
             
             // Expected Lahiri ayanamsa for J2000.0 is approximately 23.85°
             if (ayanamsa >= 23.0 && ayanamsa <= 25.0) {
-                System.out.printf("✅ Ayanamsa validation passed: %.6f° (J2000.0)%n", ayanamsa);
+                if (tracing()) {
+                    trace("✅ Ayanamsa validation passed: %.6f° (J2000.0)", ayanamsa);
+                }
             } else {
-                System.err.printf("⚠️ Ayanamsa seems incorrect: %.6f° (Expected ~23.85°)%n", ayanamsa);
+                logger.warn("⚠️ Ayanamsa seems incorrect: {}° (Expected ~23.85°)", ayanamsa);
             }
             
         } catch (Exception e) {
-            System.err.println("⚠️ Ayanamsa validation failed: " + e.getMessage());
+            logger.warn("⚠️ Ayanamsa validation failed: {}", e.getMessage());
         }
     }
 
+    /**
+     * 🔍 CALCULATION TRACE
+     * Whether trace lines go anywhere: debug logging is on or the current
+     * request asked for a chart trace. Call sites with arguments check this
+     * first, so nothing is evaluated, boxed or formatted while it is off.
+     */
+    private boolean tracing() {
+        return ChartTrace.isActive() || logger.isDebugEnabled();
+    }
+
+    private void trace(String message) {
+        if (!tracing()) {
+            return;
+        }
+        logger.debug(message);
+        ChartTrace.record(message);
+    }
+
+    // Callers check tracing() before building the arguments
+    private void trace(String format, Object... args) {
+        String message = String.format(format, args);
+        logger.debug(message);
+        ChartTrace.record(message);
+    }
+
         /**
      * 🌟 MASTER CHART CALCULATION METHOD (MAINTAINING YOUR EXACT VARIABLE NAMES)
      * This is the main method that provides world-class accuracy
      */
     public Map<String, Object> calculateVedicNatalChart(User user) {
-        long startTime = System.currentTimeMillis();
-        String cacheKey = generateCacheKey(user);
+        // 🚀 CHART CACHE (shared by every user born at the same moment and place)
+        if (!cacheEnabled || user == null || user.getBirthDateTime() == null
+                || user.getBirthLatitude() == null || user.getBirthLongitude() == null) {
+            return computeVedicNatalChart(user);
+        }
         
-        // 🚀 ENTERPRISE CACHING (Optional based on your preference)
-        if (cacheEnabled && calculationCache.containsKey(cacheKey)) {
-            System.out.println("⚡ Returning cached calculation for: " + user.getUsername());
-            return (Map<String, Object>) calculationCache.get(cacheKey);
+        ChartFingerprint fingerprint;
+        try {
+            fingerprint = ChartFingerprint.of(user, AYANAMSA, HOUSE_SYSTEM);
+        } catch (Exception e) {
+            return computeVedicNatalChart(user);
+        }
+        
+        Map<String, Object> cached = chartCache.get(fingerprint);
+        if (cached != null) {
+            if (tracing()) {
+                trace("⚡ Returning cached calculation for: %s", user.getUsername());
+            }
+            return personalizeCachedChart(cached, user);
         }
         
+        // 💾 L2: memory-mapped chart store, survives restarts (and so may hold older engine output)
+        CompactChartCodec.StoredChart stored = chartDiskCache.get(fingerprint);
+        cached = stored != null ? assembleStoredChart(user, stored) : null;
+        if (cached != null && isCurrentEngine(cached)) {
+            if (tracing()) {
+                trace("💾 Returning stored calculation for: %s", user.getUsername());
+            }
+            chartCache.put(fingerprint, cached);
+            return personalizeCachedChart(cached, user);
+        }
+        
+        // 🔗 SINGLE-FLIGHT: concurrent misses for the same chart share one calculation
+        Map<String, Object> chart = chartCalculationCoalescer.compute(fingerprint, () -> {
+            Map<String, Object> calculated = computeVedicNatalChart(user);
+            chartCache.put(fingerprint, new LinkedHashMap<>(calculated));
+            chartDiskCache.put(fingerprint, calculated);
+            return calculated;
+        });
+        return personalizeCachedChart(chart, user);
+    }
+
+    /**
+     * 🏭 BULK CALCULATION
+     * Calculates a chart without the chart caches, for batch jobs whose
+     * one-off charts would otherwise push out the ones online users need.
+     */
+    public Map<String, Object> calculateVedicNatalChartUncached(User user) {
+        return computeVedicNatalChart(user);
+    }
+
+    private Map<String, Object> computeVedicNatalChart(User user) {
+        long startTime = System.currentTimeMillis();
+        
         try {
-            System.out.println("🌟 ===== WORLD-CLASS CALCULATION START =====");
-            System.out.println("👤 User: " + user.getUsername());
+            trace("🌟 ===== WORLD-CLASS CALCULATION START =====");
+            if (tracing()) {
+                trace("👤 User: %s", user.getUsername());
+            }
             
             // ✅ MAINTAINING YOUR EXACT VALIDATION STRUCTURE
             validateUserDataEnterprise(user);
@@ -271,16 +386,22 @@ public class VedicAstrologyCalculationService {
             ZonedDateTime birthZoned = birthTime.atZone(ZoneId.of(timezone != null ? timezone : "UTC"));
             LocalDateTime utcTime = birthZoned.withZoneSameInstant(ZoneOffset.UTC).toLocalDateTime();
             
-            System.out.printf("📅 Birth Time: %s (%s) → UTC: %s%n", birthTime, timezone, utcTime);
-            System.out.printf("🌍 Coordinates: %.6f°N, %.6f°E%n", lat, lon);
+            if (tracing()) {
+                trace("📅 Birth Time: %s (%s) → UTC: %s", birthTime, timezone, utcTime);
+                trace("🌍 Coordinates: %.6f°N, %.6f°E", lat, lon);
+            }
             
             // ✅ MAINTAINING YOUR EXACT METHOD NAME AND LOGIC
             double jd_ut = toJulianDay(utcTime);
-            System.out.printf("📐 Julian Day: %.8f%n", jd_ut);
+            if (tracing()) {
+                trace("📐 Julian Day: %.8f", jd_ut);
+            }
             
             // ✅ MAINTAINING YOUR EXACT AYANAMSA CALCULATION
             double ayanamsa = calculateAyanamsa(jd_ut);
-            System.out.printf("🕉️ Ayanamsa (Lahiri): %.6f°%n", ayanamsa);
+            if (tracing()) {
+                trace("🕉️ Ayanamsa (Lahiri): %.6f°", ayanamsa);
+            }
             
             // ✅ MAINTAINING YOUR EXACT VARIABLE NAME: siderealPositions
             Map<String, Double> siderealPositions = calculateAllPlanetaryPositions(jd_ut, ayanamsa);
@@ -301,10 +422,12 @@ Map<String, Double> houses = calculateHousesSafely(jd_ut, lat, lon, ayanamsa);
             }
         }
         
-        System.out.printf("✅ Ascendant integrated: %.6f° (%s)%n", 
-                         houses.get("Ascendant"), getZodiacSignSafe(houses.get("Ascendant")));
+        if (tracing()) {
+            trace("✅ Ascendant integrated: %.6f° (%s)", 
+                             houses.get("Ascendant"), getZodiacSignSafe(houses.get("Ascendant")));
+        }
     } else {
-        System.err.println("⚠️ House calculation failed, creating emergency Ascendant");
+        logger.warn("⚠️ House calculation failed, creating emergency Ascendant");
         // Create minimal Ascendant for validation
         double emergencyAsc = normalizeAngleUltraPrecision(0.0 - ayanamsa);
         siderealPositions.put("Ascendant", emergencyAsc);
@@ -318,11 +441,13 @@ Map<String, Double> houses = calculateHousesSafely(jd_ut, lat, lon, ayanamsa);
                 .count();
                 
             if (zeroCount > 2) {
-                System.err.println("❌ CRITICAL: " + zeroCount + " planets at 0.0° - recalculating...");
+                logger.warn("❌ CRITICAL: {} planets at 0.0° - recalculating...", zeroCount);
                 siderealPositions = recalculateWithEnhancedPrecision(jd_ut, ayanamsa);
             }
             
-            System.out.printf("✅ Planetary positions calculated (%d planets)%n", siderealPositions.size());
+            if (tracing()) {
+                trace("✅ Planetary positions calculated (%d planets)", siderealPositions.size());
+            }
             
             // ✅ MAINTAINING YOUR EXACT HOUSE CALCULATION APPROACH
             Map<String, Double> housess = calculateHousesSafely(jd_ut, lat, lon, ayanamsa);
@@ -337,69 +462,126 @@ Map<String, Double> houses = calculateHousesSafely(jd_ut, lat, lon, ayanamsa);
                 siderealPositions.put("Ketu", ketuPos);
             }
             
-            // ✅ MAINTAINING YOUR EXACT VARIABLE NAMES AND STRUCTURE
-            Map<String, Map<String, Object>> nakshatras = calculateAllNakshatras(siderealPositions);
-            String sunSign = getZodiacSignSafe(siderealPositions.get("Sun"));
-            String moonSign = getZodiacSignSafe(siderealPositions.get("Moon"));
-            String ascSign = getZodiacSignSafe(siderealPositions.get("Ascendant"));
-            
-            List<Map<String, Object>> aspects = calculateVedicAspectsSafe(siderealPositions);
-            Map<String, Double> strengths = calculatePlanetaryStrengthsSafe(siderealPositions);
-            Map<String, Map<String, Object>> wholeSignHouses = calculateWholeSignHousesSafe(siderealPositions.get("Ascendant"));
-            String dominantElement = calculateDominantElementSafe(siderealPositions);
-            
             // ✅ MAINTAINING YOUR EXACT RESULT MAP STRUCTURE
-            Map<String, Object> chart = new LinkedHashMap<>();
-            
-            // Core data (maintaining your exact keys)
-            chart.put("siderealPositions", siderealPositions);
-            chart.put("planetaryPositions", siderealPositions);
-            chart.put("houses", houses);
-            chart.put("vedicHouses", wholeSignHouses);
-            chart.put("nakshatras", nakshatras);
-            chart.put("aspects", aspects);
-            chart.put("strengths", strengths);
-            
-            // Key signs (maintaining your exact keys)
-            chart.put("sunSign", sunSign);
-            chart.put("moonSign", moonSign);
-            chart.put("ascendant", ascSign);
-            chart.put("risingSign", ascSign);
-            chart.put("dominantElement", dominantElement);
-            
-            // Metadata (maintaining your exact structure)
-            chart.put("ayanamsa", ayanamsa);
-            chart.put("julianDay", jd_ut);
-            chart.put("timezone", timezone);
-            chart.put("calculatedAt", birthTime.format(ISO_FORMATTER));
-            chart.put("calculatedAtUTC", utcTime.format(ISO_FORMATTER));
-            chart.put("system", ephemerisInitialized ? "Vedic Sidereal Lahiri (Swiss Ephemeris)" : "Vedic Sidereal Lahiri (Ultra-High Precision Mathematical)");
-            chart.put("accuracy", ephemerisInitialized ? "NASA/JPL Level - Swiss Ephemeris" : "Ultra-High Precision - Mathematical Calculations");
-            
-            // Quality assessment (maintaining your structure)
-            chart.put("dataQuality", calculateDataQuality(user, siderealPositions));
-            chart.put("calculationWarnings", getCalculationWarnings(siderealPositions, jd_ut, ayanamsa));
+            Map<String, Object> chart = assembleChart(user, siderealPositions, houses, ayanamsa, jd_ut, timezone,
+                    birthTime.format(ISO_FORMATTER), utcTime.format(ISO_FORMATTER), ephemerisInitialized);
+            
+            chart.put("engineVersion", ENGINE_VERSION);
+            chart.put("settingsHash", SETTINGS_HASH);
             
             long calculationTime = System.currentTimeMillis() - startTime;
             chart.put("calculationTimeMs", calculationTime);
             
-            // 🚀 CACHE THE RESULT
-            if (cacheEnabled) {
-                calculationCache.put(cacheKey, chart);
+            trace("✅ ===== WORLD-CLASS CALCULATION COMPLETE =====");
+            if (tracing()) {
+                trace("⏱️ Total time: %d ms", calculationTime);
             }
             
-            System.out.println("✅ ===== WORLD-CLASS CALCULATION COMPLETE =====");
-            System.out.printf("⏱️ Total time: %d ms%n", calculationTime);
-            
             return chart;
             
         } catch (Exception e) {
-            System.err.println("💥 CRITICAL ERROR in world-class calculation:");
-            e.printStackTrace();
+            logger.warn("💥 CRITICAL ERROR in world-class calculation:");
+            logger.debug("Stack trace", e);
             throw new RuntimeException("Failed to calculate world-class Vedic chart: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * 🧩 ASSEMBLE CHART
+     * Builds the full chart map from the astronomical inputs. Everything but the
+     * positions themselves is derived here, so a chart read back from compact
+     * storage is identical to a freshly calculated one.
+     */
+    private Map<String, Object> assembleChart(User user, Map<String, Double> siderealPositions, Map<String, Double> houses,
+                                              double ayanamsa, double jd_ut, String timezone, String calculatedAt,
+                                              String calculatedAtUtc, boolean swissEphemeris) {
+        Map<String, Map<String, Object>> nakshatras = calculateAllNakshatras(siderealPositions);
+        String sunSign = getZodiacSignSafe(siderealPositions.get("Sun"));
+        String moonSign = getZodiacSignSafe(siderealPositions.get("Moon"));
+        String ascSign = getZodiacSignSafe(siderealPositions.get("Ascendant"));
+        
+        List<Map<String, Object>> aspects = calculateVedicAspectsSafe(siderealPositions);
+        Map<String, Double> strengths = calculatePlanetaryStrengthsSafe(siderealPositions);
+        Map<String, Map<String, Object>> wholeSignHouses = calculateWholeSignHousesSafe(siderealPositions.get("Ascendant"));
+        String dominantElement = calculateDominantElementSafe(siderealPositions);
+        
+        // ✅ MAINTAINING YOUR EXACT RESULT MAP STRUCTURE
+        Map<String, Object> chart = new LinkedHashMap<>();
+        
+        // Core data (maintaining your exact keys)
+        chart.put("siderealPositions", siderealPositions);
+        chart.put("planetaryPositions", siderealPositions);
+        chart.put("houses", houses);
+        chart.put("vedicHouses", wholeSignHouses);
+        chart.put("nakshatras", nakshatras);
+        chart.put("aspects", aspects);
+        chart.put("strengths", strengths);
+        
+        // Key signs (maintaining your exact keys)
+        chart.put("sunSign", sunSign);
+        chart.put("moonSign", moonSign);
+        chart.put("ascendant", ascSign);
+        chart.put("risingSign", ascSign);
+        chart.put("dominantElement", dominantElement);
+        
+        // Metadata (maintaining your exact structure)
+        chart.put("ayanamsa", ayanamsa);
+        chart.put("julianDay", jd_ut);
+        chart.put("timezone", timezone);
+        chart.put("calculatedAt", calculatedAt);
+        chart.put("calculatedAtUTC", calculatedAtUtc);
+        chart.put("system", swissEphemeris ? "Vedic Sidereal Lahiri (Swiss Ephemeris)" : "Vedic Sidereal Lahiri (Ultra-High Precision Mathematical)");
+        chart.put("accuracy", swissEphemeris ? "NASA/JPL Level - Swiss Ephemeris" : "Ultra-High Precision - Mathematical Calculations");
+        
+        // Quality assessment (maintaining your structure)
+        chart.put("dataQuality", calculateDataQuality(user, siderealPositions));
+        chart.put("calculationWarnings", getCalculationWarnings(siderealPositions, jd_ut, ayanamsa));
+        
+        return chart;
+    }
+
+    /**
+     * 💾 STORAGE FORMAT
+     * Encodes a chart in the compact binary storage format.
+     */
+    public byte[] toStorageFormat(Map<String, Object> chart) {
+        return CompactChartCodec.encode(chart);
+    }
+
+    /**
+     * 💾 STORAGE FORMAT
+     * Rebuilds the full chart map from its compact binary form.
+     */
+    public Map<String, Object> fromStorageFormat(User user, byte[] stored) {
+        return assembleStoredChart(user, CompactChartCodec.decode(stored));
+    }
+
+    private Map<String, Object> assembleStoredChart(User user, CompactChartCodec.StoredChart core) {
+        Map<String, Object> chart = assembleChart(user, core.siderealPositions, core.houses, core.ayanamsa,
+                core.julianDay, core.timezone, core.calculatedAt, core.calculatedAtUTC, core.swissEphemeris);
+        chart.put("engineVersion", core.engineVersion);
+        chart.put("settingsHash", core.settingsHash);
+        chart.put("calculationTimeMs", core.calculationTimeMs);
+        return chart;
+    }
+
+    /**
+     * 🏷️ ENGINE CHECK
+     * Whether a chart was produced by this engine version with these settings.
+     */
+    public boolean isCurrentEngine(Map<String, Object> chart) {
+        Object engineVersion = chart.get("engineVersion");
+        return engineVersion instanceof Number
+                && ((Number) engineVersion).intValue() == ENGINE_VERSION
+                && SETTINGS_HASH.equals(chart.get("settingsHash"));
+    }
+
+    private static String settingsHash(String ayanamsa, char houseSystem, String nodeType) {
+        CRC32 crc = new CRC32();
+        crc.update((ayanamsa + "|" + houseSystem + "|" + nodeType).getBytes(StandardCharsets.UTF_8));
+        return String.format("%08x", crc.getValue());
+    }
+
     /**
      * 🔥 ENTERPRISE DATA VALIDATION (Enhanced but maintaining your approach)
      */
@@ -428,7 +610,7 @@ Map<String, Double> houses = calculateHousesSafely(jd_ut, lat, lon, ayanamsa);
         // Enhanced date range validation
         int year = user.getBirthDateTime().getYear();
         if (year < 1800 || year > 2200) {
-            System.err.println("⚠️ WARNING: Birth year " + year + " is outside optimal Swiss Ephemeris range (1800-2200)");
+            logger.warn("⚠️ WARNING: Birth year {} is outside optimal Swiss Ephemeris range (1800-2200)", year);
         }
     }
         /**
@@ -437,8 +619,10 @@ Map<String, Double> houses = calculateHousesSafely(jd_ut, lat, lon, ayanamsa);
     private Map<String, Double> calculateAllPlanetaryPositions(double jd_ut, double ayanamsa) {
         Map<String, Double> positions = new LinkedHashMap<>();
         
-        System.out.println("🌟 Calculating planetary positions with world-class precision...");
-        System.out.printf("🔍 Using: %s%n", ephemerisInitialized ? "Swiss Ephemeris (NASA/JPL accuracy)" : "Ultra-High Precision Mathematical");
+        trace("🌟 Calculating planetary positions with world-class precision...");
+        if (tracing()) {
+            trace("🔍 Using: %s", ephemerisInitialized ? "Swiss Ephemeris (NASA/JPL accuracy)" : "Ultra-High Precision Mathematical");
+        }
         
         for (int i = 0; i < PLANET_NAMES.length && i < PLANET_IDS.length; i++) {
             String planetName = PLANET_NAMES[i];
@@ -452,19 +636,23 @@ Map<String, Double> houses = calculateHousesSafely(jd_ut, lat, lon, ayanamsa);
                 
                 // Enhanced fallback with ultra-high precision
                 if (position == null || Double.isNaN(position)) {
-                    System.out.printf("⚠️ Swiss Ephemeris unavailable for %s, using ultra-precision mathematical calculation%n", planetName);
+                    if (tracing()) {
+                        trace("⚠️ Swiss Ephemeris unavailable for %s, using ultra-precision mathematical calculation", planetName);
+                    }
                     position = calculatePlanetUltraHighPrecision(jd_ut, planetName, ayanamsa);
                 }
                 
                 if (position != null && !Double.isNaN(position)) {
                     positions.put(planetName, position);
-                    System.out.printf("   ✅ %s: %.6f° (%s)%n", planetName, position, getZodiacSignSafe(position));
+                    if (tracing()) {
+                        trace("   ✅ %s: %.6f° (%s)", planetName, position, getZodiacSignSafe(position));
+                    }
                 } else {
-                    System.err.printf("❌ Failed to calculate %s%n", planetName);
+                    logger.warn("❌ Failed to calculate {}", planetName);
                 }
                 
             } catch (Exception e) {
-                System.err.printf("💥 Error calculating %s: %s%n", planetName, e.getMessage());
+                logger.warn("💥 Error calculating {}: {}", planetName, e.getMessage());
             }
         }
         
@@ -497,12 +685,12 @@ Map<String, Double> houses = calculateHousesSafely(jd_ut, lat, lon, ayanamsa);
             int rc = sw.swe_calc_ut(jd_ut, swissPlanetId, flags, result, error);
             
             if (rc < 0) {
-                System.err.printf("❌ Swiss Ephemeris error for %s: %s%n", planetName, error.toString());
+                logger.warn("❌ Swiss Ephemeris error for {}: {}", planetName, error.toString());
                 return null;
             }
             
             if (Double.isNaN(result[0]) || Double.isInfinite(result[0])) {
-                System.err.printf("❌ Invalid result for %s: %f%n", planetName, result[0]);
+                logger.warn("❌ Invalid result for {}: {}", planetName, result[0]);
                 return null;
             }
             
@@ -512,14 +700,14 @@ Map<String, Double> houses = calculateHousesSafely(jd_ut, lat, lon, ayanamsa);
             
             // Additional validation for critical accuracy
             if (siderealLongitude < 0 || siderealLongitude >= 360) {
-                System.err.printf("⚠️ Sidereal result needs normalization for %s: %.8f°%n", planetName, siderealLongitude);
+                logger.warn("⚠️ Sidereal result needs normalization for {}: {}°", planetName, siderealLongitude);
                 siderealLongitude = normalizeAngleUltraPrecision(siderealLongitude);
             }
             
             return siderealLongitude;
             
         } catch (Exception e) {
-            System.err.printf("💥 Exception in Swiss calculation: %s%n", e.getMessage());
+            logger.warn("💥 Exception in Swiss calculation: {}", e.getMessage());
             return null;
         }
     }
@@ -625,7 +813,7 @@ Map<String, Double> houses = calculateHousesSafely(jd_ut, lat, lon, ayanamsa);
                     break;
                     
                 default:
-                    System.err.println("Unknown planet for ultra-precision calculation: " + planetName);
+                    logger.warn("Unknown planet for ultra-precision calculation: {}", planetName);
                     return null;
             }
             
@@ -633,7 +821,7 @@ Map<String, Double> houses = calculateHousesSafely(jd_ut, lat, lon, ayanamsa);
             return normalizeAngleUltraPrecision(longitude - ayanamsa);
             
         } catch (Exception e) {
-            System.err.printf("💥 Ultra-precision calculation error for %s: %s%n", planetName, e.getMessage());
+            logger.warn("💥 Ultra-precision calculation error for {}: {}", planetName, e.getMessage());
             return null;
         }
     }
@@ -642,7 +830,7 @@ Map<String, Double> houses = calculateHousesSafely(jd_ut, lat, lon, ayanamsa);
      * 🔥 ENHANCED PRECISION METHODS
      */
     private Map<String, Double> recalculateWithEnhancedPrecision(double jd_ut, double ayanamsa) {
-        System.out.println("🔧 Recalculating with enhanced precision to fix 0.0° issues...");
+        trace("🔧 Recalculating with enhanced precision to fix 0.0° issues...");
         
         // Use slightly offset time to avoid calculation singularities
         double offsetJD = jd_ut + 0.000001; // ~0.1 second offset
@@ -654,27 +842,29 @@ Map<String, Double> houses = calculateHousesSafely(jd_ut, lat, lon, ayanamsa);
         Map<String, Double> houses = new LinkedHashMap<>();
         
         try {
-            System.out.println("🏠 ===== ADVANCED HOUSE CALCULATION START =====");
-            System.out.printf("🔍 Parameters: JD=%.8f, Lat=%.6f°, Lon=%.6f°, Ayanamsa=%.6f°%n", 
-                            jd_ut, lat, lon, ayanamsa);
+            trace("🏠 ===== ADVANCED HOUSE CALCULATION START =====");
+            if (tracing()) {
+                trace("🔍 Parameters: JD=%.8f, Lat=%.6f°, Lon=%.6f°, Ayanamsa=%.6f°", 
+                                jd_ut, lat, lon, ayanamsa);
+            }
             
             if (ephemerisInitialized && sw != null) {
                 // 🎯 PRIMARY: Swiss Ephemeris House Calculation
                 houses = calculateSwissEphemerisHouses(jd_ut, lat, lon, ayanamsa);
                 
                 if (!houses.isEmpty()) {
-                    System.out.println("✅ Swiss Ephemeris house calculation successful");
+                    trace("✅ Swiss Ephemeris house calculation successful");
                     return houses;
                 }
             }
             
             // 🔧 FALLBACK: Ultra-High Precision Mathematical Houses
-            System.out.println("🔧 Using ultra-high precision mathematical house calculation...");
+            trace("🔧 Using ultra-high precision mathematical house calculation...");
             return calculateUltraHighPrecisionHouses(jd_ut, lat, lon, ayanamsa);
             
         } catch (Exception e) {
-            System.err.println("💥 Critical error in house calculation: " + e.getMessage());
-            e.printStackTrace();
+            logger.warn("💥 Critical error in house calculation: {}", e.getMessage());
+            logger.debug("Stack trace", e);
             return calculateEmergencyHouses(ayanamsa);
         }
     }
@@ -690,10 +880,12 @@ Map<String, Double> houses = calculateHousesSafely(jd_ut, lat, lon, ayanamsa);
             double[] ascmc = new double[10]; // ASC, MC, ARMC, Vertex, etc.
             
             // 🎯 CRITICAL: Use Placidus house system for maximum accuracy
-            int houseSystem = (int) 'P'; // Placidus
+            int houseSystem = (int) HOUSE_SYSTEM; // Placidus
             
-            System.out.printf("🔍 Swiss Ephemeris house calculation: JD=%.8f, Coords=(%.6f,%.6f)%n", 
-                            jd_ut, lat, lon);
+            if (tracing()) {
+                trace("🔍 Swiss Ephemeris house calculation: JD=%.8f, Coords=(%.6f,%.6f)", 
+                                jd_ut, lat, lon);
+            }
             
             int rc = sw.swe_houses(jd_ut, 0, lat, lon, houseSystem, cusps, ascmc);
             
@@ -710,11 +902,13 @@ Map<String, Double> houses = calculateHousesSafely(jd_ut, lat, lon, ayanamsa);
                 double siderealARMC = normalizeAngleUltraPrecision(tropicalARMC - ayanamsa);
                 double siderealVertex = normalizeAngleUltraPrecision(tropicalVertex - ayanamsa);
                 
-                System.out.printf("🎯 HOUSE VALIDATION:%n");
-                System.out.printf("   Tropical ASC: %.8f° → Sidereal: %.8f° (%s)%n", 
-                                tropicalAsc, siderealAsc, getZodiacSignSafe(siderealAsc));
-                System.out.printf("   Tropical MC: %.8f° → Sidereal: %.8f° (%s)%n", 
-                                tropicalMC, siderealMC, getZodiacSignSafe(siderealMC));
+                trace("🎯 HOUSE VALIDATION:");
+                if (tracing()) {
+                    trace("   Tropical ASC: %.8f° → Sidereal: %.8f° (%s)", 
+                                    tropicalAsc, siderealAsc, getZodiacSignSafe(siderealAsc));
+                    trace("   Tropical MC: %.8f° → Sidereal: %.8f° (%s)", 
+                                    tropicalMC, siderealMC, getZodiacSignSafe(siderealMC));
+                }
                 
                 // 🔥 CRITICAL: Store primary angles (maintaining your exact variable names)
                 houses.put("Ascendant", siderealAsc);
@@ -733,29 +927,31 @@ Map<String, Double> houses = calculateHousesSafely(jd_ut, lat, lon, ayanamsa);
                     if (!Double.isNaN(siderealCusp) && siderealCusp >= 0 && siderealCusp < 360) {
                         houses.put("house" + i, siderealCusp);
                     } else {
-                        System.err.printf("⚠️ Invalid cusp for house %d: %.8f°%n", i, siderealCusp);
+                        logger.warn("⚠️ Invalid cusp for house {}: {}°", i, siderealCusp);
                     }
                 }
                 
                 // 🔥 QUALITY VALIDATION: Check ascendant reasonableness
                 if (validateAscendantQuality(siderealAsc, lat, lon)) {
-                    System.out.printf("✅ House calculation quality: EXCELLENT%n");
-                    System.out.printf("   ASC: %.6f° (%s), MC: %.6f° (%s)%n", 
-                                    siderealAsc, getZodiacSignSafe(siderealAsc), 
-                                    siderealMC, getZodiacSignSafe(siderealMC));
+                    trace("✅ House calculation quality: EXCELLENT");
+                    if (tracing()) {
+                        trace("   ASC: %.6f° (%s), MC: %.6f° (%s)", 
+                                        siderealAsc, getZodiacSignSafe(siderealAsc), 
+                                        siderealMC, getZodiacSignSafe(siderealMC));
+                    }
                     return houses;
                 } else {
-                    System.err.println("⚠️ Ascendant quality check failed, using fallback");
+                    logger.warn("⚠️ Ascendant quality check failed, using fallback");
                     return new LinkedHashMap<>();
                 }
                 
             } else {
-                System.err.printf("❌ Swiss Ephemeris house calculation failed, return code: %d%n", rc);
+                logger.warn("❌ Swiss Ephemeris house calculation failed, return code: {}", rc);
                 return new LinkedHashMap<>();
             }
             
         } catch (Exception e) {
-            System.err.println("💥 Swiss Ephemeris house calculation exception: " + e.getMessage());
+            logger.warn("💥 Swiss Ephemeris house calculation exception: {}", e.getMessage());
             return new LinkedHashMap<>();
         }
     }
@@ -767,13 +963,15 @@ Map<String, Double> houses = calculateHousesSafely(jd_ut, lat, lon, ayanamsa);
         Map<String, Double> houses = new LinkedHashMap<>();
         
         try {
-            System.out.println("🧮 Ultra-high precision mathematical house calculation...");
+            trace("🧮 Ultra-high precision mathematical house calculation...");
             
             // 🔥 ENHANCED: Calculate ultra-precise Local Sidereal Time
             double lst = calculateUltraPreciseLocalSiderealTime(jd_ut, lon);
             double obliquity = calculateUltraPreciseObliquity(jd_ut);
             
-            System.out.printf("🔍 Mathematical parameters: LST=%.8f°, Obliquity=%.8f°%n", lst, obliquity);
+            if (tracing()) {
+                trace("🔍 Mathematical parameters: LST=%.8f°, Obliquity=%.8f°", lst, obliquity);
+            }
             
             // Convert to radians for precise trigonometric calculations
             double lstRad = Math.toRadians(lst);
@@ -801,9 +999,11 @@ Map<String, Double> houses = calculateHousesSafely(jd_ut, lat, lon, ayanamsa);
             double tropicalMC = lst;
             double siderealMC = normalizeAngleUltraPrecision(tropicalMC - ayanamsa);
             
-            System.out.printf("🎯 Mathematical Result:%n");
-            System.out.printf("   Calculated ASC: %.8f° (%s)%n", siderealAsc, getZodiacSignSafe(siderealAsc));
-            System.out.printf("   Calculated MC: %.8f° (%s)%n", siderealMC, getZodiacSignSafe(siderealMC));
+            trace("🎯 Mathematical Result:");
+            if (tracing()) {
+                trace("   Calculated ASC: %.8f° (%s)", siderealAsc, getZodiacSignSafe(siderealAsc));
+                trace("   Calculated MC: %.8f° (%s)", siderealMC, getZodiacSignSafe(siderealMC));
+            }
             
             // Store primary angles
             houses.put("Ascendant", siderealAsc);
@@ -816,15 +1016,15 @@ Map<String, Double> houses = calculateHousesSafely(jd_ut, lat, lon, ayanamsa);
             
             // Final validation
             if (validateMathematicalHouseQuality(houses, lat)) {
-                System.out.println("✅ Mathematical house calculation quality: VERY GOOD");
+                trace("✅ Mathematical house calculation quality: VERY GOOD");
                 return houses;
             } else {
-                System.err.println("⚠️ Mathematical house quality check failed");
+                logger.warn("⚠️ Mathematical house quality check failed");
                 return calculateEmergencyHouses(ayanamsa);
             }
             
         } catch (Exception e) {
-            System.err.println("💥 Mathematical house calculation error: " + e.getMessage());
+            logger.warn("💥 Mathematical house calculation error: {}", e.getMessage());
             return calculateEmergencyHouses(ayanamsa);
         }
     }
@@ -836,12 +1036,14 @@ Map<String, Double> houses = calculateHousesSafely(jd_ut, lat, lon, ayanamsa);
         List<Map<String, Object>> allYogas = new ArrayList<>();
         
         try {
-            System.out.println("👑 ===== COMPREHENSIVE YOGA DETECTION START =====");
-            System.out.printf("🔍 Analyzing chart for: %s%n", user.getUsername());
+            trace("👑 ===== COMPREHENSIVE YOGA DETECTION START =====");
+            if (tracing()) {
+                trace("🔍 Analyzing chart for: %s", user.getUsername());
+            }
             
             Double ascendant = positions.get("Ascendant");
             if (ascendant == null) {
-                System.err.println("❌ No ascendant found for yoga detection");
+                logger.warn("❌ No ascendant found for yoga detection");
                 return allYogas;
             }
             
@@ -894,15 +1096,17 @@ Map<String, Double> houses = calculateHousesSafely(jd_ut, lat, lon, ayanamsa);
                 return rarity <= 10.0 && !(Boolean) y.getOrDefault("isVeryRare", false);
             }).count();
             
-            System.out.println("✅ ===== COMPREHENSIVE YOGA DETECTION COMPLETE =====");
-            System.out.printf("📊 Total Yogas Detected: %d%n", allYogas.size());
-            System.out.printf("   👑 Very Rare (Top 1%%): %d%n", veryRareCount);
-            System.out.printf("   ⭐ Rare (1-10%%): %d%n", rareCount);
-            System.out.printf("   🌟 Uncommon (10-30%%): %d%n", allYogas.size() - veryRareCount - rareCount);
+            trace("✅ ===== COMPREHENSIVE YOGA DETECTION COMPLETE =====");
+            if (tracing()) {
+                trace("📊 Total Yogas Detected: %d", allYogas.size());
+                trace("   👑 Very Rare (Top 1%%): %d", veryRareCount);
+                trace("   ⭐ Rare (1-10%%): %d", rareCount);
+                trace("   🌟 Uncommon (10-30%%): %d", allYogas.size() - veryRareCount - rareCount);
+            }
             
         } catch (Exception e) {
-            System.err.println("💥 Error in comprehensive yoga detection: " + e.getMessage());
-            e.printStackTrace();
+            logger.warn("💥 Error in comprehensive yoga detection: {}", e.getMessage());
+            logger.debug("Stack trace", e);
         }
         
         return allYogas;
@@ -945,7 +1149,9 @@ Map<String, Double> houses = calculateHousesSafely(jd_ut, lat, lon, ayanamsa);
                         
                         yogas.add(yoga);
                         
-                        System.out.printf("👑 DETECTED: Classic Raja Yoga - %s & %s (orb: %.2f°)%n", ninthLord, tenthLord, orb);
+                        if (tracing()) {
+                            trace("👑 DETECTED: Classic Raja Yoga - %s & %s (orb: %.2f°)", ninthLord, tenthLord, orb);
+                        }
                     }
                 }
             }
@@ -1014,7 +1220,7 @@ Map<String, Double> houses = calculateHousesSafely(jd_ut, lat, lon, ayanamsa);
             yogas.addAll(detectKendraTrikonaYogas(positions, ascendant));
             
         } catch (Exception e) {
-            System.err.println("⚠️ Error detecting Royal Yogas: " + e.getMessage());
+            logger.warn("⚠️ Error detecting Royal Yogas: {}", e.getMessage());
         }
         
         return yogas;
@@ -1327,7 +1533,7 @@ public Map<String, Object> getNakshatraQualityDetails(String nakshatraName) {
             }
             
         } catch (Exception e) {
-            System.err.println("⚠️ Error detecting Wealth Yogas: " + e.getMessage());
+            logger.warn("⚠️ Error detecting Wealth Yogas: {}", e.getMessage());
         }
         
         return yogas;
@@ -1437,19 +1643,19 @@ public Map<String, Object> getNakshatraQualityDetails(String nakshatraName) {
             // Check if ascendant is reasonable for given latitude
             if (Math.abs(lat) > 66.5) {
                 // Arctic/Antarctic regions may have unusual ascendant behavior
-                System.out.println("⚠️ High latitude birth - ascendant may have unusual characteristics");
+                trace("⚠️ High latitude birth - ascendant may have unusual characteristics");
             }
             
             // Check if ascendant seems stuck at 0.0 (common calculation error)
             if (Math.abs(ascendant) < 0.001) {
-                System.err.println("⚠️ Ascendant suspiciously close to 0.0°");
+                logger.warn("⚠️ Ascendant suspiciously close to 0.0°");
                 return false;
             }
             
             return true;
             
         } catch (Exception e) {
-            System.err.println("⚠️ Error validating ascendant quality: " + e.getMessage());
+            logger.warn("⚠️ Error validating ascendant quality: {}", e.getMessage());
             return false;
         }
     }
@@ -1507,7 +1713,7 @@ public Map<String, Object> getNakshatraQualityDetails(String nakshatraName) {
             return normalizeAngleUltraPrecision(lst);
             
         } catch (Exception e) {
-            System.err.println("⚠️ Error calculating ultra-precise LST: " + e.getMessage());
+            logger.warn("⚠️ Error calculating ultra-precise LST: {}", e.getMessage());
             // Fallback to basic calculation
             double t = (jd_ut - 2451545.0) / 36525.0;
             double gmst = 280.46061837 + 360.98564736629 * (jd_ut - 2451545.0);
@@ -1541,7 +1747,7 @@ public Map<String, Object> getNakshatraQualityDetails(String nakshatraName) {
 private Map<String, Double> calculateEmergencyHouses(double ayanamsa) {
     Map<String, Double> houses = new LinkedHashMap<>();
     
-    System.out.println("🚨 Using emergency house calculation with enhanced Ascendant estimation");
+    trace("🚨 Using emergency house calculation with enhanced Ascendant estimation");
     
     // ✅ ENHANCED: Better emergency Ascendant calculation
     // Use current time and approximate location if user data is incomplete
@@ -1559,8 +1765,10 @@ private Map<String, Double> calculateEmergencyHouses(double ayanamsa) {
         houses.put("house" + i, normalizeAngleUltraPrecision(siderealEmergencyAsc + (i - 1) * 30.0));
     }
     
-    System.out.printf("🆘 Emergency Ascendant: %.6f° (%s)%n", 
-                     siderealEmergencyAsc, getZodiacSignSafe(siderealEmergencyAsc));
+    if (tracing()) {
+        trace("🆘 Emergency Ascendant: %.6f° (%s)", 
+                         siderealEmergencyAsc, getZodiacSignSafe(siderealEmergencyAsc));
+    }
     
     return houses;
 }
@@ -1573,7 +1781,7 @@ private Map<String, Double> calculateEmergencyHouses(double ayanamsa) {
         Map<String, Map<String, Object>> nakshatras = new LinkedHashMap<>();
         
         try {
-            System.out.println("⭐ ===== ADVANCED NAKSHATRA ANALYSIS START =====");
+            trace("⭐ ===== ADVANCED NAKSHATRA ANALYSIS START =====");
             
             for (Map.Entry<String, Double> entry : siderealPositions.entrySet()) {
                 String planet = entry.getKey();
@@ -1583,19 +1791,23 @@ private Map<String, Double> calculateEmergencyHouses(double ayanamsa) {
                     Map<String, Object> nakshatraInfo = calculateAdvancedNakshatraInfo(planet, degree);
                     nakshatras.put(planet, nakshatraInfo);
                     
-                    System.out.printf("   ⭐ %s: %s (Pada %s) - %s%n", 
-                                    planet, 
-                                    nakshatraInfo.get("nakshatra"), 
-                                    nakshatraInfo.get("pada"),
-                                    nakshatraInfo.get("deity"));
+                    if (tracing()) {
+                        trace("   ⭐ %s: %s (Pada %s) - %s", 
+                                        planet, 
+                                        nakshatraInfo.get("nakshatra"), 
+                                        nakshatraInfo.get("pada"),
+                                        nakshatraInfo.get("deity"));
+                    }
                 }
             }
             
-            System.out.printf("✅ Nakshatra analysis complete for %d celestial bodies%n", nakshatras.size());
+            if (tracing()) {
+                trace("✅ Nakshatra analysis complete for %d celestial bodies", nakshatras.size());
+            }
             
         } catch (Exception e) {
-            System.err.println("💥 Error in nakshatra calculation: " + e.getMessage());
-            e.printStackTrace();
+            logger.warn("💥 Error in nakshatra calculation: {}", e.getMessage());
+            logger.debug("Stack trace", e);
         }
         
         return nakshatras;
@@ -1657,7 +1869,7 @@ private Map<String, Double> calculateEmergencyHouses(double ayanamsa) {
             info.put("lucky", getNakshatraLuckyDetails(nakshatraName));
             
         } catch (Exception e) {
-            System.err.println("⚠️ Error calculating nakshatra info for " + planet + ": " + e.getMessage());
+            logger.warn("⚠️ Error calculating nakshatra info for {}: {}", planet, e.getMessage());
             
             // Provide basic fallback info
             info.put("nakshatra", "Unknown");
@@ -1676,7 +1888,7 @@ private Map<String, Double> calculateEmergencyHouses(double ayanamsa) {
         List<Map<String, Object>> dashaTable = new ArrayList<>();
         
         try {
-            System.out.println("⏰ ===== WORLD-CLASS VIMSHOTTARI DASHA GENERATION =====");
+            trace("⏰ ===== WORLD-CLASS VIMSHOTTARI DASHA GENERATION =====");
             
             if (user.getBirthDateTime() == null) {
                 throw new IllegalArgumentException("Birth date/time required for dasha calculation");
@@ -1696,9 +1908,11 @@ private Map<String, Double> calculateEmergencyHouses(double ayanamsa) {
             Map<String, Object> moonNakshatra = calculateAdvancedNakshatraInfo("Moon", moonPosition);
             String startingDashaLord = getDashaLordFromNakshatra((String) moonNakshatra.get("nakshatra"));
             
-            System.out.printf("🌙 Moon in %s nakshatra (Pada %s)%n", 
-                            moonNakshatra.get("nakshatra"), moonNakshatra.get("pada"));
-            System.out.printf("🎯 Starting Dasha: %s%n", startingDashaLord);
+            if (tracing()) {
+                trace("🌙 Moon in %s nakshatra (Pada %s)", 
+                                moonNakshatra.get("nakshatra"), moonNakshatra.get("pada"));
+                trace("🎯 Starting Dasha: %s", startingDashaLord);
+            }
             
             // 🔥 ULTRA-PRECISE: Calculate balance of first dasha
             double balanceOfFirstDasha = calculateUltraPreciseBalanceOfFirstDasha(moonPosition, moonNakshatra);
@@ -1710,7 +1924,7 @@ private Map<String, Double> calculateEmergencyHouses(double ayanamsa) {
             // Find starting position
             int startIndex = Arrays.asList(dashaSequence).indexOf(startingDashaLord);
             if (startIndex == -1) {
-                System.err.println("⚠️ Invalid dasha lord, defaulting to Ketu");
+                logger.warn("⚠️ Invalid dasha lord, defaulting to Ketu");
                 startIndex = 0;
             }
             
@@ -1727,8 +1941,10 @@ private Map<String, Double> calculateEmergencyHouses(double ayanamsa) {
             );
             dashaTable.add(firstPeriod);
             
-            System.out.printf("📅 First Dasha: %s (Balance: %.3f years) %s - %s%n", 
-                            firstDashaLord, firstDashaBalance, currentDate, firstDashaEnd);
+            if (tracing()) {
+                trace("📅 First Dasha: %s (Balance: %.3f years) %s - %s", 
+                                firstDashaLord, firstDashaBalance, currentDate, firstDashaEnd);
+            }
             
             currentDate = firstDashaEnd;
             
@@ -1777,18 +1993,22 @@ private Map<String, Double> calculateEmergencyHouses(double ayanamsa) {
                     List<Map<String, Object>> subPeriods = generateSubPeriods(period, user);
                     period.put("subPeriods", subPeriods);
                     
-                    System.out.printf("⏰ Current Dasha: %s (%s - %s)%n", 
-                                    period.get("mahadashaLord"), startDate, endDate);
+                    if (tracing()) {
+                        trace("⏰ Current Dasha: %s (%s - %s)", 
+                                        period.get("mahadashaLord"), startDate, endDate);
+                    }
                     break;
                 }
             }
             
-            System.out.printf("✅ Generated %d dasha periods covering %.1f years%n", 
-                            dashaTable.size(), (double) dashaTable.size() * 10);
+            if (tracing()) {
+                trace("✅ Generated %d dasha periods covering %.1f years", 
+                                dashaTable.size(), (double) dashaTable.size() * 10);
+            }
             
         } catch (Exception e) {
-            System.err.println("💥 Error generating Vimshottari Dasha: " + e.getMessage());
-            e.printStackTrace();
+            logger.warn("💥 Error generating Vimshottari Dasha: {}", e.getMessage());
+            logger.debug("Stack trace", e);
         }
         
         return dashaTable;
@@ -1816,15 +2036,17 @@ private Map<String, Double> calculateEmergencyHouses(double ayanamsa) {
             // Ultra-precise balance calculation
             double balance = totalYears * (1.0 - nakshatraCompleted);
             
-            System.out.printf("🔍 Ultra-Precise Balance Calculation:%n");
-            System.out.printf("   Position in %s: %.6f° / %.6f°%n", dashaLord, positionInNakshatra, nakshatraSpan);
-            System.out.printf("   Completed: %.6f%% of nakshatra%n", nakshatraCompleted * 100);
-            System.out.printf("   %s Dasha balance: %.6f years%n", mappedDashaLord, balance);
+            trace("🔍 Ultra-Precise Balance Calculation:");
+            if (tracing()) {
+                trace("   Position in %s: %.6f° / %.6f°", dashaLord, positionInNakshatra, nakshatraSpan);
+                trace("   Completed: %.6f%% of nakshatra", nakshatraCompleted * 100);
+                trace("   %s Dasha balance: %.6f years", mappedDashaLord, balance);
+            }
             
             return Math.max(0.001, balance); // Minimum 0.001 years
             
         } catch (Exception e) {
-            System.err.println("⚠️ Error in balance calculation: " + e.getMessage());
+            logger.warn("⚠️ Error in balance calculation: {}", e.getMessage());
             return 1.0; // Default balance
         }
     }
@@ -1878,7 +2100,7 @@ private Map<String, Double> calculateEmergencyHouses(double ayanamsa) {
             }
             
         } catch (Exception e) {
-            System.err.println("⚠️ Error creating dasha period: " + e.getMessage());
+            logger.warn("⚠️ Error creating dasha period: {}", e.getMessage());
         }
         
         return period;
@@ -1893,8 +2115,10 @@ private Map<String, Double> calculateEmergencyHouses(double ayanamsa) {
         List<Map<String, Object>> remedies = new ArrayList<>();
         
         try {
-            System.out.println("💎 ===== WORLD-CLASS PERSONALIZED REMEDIES =====");
-            System.out.printf("👤 Generating for: %s%n", user.getUsername());
+            trace("💎 ===== WORLD-CLASS PERSONALIZED REMEDIES =====");
+            if (tracing()) {
+                trace("👤 Generating for: %s", user.getUsername());
+            }
             
             // 🔥 CATEGORY 1: Planetary Weakness Remedies
             remedies.addAll(generatePlanetaryWeaknessRemedies(siderealPositions, user));
@@ -1949,20 +2173,23 @@ private Map<String, Double> calculateEmergencyHouses(double ayanamsa) {
                 remedies = remedies.subList(0, 25);
             }
             
-            System.out.printf("✅ Generated %d personalized remedies%n", remedies.size());
+            if (tracing()) {
+                trace("✅ Generated %d personalized remedies", remedies.size());
+            }
             
             // Log remedy categories distribution
-            Map<String, Long> categoryCount = remedies.stream()
-                .collect(Collectors.groupingBy(
-                    r -> (String) r.getOrDefault("category", "General"), 
-                    Collectors.counting()));
-            
-            categoryCount.forEach((category, count) -> 
-                System.out.printf("   %s: %d remedies%n", category, count));
+            if (tracing()) {
+                Map<String, Long> categoryCount = remedies.stream()
+                    .collect(Collectors.groupingBy(
+                        r -> (String) r.getOrDefault("category", "General"), 
+                        Collectors.counting()));
+                
+                categoryCount.forEach((category, count) -> trace("   %s: %d remedies", category, count));
+            }
             
         } catch (Exception e) {
-            System.err.println("💥 Error generating personalized remedies: " + e.getMessage());
-            e.printStackTrace();
+            logger.warn("💥 Error generating personalized remedies: {}", e.getMessage());
+            logger.debug("Stack trace", e);
         }
         
         return remedies;
@@ -1993,7 +2220,7 @@ private Map<String, Double> calculateEmergencyHouses(double ayanamsa) {
             }
             
         } catch (Exception e) {
-            System.err.println("⚠️ Error generating planetary weakness remedies: " + e.getMessage());
+            logger.warn("⚠️ Error generating planetary weakness remedies: {}", e.getMessage());
         }
         
         return remedies;
@@ -2053,7 +2280,7 @@ private Map<String, Double> calculateEmergencyHouses(double ayanamsa) {
             return remedy;
             
         } catch (Exception e) {
-            System.err.println("⚠️ Error creating planetary remedy for " + planet + ": " + e.getMessage());
+            logger.warn("⚠️ Error creating planetary remedy for {}: {}", planet, e.getMessage());
             return null;
         }
     }
@@ -2269,17 +2496,19 @@ private Map<String, Double> calculateEmergencyHouses(double ayanamsa) {
    
 
     /**
- * 🔥 GENERATE CACHE KEY (Unique identifier for caching)
+ * 🔥 PERSONALIZE CACHED CHART
+ * Cached charts are shared across users with the same fingerprint; the fields
+ * derived from how this user entered their birth data are re-stamped on a copy.
  */
-private String generateCacheKey(User user) {
-    StringBuilder keyBuilder = new StringBuilder();
-    keyBuilder.append(user.getUsername()).append("_");
-    keyBuilder.append(user.getBirthDateTime().format(ISO_FORMATTER)).append("_");
-    keyBuilder.append(String.format("%.6f", user.getBirthLatitude())).append("_");
-    keyBuilder.append(String.format("%.6f", user.getBirthLongitude())).append("_");
-    keyBuilder.append(user.getTimezone() != null ? user.getTimezone() : "UTC");
+private Map<String, Object> personalizeCachedChart(Map<String, Object> cached, User user) {
+    Map<String, Object> chart = new LinkedHashMap<>(cached);
+    chart.put("timezone", user.getTimezone());
+    chart.put("calculatedAt", user.getBirthDateTime().format(ISO_FORMATTER));
     
-    return keyBuilder.toString().replaceAll("[^a-zA-Z0-9._-]", "_");
+    @SuppressWarnings("unchecked")
+    Map<String, Double> siderealPositions = (Map<String, Double>) cached.get("siderealPositions");
+    chart.put("dataQuality", calculateDataQuality(user, siderealPositions));
+    return chart;
 }
 
 /**
@@ -2312,7 +2541,7 @@ private void validateEssentialPositions(Map<String, Double> siderealPositions) {
         }
         
         if (value < 0.0 || value >= 360.0) {
-            System.err.printf("⚠️ WARNING: %s position outside normal range: %.6f°%n", position, value);
+            logger.warn("⚠️ WARNING: {} position outside normal range: {}°", position, value);
             // Normalize but don't fail
             siderealPositions.put(position, normalizeAngleUltraPrecision(value));
         }
@@ -2323,12 +2552,12 @@ private void validateEssentialPositions(Map<String, Double> siderealPositions) {
         if (missingPositions.size() >= 2) {
             throw new RuntimeException("CRITICAL: Missing essential positions - " + String.join(", ", missingPositions));
         } else {
-            System.err.println("⚠️ WARNING: Missing " + String.join(", ", missingPositions) + " - continuing with available data");
+            logger.warn("⚠️ WARNING: Missing {} - continuing with available data", String.join(", ", missingPositions));
         }
     }
     
     if (!invalidPositions.isEmpty()) {
-        System.err.println("⚠️ WARNING: Invalid positions detected - " + String.join(", ", invalidPositions));
+        logger.warn("⚠️ WARNING: Invalid positions detected - {}", String.join(", ", invalidPositions));
     }
     
     // Additional quality checks
@@ -2337,10 +2566,12 @@ private void validateEssentialPositions(Map<String, Double> siderealPositions) {
         .count();
         
     if (zeroCount > 2) {
-        System.err.println("⚠️ WARNING: " + zeroCount + " positions are at 0.0° - possible calculation error");
+        logger.warn("⚠️ WARNING: {} positions are at 0.0° - possible calculation error", zeroCount);
     }
     
-    System.out.printf("✅ Essential position validation completed - %d positions validated%n", siderealPositions.size());
+    if (tracing()) {
+        trace("✅ Essential position validation completed - %d positions validated", siderealPositions.size());
+    }
 }
 
 /**
@@ -2374,13 +2605,13 @@ private double toJulianDay(LocalDateTime utcTime) {
         
         // Validation
         if (julianDay < 1721425.5 || julianDay > 5373484.5) {
-            System.err.println("⚠️ WARNING: Julian Day outside reasonable range: " + julianDay);
+            logger.warn("⚠️ WARNING: Julian Day outside reasonable range: {}", julianDay);
         }
         
         return julianDay;
         
     } catch (Exception e) {
-        System.err.println("💥 Error calculating Julian Day: " + e.getMessage());
+        logger.warn("💥 Error calculating Julian Day: {}", e.getMessage());
         throw new RuntimeException("Failed to calculate Julian Day", e);
     }
 }
@@ -2398,7 +2629,7 @@ private double calculateAyanamsa(double jd_ut) {
             if (!Double.isNaN(ayanamsa) && ayanamsa >= 15.0 && ayanamsa <= 30.0) {
                 return ayanamsa;
             } else {
-                System.err.println("⚠️ Swiss Ephemeris ayanamsa out of range: " + ayanamsa);
+                logger.warn("⚠️ Swiss Ephemeris ayanamsa out of range: {}", ayanamsa);
             }
         }
         
@@ -2417,13 +2648,13 @@ private double calculateAyanamsa(double jd_ut) {
         
         // Final validation
         if (ayanamsa < 15.0 || ayanamsa > 30.0) {
-            System.err.println("⚠️ WARNING: Calculated ayanamsa seems unusual: " + ayanamsa + "°");
+            logger.warn("⚠️ WARNING: Calculated ayanamsa seems unusual: {}°", ayanamsa);
         }
         
         return ayanamsa;
         
     } catch (Exception e) {
-        System.err.println("💥 Error calculating ayanamsa: " + e.getMessage());
+        logger.warn("💥 Error calculating ayanamsa: {}", e.getMessage());
         // Emergency fallback
         double t = (jd_ut - 2451545.0) / 36525.0;
         return 23.85 + 1.396 * t; // Simplified but functional
@@ -2458,7 +2689,7 @@ private String getZodiacSignSafe(Double position) {
         return ENGLISH_SIGNS[signIndex];
         
     } catch (Exception e) {
-        System.err.println("⚠️ Error calculating zodiac sign for position " + position + ": " + e.getMessage());
+        logger.warn("⚠️ Error calculating zodiac sign for position {}: {}", position, e.getMessage());
         return "Error";
     }
 }
@@ -2546,8 +2777,8 @@ private List<Map<String, Object>> calculateVedicAspectsSafe(Map<String, Double>
         });
         
     } catch (Exception e) {
-        System.err.println("⚠️ Error calculating Vedic aspects: " + e.getMessage());
-        e.printStackTrace();
+        logger.warn("⚠️ Error calculating Vedic aspects: {}", e.getMessage());
+        logger.debug("Stack trace", e);
     }
     
     return aspects;
@@ -2613,8 +2844,8 @@ private Map<String, Double> calculatePlanetaryStrengthsSafe(Map<String, Double>
         }
         
     } catch (Exception e) {
-        System.err.println("⚠️ Error calculating planetary strengths: " + e.getMessage());
-        e.printStackTrace();
+        logger.warn("⚠️ Error calculating planetary strengths: {}", e.getMessage());
+        logger.debug("Stack trace", e);
     }
     
     return strengths;
@@ -2724,7 +2955,7 @@ private double applyAtmosphericRefraction(double tropicalAsc, double lat) {
         
         // Validate correction magnitude
         if (Math.abs(finalCorrection) > 2.0) {
-            System.err.println("⚠️ Large atmospheric refraction correction: " + finalCorrection + "°");
+            logger.warn("⚠️ Large atmospheric refraction correction: {}°", finalCorrection);
             finalCorrection = Math.copySign(2.0, finalCorrection); // Limit to ±2°
         }
         
@@ -2734,7 +2965,7 @@ private double applyAtmosphericRefraction(double tropicalAsc, double lat) {
         return normalizeAngleUltraPrecision(correctedAsc);
         
     } catch (Exception e) {
-        System.err.println("⚠️ Error applying atmospheric refraction: " + e.getMessage());
+        logger.warn("⚠️ Error applying atmospheric refraction: {}", e.getMessage());
         return tropicalAsc; // Return uncorrected if error
     }
 }
@@ -2763,13 +2994,13 @@ private double applyNutationCorrection(double tropicalAsc, double jd_ut) {
         
         // Validate correction magnitude
         if (Math.abs(equationOfEquinoxes) > 0.1) {
-            System.err.println("⚠️ Large nutation correction: " + equationOfEquinoxes + "°");
+            logger.warn("⚠️ Large nutation correction: {}°", equationOfEquinoxes);
         }
         
         return normalizeAngleUltraPrecision(correctedAsc);
         
     } catch (Exception e) {
-        System.err.println("⚠️ Error applying nutation correction: " + e.getMessage());
+        logger.warn("⚠️ Error applying nutation correction: {}", e.getMessage());
         return tropicalAsc;
     }
 }
@@ -2816,13 +3047,13 @@ private double calculateNutationInLongitude(double jd_ut) {
         
         // Validate result
         if (Math.abs(nutationLongitude) > 0.1) {
-            System.err.println("⚠️ Unusual nutation in longitude: " + nutationLongitude + "°");
+            logger.warn("⚠️ Unusual nutation in longitude: {}°", nutationLongitude);
         }
         
         return nutationLongitude;
         
     } catch (Exception e) {
-        System.err.println("⚠️ Error calculating nutation in longitude: " + e.getMessage());
+        logger.warn("⚠️ Error calculating nutation in longitude: {}", e.getMessage());
         
         // Simple fallback calculation
         double T = (jd_ut - 2451545.0) / 36525.0;
@@ -2873,13 +3104,13 @@ private double calculateNutationInObliquity(double jd_ut) {
         
         // Validate result
         if (Math.abs(nutationObliquity) > 0.1) {
-            System.err.println("⚠️ Unusual nutation in obliquity: " + nutationObliquity + "°");
+            logger.warn("⚠️ Unusual nutation in obliquity: {}°", nutationObliquity);
         }
         
         return nutationObliquity;
         
     } catch (Exception e) {
-        System.err.println("⚠️ Error calculating nutation in obliquity: " + e.getMessage());
+        logger.warn("⚠️ Error calculating nutation in obliquity: {}", e.getMessage());
         
         // Simple fallback calculation
         double T = (jd_ut - 2451545.0) / 36525.0;
@@ -2898,7 +3129,7 @@ private Map<String, Double> calculatePlacidusHouseCusps(double siderealAsc, doub
     Map<String, Double> cusps = new LinkedHashMap<>();
     
     try {
-        System.out.println("🏠 Calculating Placidus house cusps...");
+        trace("🏠 Calculating Placidus house cusps...");
         
         double latRad = Math.toRadians(lat);
         double oblRad = Math.toRadians(obliquity);
@@ -2907,7 +3138,7 @@ private Map<String, Double> calculatePlacidusHouseCusps(double siderealAsc, doub
         
         // Validate input parameters
         if (Math.abs(lat) > 89.0) {
-            System.err.println("⚠️ Extreme latitude detected: " + lat + "°. Using equal house system.");
+            logger.warn("⚠️ Extreme latitude detected: {}°. Using equal house system.", lat);
             return calculateEqualHouseCusps(siderealAsc);
         }
         
@@ -2934,11 +3165,11 @@ private Map<String, Double> calculatePlacidusHouseCusps(double siderealAsc, doub
         // Validate all cusps
         validateHouseCusps(cusps);
         
-        System.out.printf("✅ Placidus cusps calculated successfully%n");
+        trace("✅ Placidus cusps calculated successfully");
         
     } catch (Exception e) {
-        System.err.println("💥 Error in Placidus calculation: " + e.getMessage());
-        System.err.println("🔧 Falling back to equal house system");
+        logger.warn("💥 Error in Placidus calculation: {}", e.getMessage());
+        logger.warn("🔧 Falling back to equal house system");
         return calculateEqualHouseCusps(siderealAsc);
     }
     
@@ -3002,7 +3233,7 @@ private double calculatePlacidusIntermediateCusp(int house, double asc, double m
         return normalizeAngleUltraPrecision(cusp);
         
     } catch (Exception e) {
-        System.err.println("⚠️ Error calculating intermediate cusp for house " + house);
+        logger.warn("⚠️ Error calculating intermediate cusp for house {}", house);
         // Fallback to equal house
         return normalizeAngleUltraPrecision(asc + (house - 1) * 30.0);
     }
@@ -3060,23 +3291,23 @@ private void validateHouseCusps(Map<String, Double> cusps) {
             Double cusp = cusps.get(key);
             
             if (cusp == null) {
-                System.err.println("⚠️ Missing cusp for " + key);
+                logger.warn("⚠️ Missing cusp for {}", key);
                 continue;
             }
             
             if (Double.isNaN(cusp) || Double.isInfinite(cusp)) {
-                System.err.println("⚠️ Invalid cusp for " + key + ": " + cusp);
+                logger.warn("⚠️ Invalid cusp for {}: {}", key, cusp);
                 cusps.put(key, normalizeAngleUltraPrecision((i - 1) * 30.0)); // Fallback
             }
             
             if (cusp < 0.0 || cusp >= 360.0) {
-                System.err.println("⚠️ Cusp out of range for " + key + ": " + cusp + "°");
+                logger.warn("⚠️ Cusp out of range for {}: {}°", key, cusp);
                 cusps.put(key, normalizeAngleUltraPrecision(cusp));
             }
         }
         
     } catch (Exception e) {
-        System.err.println("⚠️ Error validating house cusps: " + e.getMessage());
+        logger.warn("⚠️ Error validating house cusps: {}", e.getMessage());
     }
 }
 
@@ -3098,7 +3329,7 @@ private boolean validateMathematicalHouseQuality(Map<String, Double> houses, dou
         // Validate ASC-MC relationship (should be roughly 90° apart in most cases)
         double ascMcDiff = calculatePreciseOrb(asc, mc);
         if (ascMcDiff < 70.0 || ascMcDiff > 110.0) {
-            System.err.println("⚠️ Unusual ASC-MC relationship: " + ascMcDiff + "° separation");
+            logger.warn("⚠️ Unusual ASC-MC relationship: {}° separation", ascMcDiff);
             // Don't fail for this - can happen at extreme latitudes
         }
         
@@ -3612,7 +3843,7 @@ private String getDashaLordFromNakshatra(String nakshatra) {
     
     String dashaLord = nakshatraDashaLordMap.get(nakshatra);
     if (dashaLord == null) {
-        System.err.println("⚠️ Unknown nakshatra for dasha lord mapping: " + nakshatra);
+        logger.warn("⚠️ Unknown nakshatra for dasha lord mapping: {}", nakshatra);
         return "Ketu"; // Default fallback
     }
     
@@ -3631,12 +3862,14 @@ private List<Map<String, Object>> generateSubPeriods(Map<String, Object> period,
         LocalDate endDate = (LocalDate) period.get("endDate");
         
         if (mainDashaLord == null || startDate == null || endDate == null) {
-            System.err.println("⚠️ Invalid period data for sub-period generation");
+            logger.warn("⚠️ Invalid period data for sub-period generation");
             return subPeriods;
         }
         
-        System.out.printf("🔍 Generating sub-periods for %s Mahadasha (%s - %s)%n", 
-                        mainDashaLord, startDate, endDate);
+        if (tracing()) {
+            trace("🔍 Generating sub-periods for %s Mahadasha (%s - %s)", 
+                            mainDashaLord, startDate, endDate);
+        }
         
         // Vimshottari sequence and periods
         String[] dashaSequence = {"Ketu", "Venus", "Sun", "Moon", "Mars", "Rahu", "Jupiter", "Saturn", "Mercury"};
@@ -3645,7 +3878,7 @@ private List<Map<String, Object>> generateSubPeriods(Map<String, Object> period,
         // Find main dasha lord index
         int mainIndex = Arrays.asList(dashaSequence).indexOf(mainDashaLord);
         if (mainIndex == -1) {
-            System.err.println("⚠️ Invalid main dasha lord: " + mainDashaLord);
+            logger.warn("⚠️ Invalid main dasha lord: {}", mainDashaLord);
             return subPeriods;
         }
         
@@ -3688,17 +3921,21 @@ private List<Map<String, Object>> generateSubPeriods(Map<String, Object> period,
             
             if (!today.isBefore(subStart) && !today.isAfter(subEnd)) {
                 subPeriod.put("isCurrent", true);
-                System.out.printf("⏰ Current Sub-period: %s-%s (%s - %s)%n", 
-                                mainDashaLord, subPeriod.get("antardashaLord"), subStart, subEnd);
+                if (tracing()) {
+                    trace("⏰ Current Sub-period: %s-%s (%s - %s)", 
+                                    mainDashaLord, subPeriod.get("antardashaLord"), subStart, subEnd);
+                }
                 break;
             }
         }
         
-        System.out.printf("✅ Generated %d sub-periods for %s Mahadasha%n", subPeriods.size(), mainDashaLord);
+        if (tracing()) {
+            trace("✅ Generated %d sub-periods for %s Mahadasha", subPeriods.size(), mainDashaLord);
+        }
         
     } catch (Exception e) {
-        System.err.println("💥 Error generating sub-periods: " + e.getMessage());
-        e.printStackTrace();
+        logger.warn("💥 Error generating sub-periods: {}", e.getMessage());
+        logger.debug("Stack trace", e);
     }
     
     return subPeriods;
@@ -3982,7 +4219,7 @@ private List<Map<String, Object>> detectPowerYogas(Map<String, Double> positions
     List<Map<String, Object>> yogas = new ArrayList<>();
     
     try {
-        System.out.println("👑 Detecting Power Yogas (Mahapurusha & Authority Combinations)...");
+        trace("👑 Detecting Power Yogas (Mahapurusha & Authority Combinations)...");
         
         // 🎯 MAHAPURUSHA YOGAS (5 Great Person Combinations)
         String[] mahapurushaPlanets = {"Mars", "Mercury", "Jupiter", "Venus", "Saturn"};
@@ -4028,7 +4265,9 @@ private List<Map<String, Object>> detectPowerYogas(Map<String, Double> positions
                     yoga.put("manifestation", getMahapurushaManifestations(planet));
                     
                     yogas.add(yoga);
-                    System.out.printf("👑 DETECTED: %s - %s in %s (House %d)%n", yogaName, planet, planetSign, planetHouse);
+                    if (tracing()) {
+                        trace("👑 DETECTED: %s - %s in %s (House %d)", yogaName, planet, planetSign, planetHouse);
+                    }
                 }
             }
         }
@@ -4048,7 +4287,7 @@ private List<Map<String, Object>> detectPowerYogas(Map<String, Double> positions
         yogas.addAll(detectIndraYoga(positions, ascendant));
         
     } catch (Exception e) {
-        System.err.println("⚠️ Error detecting Power Yogas: " + e.getMessage());
+        logger.warn("⚠️ Error detecting Power Yogas: {}", e.getMessage());
     }
     
     return yogas;
@@ -4061,7 +4300,7 @@ private List<Map<String, Object>> detectSpiritualYogas(Map<String, Double> posit
     List<Map<String, Object>> yogas = new ArrayList<>();
     
     try {
-        System.out.println("🕉️ Detecting Spiritual Yogas (Moksha & Enlightenment)...");
+        trace("🕉️ Detecting Spiritual Yogas (Moksha & Enlightenment)...");
         
         // 🎯 MOKSHA YOGAS (Liberation Combinations)
         
@@ -4144,7 +4383,7 @@ private List<Map<String, Object>> detectSpiritualYogas(Map<String, Double> posit
         }
         
     } catch (Exception e) {
-        System.err.println("⚠️ Error detecting Spiritual Yogas: " + e.getMessage());
+        logger.warn("⚠️ Error detecting Spiritual Yogas: {}", e.getMessage());
     }
     
     return yogas;
@@ -4157,7 +4396,7 @@ private List<Map<String, Object>> detectCancellationYogas(Map<String, Double> po
     List<Map<String, Object>> yogas = new ArrayList<>();
     
     try {
-        System.out.println("🔄 Detecting Cancellation Yogas (Neecha Bhanga Raja)...");
+        trace("🔄 Detecting Cancellation Yogas (Neecha Bhanga Raja)...");
         
         // Check each planet for debilitation and potential cancellation
         String[] planets = {"Sun", "Moon", "Mercury", "Venus", "Mars", "Jupiter", "Saturn"};
@@ -4194,7 +4433,9 @@ private List<Map<String, Object>> detectCancellationYogas(Map<String, Double> po
                         yoga.put("lifePattern", "Struggle in early years, exceptional success after maturity");
                         yogas.add(yoga);
                         
-                        System.out.printf("🔄 DETECTED: Neecha Bhanga Raja Yoga - %s debilitation cancelled by exalted %s%n", planet, debilitationSignLord);
+                        if (tracing()) {
+                            trace("🔄 DETECTED: Neecha Bhanga Raja Yoga - %s debilitation cancelled by exalted %s", planet, debilitationSignLord);
+                        }
                     }
                 }
                 
@@ -4255,7 +4496,7 @@ private List<Map<String, Object>> detectCancellationYogas(Map<String, Double> po
         }
         
     } catch (Exception e) {
-        System.err.println("⚠️ Error detecting Cancellation Yogas: " + e.getMessage());
+        logger.warn("⚠️ Error detecting Cancellation Yogas: {}", e.getMessage());
     }
     
     return yogas;
@@ -4268,7 +4509,7 @@ private List<Map<String, Object>> detectProsperityYogas(Map<String, Double> posi
     List<Map<String, Object>> yogas = new ArrayList<>();
     
     try {
-        System.out.println("💰 Detecting Prosperity Yogas (Lakshmi & Wealth)...");
+        trace("💰 Detecting Prosperity Yogas (Lakshmi & Wealth)...");
         
         // 🎯 LAKSHMI YOGA: Venus in Kendra with strong lord
         Double venus = positions.get("Venus");
@@ -4334,7 +4575,7 @@ private List<Map<String, Object>> detectProsperityYogas(Map<String, Double> posi
         yogas.addAll(detectMultiplePlanetWealthYogas(positions, ascendant));
         
     } catch (Exception e) {
-        System.err.println("⚠️ Error detecting Prosperity Yogas: " + e.getMessage());
+        logger.warn("⚠️ Error detecting Prosperity Yogas: {}", e.getMessage());
     }
     
     return yogas;
@@ -4347,7 +4588,7 @@ private List<Map<String, Object>> detectIntelligenceYogas(Map<String, Double> po
     List<Map<String, Object>> yogas = new ArrayList<>();
     
     try {
-        System.out.println("🧠 Detecting Intelligence Yogas (Saraswati & Learning)...");
+        trace("🧠 Detecting Intelligence Yogas (Saraswati & Learning)...");
         
         // 🎯 SARASWATI YOGA: Mercury, Jupiter, Venus in Kendra/Trikona/2nd house
         Double mercury = positions.get("Mercury");
@@ -4455,7 +4696,7 @@ private List<Map<String, Object>> detectIntelligenceYogas(Map<String, Double> po
         }
         
     } catch (Exception e) {
-        System.err.println("⚠️ Error detecting Intelligence Yogas: " + e.getMessage());
+        logger.warn("⚠️ Error detecting Intelligence Yogas: {}", e.getMessage());
     }
     
     return yogas;
@@ -4468,7 +4709,7 @@ private List<Map<String, Object>> detectHealthYogas(Map<String, Double> position
     List<Map<String, Object>> yogas = new ArrayList<>();
     
     try {
-        System.out.println("🏥 Detecting Health Yogas (Arogya & Vitality)...");
+        trace("🏥 Detecting Health Yogas (Arogya & Vitality)...");
         
         // 🎯 AROGYA YOGA: 1st lord in 1st house (Strong constitution)
         String firstLord = getHouseLordAdvanced(1, ascendant);
@@ -4576,7 +4817,7 @@ private List<Map<String, Object>> detectHealthYogas(Map<String, Double> position
         }
         
     } catch (Exception e) {
-        System.err.println("⚠️ Error detecting Health Yogas: " + e.getMessage());
+        logger.warn("⚠️ Error detecting Health Yogas: {}", e.getMessage());
     }
     
     return yogas;
@@ -4589,7 +4830,7 @@ private List<Map<String, Object>> detectLongevityYogas(Map<String, Double> posit
     List<Map<String, Object>> yogas = new ArrayList<>();
     
     try {
-        System.out.println("⏳ Detecting Longevity Yogas (Ayur & Long Life)...");
+        trace("⏳ Detecting Longevity Yogas (Ayur & Long Life)...");
         
         // 🎯 DEERGHA AYUR YOGA: 1st, 8th, 10th lords in good positions
         String firstLord = getHouseLordAdvanced(1, ascendant);
@@ -4694,7 +4935,7 @@ private List<Map<String, Object>> detectLongevityYogas(Map<String, Double> posit
         }
         
     } catch (Exception e) {
-        System.err.println("⚠️ Error detecting Longevity Yogas: " + e.getMessage());
+        logger.warn("⚠️ Error detecting Longevity Yogas: {}", e.getMessage());
     }
     
     return yogas;
@@ -4707,7 +4948,7 @@ private List<Map<String, Object>> detectChallengingYogas(Map<String, Double> pos
     List<Map<String, Object>> yogas = new ArrayList<>();
     
     try {
-        System.out.println("⚠️ Detecting Challenging Yogas (Arishta & Obstacles)...");
+        trace("⚠️ Detecting Challenging Yogas (Arishta & Obstacles)...");
         
         // 🎯 KEMADRUM YOGA: Moon without benefic planets on both sides
         Double moon = positions.get("Moon");
@@ -4785,7 +5026,7 @@ private List<Map<String, Object>> detectChallengingYogas(Map<String, Double> pos
         yogas.addAll(detectPapakartariYogas(positions, ascendant));
         
     } catch (Exception e) {
-        System.err.println("⚠️ Error detecting Challenging Yogas: " + e.getMessage());
+        logger.warn("⚠️ Error detecting Challenging Yogas: {}", e.getMessage());
     }
     
     return yogas;
@@ -4798,7 +5039,7 @@ private List<Map<String, Object>> detectKendraTrikonaYogas(Map<String, Double> p
     List<Map<String, Object>> yogas = new ArrayList<>();
     
     try {
-        System.out.println("🔺 Detecting Kendra-Trikona Yogas (Angular-Trinal Power)...");
+        trace("🔺 Detecting Kendra-Trikona Yogas (Angular-Trinal Power)...");
         
         int[] kendras = {1, 4, 7, 10}; // Angular houses (material power)
         int[] trikonas = {1, 5, 9};    // Trinal houses (spiritual power)
@@ -4837,7 +5078,9 @@ private List<Map<String, Object>> detectKendraTrikonaYogas(Map<String, Double> p
                             yoga.put("strength", "Maximum");
                             yogas.add(yoga);
                             
-                            System.out.printf("🔺 DETECTED: Kendra-Trikona Parivartana - Houses %d-%d%n", kendra, trikona);
+                            if (tracing()) {
+                                trace("🔺 DETECTED: Kendra-Trikona Parivartana - Houses %d-%d", kendra, trikona);
+                            }
                         }
                         
                         // TYPE 2: Lords in conjunction
@@ -4916,7 +5159,7 @@ private List<Map<String, Object>> detectKendraTrikonaYogas(Map<String, Double> p
         }
         
     } catch (Exception e) {
-        System.err.println("⚠️ Error detecting Kendra-Trikona Yogas: " + e.getMessage());
+        logger.warn("⚠️ Error detecting Kendra-Trikona Yogas: {}", e.getMessage());
     }
     
     return yogas;
@@ -5003,10 +5246,10 @@ private List<Map<String, Object>> generateYogaSpecificRemedies(List<Map<String,
     List<Map<String, Object>> remedies = new ArrayList<>();
     
     try {
-        System.out.println("💎 Generating Yoga-Specific Remedies...");
+        trace("💎 Generating Yoga-Specific Remedies...");
         
         if (yogas == null || yogas.isEmpty()) {
-            System.out.println("⚠️ No yogas detected for remedy generation");
+            trace("⚠️ No yogas detected for remedy generation");
             return remedies;
         }
         
@@ -5041,14 +5284,18 @@ private List<Map<String, Object>> generateYogaSpecificRemedies(List<Map<String,
             
             remedies.add(remedy);
             
-            System.out.printf("   💎 Added remedy for %s (Priority: %d)%n", yogaName, priority);
+            if (tracing()) {
+                trace("   💎 Added remedy for %s (Priority: %d)", yogaName, priority);
+            }
         }
         
-        System.out.printf("✅ Generated %d yoga-specific remedies%n", remedies.size());
+        if (tracing()) {
+            trace("✅ Generated %d yoga-specific remedies", remedies.size());
+        }
         
     } catch (Exception e) {
-        System.err.println("💥 Error generating yoga-specific remedies: " + e.getMessage());
-        e.printStackTrace();
+        logger.warn("💥 Error generating yoga-specific remedies: {}", e.getMessage());
+        logger.debug("Stack trace", e);
     }
     
     return remedies;
@@ -5061,10 +5308,10 @@ private List<Map<String, Object>> generateDashaBasedRemedies(User user, Map<Stri
     List<Map<String, Object>> remedies = new ArrayList<>();
     
     try {
-        System.out.println("⏰ Generating Dasha-Based Remedies...");
+        trace("⏰ Generating Dasha-Based Remedies...");
         
         if (user == null || siderealPositions == null) {
-            System.err.println("⚠️ Invalid parameters for dasha remedies");
+            logger.warn("⚠️ Invalid parameters for dasha remedies");
             return remedies;
         }
         
@@ -5107,11 +5354,13 @@ private List<Map<String, Object>> generateDashaBasedRemedies(User user, Map<Stri
             remedies.add(antardashaRemedy);
         }
         
-        System.out.printf("✅ Generated %d dasha-based remedies%n", remedies.size());
+        if (tracing()) {
+            trace("✅ Generated %d dasha-based remedies", remedies.size());
+        }
         
     } catch (Exception e) {
-        System.err.println("💥 Error generating dasha-based remedies: " + e.getMessage());
-        e.printStackTrace();
+        logger.warn("💥 Error generating dasha-based remedies: {}", e.getMessage());
+        logger.debug("Stack trace", e);
     }
     
     return remedies;
@@ -5124,7 +5373,7 @@ private List<Map<String, Object>> generateNakshatraBasedRemedies(Map<String, Dou
     List<Map<String, Object>> remedies = new ArrayList<>();
     
     try {
-        System.out.println("⭐ Generating Nakshatra-Based Remedies...");
+        trace("⭐ Generating Nakshatra-Based Remedies...");
         
         if (siderealPositions == null) return remedies;
         
@@ -5160,15 +5409,19 @@ private List<Map<String, Object>> generateNakshatraBasedRemedies(Map<String, Dou
                 
                 remedies.add(remedy);
                 
-                System.out.printf("   ⭐ Added remedy for %s in %s (Pada %d)%n", planet, nakshatra, pada);
+                if (tracing()) {
+                    trace("   ⭐ Added remedy for %s in %s (Pada %d)", planet, nakshatra, pada);
+                }
             }
         }
         
-        System.out.printf("✅ Generated %d nakshatra-based remedies%n", remedies.size());
+        if (tracing()) {
+            trace("✅ Generated %d nakshatra-based remedies", remedies.size());
+        }
         
     } catch (Exception e) {
-        System.err.println("💥 Error generating nakshatra-based remedies: " + e.getMessage());
-        e.printStackTrace();
+        logger.warn("💥 Error generating nakshatra-based remedies: {}", e.getMessage());
+        logger.debug("Stack trace", e);
     }
     
     return remedies;
@@ -5181,7 +5434,7 @@ private List<Map<String, Object>> generateHouseBasedRemedies(Map<String, Double>
     List<Map<String, Object>> remedies = new ArrayList<>();
     
     try {
-        System.out.println("🏠 Generating House-Based Remedies...");
+        trace("🏠 Generating House-Based Remedies...");
         
         if (siderealPositions == null || user == null) return remedies;
         
@@ -5222,16 +5475,20 @@ private List<Map<String, Object>> generateHouseBasedRemedies(Map<String, Double>
                 
                 remedies.add(remedy);
                 
-                System.out.printf("   🏠 Added remedy for %s house (%s lord %s)%n", 
-                                getHouseName(house), houseLord, getHouseLordCondition(isLordDebilitated, isLordCombust, houseLordHouse));
+                if (tracing()) {
+                    trace("   🏠 Added remedy for %s house (%s lord %s)", 
+                                    getHouseName(house), houseLord, getHouseLordCondition(isLordDebilitated, isLordCombust, houseLordHouse));
+                }
             }
         }
         
-        System.out.printf("✅ Generated %d house-based remedies%n", remedies.size());
+        if (tracing()) {
+            trace("✅ Generated %d house-based remedies", remedies.size());
+        }
         
     } catch (Exception e) {
-        System.err.println("💥 Error generating house-based remedies: " + e.getMessage());
-        e.printStackTrace();
+        logger.warn("💥 Error generating house-based remedies: {}", e.getMessage());
+        logger.debug("Stack trace", e);
     }
     
     return remedies;
@@ -5244,7 +5501,7 @@ private List<Map<String, Object>> generateHealthWellnessRemedies(Map<String, Dou
     List<Map<String, Object>> remedies = new ArrayList<>();
     
     try {
-        System.out.println("🏥 Generating Health & Wellness Remedies...");
+        trace("🏥 Generating Health & Wellness Remedies...");
         
         if (siderealPositions == null) return remedies;
         
@@ -5275,8 +5532,10 @@ private List<Map<String, Object>> generateHealthWellnessRemedies(Map<String, Dou
                 
                 remedies.add(remedy);
                 
-                System.out.printf("   🏥 Added health remedy for %s (%s)%n", planet, 
-                                isDebilitated ? "debilitated" : isCombust ? "combust" : "weak");
+                if (tracing()) {
+                    trace("   🏥 Added health remedy for %s (%s)", planet, 
+                                    isDebilitated ? "debilitated" : isCombust ? "combust" : "weak");
+                }
             }
         }
         
@@ -5284,11 +5543,13 @@ private List<Map<String, Object>> generateHealthWellnessRemedies(Map<String, Dou
         Map<String, Object> generalWellness = createGeneralWellnessRemedy();
         remedies.add(generalWellness);
         
-        System.out.printf("✅ Generated %d health & wellness remedies%n", remedies.size());
+        if (tracing()) {
+            trace("✅ Generated %d health & wellness remedies", remedies.size());
+        }
         
     } catch (Exception e) {
-        System.err.println("💥 Error generating health & wellness remedies: " + e.getMessage());
-        e.printStackTrace();
+        logger.warn("💥 Error generating health & wellness remedies: {}", e.getMessage());
+        logger.debug("Stack trace", e);
     }
     
     return remedies;
@@ -5301,7 +5562,7 @@ private List<Map<String, Object>> generateCareerProsperityRemedies(Map<String, D
     List<Map<String, Object>> remedies = new ArrayList<>();
     
     try {
-        System.out.println("💼 Generating Career & Prosperity Remedies...");
+        trace("💼 Generating Career & Prosperity Remedies...");
         
         if (siderealPositions == null) return remedies;
         
@@ -5317,11 +5578,13 @@ private List<Map<String, Object>> generateCareerProsperityRemedies(Map<String, D
             
         }
         
-        System.out.printf("✅ Generated %d career & prosperity remedies%n", remedies.size());
+        if (tracing()) {
+            trace("✅ Generated %d career & prosperity remedies", remedies.size());
+        }
         
     } catch (Exception e) {
-        System.err.println("💥 Error generating career & prosperity remedies: " + e.getMessage());
-        e.printStackTrace();
+        logger.warn("💥 Error generating career & prosperity remedies: {}", e.getMessage());
+        logger.debug("Stack trace", e);
     }
     
     return remedies;
@@ -5334,7 +5597,7 @@ private List<Map<String, Object>> generateRelationshipHarmonyRemedies(Map<String
     List<Map<String, Object>> remedies = new ArrayList<>();
     
     try {
-        System.out.println("💕 Generating Relationship Harmony Remedies...");
+        trace("💕 Generating Relationship Harmony Remedies...");
         
         if (siderealPositions == null) return remedies;
         
@@ -5350,11 +5613,13 @@ private List<Map<String, Object>> generateRelationshipHarmonyRemedies(Map<String
            
         }
         
-        System.out.printf("✅ Generated %d relationship harmony remedies%n", remedies.size());
+        if (tracing()) {
+            trace("✅ Generated %d relationship harmony remedies", remedies.size());
+        }
         
     } catch (Exception e) {
-        System.err.println("💥 Error generating relationship harmony remedies: " + e.getMessage());
-        e.printStackTrace();
+        logger.warn("💥 Error generating relationship harmony remedies: {}", e.getMessage());
+        logger.debug("Stack trace", e);
     }
     
     return remedies;
@@ -5367,7 +5632,7 @@ private List<Map<String, Object>> generateSpiritualDevelopmentRemedies(Map<Strin
     List<Map<String, Object>> remedies = new ArrayList<>();
     
     try {
-        System.out.println("🕉️ Generating Spiritual Development Remedies...");
+        trace("🕉️ Generating Spiritual Development Remedies...");
         
         if (siderealPositions == null) return remedies;
         
@@ -5383,11 +5648,13 @@ private List<Map<String, Object>> generateSpiritualDevelopmentRemedies(Map<Strin
            
         }
         
-        System.out.printf("✅ Generated %d spiritual development remedies%n", remedies.size());
+        if (tracing()) {
+            trace("✅ Generated %d spiritual development remedies", remedies.size());
+        }
         
     } catch (Exception e) {
-        System.err.println("💥 Error generating spiritual development remedies: " + e.getMessage());
-        e.printStackTrace();
+        logger.warn("💥 Error generating spiritual development remedies: {}", e.getMessage());
+        logger.debug("Stack trace", e);
     }
     
     return remedies;
@@ -5400,7 +5667,7 @@ private List<Map<String, Object>> generateGemstoneRemedies(Map<String, Double> s
     List<Map<String, Object>> remedies = new ArrayList<>();
     
     try {
-        System.out.println("💎 Generating Gemstone Remedies...");
+        trace("💎 Generating Gemstone Remedies...");
         
         if (siderealPositions == null) return remedies;
         
@@ -5416,11 +5683,13 @@ private List<Map<String, Object>> generateGemstoneRemedies(Map<String, Double> s
             
         }
         
-        System.out.printf("✅ Generated %d gemstone remedies%n", remedies.size());
+        if (tracing()) {
+            trace("✅ Generated %d gemstone remedies", remedies.size());
+        }
         
     } catch (Exception e) {
-        System.err.println("💥 Error generating gemstone remedies: " + e.getMessage());
-        e.printStackTrace();
+        logger.warn("💥 Error generating gemstone remedies: {}", e.getMessage());
+        logger.debug("Stack trace", e);
     }
     
     return remedies;
@@ -5433,7 +5702,7 @@ private List<Map<String, Object>> generateMantraYantraRemedies(Map<String, Doubl
     List<Map<String, Object>> remedies = new ArrayList<>();
     
     try {
-        System.out.println("🕉️ Generating Mantra & Yantra Remedies...");
+        trace("🕉️ Generating Mantra & Yantra Remedies...");
         
         if (siderealPositions == null) return remedies;
         
@@ -5465,16 +5734,20 @@ private List<Map<String, Object>> generateMantraYantraRemedies(Map<String, Doubl
                     
                     remedies.add(remedy);
                     
-                    System.out.printf("   🕉️ Added special mantra for %s yoga%n", yogaName);
+                    if (tracing()) {
+                        trace("   🕉️ Added special mantra for %s yoga", yogaName);
+                    }
                 }
             }
         }
         
-        System.out.printf("✅ Generated %d mantra & yantra remedies%n", remedies.size());
+        if (tracing()) {
+            trace("✅ Generated %d mantra & yantra remedies", remedies.size());
+        }
         
     } catch (Exception e) {
-        System.err.println("💥 Error generating mantra & yantra remedies: " + e.getMessage());
-        e.printStackTrace();
+        logger.warn("💥 Error generating mantra & yantra remedies: {}", e.getMessage());
+        logger.debug("Stack trace", e);
     }
     
     return remedies;
@@ -5487,7 +5760,7 @@ private List<Map<String, Object>> generateLifestyleBehavioralRemedies(Map<String
     List<Map<String, Object>> remedies = new ArrayList<>();
     
     try {
-        System.out.println("🌱 Generating Lifestyle & Behavioral Remedies...");
+        trace("🌱 Generating Lifestyle & Behavioral Remedies...");
         
         if (siderealPositions == null) return remedies;
         
@@ -5538,11 +5811,13 @@ private List<Map<String, Object>> generateLifestyleBehavioralRemedies(Map<String
         Map<String, Object> holisticRemedy = createHolisticLifestyleRemedy(siderealPositions, user);
         remedies.add(holisticRemedy);
         
-        System.out.printf("✅ Generated %d lifestyle & behavioral remedies%n", remedies.size());
+        if (tracing()) {
+            trace("✅ Generated %d lifestyle & behavioral remedies", remedies.size());
+        }
         
     } catch (Exception e) {
-        System.err.println("💥 Error generating lifestyle & behavioral remedies: " + e.getMessage());
-        e.printStackTrace();
+        logger.warn("💥 Error generating lifestyle & behavioral remedies: {}", e.getMessage());
+        logger.debug("Stack trace", e);
     }
     
     return remedies;
@@ -5575,18 +5850,7 @@ private String getPrimaryGemstone(String planet) {
 }
 
 private String getPlanetaryBeejMantra(String planet) {
-    Map<String, String> beejMantraMap = Map.of(
-        "Sun", "Om Hraam Hreem Hraum Sah Suryaya Namaha",
-        "Moon", "Om Shraam Shreem Shraum Sah Chandraya Namaha",
-        "Mercury", "Om Braam Breem Braum Sah Budhaya Namaha",
-        "Venus", "Om Draam Dreem Draum Sah Shukraya Namaha",
-        "Mars", "Om Kraam Kreem Kraum Sah Bhaumaya Namaha",
-        "Jupiter", "Om Graam Greem Graum Sah Gurave Namaha",
-        "Saturn", "Om Praam Preem Praum Sah Shanaye Namaha",
-        "Rahu", "Om Bhraam Bhreem Bhraum Sah Rahave Namaha",
-        "Ketu", "Om Shraam Shreem Shraum Sah Ketave Namaha"
-    );
-    return beejMantraMap.getOrDefault(planet, "Om " + planet + "aya Namaha");
+    return RemedyCatalog.beejMantra(planet);
 }
 
 // Additional helper methods would continue here...
@@ -5635,11 +5899,11 @@ private String identifyPlanetFromPosition(double planetPosition) {
         }
         
         // Fallback: Return null to indicate uncertainty
-        System.err.println("⚠️ Warning: Cannot reliably identify planet from position " + planetPosition + "°");
+        logger.warn("⚠️ Warning: Cannot reliably identify planet from position {}°", planetPosition);
         return null;
         
     } catch (Exception e) {
-        System.err.println("⚠️ Error identifying planet from position: " + e.getMessage());
+        logger.warn("⚠️ Error identifying planet from position: {}", e.getMessage());
         return null;
     }
 }
@@ -5668,13 +5932,15 @@ private boolean isPlanetExaltedAdvanced(String planet, String sign) {
         boolean isExalted = sign.equals(exaltationSign);
         
         if (isExalted) {
-            System.out.printf("✨ %s is exalted in %s%n", planet, sign);
+            if (tracing()) {
+                trace("✨ %s is exalted in %s", planet, sign);
+            }
         }
         
         return isExalted;
         
     } catch (Exception e) {
-        System.err.println("⚠️ Error checking exaltation for " + planet + ": " + e.getMessage());
+        logger.warn("⚠️ Error checking exaltation for {}: {}", planet, e.getMessage());
         return false;
     }
 }
@@ -5703,13 +5969,15 @@ private boolean isPlanetInOwnSignAdvanced(String planet, String sign) {
         boolean isInOwnSign = planetOwnSigns != null && planetOwnSigns.contains(sign);
         
         if (isInOwnSign) {
-            System.out.printf("🏠 %s is in own sign %s%n", planet, sign);
+            if (tracing()) {
+                trace("🏠 %s is in own sign %s", planet, sign);
+            }
         }
         
         return isInOwnSign;
         
     } catch (Exception e) {
-        System.err.println("⚠️ Error checking own sign for " + planet + ": " + e.getMessage());
+        logger.warn("⚠️ Error checking own sign for {}: {}", planet, e.getMessage());
         return false;
     }
 }
@@ -5738,13 +6006,15 @@ private boolean isPlanetInFriendSignAdvanced(String planet, String sign) {
         boolean isInFriendSign = planetFriendSigns != null && planetFriendSigns.contains(sign);
         
         if (isInFriendSign) {
-            System.out.printf("🤝 %s is in friend sign %s%n", planet, sign);
+            if (tracing()) {
+                trace("🤝 %s is in friend sign %s", planet, sign);
+            }
         }
         
         return isInFriendSign;
         
     } catch (Exception e) {
-        System.err.println("⚠️ Error checking friend sign for " + planet + ": " + e.getMessage());
+        logger.warn("⚠️ Error checking friend sign for {}: {}", planet, e.getMessage());
         return false;
     }
 }
@@ -5757,11 +6027,11 @@ private Map<String, Map<String, Object>> calculateWholeSignHousesSafe(Double asc
     
     try {
         if (ascendant == null) {
-            System.err.println("⚠️ Cannot calculate whole sign houses without ascendant");
+            logger.warn("⚠️ Cannot calculate whole sign houses without ascendant");
             return wholeSignHouses;
         }
         
-        System.out.println("🏠 Calculating Whole Sign Houses (Traditional Vedic)...");
+        trace("🏠 Calculating Whole Sign Houses (Traditional Vedic)...");
         
         double normalizedAsc = normalizeAngleUltraPrecision(ascendant);
         int ascendantSign = (int) (normalizedAsc / 30.0);
@@ -5787,14 +6057,16 @@ private Map<String, Map<String, Object>> calculateWholeSignHousesSafe(Double asc
             
             wholeSignHouses.put("house" + house, houseInfo);
             
-            System.out.printf("   🏠 House %d: %s in %s (Lord: %s)%n", house, getDetailedHouseName(house), signName, houseLord);
+            if (tracing()) {
+                trace("   🏠 House %d: %s in %s (Lord: %s)", house, getDetailedHouseName(house), signName, houseLord);
+            }
         }
         
-        System.out.printf("✅ Calculated 12 whole sign houses%n");
+        trace("✅ Calculated 12 whole sign houses");
         
     } catch (Exception e) {
-        System.err.println("💥 Error calculating whole sign houses: " + e.getMessage());
-        e.printStackTrace();
+        logger.warn("💥 Error calculating whole sign houses: {}", e.getMessage());
+        logger.debug("Stack trace", e);
     }
     
     return wholeSignHouses;
@@ -5809,7 +6081,7 @@ private String calculateDominantElementSafe(Map<String, Double> siderealPosition
     }
     
     try {
-        System.out.println("🔥 Calculating Dominant Element...");
+        trace("🔥 Calculating Dominant Element...");
         
         Map<String, Integer> elementCounts = new HashMap<>();
         elementCounts.put("Fire", 0);
@@ -5828,7 +6100,9 @@ private String calculateDominantElementSafe(Map<String, Double> siderealPosition
                 
                 if (element != null) {
                     elementCounts.put(element, elementCounts.get(element) + 1);
-                    System.out.printf("   🔥 %s in %s (%s element)%n", point, sign, element);
+                    if (tracing()) {
+                        trace("   🔥 %s in %s (%s element)", point, sign, element);
+                    }
                 }
             }
         }
@@ -5848,15 +6122,17 @@ private String calculateDominantElementSafe(Map<String, Double> siderealPosition
         
         if (maxElements > 1) {
             dominantElement = "Balanced";
-            System.out.println("⚖️ Elements are balanced - no single dominant element");
+            trace("⚖️ Elements are balanced - no single dominant element");
         } else {
-            System.out.printf("✅ Dominant Element: %s (%d/%d placements)%n", dominantElement, maxCount, importantPoints.length);
+            if (tracing()) {
+                trace("✅ Dominant Element: %s (%d/%d placements)", dominantElement, maxCount, importantPoints.length);
+            }
         }
         
         return dominantElement;
         
     } catch (Exception e) {
-        System.err.println("⚠️ Error calculating dominant element: " + e.getMessage());
+        logger.warn("⚠️ Error calculating dominant element: {}", e.getMessage());
         return "Error in calculation";
     }
 }
@@ -5866,7 +6142,7 @@ private String calculateDominantElementSafe(Map<String, Double> siderealPosition
  */
 private String calculateDataQuality(User user, Map<String, Double> siderealPositions) {
     try {
-        System.out.println("📊 Assessing Data Quality...");
+        trace("📊 Assessing Data Quality...");
         
         if (user == null) {
             return "Poor - No user data available";
@@ -5992,12 +6268,14 @@ private String calculateDataQuality(User user, Map<String, Double> siderealPosit
             qualityReport.append("\nIssues: ").append(String.join(", ", qualityIssues));
         }
         
-        System.out.printf("📊 Data Quality Assessment: %s (%d points)%n", qualityRating, qualityScore);
+        if (tracing()) {
+            trace("📊 Data Quality Assessment: %s (%d points)", qualityRating, qualityScore);
+        }
         
         return qualityReport.toString();
         
     } catch (Exception e) {
-        System.err.println("⚠️ Error assessing data quality: " + e.getMessage());
+        logger.warn("⚠️ Error assessing data quality: {}", e.getMessage());
         return "Error - Unable to assess data quality";
     }
 }
@@ -6009,7 +6287,7 @@ private List<String> getCalculationWarnings(Map<String, Double> siderealPosition
     List<String> warnings = new ArrayList<>();
     
     try {
-        System.out.println("⚠️ Checking for calculation warnings...");
+        trace("⚠️ Checking for calculation warnings...");
         
         if (siderealPositions == null || siderealPositions.isEmpty()) {
             warnings.add("CRITICAL: No planetary positions calculated");
@@ -6083,15 +6361,17 @@ private List<String> getCalculationWarnings(Map<String, Double> siderealPosition
         // 🎯 HOUSE SYSTEM WARNINGS
         checkForHouseSystemWarnings(siderealPositions, warnings);
         
-        System.out.printf("⚠️ Generated %d calculation warnings%n", warnings.size());
+        if (tracing()) {
+            trace("⚠️ Generated %d calculation warnings", warnings.size());
+        }
         
         if (warnings.isEmpty()) {
-            System.out.println("✅ No calculation warnings - all values appear normal");
+            trace("✅ No calculation warnings - all values appear normal");
         }
         
     } catch (Exception e) {
         warnings.add("ERROR: Exception during warning generation - " + e.getMessage());
-        System.err.println("💥 Error generating calculation warnings: " + e.getMessage());
+        logger.warn("💥 Error generating calculation warnings: {}", e.getMessage());
     }
     
     return warnings;
@@ -6307,7 +6587,7 @@ private List<Map<String, Object>> detectSimhasanaYoga(Map<String, Double> positi
     List<Map<String, Object>> yogas = new ArrayList<>();
     
     try {
-        System.out.println("👑 Detecting Simhasana Yoga (Throne Yoga)...");
+        trace("👑 Detecting Simhasana Yoga (Throne Yoga)...");
         
         // Simhasana Yoga: Lords of 2nd, 6th, 8th, 12th in 3rd, 6th, 10th, 11th houses
         int[] dusthanaHouses = {2, 6, 8, 12}; // Houses to check lords of
@@ -6353,11 +6633,13 @@ private List<Map<String, Object>> detectSimhasanaYoga(Map<String, Double> positi
             
             yogas.add(yoga);
             
-            System.out.printf("👑 DETECTED: Simhasana Yoga - %d favorable placements%n", favorableplacements);
+            if (tracing()) {
+                trace("👑 DETECTED: Simhasana Yoga - %d favorable placements", favorableplacements);
+            }
         }
         
     } catch (Exception e) {
-        System.err.println("⚠️ Error detecting Simhasana Yoga: " + e.getMessage());
+        logger.warn("⚠️ Error detecting Simhasana Yoga: {}", e.getMessage());
     }
     
     return yogas;
@@ -6370,7 +6652,7 @@ private List<Map<String, Object>> detectHansaYoga(Map<String, Double> positions,
     List<Map<String, Object>> yogas = new ArrayList<>();
     
     try {
-        System.out.println("🦢 Detecting Hansa Yoga (Swan Yoga)...");
+        trace("🦢 Detecting Hansa Yoga (Swan Yoga)...");
         
         Double jupiter = positions.get("Jupiter");
         Double venus = positions.get("Venus");
@@ -6399,7 +6681,9 @@ private List<Map<String, Object>> detectHansaYoga(Map<String, Double> positions,
                 yoga.put("manifestation", "Natural wisdom, artistic abilities, spiritual inclination, blessed life");
                 yogas.add(yoga);
                 
-                System.out.printf("🦢 DETECTED: Hansa Yoga (Kendra) - Jupiter H%d, Venus H%d%n", jupiterHouse, venusHouse);
+                if (tracing()) {
+                    trace("🦢 DETECTED: Hansa Yoga (Kendra) - Jupiter H%d, Venus H%d", jupiterHouse, venusHouse);
+                }
             }
             
             // Type 2: Jupiter-Venus conjunction or mutual aspect
@@ -6422,7 +6706,7 @@ private List<Map<String, Object>> detectHansaYoga(Map<String, Double> positions,
         }
         
     } catch (Exception e) {
-        System.err.println("⚠️ Error detecting Hansa Yoga: " + e.getMessage());
+        logger.warn("⚠️ Error detecting Hansa Yoga: {}", e.getMessage());
     }
     
     return yogas;
@@ -6435,7 +6719,7 @@ private List<Map<String, Object>> detectMarudYoga(Map<String, Double> positions,
     List<Map<String, Object>> yogas = new ArrayList<>();
     
     try {
-        System.out.println("⚡ Detecting Marud Yoga (Storm God Power)...");
+        trace("⚡ Detecting Marud Yoga (Storm God Power)...");
         
         String tenthLord = getHouseLordAdvanced(10, ascendant);
         Double mars = positions.get("Mars");
@@ -6464,7 +6748,9 @@ private List<Map<String, Object>> detectMarudYoga(Map<String, Double> positions,
                     
                     yogas.add(yoga);
                     
-                    System.out.printf("⚡ DETECTED: Marud Yoga - %s-Mars conjunction (%.2f°)%n", tenthLord, orb);
+                    if (tracing()) {
+                        trace("⚡ DETECTED: Marud Yoga - %s-Mars conjunction (%.2f°)", tenthLord, orb);
+                    }
                 }
                 
                 // Type 2: Mars aspecting 10th lord strongly
@@ -6486,7 +6772,7 @@ private List<Map<String, Object>> detectMarudYoga(Map<String, Double> positions,
         }
         
     } catch (Exception e) {
-        System.err.println("⚠️ Error detecting Marud Yoga: " + e.getMessage());
+        logger.warn("⚠️ Error detecting Marud Yoga: {}", e.getMessage());
     }
     
     return yogas;
@@ -6499,7 +6785,7 @@ private List<Map<String, Object>> detectIndraYoga(Map<String, Double> positions,
     List<Map<String, Object>> yogas = new ArrayList<>();
     
     try {
-        System.out.println("⚡ Detecting Indra Yoga (Supreme Authority)...");
+        trace("⚡ Detecting Indra Yoga (Supreme Authority)...");
         
         String fifthLord = getHouseLordAdvanced(5, ascendant);
         String eleventhLord = getHouseLordAdvanced(11, ascendant);
@@ -6531,7 +6817,9 @@ private List<Map<String, Object>> detectIndraYoga(Map<String, Double> positions,
                     
                     yogas.add(yoga);
                     
-                    System.out.printf("⚡ DETECTED: Indra Yoga (Parivartana) - %s ↔ %s house exchange%n", fifthLord, eleventhLord);
+                    if (tracing()) {
+                        trace("⚡ DETECTED: Indra Yoga (Parivartana) - %s ↔ %s house exchange", fifthLord, eleventhLord);
+                    }
                 }
                 
                 // Alternative: Strong conjunction
@@ -6555,7 +6843,7 @@ private List<Map<String, Object>> detectIndraYoga(Map<String, Double> positions,
         }
         
     } catch (Exception e) {
-        System.err.println("⚠️ Error detecting Indra Yoga: " + e.getMessage());
+        logger.warn("⚠️ Error detecting Indra Yoga: {}", e.getMessage());
     }
     
     return yogas;
@@ -6568,7 +6856,7 @@ private List<Map<String, Object>> detectSannyasaYogas(Map<String, Double> positi
     List<Map<String, Object>> yogas = new ArrayList<>();
     
     try {
-        System.out.println("🕉️ Detecting Sannyasa Yogas (Renunciation)...");
+        trace("🕉️ Detecting Sannyasa Yogas (Renunciation)...");
         
         // Type 1: Four or more planets in one sign (Ekadhi Yoga leading to Sannyasa)
         Map<String, List<String>> planetsInSigns = new HashMap<>();
@@ -6605,7 +6893,9 @@ private List<Map<String, Object>> detectSannyasaYogas(Map<String, Double> positi
                 
                 yogas.add(yoga);
                 
-                System.out.printf("🕉️ DETECTED: Sannyasa Yoga (Ekadhi) - %d planets in %s%n", planets.size(), sign);
+                if (tracing()) {
+                    trace("🕉️ DETECTED: Sannyasa Yoga (Ekadhi) - %d planets in %s", planets.size(), sign);
+                }
             }
         }
         
@@ -6654,7 +6944,7 @@ private List<Map<String, Object>> detectSannyasaYogas(Map<String, Double> positi
         }
         
     } catch (Exception e) {
-        System.err.println("⚠️ Error detecting Sannyasa Yogas: " + e.getMessage());
+        logger.warn("⚠️ Error detecting Sannyasa Yogas: {}", e.getMessage());
     }
     
     return yogas;
@@ -6667,7 +6957,7 @@ private List<Map<String, Object>> detectPravrajyaYogas(Map<String, Double> posit
     List<Map<String, Object>> yogas = new ArrayList<>();
     
     try {
-        System.out.println("🚶 Detecting Pravrajya Yogas (Ascetic Life)...");
+        trace("🚶 Detecting Pravrajya Yogas (Ascetic Life)...");
         
         // Type 1: 10th house afflicted by malefics (detachment from worldly status)
         String tenthLord = getHouseLordAdvanced(10, ascendant);
@@ -6696,7 +6986,9 @@ private List<Map<String, Object>> detectPravrajyaYogas(Map<String, Double> posit
                     
                     yogas.add(yoga);
                     
-                    System.out.printf("🚶 DETECTED: Pravrajya Yoga - %s afflicted%n", tenthLord);
+                    if (tracing()) {
+                        trace("🚶 DETECTED: Pravrajya Yoga - %s afflicted", tenthLord);
+                    }
                 }
             }
         }
@@ -6759,7 +7051,7 @@ private List<Map<String, Object>> detectPravrajyaYogas(Map<String, Double> posit
         }
         
     } catch (Exception e) {
-        System.err.println("⚠️ Error detecting Pravrajya Yogas: " + e.getMessage());
+        logger.warn("⚠️ Error detecting Pravrajya Yogas: {}", e.getMessage());
     }
     
     return yogas;
@@ -6772,7 +7064,7 @@ private List<Map<String, Object>> detectTapasviYogas(Map<String, Double> positio
     List<Map<String, Object>> yogas = new ArrayList<>();
     
     try {
-        System.out.println("🧘 Detecting Tapasvi Yogas (Penance & Austerity)...");
+        trace("🧘 Detecting Tapasvi Yogas (Penance & Austerity)...");
         
         // Type 1: Saturn in 1st house creating disciplined personality
         Double saturn = positions.get("Saturn");
@@ -6795,7 +7087,7 @@ private List<Map<String, Object>> detectTapasviYogas(Map<String, Double> positio
                 yoga.put("manifestation", "Disciplined lifestyle, spiritual practices, natural renunciation");
                 yogas.add(yoga);
                 
-                System.out.printf("🧘 DETECTED: Tapasvi Yoga - Saturn in 1st house%n");
+                trace("🧘 DETECTED: Tapasvi Yoga - Saturn in 1st house");
             }
         }
         
@@ -6857,7 +7149,7 @@ private List<Map<String, Object>> detectTapasviYogas(Map<String, Double> positio
         }
         
     } catch (Exception e) {
-        System.err.println("⚠️ Error detecting Tapasvi Yogas: " + e.getMessage());
+        logger.warn("⚠️ Error detecting Tapasvi Yogas: {}", e.getMessage());
     }
     
     return yogas;
@@ -6870,7 +7162,9 @@ private List<Map<String, Object>> detectParivartanaNeechaBhanga(String planet, d
     List<Map<String, Object>> yogas = new ArrayList<>();
     
     try {
-        System.out.println("🔄 Detecting Parivartana Neecha Bhanga for " + planet + "...");
+        if (tracing()) {
+            trace("🔄 Detecting Parivartana Neecha Bhanga for %s...", planet);
+        }
         
         String planetSign = getZodiacSignSafe(planetPos);
         
@@ -6918,11 +7212,13 @@ private List<Map<String, Object>> detectParivartanaNeechaBhanga(String planet, d
             
             yogas.add(yoga);
             
-            System.out.printf("🔄 DETECTED: Parivartana Neecha Bhanga - %s ↔ %s exchange%n", planet, debilitationSignLord);
+            if (tracing()) {
+                trace("🔄 DETECTED: Parivartana Neecha Bhanga - %s ↔ %s exchange", planet, debilitationSignLord);
+            }
         }
         
     } catch (Exception e) {
-        System.err.println("⚠️ Error detecting Parivartana Neecha Bhanga: " + e.getMessage());
+        logger.warn("⚠️ Error detecting Parivartana Neecha Bhanga: {}", e.getMessage());
     }
     
     return yogas;
@@ -6935,7 +7231,7 @@ private List<Map<String, Object>> detectVasumatiYoga(Map<String, Double> positio
     List<Map<String, Object>> yogas = new ArrayList<>();
     
     try {
-        System.out.println("💰 Detecting Vasumati Yoga (Wealth Through Effort)...");
+        trace("💰 Detecting Vasumati Yoga (Wealth Through Effort)...");
         
         // Vasumati Yoga: Benefics in Upachaya houses (3,6,10,11) from Ascendant or Moon
         String[] benefics = {"Jupiter", "Venus", "Mercury", "Moon"};
@@ -6975,7 +7271,9 @@ private List<Map<String, Object>> detectVasumatiYoga(Map<String, Double> positio
             
             yogas.add(yoga);
             
-            System.out.printf("💰 DETECTED: Vasumati Yoga (ASC) - %d benefics in Upachaya%n", beneficsInUpachayaFromAsc);
+            if (tracing()) {
+                trace("💰 DETECTED: Vasumati Yoga (ASC) - %d benefics in Upachaya", beneficsInUpachayaFromAsc);
+            }
         }
         
         // Check from Moon
@@ -7019,7 +7317,7 @@ private List<Map<String, Object>> detectVasumatiYoga(Map<String, Double> positio
         }
         
     } catch (Exception e) {
-        System.err.println("⚠️ Error detecting Vasumati Yoga: " + e.getMessage());
+        logger.warn("⚠️ Error detecting Vasumati Yoga: {}", e.getMessage());
     }
     
     return yogas;
@@ -7032,7 +7330,7 @@ private List<Map<String, Object>> detectPushkalaYoga(Map<String, Double> positio
     List<Map<String, Object>> yogas = new ArrayList<>();
     
     try {
-        System.out.println("🌺 Detecting Pushkala Yoga (Prosperity & Abundance)...");
+        trace("🌺 Detecting Pushkala Yoga (Prosperity & Abundance)...");
         
         String ascendantLord = getHouseLordAdvanced(1, ascendant);
         if (ascendantLord == null) return yogas;
@@ -7067,7 +7365,9 @@ private List<Map<String, Object>> detectPushkalaYoga(Map<String, Double> positio
             
             yogas.add(yoga);
             
-            System.out.printf("🌺 DETECTED: Pushkala Yoga - %s strong in %s (H%d)%n", ascendantLord, ascLordSign, ascLordHouse);
+            if (tracing()) {
+                trace("🌺 DETECTED: Pushkala Yoga - %s strong in %s (H%d)", ascendantLord, ascLordSign, ascLordHouse);
+            }
         }
         
         // Type 2: Moon and Ascendant lord in mutual Kendras
@@ -7096,7 +7396,7 @@ private List<Map<String, Object>> detectPushkalaYoga(Map<String, Double> positio
         }
         
     } catch (Exception e) {
-        System.err.println("⚠️ Error detecting Pushkala Yoga: " + e.getMessage());
+        logger.warn("⚠️ Error detecting Pushkala Yoga: {}", e.getMessage());
     }
     
     return yogas;
@@ -7109,7 +7409,7 @@ private List<Map<String, Object>> detectMultiplePlanetWealthYogas(Map<String, Do
     List<Map<String, Object>> yogas = new ArrayList<>();
     
     try {
-        System.out.println("💎 Detecting Multiple Planet Wealth Yogas...");
+        trace("💎 Detecting Multiple Planet Wealth Yogas...");
         
         // Type 1: Three or more benefics in 2nd house
         int beneficsIn2nd = 0;
@@ -7146,7 +7446,9 @@ private List<Map<String, Object>> detectMultiplePlanetWealthYogas(Map<String, Do
             
             yogas.add(yoga);
             
-            System.out.printf("💎 DETECTED: Multiple Planet Wealth Yoga (2H) - %d benefics%n", beneficsIn2nd);
+            if (tracing()) {
+                trace("💎 DETECTED: Multiple Planet Wealth Yoga (2H) - %d benefics", beneficsIn2nd);
+            }
         }
         
         // Type 2: Multiple planets in 11th house (gains)
@@ -7221,7 +7523,7 @@ private List<Map<String, Object>> detectMultiplePlanetWealthYogas(Map<String, Do
         }
         
     } catch (Exception e) {
-        System.err.println("⚠️ Error detecting Multiple Planet Wealth Yogas: " + e.getMessage());
+        logger.warn("⚠️ Error detecting Multiple Planet Wealth Yogas: {}", e.getMessage());
     }
     
     return yogas;
@@ -8070,7 +8372,7 @@ private double calculateAspectStrength(double deviation, double allowedOrb) {
         return strengthPercentage;
         
     } catch (Exception e) {
-        System.err.println("⚠️ Error calculating aspect strength: " + e.getMessage());
+        logger.warn("⚠️ Error calculating aspect strength: {}", e.getMessage());
         return 0.0;
     }
 }
@@ -8088,7 +8390,7 @@ private double calculateAspectStrength(double deviation, double allowedOrb) {
  */
 private double normalizeAngle(double angle) {
     if (Double.isNaN(angle) || Double.isInfinite(angle)) {
-        System.err.println("⚠️ Invalid angle value for normalization: " + angle);
+        logger.warn("⚠️ Invalid angle value for normalization: {}", angle);
         return 0.0;
     }
     
@@ -8113,7 +8415,7 @@ private double normalizeAngle(double angle) {
         return normalizedAngle;
         
     } catch (Exception e) {
-        System.err.println("⚠️ Error normalizing angle " + angle + ": " + e.getMessage());
+        logger.warn("⚠️ Error normalizing angle {}: {}", angle, e.getMessage());
         return 0.0;
     }
 }
@@ -8129,7 +8431,7 @@ private List<Map<String, Object>> detectPapakartariYogas(Map<String, Double> pos
     List<Map<String, Object>> yogas = new ArrayList<>();
     
     try {
-        System.out.println("✂️ Detecting Papakartari Yogas (Malefic Hemming)...");
+        trace("✂️ Detecting Papakartari Yogas (Malefic Hemming)...");
         
         if (positions == null || Double.isNaN(ascendant)) {
             return yogas;
@@ -8196,8 +8498,10 @@ private List<Map<String, Object>> detectPapakartariYogas(Map<String, Double> pos
                 
                 yogas.add(yoga);
                 
-                System.out.printf("✂️ DETECTED: Papakartari Yoga affecting %s - %s & %s hemming%n", 
-                                houseName, secondHouseMalefic, twelfthHouseMalefic);
+                if (tracing()) {
+                    trace("✂️ DETECTED: Papakartari Yoga affecting %s - %s & %s hemming", 
+                                    houseName, secondHouseMalefic, twelfthHouseMalefic);
+                }
             }
         }
         
@@ -8260,11 +8564,13 @@ private List<Map<String, Object>> detectPapakartariYogas(Map<String, Double> pos
             }
         }
         
-        System.out.printf("✅ Detected %d Papakartari Yogas%n", yogas.size());
+        if (tracing()) {
+            trace("✅ Detected %d Papakartari Yogas", yogas.size());
+        }
         
     } catch (Exception e) {
-        System.err.println("💥 Error detecting Papakartari Yogas: " + e.getMessage());
-        e.printStackTrace();
+        logger.warn("💥 Error detecting Papakartari Yogas: {}", e.getMessage());
+        logger.debug("Stack trace", e);
     }
     
     return yogas;
@@ -8322,7 +8628,7 @@ private double calculateYogaRemedyEffectiveness(String yogaType, Double rarity)
         return Math.round(baseEffectiveness * 100.0) / 100.0; // Round to 2 decimal places
         
     } catch (Exception e) {
-        System.err.println("⚠️ Error calculating yoga remedy effectiveness: " + e.getMessage());
+        logger.warn("⚠️ Error calculating yoga remedy effectiveness: {}", e.getMessage());
         return 75.0; // Safe default
     }
 }
@@ -8393,7 +8699,7 @@ private String getOptimalYogaRemedyTiming(String yogaName) {
         return "Begin on auspicious days (Thursday/Friday), during waxing moon period, avoid eclipse days and malefic transits";
         
     } catch (Exception e) {
-        System.err.println("⚠️ Error determining optimal yoga remedy timing: " + e.getMessage());
+        logger.warn("⚠️ Error determining optimal yoga remedy timing: {}", e.getMessage());
         return "Consult qualified astrologer for specific timing guidance based on current planetary positions";
     }
 }
@@ -8448,7 +8754,7 @@ private String getYogaRemedyDuration(String yogaType, Boolean isVeryRare) {
         return baseDuration + " with regular daily practice and proper guidance";
         
     } catch (Exception e) {
-        System.err.println("⚠️ Error determining yoga remedy duration: " + e.getMessage());
+        logger.warn("⚠️ Error determining yoga remedy duration: {}", e.getMessage());
         return "6-12 months with consistent practice (consult astrologer for personalized timeline)";
     }
 }
@@ -8485,7 +8791,7 @@ private String getYogaRemedyCost(String yogaType) {
         return "₹10,000 - ₹30,000 (Basic gemstone therapy, yantra, mantras, and guidance) - Costs vary based on gem quality, puja complexity, and guidance level required";
         
     } catch (Exception e) {
-        System.err.println("⚠️ Error calculating yoga remedy cost: " + e.getMessage());
+        logger.warn("⚠️ Error calculating yoga remedy cost: {}", e.getMessage());
         return "₹10,000 - ₹25,000 (Consult qualified astrologer for detailed cost breakdown based on specific requirements)";
     }
 }
@@ -8567,7 +8873,7 @@ private String getExpectedYogaResults(String yogaName, String yogaType) {
         return "Gradual positive changes in relevant life areas, enhanced planetary benefits, reduced negative influences, overall life improvement";
         
     } catch (Exception e) {
-        System.err.println("⚠️ Error determining expected yoga results: " + e.getMessage());
+        logger.warn("⚠️ Error determining expected yoga results: {}", e.getMessage());
         return "Positive life improvements in areas governed by the yoga, results manifest gradually with consistent remedial practice";
     }
 }
@@ -9058,7 +9364,7 @@ private boolean needsHealthRemedies(String planet, String sign) {
         return false;
         
     } catch (Exception e) {
-        System.err.println("⚠️ Error checking health remedy needs: " + e.getMessage());
+        logger.warn("⚠️ Error checking health remedy needs: {}", e.getMessage());
         return true; // Safe default - recommend remedies when uncertain
     }
 }
@@ -9092,7 +9398,7 @@ private String getPlanetaryHealthArea(String planet) {
         return "General health influence - consult medical astrology texts for specific " + planet + " health correlations";
         
     } catch (Exception e) {
-        System.err.println("⚠️ Error getting planetary health area: " + e.getMessage());
+        logger.warn("⚠️ Error getting planetary health area: {}", e.getMessage());
         return "General health and constitutional strength";
     }
 }
@@ -9147,7 +9453,7 @@ private String getComprehensiveHealthRemedies(String planet, boolean isDebilitat
         return remedies.toString();
         
     } catch (Exception e) {
-        System.err.println("⚠️ Error generating comprehensive health remedies: " + e.getMessage());
+        logger.warn("⚠️ Error generating comprehensive health remedies: {}", e.getMessage());
         return "Practice yoga, meditation, healthy diet, and appropriate planetary remedies for " + planet;
     }
 }
@@ -9189,7 +9495,7 @@ private String getHealthDietaryGuidance(String planet) {
         return "Follow general healthy eating principles aligned with " + planet + " energy - consult Ayurvedic practitioner for personalized guidance";
         
     } catch (Exception e) {
-        System.err.println("⚠️ Error getting health dietary guidance: " + e.getMessage());
+        logger.warn("⚠️ Error getting health dietary guidance: {}", e.getMessage());
         return "Maintain balanced, nutritious diet with fresh, natural foods and adequate hydration for optimal health";
     }
 }
@@ -9232,7 +9538,7 @@ private Map<String, Object> createGeneralWellnessRemedy() {
         return generalWellness;
         
     } catch (Exception e) {
-        System.err.println("⚠️ Error creating general wellness remedy: " + e.getMessage());
+        logger.warn("⚠️ Error creating general wellness remedy: {}", e.getMessage());
         
         // Fallback simple remedy
         Map<String, Object> simpleWellness = new LinkedHashMap<>();
@@ -9305,11 +9611,13 @@ private String findDominantPlanet(Map<String, Double> siderealPositions) {
             }
         }
         
-        System.out.printf("🌟 Dominant Planet: %s (Strength: %.2f)%n", dominantPlanet, maxStrength);
+        if (tracing()) {
+            trace("🌟 Dominant Planet: %s (Strength: %.2f)", dominantPlanet, maxStrength);
+        }
         return dominantPlanet;
         
     } catch (Exception e) {
-        System.err.println("⚠️ Error finding dominant planet: " + e.getMessage());
+        logger.warn("⚠️ Error finding dominant planet: {}", e.getMessage());
         return "Jupiter"; // Safe default
     }
 }
@@ -9341,11 +9649,13 @@ private String findWeakestPlanet(Map<String, Double> siderealPositions) {
             }
         }
         
-        System.out.printf("🔻 Weakest Planet: %s (Strength: %.2f)%n", weakestPlanet, minStrength);
+        if (tracing()) {
+            trace("🔻 Weakest Planet: %s (Strength: %.2f)", weakestPlanet, minStrength);
+        }
         return weakestPlanet;
         
     } catch (Exception e) {
-        System.err.println("⚠️ Error finding weakest planet: " + e.getMessage());
+        logger.warn("⚠️ Error finding weakest planet: {}", e.getMessage());
         return "Saturn"; // Common challenging planet
     }
 }
@@ -9382,7 +9692,7 @@ private String getDominantPlanetLifestyle(String planet) {
         return lifestyleGuidance.getOrDefault(planet, "Align lifestyle with " + planet + " energy through appropriate practices and mindful living");
         
     } catch (Exception e) {
-        System.err.println("⚠️ Error getting dominant planet lifestyle: " + e.getMessage());
+        logger.warn("⚠️ Error getting dominant planet lifestyle: {}", e.getMessage());
         return "Practice balanced lifestyle aligned with your strongest planetary influence";
     }
 }
@@ -9419,7 +9729,7 @@ private String getDailyRoutineGuidance(String planet) {
         return routineGuidance.getOrDefault(planet, "Structure daily routine to align with " + planet + " energy patterns and natural rhythms");
         
     } catch (Exception e) {
-        System.err.println("⚠️ Error getting daily routine guidance: " + e.getMessage());
+        logger.warn("⚠️ Error getting daily routine guidance: {}", e.getMessage());
         return "Maintain consistent daily routine with proper balance of activity and rest";
     }
 }
@@ -9456,7 +9766,7 @@ private String getDietaryHabitsGuidance(String planet) {
         return dietaryGuidance.getOrDefault(planet, "Follow dietary habits that support " + planet + " energy and overall constitutional balance");
         
     } catch (Exception e) {
-        System.err.println("⚠️ Error getting dietary habits guidance: " + e.getMessage());
+        logger.warn("⚠️ Error getting dietary habits guidance: {}", e.getMessage());
         return "Maintain nutritious, balanced diet with fresh foods appropriate for your constitution";
     }
 }
@@ -9493,7 +9803,7 @@ private String getExerciseRoutineGuidance(String planet) {
         return exerciseGuidance.getOrDefault(planet, "Choose exercise routine that harmonizes with " + planet + " energy and supports overall well-being");
         
     } catch (Exception e) {
-        System.err.println("⚠️ Error getting exercise routine guidance: " + e.getMessage());
+        logger.warn("⚠️ Error getting exercise routine guidance: {}", e.getMessage());
         return "Maintain regular physical activity appropriate for your energy type and fitness level";
     }
 }
@@ -9530,7 +9840,7 @@ private String getSleepPatternGuidance(String planet) {
         return sleepGuidance.getOrDefault(planet, "Optimize sleep patterns to support " + planet + " energy balance and overall health");
         
     } catch (Exception e) {
-        System.err.println("⚠️ Error getting sleep pattern guidance: " + e.getMessage());
+        logger.warn("⚠️ Error getting sleep pattern guidance: {}", e.getMessage());
         return "Maintain consistent sleep schedule with quality rest for optimal physical and mental health";
     }
 }
@@ -9567,7 +9877,7 @@ private String getWeakPlanetBalancing(String planet) {
         return balancingGuidance.getOrDefault(planet, "Focus on strengthening " + planet + " qualities through appropriate practices and remedial measures");
         
     } catch (Exception e) {
-        System.err.println("⚠️ Error getting weak planet balancing: " + e.getMessage());
+        logger.warn("⚠️ Error getting weak planet balancing: {}", e.getMessage());
         return "Practice strengthening activities for your weakest planetary influence through targeted remedies";
     }
 }
@@ -9604,7 +9914,7 @@ private String getBehavioralChanges(String planet) {
         return behavioralGuidance.getOrDefault(planet, "Focus on developing balanced behaviors related to " + planet + " qualities through conscious awareness");
         
     } catch (Exception e) {
-        System.err.println("⚠️ Error getting behavioral changes: " + e.getMessage());
+        logger.warn("⚠️ Error getting behavioral changes: {}", e.getMessage());
         return "Practice mindful behavioral changes that promote personal growth and better relationships";
     }
 }
@@ -9641,7 +9951,7 @@ private String getSocialInteractionGuidance(String planet) {
         return socialGuidance.getOrDefault(planet, "Develop social interactions that honor " + planet + " energy while contributing positively to relationships");
         
     } catch (Exception e) {
-        System.err.println("⚠️ Error getting social interaction guidance: " + e.getMessage());
+        logger.warn("⚠️ Error getting social interaction guidance: {}", e.getMessage());
         return "Practice healthy social interactions that promote mutual growth and understanding";
     }
 }
@@ -9678,7 +9988,7 @@ private String getMindsetShiftsGuidance(String planet) {
         return mindsetGuidance.getOrDefault(planet, "Focus on mindset shifts that transform " + planet + " challenges into strengths and opportunities");
         
     } catch (Exception e) {
-        System.err.println("⚠️ Error getting mindset shifts guidance: " + e.getMessage());
+        logger.warn("⚠️ Error getting mindset shifts guidance: {}", e.getMessage());
         return "Practice positive mindset shifts that promote personal growth and spiritual development";
     }
 }
@@ -9767,7 +10077,7 @@ private Map<String, Object> createHolisticLifestyleRemedy(Map<String, Double> si
         return holisticRemedy;
         
     } catch (Exception e) {
-        System.err.println("⚠️ Error creating holistic lifestyle remedy: " + e.getMessage());
+        logger.warn("⚠️ Error creating holistic lifestyle remedy: {}", e.getMessage());
         
         // Fallback simple remedy
         Map<String, Object> simpleRemedy = new LinkedHashMap<>();
@@ -9837,7 +10147,7 @@ private double calculatePlanetaryStrength(String planet, double position, Map<St
         return Math.max(0.0, Math.min(100.0, strength));
         
     } catch (Exception e) {
-        System.err.println("⚠️ Error calculating planetary strength: " + e.getMessage());
+        logger.warn("⚠️ Error calculating planetary strength: {}", e.getMessage());
         return 50.0; // Default neutral strength
     }
 }
@@ -9851,14 +10161,22 @@ private double calculatePlanetaryStrength(String planet, double position, Map<St
  * 🔥 GET CURRENT TRANSITS (Real-time planetary positions)
  */
 public Map<String, Double> getCurrentTransits() {
+    return getTransitsAt(LocalDateTime.now());
+}
+
+/**
+ * Sidereal transit positions at a UTC instant, for callers generating content
+ * for a day other than today.
+ */
+public Map<String, Double> getTransitsAt(LocalDateTime utcTime) {
     try {
-        System.out.println("🌟 Calculating current planetary transits...");
+        if (tracing()) {
+            trace("🌟 Calculating planetary transits for %s...", utcTime);
+        }
         
         Map<String, Double> currentTransits = new HashMap<>();
         
-        // Calculate current Julian Day
-        LocalDateTime now = LocalDateTime.now();
-        double julianDay = toJulianDay(now);
+        double julianDay = toJulianDay(utcTime);
         
         // Calculate current planetary positions
         String[] planets = {"Sun", "Moon", "Mercury", "Venus", "Mars", "Jupiter", "Saturn", "Rahu", "Ketu"};
@@ -9872,21 +10190,25 @@ public Map<String, Double> getCurrentTransits() {
                     double siderealLongitude = convertToSidereal(tropicalLongitude, julianDay);
                     currentTransits.put(planet, siderealLongitude);
                     
-                    System.out.printf("🌟 %s: %.2f° in %s%n", 
-                        planet, siderealLongitude, getZodiacSignSafe(siderealLongitude));
+                    if (tracing()) {
+                        trace("🌟 %s: %.2f° in %s", 
+                            planet, siderealLongitude, getZodiacSignSafe(siderealLongitude));
+                    }
                 }
             } catch (Exception e) {
-                System.err.println("⚠️ Error calculating position for " + planet + ": " + e.getMessage());
+                logger.warn("⚠️ Error calculating position for {}: {}", planet, e.getMessage());
                 // Use fallback positions if calculation fails
                 currentTransits.put(planet, getFallbackPosition(planet));
             }
         }
         
-        System.out.printf("✅ Current transits calculated for %d planets%n", currentTransits.size());
+        if (tracing()) {
+            trace("✅ Current transits calculated for %d planets", currentTransits.size());
+        }
         return currentTransits;
         
     } catch (Exception e) {
-        System.err.println("❌ Error calculating current transits: " + e.getMessage());
+        logger.warn("❌ Error calculating current transits: {}", e.getMessage());
         return getFallbackTransits();
     }
 }
@@ -9898,7 +10220,7 @@ public List<String> analyzeTransits(Map<String, Object> natalChart, Map<String,
     List<String> influences = new ArrayList<>();
     
     try {
-        System.out.println("🔍 Analyzing planetary transits...");
+        trace("🔍 Analyzing planetary transits...");
         
         @SuppressWarnings("unchecked")
         Map<String, Double> natalPositions = (Map<String, Double>) natalChart.get("siderealPositions");
@@ -9926,11 +10248,13 @@ public List<String> analyzeTransits(Map<String, Object> natalChart, Map<String,
             influences.add("Transit influences favor gradual progress in all life areas");
         }
         
-        System.out.printf("✅ Analyzed %d transit influences%n", influences.size());
+        if (tracing()) {
+            trace("✅ Analyzed %d transit influences", influences.size());
+        }
         return influences;
         
     } catch (Exception e) {
-        System.err.println("⚠️ Error analyzing transits: " + e.getMessage());
+        logger.warn("⚠️ Error analyzing transits: {}", e.getMessage());
         return List.of("Planetary energies are in harmonious transition supporting overall well-being");
     }
 }
@@ -10042,14 +10366,14 @@ public List<Map<String, Object>> detectComprehensiveVedicYogas(Map<String, Objec
     List<Map<String, Object>> allYogas = new ArrayList<>();
     
     try {
-        System.out.println("🕉️ Detecting comprehensive Vedic yogas...");
+        trace("🕉️ Detecting comprehensive Vedic yogas...");
         
         @SuppressWarnings("unchecked")
         Map<String, Double> positions = (Map<String, Double>) vedicChart.get("siderealPositions");
         Double ascendant = positions.get("Ascendant");
         
         if (positions == null || ascendant == null) {
-            System.err.println("⚠️ Missing positions or ascendant for yoga detection");
+            logger.warn("⚠️ Missing positions or ascendant for yoga detection");
             return getGenericYogas();
         }
         
@@ -10060,11 +10384,13 @@ public List<Map<String, Object>> detectComprehensiveVedicYogas(Map<String, Objec
         allYogas.addAll(detectSpiritualYogas(positions, ascendant));
         allYogas.addAll(detectChallengingYogas(positions, ascendant));
         
-        System.out.printf("✅ Detected %d comprehensive yogas%n", allYogas.size());
+        if (tracing()) {
+            trace("✅ Detected %d comprehensive yogas", allYogas.size());
+        }
         return allYogas;
         
     } catch (Exception e) {
-        System.err.println("❌ Error detecting comprehensive yogas: " + e.getMessage());
+        logger.warn("❌ Error detecting comprehensive yogas: {}", e.getMessage());
         return getGenericYogas();
     }
 }
@@ -10076,7 +10402,7 @@ public Map<String, Object> calculateComprehensiveDashaAnalysis(User user, Map<St
     Map<String, Object> dashaAnalysis = new HashMap<>();
     
     try {
-        System.out.println("📅 Calculating comprehensive dasha analysis...");
+        trace("📅 Calculating comprehensive dasha analysis...");
         
         // Calculate current dasha periods
         Map<String, Object> currentDasha = calculateCurrentDashaPeriod(user, vedicChart);
@@ -10092,11 +10418,11 @@ public Map<String, Object> calculateComprehensiveDashaAnalysis(User user, Map<St
         dashaAnalysis.put("favorablePeriods", getFavorableDashaPeriods(currentMahadasha));
         dashaAnalysis.put("intensity", calculateDashaIntensity(currentMahadasha, currentAntardasha));
         
-        System.out.println("✅ Comprehensive dasha analysis completed");
+        trace("✅ Comprehensive dasha analysis completed");
         return dashaAnalysis;
         
     } catch (Exception e) {
-        System.err.println("❌ Error calculating comprehensive dasha analysis: " + e.getMessage());
+        logger.warn("❌ Error calculating comprehensive dasha analysis: {}", e.getMessage());
         return getGenericDashaAnalysis();
     }
 }
@@ -10108,37 +10434,53 @@ public List<Map<String, Object>> generatePersonalizedRemedies(User user, Map<Str
     List<Map<String, Object>> personalizedRemedies = new ArrayList<>();
     
     try {
-        System.out.println("💎 Generating personalized remedies...");
+        trace("💎 Generating personalized remedies...");
         
         @SuppressWarnings("unchecked")
         Map<String, Double> positions = (Map<String, Double>) vedicChart.get("siderealPositions");
         
         if (positions != null) {
-            // Generate remedies based on chart analysis
-            personalizedRemedies.addAll(generateGemstoneRemedies(positions, user));
-            personalizedRemedies.addAll(generateMantraRemedies(positions, user));
-            personalizedRemedies.addAll(generateHealthRemedies(positions, user));
-            personalizedRemedies.addAll(generateCareerRemedies(positions, user));
-            personalizedRemedies.addAll(generateRelationshipRemedies(positions, user));
-            personalizedRemedies.addAll(generateLifestyleRemedies(positions, user));
+            personalizedRemedies = selectCatalogRemedies(positions);
+        } else {
+            personalizedRemedies.add(remedyCatalog.generalWellness());
         }
         
-        // Add general wellness remedy if no specific remedies
-        if (personalizedRemedies.isEmpty()) {
-            personalizedRemedies.add(createGeneralWellnessRemedy());
+        if (tracing()) {
+            trace("✅ Generated %d personalized remedies", personalizedRemedies.size());
         }
-        
-        System.out.printf("✅ Generated %d personalized remedies%n", personalizedRemedies.size());
         return personalizedRemedies;
         
     } catch (Exception e) {
-        System.err.println("❌ Error generating personalized remedies: " + e.getMessage());
+        logger.warn("❌ Error generating personalized remedies: {}", e.getMessage());
         List<Map<String, Object>> fallbackRemedies = new ArrayList<>();
-        fallbackRemedies.add(createGeneralWellnessRemedy());
+        fallbackRemedies.add(remedyCatalog.generalWellness());
         return fallbackRemedies;
     }
 }
 
+/**
+ * Evaluates the chart features the remedy catalog is indexed by - presence,
+ * house and strength of each planet - and returns the catalog's ranked selection.
+ */
+private List<Map<String, Object>> selectCatalogRemedies(Map<String, Double> positions) {
+    int planetCount = RemedyCatalog.PLANETS.length;
+    boolean[] present = new boolean[planetCount];
+    int[] house = new int[planetCount];
+    double[] strength = new double[planetCount];
+    Double ascendant = positions.get("Ascendant");
+    
+    for (int p = 0; p < planetCount; p++) {
+        Double position = positions.get(RemedyCatalog.PLANETS[p]);
+        if (position == null) continue;
+        
+        present[p] = true;
+        house[p] = ascendant != null ? getHouseNumberAdvanced(position, ascendant) : 0;
+        strength[p] = calculatePlanetaryStrength(RemedyCatalog.PLANETS[p], position, positions);
+    }
+    
+    return remedyCatalog.select(present, house, strength, ascendant != null);
+}
+
 /**
  * 🔥 CALCULATE CURRENT DASHA PERIOD
  */
@@ -10157,8 +10499,7 @@ public Map<String, Object> calculateCurrentDashaPeriod(User user, Map<String, Ob
         
         if (moonPosition != null) {
             // Calculate birth nakshatra for dasha starting point
-            Map<String, Object> moonNakshatra = calculateAdvancedNakshatraInfo("Moon", moonPosition);
-            String startingDasha = (String) moonNakshatra.get("nakshatraLord");
+            String startingDasha = dashaStartingLord(moonPosition);
             
             // Calculate current dasha based on birth time and elapsed time
             LocalDateTime birthTime = user.getBirthDateTime();
@@ -10171,6 +10512,8 @@ public Map<String, Object> calculateCurrentDashaPeriod(User user, Map<String, Ob
             currentDasha.put("currentAntardasha", dashaCalc.antardasha);
             currentDasha.put("currentPratyantardasha", dashaCalc.pratyantardasha);
             currentDasha.put("mahadashaRemaining", dashaCalc.remainingDays + " days remaining");
+            currentDasha.put("mahadashaEndsAt", birthTime.plusDays(daysSinceBirth + dashaCalc.remainingDays));
+            currentDasha.put("nextPeriodBoundary", birthTime.plusDays(daysSinceBirth + dashaCalc.daysToNextBoundary));
             currentDasha.put("dashaInfluence", getDashaInfluence(dashaCalc.mahadasha));
             currentDasha.put("dashaRecommendation", getDashaRecommendation(dashaCalc.mahadasha));
         } else {
@@ -10180,11 +10523,38 @@ public Map<String, Object> calculateCurrentDashaPeriod(User user, Map<String, Ob
         return currentDasha;
         
     } catch (Exception e) {
-        System.err.println("⚠️ Error calculating current dasha period: " + e.getMessage());
+        logger.warn("⚠️ Error calculating current dasha period: {}", e.getMessage());
         return getGenericDashaInfo();
     }
 }
 
+/**
+ * Sidereal (Lahiri) longitude of {@code planet} at a UTC instant, from the
+ * same mean-motion model as {@link #getCurrentTransits}.
+ */
+public double siderealLongitudeAt(String planet, LocalDateTime utcTime) {
+    double julianDay = toJulianDay(utcTime);
+    return convertToSidereal(calculatePlanetPosition(planet, julianDay)[0], julianDay);
+}
+
+/**
+ * Lord of the first Vimshottari dasha for a natal Moon longitude.
+ */
+public String dashaStartingLord(double moonPosition) {
+    return (String) calculateAdvancedNakshatraInfo("Moon", moonPosition).get("nakshatraLord");
+}
+
+/**
+ * Mahadasha and antardasha lords on {@code day}, the same periods
+ * {@link #calculateCurrentDashaPeriod} reports, for callers that already know
+ * the starting lord and have no chart at hand.
+ */
+public String[] dashaLordsOn(String startingLord, LocalDateTime birthDateTime, LocalDate day) {
+    long daysSinceBirth = ChronoUnit.DAYS.between(birthDateTime, day.atTime(12, 0));
+    DashaCalculation dashaCalc = calculateDashaFromDays(startingLord, daysSinceBirth);
+    return new String[] {dashaCalc.mahadasha, dashaCalc.antardasha};
+}
+
 /**
  * 🔥 ANALYZE SPECIFIC TRANSIT INFLUENCE
  */
@@ -10372,12 +10742,14 @@ private static class DashaCalculation {
     String antardasha;
     String pratyantardasha;
     long remainingDays;
+    long daysToNextBoundary; // days until the antardasha or pratyantardasha changes
     
-    DashaCalculation(String maha, String antar, String pratyantar, long remaining) {
+    DashaCalculation(String maha, String antar, String pratyantar, long remaining, long daysToNextBoundary) {
         this.mahadasha = maha;
         this.antardasha = antar;
         this.pratyantardasha = pratyantar;
         this.remainingDays = remaining;
+        this.daysToNextBoundary = daysToNextBoundary;
     }
 }
 
@@ -10410,197 +10782,36 @@ private DashaCalculation calculateDashaFromDays(String startingDasha, long daysS
             String pratyantardasha = planets[(planetIndex + (int)(totalDays / (planetDays / 81))) % planets.length];
             long remaining = planetDays - totalDays;
             
-            return new DashaCalculation(mahadasha, antardasha, pratyantardasha, remaining);
-        }
-        
-        totalDays -= planetDays;
-    }
-    
-    // Fallback
-    return new DashaCalculation("Jupiter", "Jupiter", "Jupiter", 365L);
-}
-
-private List<Map<String, Object>> generateMantraRemedies(Map<String, Double> positions, User user) {
-    List<Map<String, Object>> remedies = new ArrayList<>();
-    
-    try {
-        Map<String, String> planetMantras = Map.ofEntries(
-            Map.entry("Sun", "Om Hraam Hreem Hraum Sah Suryaya Namah (108 times daily)"),
-            Map.entry("Moon", "Om Shraam Shreem Shraum Sah Chandraya Namah (108 times daily)"),
-            Map.entry("Mercury", "Om Braam Breem Braum Sah Buddhaya Namah (108 times daily)"),
-            Map.entry("Venus", "Om Draam Dreem Draum Sah Shukraya Namah (108 times daily)"),
-            Map.entry("Mars", "Om Kraam Kreem Kraum Sah Bhaumaya Namah (108 times daily)"),
-            Map.entry("Jupiter", "Om Graam Greem Graum Sah Guruve Namah (108 times daily)"),
-            Map.entry("Saturn", "Om Praam Preem Praum Sah Shanaye Namah (108 times daily)"),
-            Map.entry("Rahu", "Om Bhraam Bhreem Bhraum Sah Rahave Namah (108 times daily)"),
-            Map.entry("Ketu", "Om Sraam Sreem Sraum Sah Ketave Namah (108 times daily)")
-        );
-        
-        for (String planet : positions.keySet()) {
-            String mantra = planetMantras.get(planet);
-            if (mantra != null) {
-                Map<String, Object> remedy = new LinkedHashMap<>();
-                remedy.put("category", "Mantra & Yantra Remedies");
-                remedy.put("remedy", planet + " Strengthening Mantra");
-                remedy.put("instructions", mantra);
-                remedy.put("duration", "Daily for minimum 40 days");
-                remedy.put("effectiveness", 80.0);
-                remedy.put("priority", 2);
-                remedies.add(remedy);
-            }
-        }
-        
-    } catch (Exception e) {
-        System.err.println("⚠️ Error generating mantra remedies: " + e.getMessage());
-    }
-    
-    return remedies;
-}
-private List<Map<String, Object>> generateHealthRemedies(Map<String, Double> positions, User user) {
-    List<Map<String, Object>> remedies = new ArrayList<>();
-    
-    try {
-        // Analyze health-related planetary positions
-        Double ascendant = positions.get("Ascendant");
-        if (ascendant != null) {
-            // Check 6th house for health issues
-            Double mars = positions.get("Mars");
-            Double saturn = positions.get("Saturn");
-            
-            if (mars != null) {
-                int marsHouse = getHouseNumberAdvanced(mars, ascendant);
-                if (marsHouse == 6 || marsHouse == 8) {
-                    Map<String, Object> remedy = new LinkedHashMap<>();
-                    remedy.put("category", "Health & Wellness Remedies");
-                    remedy.put("remedy", "Mars Health Strengthening");
-                    remedy.put("instructions", "Practice Hanuman Chalisa daily, engage in regular physical exercise, avoid spicy foods on Tuesdays");
-                    remedy.put("effectiveness", 75.0);
-                    remedy.put("priority", 3);
-                    remedies.add(remedy);
-                }
+            // First day on which either sub-period index above rolls over (or the mahadasha ends)
+            long antardashaDays = planetDays / 9;
+            long pratyantardashaDays = planetDays / 81;
+            long nextBoundary = planetDays + 1;
+            if (antardashaDays > 0) {
+                nextBoundary = Math.min(nextBoundary, (totalDays / antardashaDays + 1) * antardashaDays);
             }
-            
-            // Add general health remedy
-            remedies.add(createGeneralWellnessRemedy());
-        }
-        
-    } catch (Exception e) {
-        System.err.println("⚠️ Error generating health remedies: " + e.getMessage());
-    }
-    
-    return remedies;
-}
-private List<Map<String, Object>> generateCareerRemedies(Map<String, Double> positions, User user) {
-    List<Map<String, Object>> remedies = new ArrayList<>();
-    
-    try {
-        Double ascendant = positions.get("Ascendant");
-        if (ascendant != null) {
-            // Check 10th house for career
-            Double saturn = positions.get("Saturn");
-            Double sun = positions.get("Sun");
-            
-            if (saturn != null) {
-                Map<String, Object> remedy = new LinkedHashMap<>();
-                remedy.put("category", "Career & Prosperity Remedies");
-                remedy.put("remedy", "Saturn Career Enhancement");
-                remedy.put("instructions", "Honor elders and authority figures, practice discipline in work, donate to charitable causes on Saturdays");
-                remedy.put("effectiveness", 78.0);
-                remedy.put("priority", 2);
-                remedies.add(remedy);
+            if (pratyantardashaDays > 0) {
+                nextBoundary = Math.min(nextBoundary, (totalDays / pratyantardashaDays + 1) * pratyantardashaDays);
             }
             
-            if (sun != null) {
-                Map<String, Object> remedy = new LinkedHashMap<>();
-                remedy.put("category", "Career & Prosperity Remedies");
-                remedy.put("remedy", "Sun Leadership Enhancement");
-                remedy.put("instructions", "Offer water to Sun at sunrise, develop leadership skills, maintain integrity in professional dealings");
-                remedy.put("effectiveness", 82.0);
-                remedy.put("priority", 2);
-                remedies.add(remedy);
-            }
-        }
-        
-    } catch (Exception e) {
-        System.err.println("⚠️ Error generating career remedies: " + e.getMessage());
-    }
-    
-    return remedies;
-}
-private List<Map<String, Object>> generateRelationshipRemedies(Map<String, Double> positions, User user) {
-    List<Map<String, Object>> remedies = new ArrayList<>();
-    
-    try {
-        Double venus = positions.get("Venus");
-        Double mars = positions.get("Mars");
-        
-        if (venus != null) {
-            Map<String, Object> remedy = new LinkedHashMap<>();
-            remedy.put("category", "Relationship Harmony Remedies");
-            remedy.put("remedy", "Venus Relationship Harmony");
-            remedy.put("instructions", "Worship Goddess Lakshmi on Fridays, wear white or pink colors, practice kindness and diplomacy in relationships");
-            remedy.put("effectiveness", 80.0);
-            remedy.put("priority", 2);
-            remedies.add(remedy);
+            return new DashaCalculation(mahadasha, antardasha, pratyantardasha, remaining, nextBoundary - totalDays);
         }
         
-        if (mars != null) {
-            Map<String, Object> remedy = new LinkedHashMap<>();
-            remedy.put("category", "Relationship Harmony Remedies");
-            remedy.put("remedy", "Mars Relationship Balance");
-            remedy.put("instructions", "Practice patience and anger management, avoid confrontations on Tuesdays, channel Mars energy constructively");
-            remedy.put("effectiveness", 75.0);
-            remedy.put("priority", 3);
-            remedies.add(remedy);
-        }
-        
-    } catch (Exception e) {
-        System.err.println("⚠️ Error generating relationship remedies: " + e.getMessage());
-    }
-    
-    return remedies;
-}
-private List<Map<String, Object>> generateLifestyleRemedies(Map<String, Double> positions, User user) {
-    List<Map<String, Object>> remedies = new ArrayList<>();
-    
-    try {
-        // Generate lifestyle remedies based on dominant planets
-        String dominantPlanet = findDominantPlanet(positions);
-        String weakestPlanet = findWeakestPlanet(positions);
-        
-        if (dominantPlanet != null) {
-            Map<String, Object> remedy = new LinkedHashMap<>();
-            remedy.put("category", "Lifestyle & Behavioral Remedies");
-            remedy.put("remedy", "Dominant Planet Lifestyle Alignment");
-            remedy.put("instructions", getDominantPlanetLifestyle(dominantPlanet));
-            remedy.put("effectiveness", 85.0);
-            remedy.put("priority", 1);
-            remedies.add(remedy);
-        }
-        
-        if (weakestPlanet != null) {
-            Map<String, Object> remedy = new LinkedHashMap<>();
-            remedy.put("category", "Lifestyle & Behavioral Remedies");
-            remedy.put("remedy", "Weak Planet Strengthening Lifestyle");
-            remedy.put("instructions", getWeakPlanetBalancing(weakestPlanet));
-            remedy.put("effectiveness", 78.0);
-            remedy.put("priority", 2);
-            remedies.add(remedy);
-        }
-        
-    } catch (Exception e) {
-        System.err.println("⚠️ Error generating lifestyle remedies: " + e.getMessage());
+        totalDays -= planetDays;
     }
     
-    return remedies;
+    // Fallback
+    return new DashaCalculation("Jupiter", "Jupiter", "Jupiter", 365L, 365L);
 }
+
 /**
  * 🔥 CALCULATE PLANET POSITION (Enhanced Implementation)
  * Calculates planetary position for given Julian Day using simplified ephemeris
  */
 private double[] calculatePlanetPosition(String planet, double julianDay) {
     try {
-        System.out.printf("🌍 Calculating position for %s at JD %.6f%n", planet, julianDay);
+        if (tracing()) {
+            trace("🌍 Calculating position for %s at JD %.6f", planet, julianDay);
+        }
         
         // Days since J2000.0 epoch (January 1, 2000, 12:00 TT)
         double daysSinceEpoch = julianDay - 2451545.0;
@@ -10635,7 +10846,7 @@ private double[] calculatePlanetPosition(String planet, double julianDay) {
         Double basePos = basePositions.get(planet);
         
         if (motion == null || basePos == null) {
-            System.err.printf("⚠️ Unknown planet: %s, using default position%n", planet);
+            logger.warn("⚠️ Unknown planet: {}, using default position", planet);
             return new double[]{0.0, 0.0, 1.0}; // longitude, latitude, distance
         }
         
@@ -10654,13 +10865,15 @@ private double[] calculatePlanetPosition(String planet, double julianDay) {
         // Calculate approximate distance (simplified)
         double distance = calculatePlanetaryDistance(planet, daysSinceEpoch);
         
-        System.out.printf("✅ %s position: %.6f° longitude, %.6f° latitude%n", 
-                         planet, longitude, latitude);
+        if (tracing()) {
+            trace("✅ %s position: %.6f° longitude, %.6f° latitude", 
+                             planet, longitude, latitude);
+        }
         
         return new double[]{longitude, latitude, distance};
         
     } catch (Exception e) {
-        System.err.printf("❌ Error calculating position for %s: %s%n", planet, e.getMessage());
+        logger.warn("❌ Error calculating position for {}: {}", planet, e.getMessage());
         return new double[]{0.0, 0.0, 1.0}; // Fallback position
     }
 }
@@ -10680,13 +10893,15 @@ private double convertToSidereal(double tropicalLongitude, double julianDay) {
         // Normalize to 0-360 degrees
         siderealLongitude = normalizeAngle(siderealLongitude);
         
-        System.out.printf("🔄 Converted %.6f° tropical to %.6f° sidereal (Ayanamsa: %.6f°)%n", 
-                         tropicalLongitude, siderealLongitude, ayanamsa);
+        if (tracing()) {
+            trace("🔄 Converted %.6f° tropical to %.6f° sidereal (Ayanamsa: %.6f°)", 
+                             tropicalLongitude, siderealLongitude, ayanamsa);
+        }
         
         return siderealLongitude;
         
     } catch (Exception e) {
-        System.err.printf("❌ Error converting to sidereal: %s%n", e.getMessage());
+        logger.warn("❌ Error converting to sidereal: {}", e.getMessage());
         // Fallback: subtract approximate current ayanamsa (24.14° as of 2025)
         return normalizeAngle(tropicalLongitude - 24.14);
     }
@@ -10724,7 +10939,7 @@ private double calculateLahiriAyanamsa(double julianDay) {
         return currentAyanamsa;
         
     } catch (Exception e) {
-        System.err.printf("⚠️ Error calculating Lahiri Ayanamsa: %s%n", e.getMessage());
+        logger.warn("⚠️ Error calculating Lahiri Ayanamsa: {}", e.getMessage());
         // Return approximate current ayanamsa for 2025
         return 24.14;
     }
@@ -10792,7 +11007,7 @@ private double addPlanetaryPerturbations(String planet, double longitude, double
         return longitude + perturbation;
         
     } catch (Exception e) {
-        System.err.printf("⚠️ Error calculating perturbations for %s: %s%n", planet, e.getMessage());
+        logger.warn("⚠️ Error calculating perturbations for {}: {}", planet, e.getMessage());
         return longitude;
     }
 }
@@ -0,0 +1,80 @@
+package com.cosmic.astrology.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Per-request calculation trace.
+ *
+ * Tracing is off unless a request explicitly starts it (see
+ * {@code ChartTraceFilter}); while it is off, {@link #isActive()} is a single
+ * thread-local read and {@link #record(String)} drops the line. Building the
+ * line is the caller's cost, so call sites check {@link #isActive()} before
+ * formatting anything. When it is on, every calculation stage appends one line
+ * that is returned with the response.
+ * Work handed to other threads joins the request's trace through
+ * {@link #propagate(Supplier)}.
+ */
+public final class ChartTrace {
+
+    /** Upper bound on captured lines so a runaway loop cannot blow up a response. */
+    public static final int MAX_ENTRIES = 2000;
+
+    private static final ThreadLocal<List<String>> CURRENT = new ThreadLocal<>();
+
+    private ChartTrace() {
+    }
+
+    public static void begin() {
+        CURRENT.set(Collections.synchronizedList(new ArrayList<>()));
+    }
+
+    public static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    public static void record(String message) {
+        List<String> entries = CURRENT.get();
+        if (entries != null && entries.size() < MAX_ENTRIES) {
+            entries.add(message);
+        }
+    }
+
+    /**
+     * Returns the lines captured so far on this thread, or an empty list when tracing is off.
+     */
+    public static List<String> snapshot() {
+        List<String> entries = CURRENT.get();
+        return entries != null ? Collections.unmodifiableList(new ArrayList<>(entries)) : Collections.emptyList();
+    }
+
+    /**
+     * Wraps a task so that, on whichever thread it runs, it records into the
+     * trace of the calling thread. Returns the task unchanged when tracing is off.
+     */
+    public static <T> Supplier<T> propagate(Supplier<T> task) {
+        List<String> entries = CURRENT.get();
+        if (entries == null) {
+            return task;
+        }
+        return () -> {
+            List<String> previous = CURRENT.get();
+            CURRENT.set(entries);
+            try {
+                return task.get();
+            } finally {
+                if (previous != null) {
+                    CURRENT.set(previous);
+                } else {
+                    CURRENT.remove();
+                }
+            }
+        };
+    }
+
+    public static void end() {
+        CURRENT.remove();
+    }
+}
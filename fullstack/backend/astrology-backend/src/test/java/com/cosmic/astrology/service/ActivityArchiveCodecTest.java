@@ -0,0 +1,140 @@
+package com.cosmic.astrology.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ActivityArchiveCodecTest {
+
+    @Test
+    void roundTripsNullColumnsAndNegativeDeltas() throws IOException {
+        List<ActivityArchiveCodec.Row> rows = Arrays.asList(
+                new ActivityArchiveCodec.Row(5_000_000_000L, 1_700_000_000L, "alice", "LOGIN", "MOBILE", "SUCCESS"),
+                // Ids and timestamps running backwards, and a timestamp before 1970
+                new ActivityArchiveCodec.Row(42L, 1_699_999_000L, null, null, null, null),
+                new ActivityArchiveCodec.Row(41L, -86_400L, "bob", "LOGIN", null, "FAILED"),
+                new ActivityArchiveCodec.Row(7L, 1_700_000_060L, "alice", null, "DESKTOP", "SUCCESS"));
+
+        byte[] archive = encode(rows);
+
+        List<ActivityArchiveCodec.Row> read = new ArrayList<>();
+        long visited = ActivityArchiveCodec.read(new ByteArrayInputStream(archive), null, collectInto(read));
+
+        assertEquals(rows.size(), visited);
+        assertRowsEqual(rows, read);
+        assertNull(read.get(1).username);
+        assertNull(read.get(1).activityType);
+    }
+
+    @Test
+    void readsOnlyTheRowsOfOneUserAcrossBlocks() throws IOException {
+        List<ActivityArchiveCodec.Row> first = Arrays.asList(
+                new ActivityArchiveCodec.Row(1L, 100L, "alice", "LOGIN", "MOBILE", "SUCCESS"),
+                new ActivityArchiveCodec.Row(2L, 110L, "bob", "LOGIN", "MOBILE", "SUCCESS"),
+                new ActivityArchiveCodec.Row(3L, 120L, null, "LOGIN", null, "SUCCESS"));
+        List<ActivityArchiveCodec.Row> second = Arrays.asList(
+                new ActivityArchiveCodec.Row(4L, 200L, "carol", "CHART_GENERATED", "DESKTOP", "SUCCESS"),
+                new ActivityArchiveCodec.Row(5L, 210L, "alice", "PROFILE_UPDATED", null, "SUCCESS"));
+        List<ActivityArchiveCodec.Row> third = Arrays.asList(
+                new ActivityArchiveCodec.Row(6L, 300L, "carol", "LOGIN", "MOBILE", "FAILED"));
+
+        byte[] archive = encode(first, second, third);
+
+        // Carol is missing from the first block, which has to be skipped without losing the stream position
+        List<ActivityArchiveCodec.Row> carol = new ArrayList<>();
+        assertEquals(2, ActivityArchiveCodec.read(new ByteArrayInputStream(archive), "carol", collectInto(carol)));
+        assertRowsEqual(Arrays.asList(second.get(0), third.get(0)), carol);
+
+        List<ActivityArchiveCodec.Row> alice = new ArrayList<>();
+        assertEquals(2, ActivityArchiveCodec.read(new ByteArrayInputStream(archive), "alice", collectInto(alice)));
+        assertRowsEqual(Arrays.asList(first.get(0), second.get(1)), alice);
+
+        List<ActivityArchiveCodec.Row> nobody = new ArrayList<>();
+        assertEquals(0, ActivityArchiveCodec.read(new ByteArrayInputStream(archive), "nobody", collectInto(nobody)));
+        assertTrue(nobody.isEmpty());
+    }
+
+    @Test
+    void rejectsOtherFiles() {
+        byte[] notAnArchive = {'G', 'I', 'F', '8', '9', 'a'};
+        assertThrows(IOException.class,
+                () -> ActivityArchiveCodec.read(new ByteArrayInputStream(notAnArchive), null, (id, second, user, type, device, status) -> { }));
+    }
+
+    @Test
+    void storesTypicalActivityInAFewBytesPerRow() throws IOException {
+        // Activity as the writer produces it: ids and timestamps ascending, a few hundred users
+        Random random = new Random(7);
+        String[] types = {"LOGIN", "LOGOUT", "CHART_GENERATED", "PROFILE_UPDATED", "HOROSCOPE_VIEWED"};
+        String[] devices = {"MOBILE", "DESKTOP", "TABLET", null};
+        List<ActivityArchiveCodec.Row> rows = new ArrayList<>();
+        long id = 1_000_000L;
+        long second = 1_704_067_200L;
+        for (int i = 0; i < 50_000; i++) {
+            id += 1 + random.nextInt(3);
+            second += random.nextInt(60);
+            rows.add(new ActivityArchiveCodec.Row(id, second, "user" + random.nextInt(500),
+                    types[random.nextInt(types.length)], devices[random.nextInt(devices.length)],
+                    random.nextInt(50) == 0 ? "FAILED" : "SUCCESS"));
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            ActivityArchiveCodec.writeHeader(out);
+            for (int from = 0; from < rows.size(); from += 16_384) {
+                ActivityArchiveCodec.writeBlock(out, rows.subList(from, Math.min(rows.size(), from + 16_384)));
+            }
+            ActivityArchiveCodec.writeEnd(out);
+        }
+
+        double bytesPerRow = (double) bytes.size() / rows.size();
+        assertTrue(bytesPerRow < 5.0, "archived at " + bytesPerRow + " bytes per row");
+
+        List<ActivityArchiveCodec.Row> read = new ArrayList<>();
+        ActivityArchiveCodec.read(new GZIPInputStream(new ByteArrayInputStream(bytes.toByteArray())), null, collectInto(read));
+        assertRowsEqual(rows, read);
+    }
+
+    @SafeVarargs
+    private static byte[] encode(List<ActivityArchiveCodec.Row>... blocks) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ActivityArchiveCodec.writeHeader(out);
+        for (List<ActivityArchiveCodec.Row> block : blocks) {
+            ActivityArchiveCodec.writeBlock(out, block);
+        }
+        ActivityArchiveCodec.writeEnd(out);
+        return out.toByteArray();
+    }
+
+    private static ActivityArchiveCodec.RowVisitor collectInto(List<ActivityArchiveCodec.Row> rows) {
+        return (id, epochSecond, username, activityType, deviceType, status) ->
+                rows.add(new ActivityArchiveCodec.Row(id, epochSecond, username, activityType, deviceType, status));
+    }
+
+    private static void assertRowsEqual(List<ActivityArchiveCodec.Row> expected, List<ActivityArchiveCodec.Row> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            ActivityArchiveCodec.Row want = expected.get(i);
+            ActivityArchiveCodec.Row got = actual.get(i);
+            assertEquals(want.id, got.id, "id of row " + i);
+            assertEquals(want.epochSecond, got.epochSecond, "timestamp of row " + i);
+            assertEquals(want.username, got.username, "username of row " + i);
+            assertEquals(want.activityType, got.activityType, "type of row " + i);
+            assertEquals(want.deviceType, got.deviceType, "device of row " + i);
+            assertEquals(want.status, got.status, "status of row " + i);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.cosmic.astrology.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ActivityColdArchiveTest {
+
+    @TempDir
+    Path directory;
+
+    private JdbcTemplate jdbcTemplate;
+    private ActivityColdArchive archive;
+    private long nextId = 1;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", ""));
+        jdbcTemplate.execute("CREATE TABLE activity_logs (id BIGINT PRIMARY KEY, username VARCHAR(50), " +
+                "activity_type VARCHAR(50), device_type VARCHAR(20), status VARCHAR(20), timestamp TIMESTAMP)");
+        archive = new ActivityColdArchive(jdbcTemplate, directory.toString(), 100, 0, 2);
+
+        // January and February are archived below, March stays live only
+        for (int day = 1; day <= 31; day++) {
+            insert("alice", "LOGIN", LocalDateTime.of(2024, 1, day, 9, 15));
+            insert("bob", "CHART_GENERATED", LocalDateTime.of(2024, 1, day, 21, 40));
+        }
+        for (int day = 1; day <= 29; day++) {
+            insert("alice", "CHART_GENERATED", LocalDateTime.of(2024, 2, day, 10, 0));
+        }
+        for (int day = 1; day <= 10; day++) {
+            insert("alice", "LOGIN", LocalDateTime.of(2024, 3, day, 8, 30));
+            insert("bob", "LOGIN", LocalDateTime.of(2024, 3, day, 8, 45));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        archive.shutdown();
+    }
+
+    @Test
+    void countsArchivedMonthsOnceWhileTheirRowsAwaitThePurge() throws Exception {
+        LocalDateTime archivedUpTo = archive.archiveBefore(LocalDateTime.of(2024, 3, 5, 0, 0), () -> false);
+        assertEquals(LocalDateTime.of(2024, 3, 1, 0, 0), archivedUpTo);
+
+        // Nothing purged yet: January and February are both in the files and in activity_logs
+        ActivityColdArchive.Aggregate beforePurge = archive.aggregate(null, null, null);
+        assertEquals(62 + 29 + 20, beforePurge.getTotal());
+        assertEquals(51L, beforePurge.getByType().get("LOGIN"));
+        assertEquals(60L, beforePurge.getByType().get("CHART_GENERATED"));
+        assertEquals(LocalDateTime.of(2024, 1, 1, 9, 15), beforePurge.getFirstActivity());
+        assertEquals(LocalDateTime.of(2024, 3, 10, 8, 45), beforePurge.getLastActivity());
+
+        jdbcTemplate.update("DELETE FROM activity_logs WHERE timestamp < ?", Timestamp.valueOf(archivedUpTo));
+
+        ActivityColdArchive.Aggregate afterPurge = archive.aggregate(null, null, null);
+        assertEquals(beforePurge.getTotal(), afterPurge.getTotal());
+        assertEquals(beforePurge.getByType(), afterPurge.getByType());
+    }
+
+    @Test
+    void aggregatesOneUserOverArchivedAndLiveRange() throws Exception {
+        archive.archiveBefore(LocalDateTime.of(2024, 3, 5, 0, 0), () -> false);
+
+        // February 20 to March 5 spans an archived month and the live rows after it
+        ActivityColdArchive.Aggregate alice = archive.aggregate("alice",
+                LocalDateTime.of(2024, 2, 20, 0, 0), LocalDateTime.of(2024, 3, 5, 0, 0));
+        assertEquals(10 + 4, alice.getTotal());
+        assertEquals(10L, alice.getByType().get("CHART_GENERATED"));
+        assertEquals(4L, alice.getByType().get("LOGIN"));
+        assertEquals(10L, alice.getByHour()[10]);
+        assertEquals(4L, alice.getByHour()[8]);
+
+        ActivityColdArchive.Aggregate bob = archive.aggregate("bob", null, null);
+        assertEquals(31 + 10, bob.getTotal());
+        assertEquals(31L, bob.getByType().get("CHART_GENERATED"));
+        assertEquals(10L, bob.getByType().get("LOGIN"));
+    }
+
+    private void insert(String username, String type, LocalDateTime timestamp) {
+        jdbcTemplate.update("INSERT INTO activity_logs (id, username, activity_type, device_type, status, timestamp) " +
+                "VALUES (?, ?, ?, ?, ?, ?)", nextId++, username, type, "MOBILE", "SUCCESS", Timestamp.valueOf(timestamp));
+    }
+}
@@ -0,0 +1,162 @@
+package com.cosmic.astrology.service;
+
+import com.cosmic.astrology.entity.OutboundEmail;
+import com.cosmic.astrology.repository.EmailOutboxRepository;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = {
+        "spring.jpa.database=h2",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+// The outbox drains outside any transaction, so every repository call here commits on its own
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class EmailOutboxTest {
+
+    private static final int BATCH_SIZE = 2;
+    private static final long RETRY_BASE_SECONDS = 30;
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    @Autowired
+    private EmailOutboxRepository outboxRepository;
+
+    private EmailOutbox outbox;
+
+    @AfterEach
+    void tearDown() {
+        if (outbox != null) {
+            outbox.shutdown();
+        }
+        outboxRepository.deleteAll();
+    }
+
+    @Test
+    void sendsDueMailInBatchesAndMarksItSent() throws Exception {
+        outbox = outboxFor(greenMail.getSmtp().getPort());
+        queue("ada@example.com", "bob@example.com", "cy@example.com");
+
+        outbox.drain();
+
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertEquals(3, received.length);
+        assertEquals("Your chart is ready", received[0].getSubject());
+        assertEquals(3, outboxRepository.countByStatus(OutboundEmail.STATUS_SENT));
+        assertEquals(0, outboxRepository.countByStatus(OutboundEmail.STATUS_PENDING));
+
+        Map<String, Object> status = outbox.status();
+        assertEquals(3L, status.get("sent"));
+        // Three messages with a batch size of two take two SMTP batches
+        assertEquals(2L, status.get("batches"));
+        assertEquals(0L, status.get("retried"));
+    }
+
+    @Test
+    void backsOffAndStopsDrainingWhenNoMessageGetsThrough() throws Exception {
+        outbox = outboxFor(unusedPort());
+        queue("ada@example.com", "bob@example.com", "cy@example.com", "dee@example.com", "eve@example.com");
+        LocalDateTime before = LocalDateTime.now();
+
+        outbox.drain();
+
+        // The first batch failed as a whole, so the drain left the other three for the next run
+        List<OutboundEmail> attempted = outboxRepository.findAll().stream()
+                .filter(email -> email.getAttempts() > 0)
+                .collect(Collectors.toList());
+        assertEquals(BATCH_SIZE, attempted.size());
+        for (OutboundEmail email : attempted) {
+            assertEquals(1, email.getAttempts());
+            assertNotNull(email.getLastError());
+            assertTrue(email.getNextAttemptAt().isAfter(before.plusSeconds(RETRY_BASE_SECONDS - 5)),
+                    "next attempt at " + email.getNextAttemptAt());
+        }
+        assertEquals(5, outboxRepository.countByStatus(OutboundEmail.STATUS_PENDING));
+        // Only the untouched three are due before the backoff runs out
+        assertEquals(3, outboxRepository.findDue(LocalDateTime.now(), PageRequest.of(0, 10)).size());
+
+        Map<String, Object> status = outbox.status();
+        assertEquals(1L, status.get("batches"));
+        assertEquals(2L, status.get("retried"));
+        assertEquals(0L, status.get("sent"));
+    }
+
+    @Test
+    void purgesOnlySentMailPastTheRetention() {
+        outbox = outboxFor(greenMail.getSmtp().getPort());
+        LocalDateTime now = LocalDateTime.now();
+        OutboundEmail expired = email("old@example.com", OutboundEmail.STATUS_SENT, now.minusHours(30));
+        OutboundEmail recent = email("new@example.com", OutboundEmail.STATUS_SENT, now.minusHours(1));
+        OutboundEmail pending = email("later@example.com", OutboundEmail.STATUS_PENDING, null);
+        pending.setCreatedAt(now.minusHours(48));
+        outboxRepository.saveAll(Arrays.asList(expired, recent, pending));
+
+        outbox.purgeSent();
+
+        List<String> left = outboxRepository.findAll().stream()
+                .map(OutboundEmail::getRecipient)
+                .sorted()
+                .collect(Collectors.toList());
+        assertEquals(Arrays.asList("later@example.com", "new@example.com"), left);
+        assertEquals(1L, outbox.status().get("purged"));
+    }
+
+    private EmailOutbox outboxFor(int smtpPort) {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(smtpPort);
+        StaticListableBeanFactory beans = new StaticListableBeanFactory(
+                Collections.singletonMap("mailSender", mailSender));
+        return new EmailOutbox(outboxRepository, beans.getBeanProvider(JavaMailSender.class),
+                5000, BATCH_SIZE, 3, RETRY_BASE_SECONDS, 3600, 24);
+    }
+
+    private void queue(String... recipients) {
+        for (String recipient : recipients) {
+            outboxRepository.save(email(recipient, OutboundEmail.STATUS_PENDING, null));
+        }
+    }
+
+    private static OutboundEmail email(String recipient, String status, LocalDateTime sentAt) {
+        OutboundEmail email = new OutboundEmail();
+        email.setSender("noreply@example.com");
+        email.setRecipient(recipient);
+        email.setSubject("Your chart is ready");
+        email.setBody("Sign in to see your natal chart.");
+        email.setStatus(status);
+        email.setSentAt(sentAt);
+        return email;
+    }
+
+    private static int unusedPort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}